@@ -0,0 +1,99 @@
+package com.productlayer.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productlayer.core.beans.BaseObject;
+import com.productlayer.core.beans.Product;
+import com.productlayer.core.beans.Review;
+import com.productlayer.rest.client.helper.ConversionTool;
+
+/**
+ * Deserialization of products, reviews and timelines as done by the JSON
+ * converter of the {@code PLYRestClient}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    /**
+     * A timeline response of the maximum or a typical page size.
+     */
+    @State(Scope.Benchmark)
+    public static class Timeline {
+
+        @Param({ "20", "200" })
+        public int size;
+
+        private byte[] bytes;
+
+        @Setup
+        public void setup() {
+            bytes = Payloads.timeline(size).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private ObjectMapper mapper;
+    private String productJson;
+    private byte[] productBytes;
+    private byte[] reviewBytes;
+    private Product product;
+
+    @Setup
+    public void setup() {
+        mapper = ConversionTool.getObjectMapper();
+        productJson = Payloads.product();
+        productBytes = productJson.getBytes(StandardCharsets.UTF_8);
+        reviewBytes = Payloads.review().getBytes(StandardCharsets.UTF_8);
+        product = ConversionTool.parseObject(productBytes, Product.class);
+    }
+
+    @Benchmark
+    public Product parseObjectProductString() {
+        return ConversionTool.parseObject(productJson, Product.class);
+    }
+
+    @Benchmark
+    public Product readProduct() throws IOException {
+        return mapper.readValue(productBytes, Product.class);
+    }
+
+    @Benchmark
+    public Review readReview() throws IOException {
+        return mapper.readValue(reviewBytes, Review.class);
+    }
+
+    @Benchmark
+    public BaseObject readPolymorphicProduct() throws IOException {
+        return mapper.readValue(productBytes, BaseObject.class);
+    }
+
+    @Benchmark
+    public BaseObject[] readTimeline(Timeline timeline) throws IOException {
+        return mapper.readValue(timeline.bytes, BaseObject[].class);
+    }
+
+    @Benchmark
+    public byte[] writeProduct() throws IOException {
+        return mapper.writeValueAsBytes(product);
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.productlayer.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.productlayer.core.beans.Product;
+import com.productlayer.core.beans.ResultSetWithCursor;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.config.PLYRestClientConfig;
+import com.productlayer.rest.client.services.ProductService;
+import com.productlayer.rest.client.services.TimelineService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Complete requests through the {@code PLYRestClient} (URL building, pooled
+ * HTTP connections, header handling and deserialization) against an
+ * in-process stub server on the loopback interface.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExchangeBenchmark {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private PLYRestClient client;
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] product = Payloads.product().getBytes(StandardCharsets.UTF_8);
+        final byte[] timeline = Payloads.timeline(50).getBytes(StandardCharsets.UTF_8);
+
+        // send small responses immediately instead of waiting for delayed
+        // ACKs of the previous segment (must be set before the first server
+        // is created)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/0.5/product/", exchange -> respond(exchange, product));
+        server.createContext("/0.5/timeline/", exchange -> respond(exchange, timeline));
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        PLYRestClientConfig config = new PLYRestClientConfig();
+        config.apiSchema = "http";
+        config.apiHost = "127.0.0.1";
+        config.apiPort = server.getAddress().getPort();
+        config.apiVersion = "0.5";
+        client = new PLYRestClient(config);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Product getProductForGtin() {
+        return ProductService.getProductForGtin(client, "9001234567897", "de", null, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Product getProductForGtinConcurrent() {
+        return ProductService.getProductForGtin(client, "9001234567897", "de", null, null);
+    }
+
+    @Benchmark
+    public ResultSetWithCursor getProductTimeline() {
+        return TimelineService.getProductTimeline(client, "9001234567897", 50, null, null, null, null, null,
+                null, null);
+    }
+
+}
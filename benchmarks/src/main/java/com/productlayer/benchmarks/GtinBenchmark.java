@@ -0,0 +1,81 @@
+package com.productlayer.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.productlayer.core.logic.ProductLogic;
+import com.productlayer.core.utils.Base64;
+import com.productlayer.core.utils.GTINValidator;
+
+/**
+ * Validation and normalization of scanned codes and the encoding of basic
+ * authentication credentials.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GtinBenchmark {
+
+    /**
+     * A mix of GTIN-8, UPC-A, EAN-13 and GTIN-14 codes, codes with leading
+     * zeros and invalid or restricted codes as found in scans and supplier
+     * feeds.
+     */
+    private static final String[] CODES = { "96385074", "036000291452", "9001234567897", "4006381333931",
+            "10012345678902", "00000096385074", "0036000291452", "9001234567890", "2001234567893",
+            "400638133393", "ABC4006381333", "04006381333931" };
+
+    /**
+     * The codes of {@link #CODES} consisting of digits only, accepted by
+     * {@link ProductLogic#createFull14DigitsGTIN(String)}.
+     */
+    private static final String[] DIGIT_CODES = { "96385074", "036000291452", "9001234567897",
+            "4006381333931", "10012345678902", "00000096385074", "0036000291452", "9001234567890",
+            "2001234567893", "400638133393", "04006381333931" };
+
+    private final String credentials = "scanner42@example.com:correct horse battery staple";
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void isValidGTIN(Blackhole blackhole) {
+        for (String code : CODES) {
+            blackhole.consume(GTINValidator.isValidGTIN(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(11)
+    public void createFull14DigitsGTIN(Blackhole blackhole) {
+        for (String code : DIGIT_CODES) {
+            blackhole.consume(ProductLogic.createFull14DigitsGTIN(code));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void trimleadingZeros(Blackhole blackhole) {
+        for (String code : CODES) {
+            blackhole.consume(ProductLogic.trimleadingZeros(code));
+        }
+    }
+
+    @Benchmark
+    public String base64EncodeString() {
+        return Base64.encodeString(credentials);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.productlayer.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Realistic API responses used as benchmark input.
+ */
+public class Payloads {
+
+    /**
+     * @return the JSON of a fully populated product
+     */
+    public static String product() {
+        return read("/payloads/product.json");
+    }
+
+    /**
+     * @return the JSON of a review
+     */
+    public static String review() {
+        return read("/payloads/review.json");
+    }
+
+    /**
+     * Builds a timeline alternating between products and reviews.
+     *
+     * @param size
+     *            the number of items of the timeline
+     * @return the JSON array of the timeline items
+     */
+    public static String timeline(int size) {
+        String product = product();
+        String review = review();
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(i % 2 == 0 ? product : review);
+        }
+        return builder.append(']').toString();
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Payloads.class.getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + resource, e);
+        }
+    }
+
+    private Payloads() {
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.productlayer.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.productlayer.rest.client.helper.UrlHelper;
+
+/**
+ * Building request URLs as done by the service methods and the timeline
+ * cursors.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlHelperBenchmark {
+
+    private Map<String, String> searchParameters;
+    private Map<String, String> cursorParameters;
+    private String timelineUrl;
+
+    @Setup
+    public void setup() {
+        searchParameters = new HashMap<String, String>();
+        searchParameters.put("language", "de");
+        searchParameters.put("gtin", "9001234567897");
+        searchParameters.put("page", "2");
+        searchParameters.put("records_per_page", "50");
+        searchParameters.put("order_by", "pl-prod-name_asc");
+        searchParameters.put("fetch_only", "pl-prod-name,pl-prod-gtin,pl-prod-img");
+
+        cursorParameters = new HashMap<String, String>();
+        cursorParameters.put("until_id", "5551a3c4e4b0a7f2c9d41e77");
+
+        timelineUrl = "/timeline/product/9001234567897?count=50&opines=true&reviews=true&images=false"
+                + "&since_id=544a1b0ce4b0f8e6a5e35f0c";
+    }
+
+    @Benchmark
+    public String addQueryParameterPlaceholderToUrl() {
+        return UrlHelper.addQueryParameterPlaceholderToUrl("/products", searchParameters);
+    }
+
+    @Benchmark
+    public String addQueryParameterToUrl() {
+        return UrlHelper.addQueryParameterToUrl("/products", searchParameters);
+    }
+
+    @Benchmark
+    public String replaceQueryParameterInUrl() {
+        return UrlHelper.replaceQueryParameterInUrl(timelineUrl, cursorParameters);
+    }
+
+}
@@ -48,16 +48,32 @@ public class ProductLogic {
             return null;
         }
 
-        if (gtin.matches("^[0-9]{1,14}$")) {
-            for (int i = gtin.length(); i < 14; i++) {
-                gtin = "0" + gtin;
-            }
-
-            return gtin;
-        } else {
+        final int length = gtin.length();
+        if (length > 14 || !isNumeric(gtin)) {
             throw new PLYHttpException(new ErrorMessage(PLYStatusCodes.PRODUCT_GTIN_NOT_VALID),
                     PLYStatusCodes.HTTP_STATUS_BAD_REQUEST_CODE);
         }
+        if (length == 14) {
+            return gtin;
+        }
+
+        char[] digits = new char[14];
+        final int padding = 14 - length;
+        for (int i = 0; i < padding; i++) {
+            digits[i] = '0';
+        }
+        gtin.getChars(0, length, digits, padding);
+        return new String(digits);
+    }
+
+    private static boolean isNumeric(String gtin) {
+        for (int i = 0; i < gtin.length(); i++) {
+            char c = gtin.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -68,7 +84,12 @@ public class ProductLogic {
      * @return The GTIN without any leading zeros
      */
     public static String trimleadingZeros(String sGTIN) {
-        return sGTIN.replaceFirst("^0+(?!$)", "");
+        int start = 0;
+        // keep the last digit of a GTIN consisting of zeros only
+        while (start < sGTIN.length() - 1 && sGTIN.charAt(start) == '0') {
+            start++;
+        }
+        return start == 0 ? sGTIN : sGTIN.substring(start);
     }
 
 }
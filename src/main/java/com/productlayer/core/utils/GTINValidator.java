@@ -13,26 +13,39 @@
  * 
  * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
  * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
- * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
- * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
- * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
- * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
- * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
- * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
- * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
  */
 package com.productlayer.core.utils;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import com.productlayer.core.logic.ProductLogic;
 
 /**
  * Validates product GTINs (barcodes).
+ * 
+ * All checks run in a single pass over the characters without regular
+ * expressions, substrings or copies: leading zeros are skipped, the digits,
+ * the check digit and the prefix are verified at once. Besides strings, GTINs
+ * can be validated within any {@link CharSequence} or ASCII encoded bytes and
+ * may be encoded as a primitive {@code long} holding the numeric value of the
+ * 14 digits GTIN.
  */
 public final class GTINValidator {
 
+    /**
+     * The value of {@link #encode(CharSequence)} if the GTIN is not valid.
+     */
+    public static final long INVALID = -1L;
+
     /**
      * The restricted distribution GTIN prefixes. These GTINs are currently not
      * supported.
@@ -49,17 +62,56 @@ public final class GTINValidator {
             "297", "298", "299" };
 
     /**
-     * Checks if the characters are all numeric.
-     * 
-     * @param aChars
-     *            The character array
-     * @return True if all characters are numeric, otherwise false
+     * The restricted distribution prefixes indexed by their numeric value.
      */
-    private static boolean _isNumeric(final char[] aChars) {
-        for (final char c : aChars)
-            if (!Character.isDigit(c))
-                return false;
-        return true;
+    private static final boolean[] restrictedPrefixTable = new boolean[1000];
+
+    static {
+        for (String prefix : restrictedDistributionPrefix) {
+            restrictedPrefixTable[Integer.parseInt(prefix)] = true;
+        }
+    }
+
+    private static final int[] prefixDigitWeights = { 100, 10, 1 };
+
+    /**
+     * A reusable view of ASCII encoded bytes as characters.
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private ByteBuffer buffer;
+        private int offset;
+        private int length;
+
+        private AsciiSequence set(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(offset + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiSequence().set(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
     }
 
     /**
@@ -92,14 +144,73 @@ public final class GTINValidator {
     }
 
     /**
-     * Checks if the checksum is valid.
+     * Checks the digits, check digit and prefix of a GTIN in one pass.
      * 
-     * @param aChars
-     *            The character array
-     * @return True if it's a valid checksum, otherwise false
+     * @param gtin
+     *            The characters containing the GTIN
+     * @param start
+     *            The index of the first digit
+     * @param end
+     *            The index after the last digit
+     * @param paddedLength
+     *            The length (8 or 14) the GTIN is padded to with leading zeros
+     *            to determine the prefix
+     * @param prefixStart
+     *            The index of the first prefix digit within the padded GTIN
+     * @return The numeric value of the GTIN, or {@link #INVALID}
      */
-    private static boolean _isValidChecksum(final char[] aChars) {
-        return calcChecksum(aChars, aChars.length - 1) == _getDigit(aChars[aChars.length - 1]);
+    private static long check(final CharSequence gtin, final int start, final int end,
+            final int paddedLength, final int prefixStart) {
+        final int length = end - start;
+        final int padding = paddedLength - length;
+        long value = 0;
+        int checksum = 0;
+        int prefix = 0;
+        int digit = 0;
+        for (int i = 0; i < length; i++) {
+            digit = gtin.charAt(start + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+            if (i < length - 1) {
+                // the digit next to the check digit has a weight of 3
+                checksum += ((length - 2 - i) & 1) == 0 ? 3 * digit : digit;
+            }
+            int prefixIndex = padding + i - prefixStart;
+            if (prefixIndex >= 0 && prefixIndex < 3) {
+                prefix += digit * prefixDigitWeights[prefixIndex];
+            }
+        }
+        if ((10 - checksum % 10) % 10 != digit || restrictedPrefixTable[prefix]) {
+            return INVALID;
+        }
+        return value;
+    }
+
+    /**
+     * @param gtin
+     *            The characters containing the GTIN
+     * @param start
+     *            The index of the first character
+     * @param end
+     *            The index after the last character
+     * @return The index of the first character that is not a leading zero,
+     *         keeping at least one character
+     */
+    private static int skipLeadingZeros(final CharSequence gtin, int start, final int end) {
+        while (start < end - 1 && gtin.charAt(start) == '0') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Checks a GTIN of exactly {@code length} characters.
+     */
+    private static boolean isValidGTIN(final CharSequence gtin, final int length, final int paddedLength,
+            final int prefixStart) {
+        return gtin.length() == length && check(gtin, 0, length, paddedLength, prefixStart) != INVALID;
     }
 
     /**
@@ -110,17 +221,7 @@ public final class GTINValidator {
      * @return True if it's a valid GTIN 8, otherwise false
      */
     public static boolean isValidGTIN8(final String sGTIN8) {
-        if (sGTIN8.length() != 8)
-            return false;
-        final char[] aChars = sGTIN8.toCharArray();
-        if (!_isNumeric(aChars))
-            return false;
-
-        if (!isValidPrefix(getPrefixGTIN8(sGTIN8))) {
-            return false;
-        }
-
-        return _isValidChecksum(aChars);
+        return isValidGTIN(sGTIN8, 8, 8, 0);
     }
 
     /**
@@ -131,15 +232,7 @@ public final class GTINValidator {
      * @return True if it's a valid GTIN 12, otherwise false
      */
     public static boolean isValidGTIN12(final String sGTIN12) {
-        if (sGTIN12.length() != 12)
-            return false;
-        final char[] aChars = sGTIN12.toCharArray();
-        if (!_isNumeric(aChars))
-            return false;
-        if (!isValidPrefix(getPrefix(sGTIN12))) {
-            return false;
-        }
-        return _isValidChecksum(aChars);
+        return isValidGTIN12or13(sGTIN12, 12);
     }
 
     /**
@@ -150,16 +243,16 @@ public final class GTINValidator {
      * @return True if it's a valid GTIN 13, otherwise false
      */
     public static boolean isValidGTIN13(final String sGTIN13) {
+        return isValidGTIN12or13(sGTIN13, 13);
+    }
 
-        if (sGTIN13.length() != 13)
-            return false;
-        final char[] aChars = sGTIN13.toCharArray();
-        if (!_isNumeric(aChars))
-            return false;
-        if (!isValidPrefix(getPrefix(sGTIN13))) {
+    private static boolean isValidGTIN12or13(final String sGTIN, final int length) {
+        if (sGTIN.length() != length) {
             return false;
         }
-        return _isValidChecksum(aChars);
+        // the prefix is determined as by getPrefix(String)
+        int significantDigits = length - skipLeadingZeros(sGTIN, 0, length);
+        return significantDigits <= 8 ? isValidGTIN(sGTIN, length, 8, 0) : isValidGTIN(sGTIN, length, 14, 1);
     }
 
     /**
@@ -170,15 +263,7 @@ public final class GTINValidator {
      * @return True if it's a valid GTIN 14, otherwise false
      */
     public static boolean isValidGTIN14(final String sGTIN14) {
-        if (sGTIN14.length() != 14)
-            return false;
-        final char[] aChars = sGTIN14.toCharArray();
-        if (!_isNumeric(aChars))
-            return false;
-        if (!isValidPrefix(getPrefixGTIN14(sGTIN14))) {
-            return false;
-        }
-        return _isValidChecksum(aChars);
+        return isValidGTIN(sGTIN14, 14, 14, 1);
     }
 
     /**
@@ -189,31 +274,183 @@ public final class GTINValidator {
      * @return True if the GTIN is valid, otherwise false
      */
     public static boolean isValidGTIN(final String sGTIN) {
+        return encode(sGTIN) != INVALID;
+    }
 
-        if (StringUtils.isEmpty(sGTIN)) {
-            return false;
+    /**
+     * Checks if a range of characters is a valid GTIN.
+     * 
+     * @param gtin
+     *            The characters containing the GTIN
+     * @param start
+     *            The index of the first character of the GTIN
+     * @param end
+     *            The index after the last character of the GTIN
+     * @return True if the GTIN is valid, otherwise false
+     */
+    public static boolean isValidGTIN(final CharSequence gtin, final int start, final int end) {
+        return encode(gtin, start, end) != INVALID;
+    }
+
+    /**
+     * Checks if a range of ASCII encoded bytes is a valid GTIN.
+     * 
+     * @param gtin
+     *            The bytes containing the GTIN
+     * @param offset
+     *            The index of the first byte of the GTIN
+     * @param length
+     *            The number of bytes of the GTIN
+     * @return True if the GTIN is valid, otherwise false
+     */
+    public static boolean isValidGTIN(final byte[] gtin, final int offset, final int length) {
+        return encode(gtin, offset, length) != INVALID;
+    }
+
+    /**
+     * Validates a GTIN and encodes it as the numeric value of its 14 digits
+     * form.
+     * 
+     * @param gtin
+     *            The GTIN to encode
+     * @return The numeric value of the GTIN, or {@link #INVALID} if the GTIN
+     *         is not valid
+     */
+    public static long encode(final CharSequence gtin) {
+        if (gtin == null) {
+            return INVALID;
         }
+        return encode(gtin, 0, gtin.length());
+    }
 
-        String replacedLeadingZeros = ProductLogic.trimleadingZeros(sGTIN);
-        int length = replacedLeadingZeros.length();
+    /**
+     * Validates a range of characters as GTIN and encodes it as the numeric
+     * value of its 14 digits form.
+     * 
+     * @param gtin
+     *            The characters containing the GTIN
+     * @param start
+     *            The index of the first character of the GTIN
+     * @param end
+     *            The index after the last character of the GTIN
+     * @return The numeric value of the GTIN, or {@link #INVALID} if the GTIN
+     *         is not valid
+     */
+    public static long encode(final CharSequence gtin, final int start, final int end) {
+        if (start >= end) {
+            return INVALID;
+        }
+        final int significantStart = skipLeadingZeros(gtin, start, end);
+        final int length = end - significantStart;
 
-        // Can only be GTIN-8
         if (length <= 8 && length >= 7) {
-            // fill with leading zeros to match GTIN-8
-            String sGTIN8 = ("00000000" + replacedLeadingZeros).substring(replacedLeadingZeros.length());
-
-            return isValidGTIN8(sGTIN8);
+            // Can only be GTIN-8
+            return check(gtin, significantStart, end, 8, 0);
         } else if (length <= 14 && length >= 11) {
-            // fill with leading zeros to match GTIN-14
-            String sGTIN14 = ("00000000000000" + replacedLeadingZeros).substring(replacedLeadingZeros
-                    .length());
-
-            return isValidGTIN14(sGTIN14);
+            return check(gtin, significantStart, end, 14, 1);
         } else {
-            return false;
+            return INVALID;
         }
     }
 
+    /**
+     * Validates a range of ASCII encoded bytes as GTIN and encodes it as the
+     * numeric value of its 14 digits form.
+     * 
+     * @param gtin
+     *            The bytes containing the GTIN
+     * @param offset
+     *            The index of the first byte of the GTIN
+     * @param length
+     *            The number of bytes of the GTIN
+     * @return The numeric value of the GTIN, or {@link #INVALID} if the GTIN
+     *         is not valid
+     */
+    public static long encode(final byte[] gtin, final int offset, final int length) {
+        return encode(new AsciiSequence().set(ByteBuffer.wrap(gtin), offset, length), 0, length);
+    }
+
+    /**
+     * Decodes a GTIN encoded by {@link #encode(CharSequence)}.
+     * 
+     * @param encoded
+     *            The numeric value of the GTIN
+     * @return The GTIN with 14 digits
+     */
+    public static String decode(long encoded) {
+        if (encoded < 0 || encoded > 99999999999999L) {
+            throw new IllegalArgumentException("Not an encoded GTIN: " + encoded);
+        }
+        char[] digits = new char[14];
+        for (int i = 13; i >= 0; i--) {
+            digits[i] = (char) ('0' + encoded % 10);
+            encoded /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Validates many GTINs at once.
+     * 
+     * @param gtins
+     *            The GTINs to check
+     * @return Per GTIN whether it is valid
+     */
+    public static boolean[] validateAll(final CharSequence[] gtins) {
+        boolean[] valid = new boolean[gtins.length];
+        for (int i = 0; i < gtins.length; i++) {
+            valid[i] = encode(gtins[i]) != INVALID;
+        }
+        return valid;
+    }
+
+    /**
+     * Validates and encodes the GTINs of ASCII encoded lines, e.g. of a
+     * supplier feed, between the position and the limit of {@code lines}. Lines
+     * are separated by LF or CRLF, surrounding spaces and tabs are ignored. A
+     * final line break does not start another line. The position of {@code
+     * lines} is not changed.
+     * 
+     * @param lines
+     *            The lines of GTINs
+     * @return Per line the numeric value of the GTIN as by
+     *         {@link #encode(CharSequence)}, or {@link #INVALID}
+     */
+    public static long[] validateAll(final ByteBuffer lines) {
+        final int position = lines.position();
+        final int limit = lines.limit();
+        int count = 0;
+        for (int i = position; i < limit; i++) {
+            if (lines.get(i) == '\n' || i == limit - 1) {
+                count++;
+            }
+        }
+
+        long[] encoded = new long[count];
+        AsciiSequence line = new AsciiSequence();
+        int lineStart = position;
+        int index = 0;
+        for (int i = position; i < limit && index < count; i++) {
+            if (lines.get(i) == '\n' || i == limit - 1) {
+                int start = lineStart;
+                int end = lines.get(i) == '\n' ? i : i + 1;
+                while (start < end && isBlank(lines.get(start))) {
+                    start++;
+                }
+                while (end > start && isBlank(lines.get(end - 1))) {
+                    end--;
+                }
+                encoded[index++] = encode(line.set(lines, start, end - start), 0, end - start);
+                lineStart = i + 1;
+            }
+        }
+        return encoded;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
     /**
      * Extracts the prefix from a GTIN.
      * 
@@ -285,11 +522,16 @@ public final class GTINValidator {
             return false;
         }
 
-        if (Arrays.asList(restrictedDistributionPrefix).contains(prefix)) {
-            return false;
+        int value = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = prefix.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                // not a restricted prefix
+                return true;
+            }
+            value = value * 10 + digit;
         }
-
-        return true;
+        return !restrictedPrefixTable[value];
     }
 
     private GTINValidator() {
@@ -0,0 +1,100 @@
+package com.productlayer.rest.client;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import com.productlayer.core.beans.errors.ErrorMessage;
+import com.productlayer.core.error.PLYHttpException;
+
+/**
+ * Immutable metadata of a response received by the {@code PLYRestClient}: the
+ * HTTP status code, the headers and the deserialized body (or the parsed error
+ * response).
+ *
+ * The client does not keep the metadata of past responses. It is returned per
+ * call: build it from the {@link ResponseEntity} returned by an exchange via
+ * {@link #of(ResponseEntity)} or from the {@link PLYHttpException} thrown by a
+ * failed exchange via {@link #of(PLYHttpException)}.
+ *
+ * @param <T>
+ *            the type of the body
+ */
+public class PLYResponse<T> {
+
+    private final HttpStatus status;
+    private final HttpHeaders headers;
+    private final T body;
+
+    /**
+     * Constructs the response metadata.
+     *
+     * @param status
+     *            the HTTP status code
+     * @param headers
+     *            the HTTP response headers
+     * @param body
+     *            the deserialized body or error response
+     */
+    public PLYResponse(HttpStatus status, HttpHeaders headers, T body) {
+        this.status = status;
+        this.headers = headers == null ? null : HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+    }
+
+    /**
+     * @param response
+     *            the response returned by an exchange
+     * @return the metadata of the response
+     */
+    public static <T> PLYResponse<T> of(ResponseEntity<T> response) {
+        return new PLYResponse<T>(response.getStatusCode(), response.getHeaders(), response.getBody());
+    }
+
+    /**
+     * @param error
+     *            the exception thrown by a failed exchange
+     * @return the metadata of the error response; the headers are null if the
+     *         request was rejected by the client itself, the status is null if
+     *         it is not a known HTTP status code
+     */
+    public static PLYResponse<List<ErrorMessage>> of(PLYHttpException error) {
+        if (error.getCause() instanceof HttpStatusCodeException) {
+            HttpStatusCodeException cause = (HttpStatusCodeException) error.getCause();
+            return new PLYResponse<List<ErrorMessage>>(cause.getStatusCode(), cause.getResponseHeaders(),
+                    error.getErrors());
+        }
+        HttpStatus status;
+        try {
+            status = HttpStatus.valueOf(error.getHttpStatus());
+        } catch (IllegalArgumentException e) {
+            status = null;
+        }
+        return new PLYResponse<List<ErrorMessage>>(status, null, error.getErrors());
+    }
+
+    /**
+     * @return the HTTP status code
+     */
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the read-only HTTP response headers
+     */
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the deserialized body or error response
+     */
+    public T getBody() {
+        return body;
+    }
+
+}
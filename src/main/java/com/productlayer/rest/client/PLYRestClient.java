@@ -3,16 +3,30 @@
  */
 package com.productlayer.rest.client;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.apache.http.HttpHost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -20,20 +34,49 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpMessageConverterExtractor;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.util.UriTemplate;
 
 import com.productlayer.core.beans.errors.ErrorMessage;
 import com.productlayer.core.beans.errors.ErrorResponse;
 import com.productlayer.core.error.PLYHttpException;
 import com.productlayer.core.utils.Base64;
 import com.productlayer.core.utils.StringUtils;
+import com.productlayer.rest.client.cache.ImageCache;
+import com.productlayer.rest.client.cache.ProductCache;
 import com.productlayer.rest.client.config.PLYRestClientConfig;
 import com.productlayer.rest.client.helper.ConversionTool;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.http.CompressingAsyncClientHttpRequestFactory;
+import com.productlayer.rest.client.http.CompressingSimpleClientHttpRequestFactory;
+import com.productlayer.rest.client.http.Http2ClientHttpRequestFactory;
+import com.productlayer.rest.client.http.MultipartUpload;
+import com.productlayer.rest.client.http.PooledHttpComponentsClientHttpRequestFactory;
+import com.productlayer.rest.client.http.RequestCoalescer;
+import com.productlayer.rest.client.http.StreamTransfer;
+import com.productlayer.rest.client.http.StreamingClientHttpRequestFactory;
+import com.productlayer.rest.client.http.TransferProgressListener;
+import com.productlayer.rest.client.http.UploadSource;
+import com.productlayer.rest.client.instrumentation.ClientInstrumentation;
+import com.productlayer.rest.client.instrumentation.RequestInfo;
+import com.productlayer.rest.client.instrumentation.RequestMetrics;
+import com.productlayer.rest.client.resilience.EndpointGroup;
+import com.productlayer.rest.client.resilience.EndpointIsolation;
+import com.productlayer.rest.client.resilience.RequestThrottle;
+import com.productlayer.rest.client.resilience.RetryPolicy;
 
 /**
  * REST Client for the ProductLayer API. Services use this component to send
@@ -43,9 +86,22 @@ import com.productlayer.rest.client.helper.ConversionTool;
  * communication with the server. Switch to Java's native URLConnection by using
  * the return value of {@link #getSimpleRestTemplate(PLYRestClientConfig)} for
  * {@link #setRestTemplate(RestTemplate)}.
+ * 
+ * A client configured via its setters must not be shared among threads. Use
+ * {@link #immutableCopy()} or any of the {@code with*} methods to create a
+ * thread-safe client with immutable credentials sharing the HTTP connection
+ * pool of the original one. The client keeps no per-call state: the
+ * {@code exchange*} methods return the status, headers and body of each
+ * response, see {@link PLYResponse}. Closing the original client via
+ * {@link #close()} releases the connection pool shared with its copies.
+ * 
+ * The {@code exchange*Async} methods send requests using Apache's non-blocking
+ * HTTPAsyncClient and return a {@link CompletableFuture}. Cancelling the future
+ * aborts the request, per-call timeouts can be set via
+ * {@link FutureHelper#withTimeout(CompletableFuture, long, java.util.concurrent.TimeUnit)}.
  */
 @SuppressWarnings("serial")
-public class PLYRestClient implements Serializable {
+public class PLYRestClient implements Serializable, Closeable {
     private PLYRestClientConfig config;
     private String username;
     private String password;
@@ -60,16 +116,38 @@ public class PLYRestClient implements Serializable {
 
     private Map<String, String> additionalHeaders;
 
-    private transient RestTemplate restTemplate;
+    private transient volatile DefaultHeaders defaultHeaders;
+
+    private final boolean immutable;
+
+    private transient volatile RestTemplate restTemplate;
+
+    private transient SharedClients sharedClients;
+
+    private transient volatile AsyncRestTemplate asyncRestTemplate;
+
+    private transient volatile ProductCache productCache;
+
+    private transient volatile ImageCache imageCache;
 
-    private HttpStatus lastHttpStatus;
-    private HttpHeaders lastHttpHeaders;
-    private Object lastResponseBody;
+    private transient volatile RequestCoalescer requestCoalescer;
+
+    private transient volatile RequestThrottle requestThrottle;
+
+    private transient volatile RetryPolicy retryPolicy;
+
+    private transient volatile EndpointIsolation endpointIsolation;
+
+    private transient volatile ClientInstrumentation instrumentation;
 
     public static final String COOKIE_AUTH_TOKEN = "X-ProductLayer-Auth-Token";
     public static final String COOKIE_CLIENT_IP = "X-ProductLayer-Client-IP";
     public static final String COOKIE_USER_AGENT = "X-ProductLayer-User-Agent";
 
+    // referenced by name, HTTPClient 5 is optional
+    private static final String HTTP2_CLIENT_CLASS =
+            "org.apache.hc.client5.http.impl.async.HttpAsyncClients";
+
     public static final String HEADER_USER_POINTS = "X-ProductLayer-User-Points";
     public static final String HEADER_USER_POINTS_CHANGE = "X-ProductLayer-User-Points-Changed";
     public static final String HEADER_USER_NEW_ACHIEVEMENTS = "X-ProductLayer-User-Unlocked-Achievements";
@@ -78,17 +156,20 @@ public class PLYRestClient implements Serializable {
      * Build an HTTP client for Spring using Java's native URLConnection.
      * 
      * @param config
-     *            any proxy configuration
+     *            any proxy, timeout and compression configuration
      * @return a URLConnection HTTP client for Spring
      */
     public static RestTemplate getSimpleRestTemplate(PLYRestClientConfig config) {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        SimpleClientHttpRequestFactory requestFactory = new CompressingSimpleClientHttpRequestFactory(
+                config.requestCompressionThreshold);
 
         if (config.proxyEnabled) {
             Proxy proxy = new Proxy(Proxy.Type.HTTP,
                     new InetSocketAddress(config.proxyHost, config.proxyPort));
             requestFactory.setProxy(proxy);
         }
+        requestFactory.setConnectTimeout(config.connectTimeout);
+        requestFactory.setReadTimeout(config.socketTimeout);
 
         RestTemplate restTemplate = new RestTemplate(requestFactory);
         enableConverters(restTemplate);
@@ -97,34 +178,129 @@ public class PLYRestClient implements Serializable {
 
     /**
      * Build an HTTP client for Spring using Apache's HTTPComponents library.
+     * Connections are pooled and the pool is sized and timed as specified by
+     * {@code config}.
      * 
      * @param config
-     *            any proxy configuration
+     *            any proxy, connection pool and timeout configuration
      * @return an Apache HTTP client for Spring
      */
     public static RestTemplate getHttpComponentsRestTemplate(PLYRestClientConfig config) {
-        HttpClientBuilder clientBuilder = HttpClientBuilder.create();
+        final ClientHttpRequestFactory requestFactory = new PooledHttpComponentsClientHttpRequestFactory(
+                config);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        enableConverters(restTemplate);
+        return restTemplate;
+    }
+
+    /**
+     * Build an HTTP client for Spring sending requests over HTTP/2 using
+     * Apache's HTTPClient 5 library, which must be on the class path.
+     * Concurrent requests are multiplexed over a single connection per host.
+     * Requests to hosts not supporting HTTP/2 are sent over HTTP/1.1 by a
+     * client built by {@link #getHttpComponentsRestTemplate(PLYRestClientConfig)}.
+     * 
+     * @param config
+     *            any connection pool and timeout configuration
+     * @return an HTTP/2 client for Spring
+     */
+    public static RestTemplate getHttp2RestTemplate(PLYRestClientConfig config) {
+        RestTemplate restTemplate = new RestTemplate(new Http2ClientHttpRequestFactory(config));
+        enableConverters(restTemplate);
+        return restTemplate;
+    }
+
+    private static RestTemplate getDefaultRestTemplate(PLYRestClientConfig config) {
+        // HTTP/2 cannot be tunneled through the proxy
+        if (config.http2Enabled && !config.proxyEnabled
+                && ClassUtils.isPresent(HTTP2_CLIENT_CLASS, PLYRestClient.class.getClassLoader())) {
+            return getHttp2RestTemplate(config);
+        }
+        return getHttpComponentsRestTemplate(config);
+    }
+
+    /**
+     * Build a non-blocking HTTP client for Spring using Apache's
+     * HTTPAsyncClient library.
+     * 
+     * @param config
+     *            any proxy, connection pool and timeout configuration
+     * @return an Apache non-blocking HTTP client for Spring
+     */
+    public static AsyncRestTemplate getHttpComponentsAsyncRestTemplate(PLYRestClientConfig config) {
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(config.connectTimeout)
+                .setSocketTimeout(config.socketTimeout)
+                .setConnectionRequestTimeout(config.connectionRequestTimeout).build();
+        IOReactorConfig reactorConfig = IOReactorConfig.custom().setConnectTimeout(config.connectTimeout)
+                .setSoTimeout(config.socketTimeout).build();
+        HttpAsyncClientBuilder clientBuilder = HttpAsyncClientBuilder.create()
+                .setMaxConnTotal(config.maxConnectionsTotal)
+                .setMaxConnPerRoute(config.maxConnectionsPerRoute).setDefaultRequestConfig(requestConfig)
+                .setDefaultIOReactorConfig(reactorConfig);
 
         if (config.proxyEnabled) {
-            clientBuilder = clientBuilder.setProxy(new HttpHost(config.proxyHost, config.proxyPort));
+            clientBuilder.setProxy(new HttpHost(config.proxyHost, config.proxyPort));
         }
 
-        final CloseableHttpClient client = clientBuilder.build();
-        final ClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(client);
-        RestTemplate restTemplate = new RestTemplate(requestFactory);
-        enableConverters(restTemplate);
-        return restTemplate;
+        CloseableHttpAsyncClient client = clientBuilder.build();
+        client.start();
+        AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(
+                new CompressingAsyncClientHttpRequestFactory(client));
+        asyncRestTemplate.getMessageConverters().add(0, ConversionTool.getJacksonConverter());
+        asyncRestTemplate.getMessageConverters().add(1, ConversionTool.getByteArrayConverter());
+        return asyncRestTemplate;
+    }
+
+    /**
+     * @return the non-blocking HTTP client used by Spring for asynchronous
+     *         communication (builds an Apache HTTPAsyncClient by default if
+     *         none has been set)
+     */
+    public AsyncRestTemplate getAsyncRestTemplate() {
+        AsyncRestTemplate template = asyncRestTemplate;
+        return template != null ? template : sharedClients.getAsyncRestTemplate();
+    }
+
+    /**
+     * Sets the non-blocking HTTP client to be used by Spring.
+     * 
+     * @param asyncRestTemplate
+     *            the non-blocking HTTP client to use
+     */
+    public void setAsyncRestTemplate(AsyncRestTemplate asyncRestTemplate) {
+        checkMutable();
+        this.asyncRestTemplate = asyncRestTemplate;
     }
 
     /**
      * @return the HTTP client used by Spring for communication (builds an
-     *         Apache HTTPClient by default if none has been set)
+     *         Apache HTTPClient by default if none has been set, using HTTP/2
+     *         if {@link PLYRestClientConfig#http2Enabled})
      */
     public RestTemplate getRestTemplate() {
-        if (restTemplate == null) {
-            restTemplate = getHttpComponentsRestTemplate(config);
+        RestTemplate template = restTemplate;
+        return template != null ? template : sharedClients.getRestTemplate();
+    }
+
+    /**
+     * Statistics of the connection pool, available if the HTTP client used by
+     * Spring has been built by
+     * {@link #getHttpComponentsRestTemplate(PLYRestClientConfig)}.
+     * 
+     * @return the number of leased, pending and available connections as well
+     *         as the maximum number of connections, or null if connections are
+     *         not pooled
+     */
+    public PoolStats getConnectionPoolStats() {
+        ClientHttpRequestFactory requestFactory = getRestTemplate().getRequestFactory();
+        if (config.http2Enabled && requestFactory instanceof Http2ClientHttpRequestFactory) {
+            // the pool of the HTTP/1.1 fallback
+            requestFactory = ((Http2ClientHttpRequestFactory) requestFactory).getFallback();
         }
-        return restTemplate;
+        if (requestFactory instanceof PooledHttpComponentsClientHttpRequestFactory) {
+            return ((PooledHttpComponentsClientHttpRequestFactory) requestFactory).getPoolStats();
+        }
+        return null;
     }
 
     /**
@@ -134,9 +310,165 @@ public class PLYRestClient implements Serializable {
      *            the HTTP client to use
      */
     public void setRestTemplate(RestTemplate restTemplate) {
+        checkMutable();
         this.restTemplate = restTemplate;
     }
 
+    /**
+     * @return the cache of products looked up by GTIN, or null if products are
+     *         not cached
+     */
+    public ProductCache getProductCache() {
+        return productCache;
+    }
+
+    /**
+     * Sets the cache of products looked up by GTIN. Copies of this client
+     * share the cache.
+     * 
+     * @param productCache
+     *            the cache to use, null to disable caching
+     */
+    public void setProductCache(ProductCache productCache) {
+        checkMutable();
+        this.productCache = productCache;
+    }
+
+    /**
+     * @return the cache of images and their scaled variants, or null if images
+     *         are not cached
+     */
+    public ImageCache getImageCache() {
+        return imageCache;
+    }
+
+    /**
+     * Sets the cache of images and their scaled variants. Copies of this
+     * client share the cache.
+     * 
+     * @param imageCache
+     *            the cache to use, null to disable caching
+     */
+    public void setImageCache(ImageCache imageCache) {
+        checkMutable();
+        this.imageCache = imageCache;
+    }
+
+    /**
+     * The coalescer merging identical GET requests in flight at the same time
+     * into a single call, if enabled by
+     * {@link PLYRestClientConfig#coalesceGetRequests}. Requests are identical
+     * if their URL, response type, credentials, language and API key match.
+     * Conditional requests are never merged. Copies made by
+     * {@link #immutableCopy()} and the {@code with*} methods share the
+     * coalescer.
+     * 
+     * Merged requests return the same response body, which must not be
+     * modified.
+     * 
+     * @return the coalescer with the number of requests sent and saved, or
+     *         null if GET requests are not coalesced
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        if (!config.coalesceGetRequests) {
+            return null;
+        }
+        RequestCoalescer coalescer = requestCoalescer;
+        if (coalescer == null) {
+            synchronized (this) {
+                coalescer = requestCoalescer;
+                if (coalescer == null) {
+                    coalescer = new RequestCoalescer();
+                    requestCoalescer = coalescer;
+                }
+            }
+        }
+        return coalescer;
+    }
+
+    /**
+     * The throttle of the API key limiting the rate and concurrency of all
+     * requests as configured by {@link PLYRestClientConfig#requestsPerSecond}
+     * and {@link PLYRestClientConfig#maxConcurrentRequests}. The throttle is
+     * shared by all clients using the same API key.
+     * 
+     * @return the throttle of the API key, or null if requests are not
+     *         throttled
+     */
+    public RequestThrottle getRequestThrottle() {
+        RequestThrottle throttle = requestThrottle;
+        if (throttle == null) {
+            throttle = RequestThrottle.forApiKey(config);
+            requestThrottle = throttle;
+        }
+        return throttle;
+    }
+
+    /**
+     * @return the policy retrying requests on transient errors, or null if
+     *         requests are not retried
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the policy retrying requests on transient errors. The policy
+     * applies to the blocking {@code exchange*} methods. Copies of this
+     * client share the policy.
+     * 
+     * @param retryPolicy
+     *            the policy to use, null to disable retries
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        checkMutable();
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @return the circuit breakers and bulkheads isolating the endpoint
+     *         groups, or null if the endpoint groups are not isolated
+     */
+    public EndpointIsolation getEndpointIsolation() {
+        return endpointIsolation;
+    }
+
+    /**
+     * Sets the circuit breakers and bulkheads isolating the endpoint groups
+     * (products, images, users, ...) from each other. Copies of this client
+     * share the isolation.
+     * 
+     * @param endpointIsolation
+     *            the isolation to use, null to disable it
+     */
+    public void setEndpointIsolation(EndpointIsolation endpointIsolation) {
+        checkMutable();
+        this.endpointIsolation = endpointIsolation;
+    }
+
+    /**
+     * @return the instrumentation receiving every request, or null if
+     *         requests are not instrumented
+     */
+    public ClientInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * Sets the instrumentation receiving every request, e.g. a
+     * {@link com.productlayer.rest.client.instrumentation.MicrometerInstrumentation}
+     * or an
+     * {@link com.productlayer.rest.client.instrumentation.OpenTelemetryInstrumentation}.
+     * Copies of this client share the instrumentation.
+     * 
+     * @param instrumentation
+     *            the instrumentation to use, null to disable it
+     */
+    public void setInstrumentation(ClientInstrumentation instrumentation) {
+        checkMutable();
+        this.instrumentation = instrumentation;
+    }
+
     /**
      * Constructs a new REST client to be used for communication with the
      * ProductLayer API server.
@@ -145,16 +477,114 @@ public class PLYRestClient implements Serializable {
      *            the configuration for the new REST client
      */
     public PLYRestClient(PLYRestClientConfig config) {
-        this(config, null, null, null, null);
+        this(config, null, null, null, null, false);
     }
 
     private PLYRestClient(PLYRestClientConfig config, String username, String password, String session,
-            String token) {
+            String token, boolean immutable) {
         this.config = config;
         this.username = username;
         this.password = password;
         this.session = session;
         this.token = token;
+        this.immutable = immutable;
+        this.sharedClients = new SharedClients(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        sharedClients = new SharedClients(this);
+    }
+
+    /**
+     * Closes the HTTP clients built by default for this client and shared with
+     * its copies, releasing their connection pools and threads. Clients set
+     * via {@link #setRestTemplate(RestTemplate)} or
+     * {@link #setAsyncRestTemplate(AsyncRestTemplate)} are left open. Closing a
+     * copy has no effect, the shared clients are closed with the client they
+     * have been copied from.
+     */
+    @Override
+    public void close() {
+        if (sharedClients.owner == this) {
+            sharedClients.close();
+        }
+    }
+
+    /**
+     * The HTTP clients built on first use by a client and shared with all its
+     * copies, closed by the client that created them.
+     */
+    private static final class SharedClients {
+        private final PLYRestClient owner;
+        private volatile RestTemplate restTemplate;
+        private volatile AsyncRestTemplate asyncRestTemplate;
+        private boolean closed;
+
+        SharedClients(PLYRestClient owner) {
+            this.owner = owner;
+        }
+
+        RestTemplate getRestTemplate() {
+            RestTemplate template = restTemplate;
+            if (template == null) {
+                synchronized (this) {
+                    checkOpen();
+                    template = restTemplate;
+                    if (template == null) {
+                        template = getDefaultRestTemplate(owner.config);
+                        restTemplate = template;
+                    }
+                }
+            }
+            return template;
+        }
+
+        AsyncRestTemplate getAsyncRestTemplate() {
+            AsyncRestTemplate template = asyncRestTemplate;
+            if (template == null) {
+                synchronized (this) {
+                    checkOpen();
+                    template = asyncRestTemplate;
+                    if (template == null) {
+                        template = getHttpComponentsAsyncRestTemplate(owner.config);
+                        asyncRestTemplate = template;
+                    }
+                }
+            }
+            return template;
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("This PLYRestClient has been closed");
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (restTemplate != null) {
+                destroy(restTemplate.getRequestFactory());
+            }
+            if (asyncRestTemplate != null) {
+                destroy(asyncRestTemplate.getAsyncRequestFactory());
+            }
+        }
+
+        private static void destroy(Object requestFactory) {
+            try {
+                if (requestFactory instanceof DisposableBean) {
+                    ((DisposableBean) requestFactory).destroy();
+                } else if (requestFactory instanceof Closeable) {
+                    ((Closeable) requestFactory).close();
+                }
+            } catch (Exception e) {
+                // closed as far as possible
+            }
+        }
     }
 
     /**
@@ -180,7 +610,42 @@ public class PLYRestClient implements Serializable {
                 + (method.charAt(0) == '/' ? "" : "/") + method;
     }
 
+    /**
+     * The headers sent with every request, rebuilt only when the credentials,
+     * languages or additional headers change.
+     */
+    private static final class DefaultHeaders {
+        private final HttpHeaders headers;
+        private final Map<String, String> additionalHeaders;
+        private final String[] additionalLanguages;
+
+        DefaultHeaders(HttpHeaders headers, Map<String, String> additionalHeaders,
+                String[] additionalLanguages) {
+            this.headers = headers;
+            this.additionalHeaders = additionalHeaders != null ? new HashMap<String, String>(
+                    additionalHeaders) : null;
+            this.additionalLanguages = additionalLanguages != null ? additionalLanguages.clone() : null;
+        }
+
+        boolean matches(Map<String, String> additionalHeaders, String[] additionalLanguages) {
+            return Arrays.equals(this.additionalLanguages, additionalLanguages)
+                    && (additionalHeaders != null ? additionalHeaders.equals(this.additionalHeaders)
+                            : this.additionalHeaders == null);
+        }
+    }
+
     private HttpHeaders getDefaultHeaders() {
+        DefaultHeaders snapshot = defaultHeaders;
+        // the additional headers and languages of a mutable client may be
+        // modified in place via their getters
+        if (snapshot == null || !immutable && !snapshot.matches(additionalHeaders, additionalLanguages)) {
+            snapshot = new DefaultHeaders(buildDefaultHeaders(), additionalHeaders, additionalLanguages);
+            defaultHeaders = snapshot;
+        }
+        return snapshot.headers;
+    }
+
+    private HttpHeaders buildDefaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
 
         if (StringUtils.hasText(token)) {
@@ -227,7 +692,11 @@ public class PLYRestClient implements Serializable {
             headers.add(COOKIE_USER_AGENT, userAgent);
         }
 
-        return headers;
+        // shared by all requests, so the values must not be modified either
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            header.setValue(Collections.unmodifiableList(header.getValue()));
+        }
+        return HttpHeaders.readOnlyHttpHeaders(headers);
     }
 
     /**
@@ -264,7 +733,39 @@ public class PLYRestClient implements Serializable {
      */
     public <T> ResponseEntity<T> exchange(String url, HttpMethod method, Class<T> responseType,
             Map<String, ?> uriVariables) throws PLYHttpException, RestClientException {
-        return exchange(url, method, responseType, null, null, null, uriVariables);
+        return exchange(url, method, responseType, null, null, null, uriVariables, null, null);
+    }
+
+    /**
+     * Execute the HTTP {@code method} to the given {@code url} with additional
+     * request headers, expanding any given {@code uriVariables}, and returning
+     * the response as ResponseEntity.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param requestHeaders
+     *            any headers to send in addition to the default headers (e.g.
+     *            for conditional requests)
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchange(String url, HttpMethod method, Class<T> responseType,
+            Map<String, ?> uriVariables, HttpHeaders requestHeaders) throws PLYHttpException,
+            RestClientException {
+        return exchange(url, method, responseType, null, null, null, uriVariables, requestHeaders, null);
     }
 
     /**
@@ -294,7 +795,7 @@ public class PLYRestClient implements Serializable {
     public <T> ResponseEntity<T> exchange(String url, HttpMethod method,
             final ParameterizedTypeReference<T> parameterizedResponseType, Map<String, ?> uriVariables)
             throws PLYHttpException, RestClientException {
-        return exchange(url, method, null, parameterizedResponseType, null, null, uriVariables);
+        return exchange(url, method, null, parameterizedResponseType, null, null, uriVariables, null, null);
     }
 
     /**
@@ -360,105 +861,1056 @@ public class PLYRestClient implements Serializable {
     public <T> ResponseEntity<T> exchangeWithObjectAndContentType(String url, HttpMethod method,
             Object object, MediaType contentType, Class<T> responseType, Map<String, ?> uriVariables)
             throws PLYHttpException, RestClientException {
-        return exchange(url, method, responseType, null, object, contentType, uriVariables);
-    }
-
-    private interface RestCall<T> {
-        ResponseEntity<T> exchange(String fullUrl) throws HttpStatusCodeException, RestClientException;
-    }
-
-    private <T> ResponseEntity<T> exchange(String url, final HttpMethod method, final Class<T> responseType,
-            final ParameterizedTypeReference<T> parameterizedResponseType, final Object object,
-            final MediaType contentType, final Map<String, ?> uriVariablesMap) throws PLYHttpException,
-            RestClientException {
-        final boolean objectInBody = object != null;
-        // prepare request body and headers
-        Object entityBody;
-        HttpHeaders entityHeaders = getDefaultHeaders();
-        if (objectInBody) {
-            entityBody = object;
-            entityHeaders.setContentType(contentType != null ? contentType : MediaType.APPLICATION_JSON);
-        } else {
-            entityBody = method == HttpMethod.GET ? null : "parameters";
-        }
-        final HttpEntity<Object> entity = new HttpEntity<Object>(entityBody, entityHeaders);
-        // prepare RestCall object
-        RestCall<T> restCall = new RestCall<T>() {
-            public ResponseEntity<T> exchange(String fullUrl) throws HttpStatusCodeException,
-                    RestClientException {
-                if (uriVariablesMap != null) {
-                    if (parameterizedResponseType != null) {
-                        return getRestTemplate().exchange(fullUrl, method, entity, parameterizedResponseType,
-                                uriVariablesMap);
-                    } else {
-                        return getRestTemplate().exchange(fullUrl, method, entity, responseType,
-                                uriVariablesMap);
-                    }
-                } else {
-                    if (parameterizedResponseType != null) {
-                        return getRestTemplate().exchange(fullUrl, method, entity, parameterizedResponseType);
-                    } else {
-                        return getRestTemplate().exchange(fullUrl, method, entity, responseType);
-                    }
-                }
-            }
-        };
-        try {
-            // send and receive
-            ResponseEntity<T> response = restCall.exchange(url.startsWith("http") ? url
-                    : getUrlForMethod(url));
-            // follow redirects
-            if (response.getStatusCode() == HttpStatus.MOVED_PERMANENTLY
-                    || response.getStatusCode() == HttpStatus.FOUND) {
-                response = restCall.exchange(response.getHeaders().getLocation().toString());
-            }
-            lastHttpStatus = response.getStatusCode();
-            lastHttpHeaders = response.getHeaders();
-            lastResponseBody = response.getBody();
-            List<String> sessionCookies = response.getHeaders().get("Set-Cookie");
-            if (sessionCookies != null && !sessionCookies.isEmpty()) {
-                setSession(sessionCookies.get(0));
-            }
-            return response;
-        } catch (HttpStatusCodeException e) {
-            // attempt to parse response body into error response object
-            // the parsing will fail and return null any time the server is not
-            // responding with a JSON error response object (for example if a
-            // non-existent URL is called)
-            ErrorResponse errors = ConversionTool.parseObject(e.getResponseBodyAsString(),
-                    ErrorResponse.class);
-            lastHttpStatus = e.getStatusCode();
-            lastHttpHeaders = e.getResponseHeaders();
-            lastResponseBody = errors;
-            if (errors != null && errors.getErrors() != null) {
-                // throw PLYHttpException containing messages of the parsed
-                // error response and the HTTP status code
-                throw new PLYHttpException(errors.getErrors(), e.getStatusCode().value());
-            } else {
-                // throw PLYHttpException containing a new error message with
-                // the HTTP status code and description (no error response
-                // returned)
-                throw new PLYHttpException(new ErrorMessage(e.getStatusCode().getReasonPhrase(), e
-                        .getStatusCode().value()), e.getStatusCode().value());
-            }
-        }
+        return exchange(url, method, responseType, null, object, contentType, uriVariables, null, null);
     }
 
     /**
-     * @return the user name used for authentication with the ProductLayer API
-     *         server
+     * Execute the HTTP {@code method} to the given {@code url} built from an
+     * {@link EndpointTemplate}, and returning the response as ResponseEntity.
+     * The URL is encoded already and sent as it is, without expanding it as a
+     * URI template again.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
      */
-    public String getUsername() {
-        return username;
+    public <T> ResponseEntity<T> exchange(EndpointTemplate.Url url, HttpMethod method, Class<T> responseType)
+            throws PLYHttpException, RestClientException {
+        return exchange(url.toString(), method, responseType, null, null, null, null, null, url.getEndpoint()
+                .getUrlTemplate());
     }
 
     /**
-     * @param username
-     *            the user name to set for authentication with the ProductLayer
-     *            API server
-     */
-    public void setUsername(String username) {
+     * Execute the HTTP {@code method} to the given {@code url} built from an
+     * {@link EndpointTemplate} with additional request headers, and returning
+     * the response as ResponseEntity.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param requestHeaders
+     *            any headers to send in addition to the default headers (e.g.
+     *            for conditional requests)
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchange(EndpointTemplate.Url url, HttpMethod method, Class<T> responseType,
+            HttpHeaders requestHeaders) throws PLYHttpException, RestClientException {
+        return exchange(url.toString(), method, responseType, null, null, null, null, requestHeaders, url
+                .getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Execute the HTTP {@code method} to the given {@code url} built from an
+     * {@link EndpointTemplate}, and returning the parameterized response as
+     * ResponseEntity.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param parameterizedResponseType
+     *            the parameterized class expected to be returned implemented as
+     *            a {@link ParameterizedTypeReference}
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchange(EndpointTemplate.Url url, HttpMethod method,
+            ParameterizedTypeReference<T> parameterizedResponseType) throws PLYHttpException,
+            RestClientException {
+        return exchange(url.toString(), method, null, parameterizedResponseType, null, null, null, null, url
+                .getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Execute the HTTP {@code method} to the given {@code url} built from an
+     * {@link EndpointTemplate} with additional request headers, and returning
+     * the parameterized response as ResponseEntity.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param parameterizedResponseType
+     *            the parameterized class expected to be returned implemented as
+     *            a {@link ParameterizedTypeReference}
+     * @param requestHeaders
+     *            any headers to send in addition to the default headers (e.g.
+     *            for conditional requests)
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchange(EndpointTemplate.Url url, HttpMethod method,
+            ParameterizedTypeReference<T> parameterizedResponseType, HttpHeaders requestHeaders)
+            throws PLYHttpException, RestClientException {
+        return exchange(url.toString(), method, null, parameterizedResponseType, null, null, null,
+                requestHeaders, url.getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Execute the HTTP {@code method} to the given {@code url} built from an
+     * {@link EndpointTemplate} with an {@code object} serialized as
+     * {@code application/json} in the request's body, and returning the
+     * response as ResponseEntity.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param object
+     *            the object to be sent as the request's HTTP body
+     * @param responseType
+     *            the class expected to be returned
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchangeWithObject(EndpointTemplate.Url url, HttpMethod method,
+            Object object, Class<T> responseType) throws PLYHttpException, RestClientException {
+        return exchange(url.toString(), method, responseType, null, object, MediaType.APPLICATION_JSON, null,
+                null, url.getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Upload a file as {@code multipart/form-data} with the HTTP {@code method}
+     * to the given {@code url}, expanding any given {@code uriVariables}. The
+     * file is streamed to the connection while the request is sent instead of
+     * being buffered in memory. Uploads read from an input stream are not
+     * retried as the stream cannot be read again.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param method
+     *            the HTTP method to use for the request
+     * @param name
+     *            the name of the form field of the file
+     * @param upload
+     *            the file to upload
+     * @param responseType
+     *            the class expected to be returned
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public <T> ResponseEntity<T> exchangeWithUpload(String url, HttpMethod method, String name,
+            UploadSource upload, Class<T> responseType, Map<String, ?> uriVariables) throws PLYHttpException,
+            RestClientException {
+        MultipartUpload body = new MultipartUpload(name, upload);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(body.getContentType());
+        if (body.getContentLength() >= 0) {
+            headers.setContentLength(body.getContentLength());
+        }
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        HttpMessageConverterExtractor<T> extractor = new HttpMessageConverterExtractor<T>(responseType,
+                getRestTemplate().getMessageConverters());
+        return exchangeStreaming(url, method, uriVariables, headers, body, body.isRepeatable(),
+                response -> new ResponseEntity<T>(extractor.extractData(response), response.getHeaders(),
+                        response.getStatusCode()), null);
+    }
+
+    /**
+     * Upload a file as {@code multipart/form-data} with the HTTP {@code method}
+     * to the given {@code url} built from an {@link EndpointTemplate}. The URL
+     * is encoded already and sent as it is.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param name
+     *            the name of the form field of the file
+     * @param upload
+     *            the file to upload
+     * @param responseType
+     *            the class expected to be returned
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return the response of type {@code responseType} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     * @see #exchangeWithUpload(String, HttpMethod, String, UploadSource, Class,
+     *      Map)
+     */
+    public <T> ResponseEntity<T> exchangeWithUpload(EndpointTemplate.Url url, HttpMethod method, String name,
+            UploadSource upload, Class<T> responseType) throws PLYHttpException, RestClientException {
+        MultipartUpload body = new MultipartUpload(name, upload);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(body.getContentType());
+        if (body.getContentLength() >= 0) {
+            headers.setContentLength(body.getContentLength());
+        }
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+        HttpMessageConverterExtractor<T> extractor = new HttpMessageConverterExtractor<T>(responseType,
+                getRestTemplate().getMessageConverters());
+        return exchangeStreaming(url.toString(), method, null, headers, body, body.isRepeatable(),
+                response -> new ResponseEntity<T>(extractor.extractData(response), response.getHeaders(),
+                        response.getStatusCode()), url.getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Download the resource at the given {@code url}, expanding any given
+     * {@code uriVariables}, into {@code target}. The response body is copied
+     * in chunks while it is received instead of being buffered in memory, and
+     * directly into the file if {@code target} is a {@link FileChannel}.
+     * Downloads are not retried as the target may have been partially written.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param target
+     *            the channel to write the response body to, not closed
+     * @param progressListener
+     *            [Optional] the listener to notify of the bytes received
+     * @return the number of bytes written to {@code target} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     */
+    public ResponseEntity<Long> download(String url, Map<String, ?> uriVariables, WritableByteChannel target,
+            TransferProgressListener progressListener) throws PLYHttpException, RestClientException {
+        return download(url, uriVariables, null, target, progressListener);
+    }
+
+    /**
+     * Download the resource at the given {@code url}, expanding any given
+     * {@code uriVariables}, into {@code target}, sending additional request
+     * headers such as the validators of a conditional request. The body of
+     * the returned ResponseEntity is null if the response is not successful,
+     * e.g. {@code 304 Not Modified}.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param requestHeaders
+     *            [Optional] additional headers to send
+     * @param target
+     *            the channel to write the response body to, not closed
+     * @param progressListener
+     *            [Optional] the listener to notify of the bytes received
+     * @return the number of bytes written to {@code target} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     * @see #download(String, Map, WritableByteChannel, TransferProgressListener)
+     */
+    public ResponseEntity<Long> download(String url, Map<String, ?> uriVariables, HttpHeaders requestHeaders,
+            WritableByteChannel target, TransferProgressListener progressListener) throws PLYHttpException,
+            RestClientException {
+        return exchangeStreaming(url, HttpMethod.GET, uriVariables, requestHeaders, null, false,
+                downloadTo(target, progressListener), null);
+    }
+
+    /**
+     * Download the resource at the given {@code url} built from an
+     * {@link EndpointTemplate} into {@code target}, sending additional request
+     * headers such as the validators of a conditional request. The URL is
+     * encoded already and sent as it is. The body of the returned
+     * ResponseEntity is null if the response is not successful, e.g.
+     * {@code 304 Not Modified}.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param requestHeaders
+     *            [Optional] additional headers to send
+     * @param target
+     *            the channel to write the response body to, not closed
+     * @param progressListener
+     *            [Optional] the listener to notify of the bytes received
+     * @return the number of bytes written to {@code target} wrapped in a
+     *         ResponseEntity
+     * @throws PLYHttpException
+     *             on any HTTP status code indicating failure
+     * @throws RestClientException
+     *             on any client-side HTTP error
+     * @see #download(String, Map, HttpHeaders, WritableByteChannel,
+     *      TransferProgressListener)
+     */
+    public ResponseEntity<Long> download(EndpointTemplate.Url url, HttpHeaders requestHeaders,
+            WritableByteChannel target, TransferProgressListener progressListener) throws PLYHttpException,
+            RestClientException {
+        return exchangeStreaming(url.toString(), HttpMethod.GET, null, requestHeaders, null, false,
+                downloadTo(target, progressListener), url.getEndpoint().getUrlTemplate());
+    }
+
+    private static ResponseExtractor<ResponseEntity<Long>> downloadTo(WritableByteChannel target,
+            TransferProgressListener progressListener) {
+        return response -> {
+            Long transferred = null;
+            // the body of a redirect is not the resource
+            if (response.getStatusCode().is2xxSuccessful()) {
+                transferred = StreamTransfer.copy(response.getBody(), target, response.getHeaders()
+                        .getContentLength(), progressListener);
+            }
+            return new ResponseEntity<Long>(transferred, response.getHeaders(), response.getStatusCode());
+        };
+    }
+
+    private interface RestCall<T> {
+        ResponseEntity<T> exchange(String fullUrl) throws HttpStatusCodeException, RestClientException;
+
+        /**
+         * @return whether the latency of the call measures the load of the
+         *         server, i.e. no body is streamed
+         */
+        default boolean isLatencySampled() {
+            return true;
+        }
+    }
+
+    private <T> ResponseEntity<T> exchange(String url, final HttpMethod method, final Class<T> responseType,
+            final ParameterizedTypeReference<T> parameterizedResponseType, final Object object,
+            final MediaType contentType, final Map<String, ?> uriVariablesMap, HttpHeaders requestHeaders,
+            final String urlTemplate) throws PLYHttpException, RestClientException {
+        ClientInstrumentation instrumentation = this.instrumentation;
+        RequestInfo requestInfo = null;
+        Object instrumentationContext = null;
+        HttpHeaders traceHeaders = null;
+        if (instrumentation != null) {
+            requestInfo = urlTemplate != null ? RequestInfo.of(method, url, urlTemplate, false) : RequestInfo
+                    .of(method, url, false);
+            traceHeaders = new HttpHeaders();
+            instrumentationContext = instrumentation.onRequest(requestInfo, traceHeaders);
+        }
+        final HttpEntity<Object> entity = createEntity(method, object, contentType, requestHeaders,
+                traceHeaders);
+        // prepare RestCall object
+        RestCall<T> restCall = new RestCall<T>() {
+            public ResponseEntity<T> exchange(String fullUrl) throws HttpStatusCodeException,
+                    RestClientException {
+                if (urlTemplate != null) {
+                    // encoded already, no template to expand
+                    URI uri = URI.create(fullUrl);
+                    if (parameterizedResponseType != null) {
+                        return getRestTemplate().exchange(uri, method, entity, parameterizedResponseType);
+                    } else {
+                        return getRestTemplate().exchange(uri, method, entity, responseType);
+                    }
+                } else if (uriVariablesMap != null) {
+                    if (parameterizedResponseType != null) {
+                        return getRestTemplate().exchange(fullUrl, method, entity, parameterizedResponseType,
+                                uriVariablesMap);
+                    } else {
+                        return getRestTemplate().exchange(fullUrl, method, entity, responseType,
+                                uriVariablesMap);
+                    }
+                } else {
+                    if (parameterizedResponseType != null) {
+                        return getRestTemplate().exchange(fullUrl, method, entity, parameterizedResponseType);
+                    } else {
+                        return getRestTemplate().exchange(fullUrl, method, entity, responseType);
+                    }
+                }
+            }
+        };
+        String fullUrl = url.startsWith("http") ? url : getUrlForMethod(url);
+        RequestCoalescer coalescer = getRequestCoalescer();
+        return execute(instrumentation, requestInfo, instrumentationContext, () -> {
+            if (coalescer != null && method == HttpMethod.GET && requestHeaders == null) {
+                String key = coalescingKey(fullUrl, uriVariablesMap, responseType != null ? responseType
+                        .getName() : parameterizedResponseType.getType().toString(), entity.getHeaders());
+                return coalescer.execute(key, () -> sendWithRetries(method, url, restCall, fullUrl));
+            }
+            return sendWithRetries(method, url, restCall, fullUrl);
+        });
+    }
+
+    private <T> ResponseEntity<T> exchangeStreaming(String url, final HttpMethod method,
+            final Map<String, ?> uriVariablesMap, HttpHeaders requestHeaders,
+            final StreamingHttpOutputMessage.Body body, boolean repeatable,
+            final ResponseExtractor<ResponseEntity<T>> responseExtractor, final String urlTemplate)
+            throws PLYHttpException, RestClientException {
+        ClientInstrumentation instrumentation = this.instrumentation;
+        RequestInfo requestInfo = null;
+        Object instrumentationContext = null;
+        HttpHeaders traceHeaders = null;
+        if (instrumentation != null) {
+            requestInfo = urlTemplate != null ? RequestInfo.of(method, url, urlTemplate, false) : RequestInfo
+                    .of(method, url, false);
+            traceHeaders = new HttpHeaders();
+            instrumentationContext = instrumentation.onRequest(requestInfo, traceHeaders);
+        }
+        final HttpHeaders headers = createEntity(method, null, null, requestHeaders, traceHeaders)
+                .getHeaders();
+        // RestTemplate buffers request bodies, so the request is sent directly
+        RestCall<T> restCall = new RestCall<T>() {
+            public ResponseEntity<T> exchange(String fullUrl) throws HttpStatusCodeException,
+                    RestClientException {
+                RestTemplate restTemplate = getRestTemplate();
+                // encoded already if built from a template
+                URI uri = urlTemplate != null ? URI.create(fullUrl) : new UriTemplate(fullUrl).expand(
+                        uriVariablesMap != null ? uriVariablesMap : Collections.<String, Object> emptyMap());
+                ClientHttpRequestFactory requestFactory = restTemplate.getRequestFactory();
+                try {
+                    ClientHttpRequest request = requestFactory instanceof StreamingClientHttpRequestFactory
+                            ? ((StreamingClientHttpRequestFactory) requestFactory).createStreamingRequest(uri,
+                                    method) : requestFactory.createRequest(uri, method);
+                    request.getHeaders().putAll(headers);
+                    if (body != null && request instanceof StreamingHttpOutputMessage) {
+                        ((StreamingHttpOutputMessage) request).setBody(body);
+                    } else if (body != null) {
+                        body.writeTo(request.getBody());
+                    }
+                    ClientHttpResponse response = request.execute();
+                    try {
+                        if (restTemplate.getErrorHandler().hasError(response)) {
+                            restTemplate.getErrorHandler().handleError(response);
+                        }
+                        return responseExtractor.extractData(response);
+                    } finally {
+                        response.close();
+                    }
+                } catch (IOException e) {
+                    throw new ResourceAccessException("I/O error on " + method.name() + " request for \""
+                            + uri + "\": " + e.getMessage(), e);
+                }
+            }
+
+            public boolean isLatencySampled() {
+                // the transfer of the body depends on its size and the network
+                return false;
+            }
+        };
+        String fullUrl = url.startsWith("http") ? url : getUrlForMethod(url);
+        return execute(instrumentation, requestInfo, instrumentationContext,
+                () -> repeatable ? sendWithRetries(method, url, restCall, fullUrl) : send(restCall, fullUrl));
+    }
+
+    private <T> ResponseEntity<T> execute(ClientInstrumentation instrumentation, RequestInfo requestInfo,
+            Object instrumentationContext, Supplier<ResponseEntity<T>> exchange) throws PLYHttpException,
+            RestClientException {
+        RequestMetrics metrics = instrumentation != null ? RequestMetrics.begin() : null;
+        int status = -1;
+        Throwable error = null;
+        try {
+            // send and receive
+            ResponseEntity<T> response = exchange.get();
+            updateSession(response);
+            status = response.getStatusCode().value();
+            return response;
+        } catch (HttpStatusCodeException e) {
+            PLYHttpException plyException = toPLYHttpException(e);
+            status = e.getStatusCode().value();
+            error = plyException;
+            throw plyException;
+        } catch (RuntimeException e) {
+            status = statusOf(e);
+            error = e;
+            throw e;
+        } finally {
+            if (metrics != null) {
+                metrics.end(status, error);
+                instrumentation.onResponse(requestInfo, metrics, instrumentationContext);
+            }
+        }
+    }
+
+    private static int statusOf(Throwable error) {
+        if (error instanceof HttpStatusCodeException) {
+            return ((HttpStatusCodeException) error).getStatusCode().value();
+        } else if (error instanceof PLYHttpException) {
+            return ((PLYHttpException) error).getHttpStatus();
+        } else if (error instanceof ResourceAccessException || error instanceof IOException) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private <T> ResponseEntity<T> sendWithRetries(HttpMethod method, String url, RestCall<T> restCall,
+            String fullUrl) throws HttpStatusCodeException, RestClientException {
+        RetryPolicy policy = retryPolicy;
+        if (policy == null) {
+            return send(restCall, fullUrl);
+        }
+        return policy.execute(method, url, () -> send(restCall, fullUrl));
+    }
+
+    private <T> ResponseEntity<T> send(RestCall<T> restCall, String fullUrl) throws HttpStatusCodeException,
+            RestClientException {
+        // the bulkhead is taken last, so that it is not held while throttled
+        RequestThrottle throttle = getRequestThrottle();
+        long start = throttle != null ? throttle.acquire() : 0;
+        EndpointIsolation isolation = endpointIsolation;
+        EndpointGroup group;
+        try {
+            group = isolation != null ? isolation.acquire(fullUrl) : null;
+        } catch (RuntimeException e) {
+            if (throttle != null) {
+                throttle.cancel();
+            }
+            throw e;
+        }
+        if (throttle != null && group != null) {
+            // the wait for the bulkhead is no latency of the API server
+            start = System.nanoTime();
+        }
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            metrics.onAttempt();
+        }
+        int status = -1;
+        HttpHeaders responseHeaders = null;
+        try {
+            ResponseEntity<T> response = restCall.exchange(fullUrl);
+            // follow redirects
+            if (response.getStatusCode() == HttpStatus.MOVED_PERMANENTLY
+                    || response.getStatusCode() == HttpStatus.FOUND) {
+                response = restCall.exchange(response.getHeaders().getLocation().toString());
+            }
+            status = response.getStatusCode().value();
+            return response;
+        } catch (HttpStatusCodeException e) {
+            status = e.getStatusCode().value();
+            responseHeaders = e.getResponseHeaders();
+            throw e;
+        } catch (ResourceAccessException e) {
+            status = 0;
+            throw e;
+        } finally {
+            if (group != null) {
+                isolation.release(group, status);
+            }
+            if (throttle != null) {
+                throttle.release(restCall.isLatencySampled() ? EndpointGroup.of(fullUrl) : null, start,
+                        status, responseHeaders);
+            }
+        }
+    }
+
+    private static String coalescingKey(String fullUrl, Map<String, ?> uriVariables, String responseType,
+            HttpHeaders headers) {
+        String resolvedUrl = uriVariables != null ? new UriTemplate(fullUrl).expand(uriVariables)
+                .toString() : fullUrl;
+        StringBuilder key = new StringBuilder(resolvedUrl);
+        key.append('\n').append(responseType);
+        for (String header : new String[] { "Authorization", "Cookie", "Accept-Language", "API-KEY" }) {
+            key.append('\n').append(headers.get(header));
+        }
+        // token headers are named after the token
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (header.getKey().startsWith("X-ProductLayer-Auth")) {
+                key.append('\n').append(header);
+            }
+        }
+        return key.toString();
+    }
+
+    private HttpEntity<Object> createEntity(HttpMethod method, Object object, MediaType contentType,
+            HttpHeaders requestHeaders, HttpHeaders traceHeaders) {
+        // prepare request body and headers
+        Object entityBody;
+        HttpHeaders entityHeaders = getDefaultHeaders();
+        if (requestHeaders != null || traceHeaders != null || object != null) {
+            HttpHeaders defaultHeaders = entityHeaders;
+            entityHeaders = new HttpHeaders();
+            entityHeaders.putAll(defaultHeaders);
+        }
+        if (requestHeaders != null) {
+            entityHeaders.putAll(requestHeaders);
+        }
+        if (traceHeaders != null) {
+            entityHeaders.putAll(traceHeaders);
+        }
+        if (object != null) {
+            entityBody = object;
+            entityHeaders.setContentType(contentType != null ? contentType : MediaType.APPLICATION_JSON);
+        } else {
+            entityBody = method == HttpMethod.GET ? null : "parameters";
+        }
+        return new HttpEntity<Object>(entityBody, entityHeaders);
+    }
+
+    private void updateSession(ResponseEntity<?> response) {
+        // an immutable client keeps its session, any new session cookie is
+        // still accessible via the response headers
+        List<String> sessionCookies = response.getHeaders().get("Set-Cookie");
+        if (!immutable && sessionCookies != null && !sessionCookies.isEmpty()) {
+            setSession(sessionCookies.get(0));
+        }
+    }
+
+    private static PLYHttpException toPLYHttpException(HttpStatusCodeException e) {
+        // attempt to parse response body into error response object
+        // the parsing will fail and return null any time the server is not
+        // responding with a JSON error response object (for example if a
+        // non-existent URL is called)
+        ErrorResponse errors = ConversionTool.parseObject(e.getResponseBodyAsByteArray(),
+                ErrorResponse.class);
+        PLYHttpException plyException;
+        if (errors != null && errors.getErrors() != null) {
+            // PLYHttpException containing messages of the parsed error
+            // response and the HTTP status code
+            plyException = new PLYHttpException(errors.getErrors(), e.getStatusCode().value());
+        } else {
+            // PLYHttpException containing a new error message with the HTTP
+            // status code and description (no error response returned)
+            plyException = new PLYHttpException(new ErrorMessage(e.getStatusCode().getReasonPhrase(), e
+                    .getStatusCode().value()), e.getStatusCode().value());
+        }
+        // keeps the response headers and tells server responses apart from
+        // requests rejected by the client itself
+        plyException.initCause(e);
+        return plyException;
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url},
+     * expanding any given {@code uriVariables}. The request is sent using a
+     * non-blocking HTTP client.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(String url, HttpMethod method,
+            Class<T> responseType, Map<String, ?> uriVariables) {
+        return exchangeAsync(url, method, responseType, null, null, null, uriVariables, null, null);
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url},
+     * expanding any given {@code uriVariables}. The request is sent using a
+     * non-blocking HTTP client.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param method
+     *            the HTTP method to use for the request
+     * @param parameterizedResponseType
+     *            the parameterized class expected to be returned implemented as
+     *            a {@link ParameterizedTypeReference}
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(String url, HttpMethod method,
+            ParameterizedTypeReference<T> parameterizedResponseType, Map<String, ?> uriVariables) {
+        return exchangeAsync(url, method, null, parameterizedResponseType, null, null, uriVariables, null,
+                null);
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url}
+     * with an {@code object} serialized as {@code application/json} in the
+     * request's body, expanding any given {@code uriVariables}. The request is
+     * sent using a non-blocking HTTP client.
+     * 
+     * @param url
+     *            the URL to send the request to (may include placeholders for
+     *            {@code uriVariables})
+     * @param method
+     *            the HTTP method to use for the request
+     * @param object
+     *            the object to be sent as the request's HTTP body
+     * @param responseType
+     *            the class expected to be returned
+     * @param uriVariables
+     *            any variables to be inserted into the URL
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeWithObjectAsync(String url, HttpMethod method,
+            Object object, Class<T> responseType, Map<String, ?> uriVariables) {
+        return exchangeAsync(url, method, responseType, null, object, MediaType.APPLICATION_JSON,
+                uriVariables, null, null);
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url}
+     * built from an {@link EndpointTemplate}. The URL is encoded already and
+     * sent as it is. The request is sent using a non-blocking HTTP client.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(EndpointTemplate.Url url,
+            HttpMethod method, Class<T> responseType) {
+        return exchangeAsync(url, method, responseType, null);
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url}
+     * built from an {@link EndpointTemplate} with additional request headers.
+     * The URL is encoded already and sent as it is. The request is sent using
+     * a non-blocking HTTP client.
+     * 
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param responseType
+     *            the class expected to be returned
+     * @param requestHeaders
+     *            any headers to send in addition to the default headers (e.g.
+     *            for conditional requests)
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(EndpointTemplate.Url url,
+            HttpMethod method, Class<T> responseType, HttpHeaders requestHeaders) {
+        return exchangeAsync(url.toString(), method, responseType, null, null, null, null, requestHeaders,
+                url.getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url}
+     * built from an {@link EndpointTemplate}. The URL is encoded already and
+     * sent as it is. The request is sent using a non-blocking HTTP client.
+     *
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param parameterizedResponseType
+     *            the parameterized class expected to be returned implemented as
+     *            a {@link ParameterizedTypeReference}
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(EndpointTemplate.Url url,
+            HttpMethod method, ParameterizedTypeReference<T> parameterizedResponseType) {
+        return exchangeAsync(url.toString(), method, null, parameterizedResponseType, null, null, null, null,
+                url.getEndpoint().getUrlTemplate());
+    }
+
+    /**
+     * Asynchronously execute the HTTP {@code method} to the given {@code url}
+     * built from an {@link EndpointTemplate} with an {@code object} serialized
+     * as {@code application/json} in the request's body. The URL is encoded
+     * already and sent as it is. The request is sent using a non-blocking
+     * HTTP client.
+     *
+     * @param url
+     *            the URL to send the request to
+     * @param method
+     *            the HTTP method to use for the request
+     * @param object
+     *            the object to be sent as the request's HTTP body
+     * @param responseType
+     *            the class expected to be returned
+     * @param <T>
+     *            the type to deserialize the value returned from the server to
+     * @return a future completed with the response of type
+     *         {@code responseType} wrapped in a ResponseEntity, or completed
+     *         exceptionally with a {@link PLYHttpException} on any HTTP status
+     *         code indicating failure or a {@link RestClientException} on any
+     *         client-side HTTP error
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeWithObjectAsync(EndpointTemplate.Url url,
+            HttpMethod method, Object object, Class<T> responseType) {
+        return exchangeAsync(url.toString(), method, responseType, null, object, MediaType.APPLICATION_JSON,
+                null, null, url.getEndpoint().getUrlTemplate());
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(String url, HttpMethod method,
+            Class<T> responseType, ParameterizedTypeReference<T> parameterizedResponseType, Object object,
+            MediaType contentType, Map<String, ?> uriVariablesMap, HttpHeaders requestHeaders,
+            String urlTemplate) {
+        ClientInstrumentation instrumentation = this.instrumentation;
+        RequestInfo requestInfo = null;
+        Object instrumentationContext = null;
+        HttpHeaders traceHeaders = null;
+        RequestMetrics metrics = null;
+        if (instrumentation != null) {
+            requestInfo = urlTemplate != null ? RequestInfo.of(method, url, urlTemplate, true) : RequestInfo
+                    .of(method, url, true);
+            traceHeaders = new HttpHeaders();
+            instrumentationContext = instrumentation.onRequest(requestInfo, traceHeaders);
+            metrics = new RequestMetrics();
+        }
+        final RequestInfo sentInfo = requestInfo;
+        final Object sentContext = instrumentationContext;
+        final HttpHeaders sentTraceHeaders = traceHeaders;
+        final RequestMetrics sentMetrics = metrics;
+        RetryPolicy policy = retryPolicy;
+        final CompletableFuture<ResponseEntity<T>> sent = policy == null ? sendAsync(url, method,
+                responseType, parameterizedResponseType, object, contentType, uriVariablesMap,
+                urlTemplate != null, requestHeaders, sentTraceHeaders, sentMetrics) : policy.executeAsync(
+                method, url, () -> sendAsync(url, method, responseType, parameterizedResponseType, object,
+                        contentType, uriVariablesMap, urlTemplate != null, requestHeaders, sentTraceHeaders,
+                        sentMetrics));
+        final CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<ResponseEntity<T>>();
+        sent.whenComplete((response, ex) -> {
+            Throwable cause = null;
+            if (ex == null) {
+                updateSession(response);
+            } else {
+                cause = FutureHelper.unwrap(ex);
+                if (cause instanceof HttpStatusCodeException) {
+                    cause = toPLYHttpException((HttpStatusCodeException) cause);
+                }
+            }
+            if (sentMetrics != null) {
+                sentMetrics.end(response != null ? response.getStatusCode().value() : statusOf(cause), cause);
+                instrumentation.onResponse(sentInfo, sentMetrics, sentContext);
+            }
+            if (cause == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+        // propagate cancellation and timeouts to the request
+        result.whenComplete((response, ex) -> {
+            if (!sent.isDone()) {
+                sent.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> sendAsync(final String url, final HttpMethod method,
+            final Class<T> responseType, final ParameterizedTypeReference<T> parameterizedResponseType,
+            Object object, MediaType contentType, Map<String, ?> uriVariablesMap, final boolean encoded,
+            HttpHeaders requestHeaders, HttpHeaders traceHeaders, final RequestMetrics metrics) {
+        final HttpEntity<Object> entity = createEntity(method, object, contentType, requestHeaders,
+                traceHeaders);
+        final String fullUrl = url.startsWith("http") ? url : getUrlForMethod(url);
+        final Map<String, ?> uriVariables = uriVariablesMap != null ? uriVariablesMap : Collections
+                .<String, Object> emptyMap();
+        final EndpointIsolation isolation = endpointIsolation;
+        final RequestThrottle throttle = getRequestThrottle();
+        if (throttle == null) {
+            EndpointGroup group;
+            try {
+                group = acquireIsolation(isolation, fullUrl);
+            } catch (PLYHttpException e) {
+                return failed(e);
+            }
+            return sendAsync(method, responseType, parameterizedResponseType, entity, fullUrl, uriVariables,
+                    encoded, metrics, isolation, group, null, 0);
+        }
+        // the calling thread may be an I/O thread of the non-blocking HTTP
+        // client, so delayed requests are sent by the throttle; the bulkhead
+        // is taken last, so that it is not held while throttled
+        final CompletableFuture<Long> permit = throttle.acquireAsync();
+        final CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<ResponseEntity<T>>();
+        permit.whenComplete((start, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(FutureHelper.unwrap(ex));
+                return;
+            }
+            if (result.isDone()) {
+                // cancelled or timed out while delayed
+                throttle.cancel();
+                return;
+            }
+            EndpointGroup group;
+            try {
+                group = acquireIsolation(isolation, fullUrl);
+            } catch (PLYHttpException e) {
+                throttle.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            CompletableFuture<ResponseEntity<T>> sent = sendAsync(method, responseType,
+                    parameterizedResponseType, entity, fullUrl, uriVariables, encoded, metrics, isolation,
+                    group, throttle, start);
+            sent.whenComplete((response, sendEx) -> {
+                if (sendEx == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(FutureHelper.unwrap(sendEx));
+                }
+            });
+            FutureHelper.propagateCancellation(sent, result);
+        });
+        return FutureHelper.propagateCancellation(permit, result);
+    }
+
+    private <T> CompletableFuture<ResponseEntity<T>> sendAsync(HttpMethod method, Class<T> responseType,
+            ParameterizedTypeReference<T> parameterizedResponseType, HttpEntity<Object> entity,
+            String fullUrl, Map<String, ?> uriVariables, boolean encoded, RequestMetrics metrics,
+            final EndpointIsolation isolation, final EndpointGroup group, final RequestThrottle throttle,
+            final long start) {
+        try {
+            if (metrics != null) {
+                metrics.onAttempt();
+            }
+            CompletableFuture<ResponseEntity<T>> sent;
+            if (encoded && parameterizedResponseType != null) {
+                sent = FutureHelper.toCompletableFuture(getAsyncRestTemplate().exchange(URI.create(fullUrl),
+                        method, entity, parameterizedResponseType));
+            } else if (encoded) {
+                sent = FutureHelper.toCompletableFuture(getAsyncRestTemplate().exchange(URI.create(fullUrl),
+                        method, entity, responseType));
+            } else if (parameterizedResponseType != null) {
+                sent = FutureHelper.toCompletableFuture(getAsyncRestTemplate().exchange(fullUrl, method,
+                        entity, parameterizedResponseType, uriVariables));
+            } else {
+                sent = FutureHelper.toCompletableFuture(getAsyncRestTemplate().exchange(fullUrl, method,
+                        entity, responseType, uriVariables));
+            }
+            if (throttle != null || group != null) {
+                // released before the request completes, so that a pause
+                // requested by the response applies to the next request
+                CompletableFuture<ResponseEntity<T>> released = sent.whenComplete((response, ex) -> {
+                    Throwable cause = FutureHelper.unwrap(ex);
+                    int status = -1;
+                    HttpHeaders responseHeaders = null;
+                    if (response != null) {
+                        status = response.getStatusCode().value();
+                    } else if (cause instanceof HttpStatusCodeException) {
+                        status = ((HttpStatusCodeException) cause).getStatusCode().value();
+                        responseHeaders = ((HttpStatusCodeException) cause).getResponseHeaders();
+                    } else if (cause instanceof ResourceAccessException || cause instanceof IOException) {
+                        status = 0;
+                    }
+                    if (group != null) {
+                        isolation.release(group, status);
+                    }
+                    if (throttle != null) {
+                        throttle.release(EndpointGroup.of(fullUrl), start, status, responseHeaders);
+                    }
+                });
+                return FutureHelper.propagateCancellation(sent, released);
+            }
+            return sent;
+        } catch (RuntimeException e) {
+            // not sent, e.g. an I/O error or the client has been closed
+            int status = e instanceof RestClientException ? 0 : -1;
+            if (group != null) {
+                isolation.release(group, status);
+            }
+            if (throttle != null) {
+                throttle.release(EndpointGroup.of(fullUrl), start, status, null);
+            }
+            return failed(e);
+        }
+    }
+
+    private static EndpointGroup acquireIsolation(EndpointIsolation isolation, String fullUrl)
+            throws PLYHttpException {
+        // rejected at once if the bulkhead is full rather than parking the
+        // calling thread, which may be an I/O thread
+        return isolation != null ? isolation.tryAcquire(fullUrl) : null;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> failed = new CompletableFuture<T>();
+        failed.completeExceptionally(e);
+        return failed;
+    }
+
+    /**
+     * @return the user name used for authentication with the ProductLayer API
+     *         server
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @param username
+     *            the user name to set for authentication with the ProductLayer
+     *            API server
+     */
+    public void setUsername(String username) {
+        checkMutable();
         this.username = username;
+        this.defaultHeaders = null;
     }
 
     /**
@@ -466,10 +1918,12 @@ public class PLYRestClient implements Serializable {
      *            the session to set
      */
     public void setSession(String session) {
+        checkMutable();
         if (session != null && session.contains("path")) {
             session = session.substring(0, session.indexOf("path"));
         }
         this.session = session;
+        this.defaultHeaders = null;
     }
 
     /**
@@ -493,7 +1947,9 @@ public class PLYRestClient implements Serializable {
      *            server
      */
     public void setToken(String token) {
+        checkMutable();
         this.token = token;
+        this.defaultHeaders = null;
     }
 
     /**
@@ -510,7 +1966,9 @@ public class PLYRestClient implements Serializable {
      *            API server
      */
     public void setPassword(String password) {
+        checkMutable();
         this.password = password;
+        this.defaultHeaders = null;
     }
 
     /**
@@ -520,30 +1978,52 @@ public class PLYRestClient implements Serializable {
         return additionalHeaders;
     }
 
+    /**
+     * @return whether this client is immutable and thus safe to be shared
+     *         among threads
+     */
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new IllegalStateException("This PLYRestClient is immutable, use a copy to modify it");
+        }
+    }
+
     /**
      * @param additionalHeaders
      *            any additional headers to be sent with HTTP requests
      */
     public void setAdditionalHeaders(Map<String, String> additionalHeaders) {
+        checkMutable();
         this.additionalHeaders = additionalHeaders;
+        this.defaultHeaders = null;
     }
 
     /**
+     * Creates a deep copy of this client. The copy shares the HTTP client (and
+     * therefore the connection pool) of this client, which is closed with this
+     * client, as well as its caches, request coalescer, throttle, retry
+     * policy, endpoint isolation and instrumentation.
+     * 
      * @return a deep copy of this PLYRestClient
      */
     public PLYRestClient copy() {
         PLYRestClientConfig copiedConfig = config.copy();
         PLYRestClient client = new PLYRestClient(copiedConfig, this.username, this.password, this.session,
-                this.token);
-
-        ClientHttpRequestFactory oldRequestFactory = getRestTemplate().getRequestFactory();
-        if (oldRequestFactory instanceof SimpleClientHttpRequestFactory) {
-            // native URLConnection
-            client.setRestTemplate(getSimpleRestTemplate(copiedConfig));
-        } else {
-            // Apache HTTPClient
-            client.setRestTemplate(getHttpComponentsRestTemplate(copiedConfig));
-        }
+                this.token, false);
+        client.restTemplate = restTemplate;
+        client.asyncRestTemplate = asyncRestTemplate;
+        client.sharedClients = sharedClients;
+        client.productCache = productCache;
+        client.imageCache = imageCache;
+        client.requestCoalescer = getRequestCoalescer();
+        client.requestThrottle = getRequestThrottle();
+        client.retryPolicy = retryPolicy;
+        client.endpointIsolation = endpointIsolation;
+        client.instrumentation = instrumentation;
 
         client.setClientIP(clientIP);
         client.setUserAgent(userAgent);
@@ -562,6 +2042,88 @@ public class PLYRestClient implements Serializable {
         return client;
     }
 
+    /**
+     * Creates a thread-safe copy of this client. The credentials, languages
+     * and headers of the copy cannot be modified and it does not pick up any
+     * session cookies returned by the server. The copy shares the HTTP client
+     * (and therefore the connection pool) of this client.
+     * 
+     * @return an immutable copy of this PLYRestClient
+     */
+    public PLYRestClient immutableCopy() {
+        return immutableCopy(username, password, session, token);
+    }
+
+    /**
+     * Creates a thread-safe copy of this client authenticating with a token
+     * instead of any credentials of this client. The copy shares the HTTP
+     * client (and therefore the connection pool) of this client.
+     * 
+     * @param token
+     *            the token to authenticate with
+     * @return an immutable copy of this PLYRestClient using {@code token}
+     */
+    public PLYRestClient withToken(String token) {
+        return immutableCopy(null, null, null, token);
+    }
+
+    /**
+     * Creates a thread-safe copy of this client authenticating with a session
+     * instead of any credentials of this client. The copy shares the HTTP
+     * client (and therefore the connection pool) of this client.
+     * 
+     * @param session
+     *            the session cookie to authenticate with
+     * @return an immutable copy of this PLYRestClient using {@code session}
+     */
+    public PLYRestClient withSession(String session) {
+        if (session != null && session.contains("path")) {
+            session = session.substring(0, session.indexOf("path"));
+        }
+        return immutableCopy(null, null, session, null);
+    }
+
+    /**
+     * Creates a thread-safe copy of this client authenticating with a user
+     * name and password instead of any credentials of this client. The copy
+     * shares the HTTP client (and therefore the connection pool) of this
+     * client.
+     * 
+     * @param username
+     *            the user name to authenticate with
+     * @param password
+     *            the password to authenticate with
+     * @return an immutable copy of this PLYRestClient using the credentials
+     */
+    public PLYRestClient withBasicAuth(String username, String password) {
+        return immutableCopy(username, password, null, null);
+    }
+
+    private PLYRestClient immutableCopy(String username, String password, String session, String token) {
+        PLYRestClient client = new PLYRestClient(config.copy(), username, password, session, token, true);
+        client.restTemplate = restTemplate;
+        client.sharedClients = sharedClients;
+        client.asyncRestTemplate = asyncRestTemplate;
+        client.productCache = productCache;
+        client.imageCache = imageCache;
+        client.requestCoalescer = getRequestCoalescer();
+        client.requestThrottle = getRequestThrottle();
+        client.retryPolicy = retryPolicy;
+        client.endpointIsolation = endpointIsolation;
+        client.instrumentation = instrumentation;
+        client.clientIP = clientIP;
+        client.userAgent = userAgent;
+        client.preferredLanguage = preferredLanguage;
+        if (additionalLanguages != null) {
+            client.additionalLanguages = additionalLanguages.clone();
+        }
+        if (additionalHeaders != null) {
+            client.additionalHeaders = Collections.unmodifiableMap(new HashMap<String, String>(
+                    additionalHeaders));
+        }
+        return client;
+    }
+
     /**
      * @return the preferred language for localizations
      */
@@ -574,13 +2136,18 @@ public class PLYRestClient implements Serializable {
      *            the preferred language to set for localizations
      */
     public void setPreferredLanguage(String preferredLanguage) {
+        checkMutable();
         this.preferredLanguage = preferredLanguage;
+        this.defaultHeaders = null;
     }
 
     /**
      * @return any additional languages to be considered for localization
      */
     public String[] getAdditionalLanguages() {
+        if (immutable && additionalLanguages != null) {
+            return additionalLanguages.clone();
+        }
         return additionalLanguages;
     }
 
@@ -589,7 +2156,26 @@ public class PLYRestClient implements Serializable {
      *            any additional languages to be considered for localization
      */
     public void setAdditionalLanguages(String[] additionalLanguages) {
+        checkMutable();
         this.additionalLanguages = additionalLanguages;
+        this.defaultHeaders = null;
+    }
+
+    /**
+     * @return the value of the Accept-Language header sent with requests, built
+     *         from the preferred and additional languages and any additional
+     *         headers, or null if no languages are sent
+     */
+    public String getAcceptLanguage() {
+        List<String> values = getDefaultHeaders().get("Accept-Language");
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        String acceptLanguage = values.get(0);
+        for (int i = 1; i < values.size(); i++) {
+            acceptLanguage += "," + values.get(i);
+        }
+        return acceptLanguage;
     }
 
     /**
@@ -606,7 +2192,9 @@ public class PLYRestClient implements Serializable {
      *            {@code PLYRestClient} is used as proxy
      */
     public void setClientIP(String clientIP) {
+        checkMutable();
         this.clientIP = clientIP;
+        this.defaultHeaders = null;
     }
 
     /**
@@ -623,28 +2211,9 @@ public class PLYRestClient implements Serializable {
      *            {@code PLYRestClient} is used as proxy
      */
     public void setUserAgent(String userAgent) {
+        checkMutable();
         this.userAgent = userAgent;
-    }
-
-    /**
-     * @return the status code returned by the last HTTP request
-     */
-    public HttpStatus getLastHttpStatus() {
-        return lastHttpStatus;
-    }
-
-    /**
-     * @return the headers returned by the last HTTP request
-     */
-    public HttpHeaders getLastHttpHeaders() {
-        return lastHttpHeaders;
-    }
-
-    /**
-     * @return the body returned by the last HTTP request
-     */
-    public Object getLastResponseBody() {
-        return lastResponseBody;
+        this.defaultHeaders = null;
     }
 
     /**
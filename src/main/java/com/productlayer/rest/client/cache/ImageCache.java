@@ -0,0 +1,591 @@
+package com.productlayer.rest.client.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+
+import com.productlayer.core.utils.Assert;
+
+/**
+ * A two-tier cache of image files and their scaled variants, keyed by the
+ * image file ID and the size parameters. Attach it to a client via
+ * {@link com.productlayer.rest.client.PLYRestClient#setImageCache(ImageCache)}
+ * to have {@code ImageService.getImage} served from the cache.
+ *
+ * All images are stored as files in the cache directory, bounded by their
+ * total size; the least recently used files are deleted first. Images read
+ * repeatedly are memory-mapped, bounded by the total size of the mapped
+ * files, so hot images are served from the page cache without copying them
+ * to the heap. Entries expire after a time to live; expired images are
+ * revalidated with a conditional request using their {@code ETag} and
+ * {@code Last-Modified} headers.
+ *
+ * The metadata of an entry is appended to its file, so the cache survives
+ * restarts: cached files found in the directory are reused after they have
+ * been revalidated.
+ *
+ * Every version of an image is written to a file of its own, so replacing an
+ * entry never changes the file an earlier entry refers to: readers of the
+ * earlier entry either read it completely or fail as if it had been evicted.
+ */
+public class ImageCache {
+
+    private static final String SUFFIX = ".img";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x504c5931;
+    // key length, ETag length, last modified, body length, magic
+    private static final int TRAILER_LENGTH = 4 + 4 + 8 + 8 + 4;
+    private static final int HOT_HITS = 2;
+
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final long maxMemoryBytes;
+    private final long timeToLive;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> mapped = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long diskBytes;
+    private long memoryBytes;
+    // the version of the most recently written file
+    private long version = System.currentTimeMillis();
+
+    private long hitCount;
+    private long missCount;
+    private long revalidationCount;
+    private long evictionCount;
+
+    /**
+     * A cached image file.
+     */
+    public static class Entry {
+        private final String key;
+        private final String imageFileId;
+        private final Path file;
+        private final long length;
+        private final String eTag;
+        private final long lastModified;
+        private volatile long expires;
+        private int hits;
+        private volatile MappedByteBuffer buffer;
+
+        private Entry(String key, String imageFileId, Path file, long length, String eTag,
+                long lastModified, long expires) {
+            this.key = key;
+            this.imageFileId = imageFileId;
+            this.file = file;
+            this.length = length;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.expires = expires;
+        }
+
+        /**
+         * @return whether the entry has not expired yet
+         */
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expires;
+        }
+
+        /**
+         * @return the size of the image in bytes
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return whether the image is memory-mapped
+         */
+        public boolean isMapped() {
+            return buffer != null;
+        }
+
+        /**
+         * @return the headers to revalidate the entry with a conditional
+         *         request, or null if the entry cannot be revalidated
+         */
+        public HttpHeaders getValidators() {
+            HttpHeaders headers = new HttpHeaders();
+            if (eTag != null) {
+                headers.setIfNoneMatch(eTag);
+            }
+            if (lastModified >= 0) {
+                headers.setIfModifiedSince(lastModified);
+            }
+            return headers.isEmpty() ? null : headers;
+        }
+
+        /**
+         * Reads the image, from the mapped file if it is hot, otherwise into a
+         * heap buffer.
+         *
+         * @return a read-only buffer of the image
+         * @throws IOException
+         *             if the file cannot be read, e.g. because it has been
+         *             evicted meanwhile
+         */
+        public ByteBuffer read() throws IOException {
+            MappedByteBuffer mappedBuffer = buffer;
+            if (mappedBuffer != null) {
+                return mappedBuffer.asReadOnlyBuffer();
+            }
+            ByteBuffer bytes = ByteBuffer.allocate((int) length);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (bytes.hasRemaining() && channel.read(bytes, bytes.position()) >= 0) {
+                }
+            }
+            bytes.flip();
+            return bytes.asReadOnlyBuffer();
+        }
+
+        /**
+         * Writes the image to {@code target}, transferring it directly from the
+         * file if it is not mapped.
+         *
+         * @param target
+         *            the channel to write to, not closed
+         * @return the number of bytes written
+         * @throws IOException
+         *             if the file cannot be read, e.g. because it has been
+         *             evicted meanwhile, or writing fails
+         */
+        public long transferTo(WritableByteChannel target) throws IOException {
+            MappedByteBuffer mappedBuffer = buffer;
+            if (mappedBuffer != null) {
+                ByteBuffer bytes = mappedBuffer.asReadOnlyBuffer();
+                while (bytes.hasRemaining()) {
+                    target.write(bytes);
+                }
+                return length;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long transferred = 0;
+                while (transferred < length) {
+                    transferred += channel.transferTo(transferred, length - transferred, target);
+                }
+                return transferred;
+            }
+        }
+    }
+
+    /**
+     * Constructs an image cache, reusing any images cached in
+     * {@code directory} before.
+     *
+     * @param directory
+     *            the directory to store the images in, created if missing
+     * @param maxDiskBytes
+     *            the maximum total size in bytes of the cached images
+     * @param maxMemoryBytes
+     *            the maximum total size in bytes of the memory-mapped images,
+     *            zero to never map images
+     * @param timeToLive
+     *            the time in milliseconds after which a cached image needs to
+     *            be revalidated
+     * @throws IOException
+     *             if the directory cannot be created or read
+     */
+    public ImageCache(Path directory, long maxDiskBytes, long maxMemoryBytes, long timeToLive)
+            throws IOException {
+        Assert.notNull(directory, "directory must not be null");
+        Assert.isTrue(maxDiskBytes > 0, "maxDiskBytes must be positive");
+        Assert.isTrue(maxMemoryBytes >= 0, "maxMemoryBytes must not be negative");
+        this.directory = Files.createDirectories(directory);
+        this.maxDiskBytes = maxDiskBytes;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.timeToLive = timeToLive;
+        load();
+    }
+
+    /**
+     * Builds the cache key of an image variant.
+     *
+     * @param imageFileId
+     *            the ID of the image file
+     * @param maxWidth
+     *            the requested maximum width, may be null
+     * @param maxHeight
+     *            the requested maximum height, may be null
+     * @param crop
+     *            whether the image is requested cropped, may be null
+     * @param quality
+     *            the requested quality, may be null
+     * @return the cache key
+     */
+    public static String key(String imageFileId, Integer maxWidth, Integer maxHeight, Boolean crop,
+            Integer quality) {
+        return imageFileId + '|' + (maxWidth == null ? "" : maxWidth) + '|'
+                + (maxHeight == null ? "" : maxHeight) + '|' + (crop == null ? "" : crop) + '|'
+                + (quality == null ? "" : quality);
+    }
+
+    /**
+     * @param key
+     *            the cache key as built by
+     *            {@link #key(String, Integer, Integer, Boolean, Integer)}
+     * @return the cached entry (fresh or expired), or null if not cached
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh()) {
+            hitCount++;
+            if (entry.buffer != null) {
+                mapped.get(key);
+            } else if (++entry.hits >= HOT_HITS) {
+                map(entry);
+            }
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * @return a new, empty file in the cache directory to download an image
+     *         to before it is cached with
+     *         {@link #put(String, String, Path, long, HttpHeaders)}
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(directory, "download", TEMP_SUFFIX);
+    }
+
+    /**
+     * Caches a downloaded image, moving the file into the cache.
+     *
+     * @param key
+     *            the cache key as built by
+     *            {@link #key(String, Integer, Integer, Boolean, Integer)}
+     * @param imageFileId
+     *            the ID of the image file
+     * @param file
+     *            the file containing the image, as created by
+     *            {@link #createTempFile()}
+     * @param length
+     *            the size of the image in bytes
+     * @param headers
+     *            the headers of the response the image was received with
+     * @return the new entry
+     * @throws IOException
+     *             if the file cannot be moved into the cache
+     */
+    public Entry put(String key, String imageFileId, Path file, long length, HttpHeaders headers)
+            throws IOException {
+        String eTag = headers != null ? headers.getETag() : null;
+        long lastModified = headers != null ? headers.getLastModified() : -1;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] eTagBytes = eTag != null ? eTag.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer trailer = ByteBuffer.allocate(keyBytes.length + eTagBytes.length + TRAILER_LENGTH);
+        trailer.put(keyBytes).put(eTagBytes).putInt(keyBytes.length).putInt(eTagBytes.length)
+                .putLong(lastModified).putLong(length).putInt(MAGIC).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            while (trailer.hasRemaining()) {
+                channel.write(trailer, length + trailer.position());
+            }
+        }
+        Path target = directory.resolve(fileName(key, nextVersion()));
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        Entry entry = new Entry(key, imageFileId, target, length, eTag, lastModified,
+                System.currentTimeMillis() + timeToLive);
+        store(entry);
+        return entry;
+    }
+
+    /**
+     * Marks an expired entry as fresh again after the server confirmed it has
+     * not been modified.
+     *
+     * @param entry
+     *            the revalidated entry
+     */
+    public void revalidated(Entry entry) {
+        entry.expires = System.currentTimeMillis() + timeToLive;
+        synchronized (this) {
+            revalidationCount++;
+        }
+    }
+
+    /**
+     * Removes an entry whose file could not be read.
+     *
+     * @param entry
+     *            the entry to remove
+     */
+    public synchronized void remove(Entry entry) {
+        if (entries.get(entry.key) == entry) {
+            entries.remove(entry.key);
+            diskBytes -= entry.length;
+            unmap(entry);
+        }
+    }
+
+    private synchronized void store(Entry entry) {
+        Entry previous = entries.put(entry.key, entry);
+        if (previous != null) {
+            delete(previous);
+        }
+        diskBytes += entry.length;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next();
+            if (evicted == entry) {
+                continue;
+            }
+            eldest.remove();
+            delete(evicted);
+            evictionCount++;
+        }
+    }
+
+    private void map(Entry entry) {
+        if (entry.length > maxMemoryBytes) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+            entry.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, entry.length);
+        } catch (IOException e) {
+            return;
+        }
+        mapped.put(entry.key, entry);
+        memoryBytes += entry.length;
+        Iterator<Entry> eldest = mapped.values().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Entry unmapped = eldest.next();
+            eldest.remove();
+            memoryBytes -= unmapped.length;
+            // the mapping is released once the buffer has been collected
+            unmapped.buffer = null;
+            unmapped.hits = 0;
+        }
+    }
+
+    private void unmap(Entry entry) {
+        if (entry.buffer != null && mapped.remove(entry.key) == entry) {
+            memoryBytes -= entry.length;
+        }
+        entry.buffer = null;
+    }
+
+    private void delete(Entry entry) {
+        diskBytes -= entry.length;
+        unmap(entry);
+        try {
+            Files.deleteIfExists(entry.file);
+        } catch (IOException e) {
+            // a file still mapped cannot be deleted on some platforms
+        }
+    }
+
+    /**
+     * Removes all cached variants of an image.
+     *
+     * @param imageFileId
+     *            the ID of the image file
+     */
+    public synchronized void invalidate(String imageFileId) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.imageFileId.equals(imageFileId)) {
+                iterator.remove();
+                delete(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached images.
+     */
+    public synchronized void invalidateAll() {
+        for (Entry entry : entries.values()) {
+            delete(entry);
+        }
+        entries.clear();
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<Path>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(TEMP_SUFFIX)) {
+                    // left by an interrupted download
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        // the least recently written first, approximating the access order
+        final Map<Path, Long> modified = new LinkedHashMap<Path, Long>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(modified::get));
+        for (Path file : files) {
+            Entry entry = readEntry(file);
+            long fileVersion = entry != null ? parseVersion(file.getFileName().toString(), entry.key) : -1;
+            if (fileVersion >= 0) {
+                version = Math.max(version, fileVersion);
+                store(entry);
+            } else {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private synchronized long nextVersion() {
+        return ++version;
+    }
+
+    private static Entry readEntry(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER_LENGTH) {
+                return null;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            while (trailer.hasRemaining() && channel.read(trailer, size - TRAILER_LENGTH + trailer.position())
+                    >= 0) {
+            }
+            trailer.flip();
+            int keyLength = trailer.getInt();
+            int eTagLength = trailer.getInt();
+            long lastModified = trailer.getLong();
+            long length = trailer.getLong();
+            if (trailer.getInt() != MAGIC || keyLength <= 0 || eTagLength < 0 || length < 0
+                    || length + keyLength + eTagLength + TRAILER_LENGTH != size) {
+                return null;
+            }
+            ByteBuffer meta = ByteBuffer.allocate(keyLength + eTagLength);
+            while (meta.hasRemaining() && channel.read(meta, length + meta.position()) >= 0) {
+            }
+            String key = new String(meta.array(), 0, keyLength, StandardCharsets.UTF_8);
+            String eTag = eTagLength > 0 ? new String(meta.array(), keyLength, eTagLength,
+                    StandardCharsets.UTF_8) : null;
+            String imageFileId = key.substring(0, Math.max(0, key.indexOf('|')));
+            // revalidated on first use
+            return new Entry(key, imageFileId, file, length, eTag, lastModified, 0);
+        }
+    }
+
+    private static String fileName(String key, long version) {
+        return hash(key) + '-' + Long.toHexString(version) + SUFFIX;
+    }
+
+    /**
+     * @return the version of the file named {@code name} if it has been
+     *         written for {@code key}, otherwise -1
+     */
+    private static long parseVersion(String name, String key) {
+        String prefix = hash(key) + '-';
+        if (!name.startsWith(prefix) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length()), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the number of cached images
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total size of the cached images in bytes
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * @return the total size of the memory-mapped images in bytes
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups not found in the cache or found expired
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of expired entries confirmed by the server to be
+     *         unmodified
+     */
+    public synchronized long getRevalidationCount() {
+        return revalidationCount;
+    }
+
+    /**
+     * @return the number of entries evicted due to the size bound
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    @Override
+    public synchronized String toString() {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("entries", entries.size());
+        stats.put("diskBytes", diskBytes);
+        stats.put("memoryBytes", memoryBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("revalidations", revalidationCount);
+        stats.put("evictions", evictionCount);
+        return "ImageCache" + stats;
+    }
+
+}
@@ -0,0 +1,570 @@
+package com.productlayer.rest.client.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.core.logic.LocalizationLogic;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.instrumentation.ClientInstrumentation;
+
+/**
+ * A cache of the localization bundles of the API, i.e. the localized keys of
+ * a domain, the localized product categories, characteristics and nutrition
+ * and the localizable files, for UI code looking them up on every page
+ * render.
+ *
+ * A bundle is downloaded once per domain and language and kept in a compact
+ * immutable map with interned keys. Lookups read the current bundle without
+ * locking. Loaded bundles are refreshed in the background with conditional
+ * requests; a bundle the server reports unmodified, or that is downloaded
+ * unchanged, is kept as it is. If a refresh fails the previous bundle is
+ * served until the next refresh.
+ *
+ * Bundles are loaded for the languages supported by the API as resolved by
+ * {@link LocalizationLogic#getValidLocaleString(String)}, so e.g. "de-AT"
+ * shares the "de" bundle and unsupported languages use the "en" bundle. Keys
+ * missing in a bundle are looked up in the "en" bundle.
+ *
+ * Bundles are loaded with an immutable copy of the client taken on
+ * construction, so later changes of the client do not apply to the cache.
+ */
+public class LocalizationCache implements AutoCloseable {
+
+    /**
+     * The default time in milliseconds between two refreshes of the loaded
+     * bundles.
+     */
+    public static final long DEFAULT_REFRESH_INTERVAL = 15 * 60 * 1000;
+
+    private static final String FALLBACK_LANGUAGE = "en";
+
+    private static final ParameterizedTypeReference<Map<String, String>> MAP_TYPE =
+            new ParameterizedTypeReference<Map<String, String>>() {
+            };
+
+    private final PLYRestClient client;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final ScheduledFuture<?> refreshTask;
+
+    private final ConcurrentHashMap<String, Bundle> bundles = new ConcurrentHashMap<String, Bundle>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile boolean closed;
+
+    private enum Kind {
+        KEYS("/localization"),
+        CATEGORIES("/products/categories"),
+        CHARACTERISTICS("/products/characteristics"),
+        NUTRITION("/products/nutritious"),
+        PROPERTIES_FILE("/localization/file/Localizable.{language}.properties"),
+        STRINGS_FILE("/localization/file/Localizable.{language}.strings");
+
+        private final EndpointTemplate endpoint;
+
+        private Kind(String template) {
+            this.endpoint = EndpointTemplate.of(template);
+        }
+
+        private boolean isFile() {
+            return this == PROPERTIES_FILE || this == STRINGS_FILE;
+        }
+
+        private EndpointTemplate.Url url(String domain, String language) {
+            if (isFile()) {
+                return endpoint.expand(language);
+            }
+            return endpoint.expand().query("domain", domain).query("fetchChilds", this == KEYS ? true : null)
+                    .query("language", language);
+        }
+    }
+
+    private static class Bundle {
+        private final Kind kind;
+        private final String domain;
+        private final String language;
+        // a CompactMap or the content of a file
+        private volatile Object content;
+        private volatile String eTag;
+        private volatile long lastModified = -1;
+
+        private Bundle(Kind kind, String domain, String language) {
+            this.kind = kind;
+            this.domain = domain;
+            this.language = language;
+        }
+    }
+
+    /**
+     * Constructs a cache refreshing its bundles every
+     * {@value #DEFAULT_REFRESH_INTERVAL} milliseconds from its own
+     * single-threaded scheduler.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     */
+    public LocalizationCache(PLYRestClient client) {
+        this(client, null, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param scheduler
+     *            [Optional] The scheduler to refresh the bundles from, shared
+     *            with the caller and not shut down on {@link #close()}; a
+     *            single-threaded scheduler is created if null
+     * @param refreshInterval
+     *            The time in milliseconds between two refreshes of the loaded
+     *            bundles, zero to never refresh them
+     */
+    public LocalizationCache(PLYRestClient client, ScheduledExecutorService scheduler, long refreshInterval) {
+        Assert.notNull(client, "client must not be null");
+        Assert.isTrue(refreshInterval >= 0, "refreshInterval must not be negative");
+        // used by the caller's threads and the refresh, the client must not
+        // change meanwhile
+        this.client = client.isImmutable() ? client : client.immutableCopy();
+        this.ownScheduler = scheduler == null && refreshInterval > 0;
+        this.scheduler = !ownScheduler ? scheduler : Executors
+                .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ply-localization-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.refreshTask = refreshInterval > 0 ? this.scheduler.scheduleWithFixedDelay(this::refresh,
+                refreshInterval, refreshInterval, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Gets the localized keys of a domain.
+     *
+     * @param domain
+     *            The root domain, e.g.: pl-prod
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return The keys belonging to the domain and as their value the
+     *         translation to the language, unmodifiable
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             bundle
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the bundle
+     */
+    public Map<String, String> getLocalizedKeys(String domain, String language) {
+        Assert.notNull(domain, "domain must not be null");
+        return getMap(Kind.KEYS, domain, language);
+    }
+
+    /**
+     * Gets the translation of a localized key, falling back to the "en"
+     * translation if the key is not translated to the language.
+     *
+     * @param domain
+     *            The root domain of the key, e.g.: pl-prod
+     * @param key
+     *            The key
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return The translation, or null if the key is not found
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             bundles
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the bundles
+     */
+    public String getLocalizedString(String domain, String key, String language) {
+        Assert.notNull(domain, "domain must not be null");
+        String validLanguage = LocalizationLogic.getValidLocaleString(language);
+        String value = getMap(Kind.KEYS, domain, validLanguage).get(key);
+        if (value == null && !FALLBACK_LANGUAGE.equals(validLanguage)) {
+            value = getMap(Kind.KEYS, domain, FALLBACK_LANGUAGE).get(key);
+        }
+        return value;
+    }
+
+    /**
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return The category keys and as their value the translation to the
+     *         language, unmodifiable
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             bundle
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the bundle
+     */
+    public Map<String, String> getLocalizedCategories(String language) {
+        return getMap(Kind.CATEGORIES, null, language);
+    }
+
+    /**
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return The characteristics keys and as their value the translation to
+     *         the language, unmodifiable
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             bundle
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the bundle
+     */
+    public Map<String, String> getLocalizedCharacteristics(String language) {
+        return getMap(Kind.CHARACTERISTICS, null, language);
+    }
+
+    /**
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return The nutrition keys and as their value the translation to the
+     *         language, unmodifiable
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             bundle
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the bundle
+     */
+    public Map<String, String> getLocalizedNutrition(String language) {
+        return getMap(Kind.NUTRITION, null, language);
+    }
+
+    /**
+     * @param language
+     *            [Optional] The language (e.g.: 'en' or 'de'), default: 'en'
+     * @return The content of the localizable property file for Java
+     *         applications
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             file
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the file
+     */
+    public String getLocalizedPropertiesFile(String language) {
+        return (String) get(Kind.PROPERTIES_FILE, null, language);
+    }
+
+    /**
+     * @param language
+     *            [Optional] The language (e.g.: 'en' or 'de'), default: 'en'
+     * @return The content of the localizable strings file for iOS applications
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure when loading the
+     *             file
+     * @throws RestClientException
+     *             On any client-side HTTP error when loading the file
+     */
+    public String getLocalizedStringsFile(String language) {
+        return (String) get(Kind.STRINGS_FILE, null, language);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getMap(Kind kind, String domain, String language) {
+        return (Map<String, String>) get(kind, domain, language);
+    }
+
+    private Object get(Kind kind, String domain, String language) {
+        Assert.isTrue(!closed, "cache has been closed");
+        String validLanguage = LocalizationLogic.getValidLocaleString(language);
+        String key = kind.name() + '\n' + validLanguage + (domain != null ? '\n' + domain : "");
+        Bundle bundle = bundles.get(key);
+        if (bundle == null) {
+            bundle = bundles.computeIfAbsent(key, k -> new Bundle(kind, domain, validLanguage));
+        }
+        Object content = bundle.content;
+        boolean hit = content != null;
+        ClientInstrumentation instrumentation = client.getInstrumentation();
+        if (instrumentation != null) {
+            instrumentation.onCacheLookup("localization", hit);
+        }
+        if (hit) {
+            hits.increment();
+            return content;
+        }
+        synchronized (bundle) {
+            // loaded by another thread meanwhile
+            if (bundle.content == null) {
+                load(bundle);
+                loads.increment();
+            }
+            return bundle.content;
+        }
+    }
+
+    private void load(Bundle bundle) {
+        Object previous = bundle.content;
+        HttpHeaders validators = null;
+        if (previous != null && (bundle.eTag != null || bundle.lastModified >= 0)) {
+            validators = new HttpHeaders();
+            if (bundle.eTag != null) {
+                validators.setIfNoneMatch(bundle.eTag);
+            }
+            if (bundle.lastModified >= 0) {
+                validators.setIfModifiedSince(bundle.lastModified);
+            }
+        }
+        EndpointTemplate.Url url = bundle.kind.url(bundle.domain, bundle.language);
+        ResponseEntity<?> response;
+        if (bundle.kind.isFile()) {
+            response = client.exchange(url, HttpMethod.GET, String.class, validators);
+        } else {
+            response = client.exchange(url, HttpMethod.GET, MAP_TYPE, validators);
+        }
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && previous != null) {
+            revalidations.increment();
+            return;
+        }
+        Object content;
+        if (bundle.kind.isFile()) {
+            content = response.getBody() != null ? response.getBody() : "";
+        } else {
+            @SuppressWarnings("unchecked")
+            Map<String, String> body = (Map<String, String>) response.getBody();
+            content = new CompactMap(body != null ? body : Collections.<String, String> emptyMap(),
+                    (CompactMap) previous);
+        }
+        bundle.eTag = response.getHeaders().getETag();
+        bundle.lastModified = response.getHeaders().getLastModified();
+        if (previous != null && previous.equals(content)) {
+            revalidations.increment();
+        } else {
+            bundle.content = content;
+            if (previous != null) {
+                updates.increment();
+            }
+        }
+    }
+
+    /**
+     * Refreshes all loaded bundles now. Bundles failing to refresh are kept.
+     * Called periodically from the scheduler.
+     */
+    public void refresh() {
+        for (Bundle bundle : bundles.values()) {
+            if (closed) {
+                return;
+            }
+            synchronized (bundle) {
+                if (bundle.content == null) {
+                    continue;
+                }
+                try {
+                    load(bundle);
+                } catch (RuntimeException e) {
+                    failures.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all bundles, e.g. after localizations have been modified. They
+     * are loaded again when next requested.
+     */
+    public void invalidateAll() {
+        bundles.clear();
+    }
+
+    /**
+     * Stops refreshing the bundles and shuts down the scheduler unless it was
+     * passed in.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+        if (ownScheduler) {
+            scheduler.shutdownNow();
+        }
+        bundles.clear();
+    }
+
+    /**
+     * @return the number of loaded bundles
+     */
+    public int size() {
+        int size = 0;
+        for (Bundle bundle : bundles.values()) {
+            if (bundle.content != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups served from a loaded bundle
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of bundles loaded on first use
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * @return the number of refreshes replacing a bundle with a modified one
+     */
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    /**
+     * @return the number of refreshes finding a bundle unmodified
+     */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+
+    /**
+     * @return the number of failed refreshes
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    @Override
+    public String toString() {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("bundles", size());
+        stats.put("hits", getHitCount());
+        stats.put("loads", getLoadCount());
+        stats.put("updates", getUpdateCount());
+        stats.put("revalidations", getRevalidationCount());
+        stats.put("failures", getFailureCount());
+        return "LocalizationCache" + stats;
+    }
+
+    /**
+     * An immutable map stored as sorted arrays of interned keys and their
+     * values, without an entry object per key. Values equal to those of the
+     * previous version of a bundle are shared with it.
+     */
+    private static final class CompactMap extends AbstractMap<String, String> {
+
+        private final String[] keys;
+        private final String[] values;
+
+        CompactMap(Map<String, String> source, CompactMap previous) {
+            String[] sortedKeys = new String[source.size()];
+            int size = 0;
+            for (String key : source.keySet()) {
+                if (key != null) {
+                    sortedKeys[size++] = key;
+                }
+            }
+            Arrays.sort(sortedKeys, 0, size);
+            this.keys = new String[size];
+            this.values = new String[size];
+            for (int i = 0; i < size; i++) {
+                String key = sortedKeys[i];
+                String value = source.get(key);
+                String previousValue = previous != null ? previous.get(key) : null;
+                if (previousValue != null && previousValue.equals(value)) {
+                    value = previousValue;
+                }
+                this.keys[i] = key.intern();
+                this.values[i] = value;
+            }
+        }
+
+        @Override
+        public String get(Object key) {
+            int index = key instanceof String ? Arrays.binarySearch(keys, key) : -1;
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<Map.Entry<String, String>>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<Map.Entry<String, String>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (index >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, String> entry = new SimpleImmutableEntry<String, String>(
+                                    keys[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+    }
+
+}
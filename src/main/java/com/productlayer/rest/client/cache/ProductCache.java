@@ -0,0 +1,402 @@
+package com.productlayer.rest.client.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.productlayer.core.beans.Product;
+import com.productlayer.core.beans.errors.ErrorMessage;
+import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.core.logic.ProductLogic;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.core.utils.StringUtils;
+import com.productlayer.rest.client.helper.ConversionTool;
+
+/**
+ * An in-memory cache of products looked up by GTIN, language and fetched keys.
+ * Attach it to a client via
+ * {@link com.productlayer.rest.client.PLYRestClient#setProductCache(ProductCache)}
+ * to have {@code ProductService.getProductForGtin} served from the cache.
+ *
+ * The cache is bounded by the number of entries as well as by their total
+ * weight (the size of the JSON representation of the products) and evicts the
+ * least recently used entries first. Entries expire after a time to live;
+ * expired products are revalidated with a conditional request using their
+ * {@code pl-version} and {@code pl-upd-time}. Unknown products (HTTP status
+ * 404) are cached for a separate, usually shorter, time to live.
+ *
+ * Lookups racing with an invalidation are not cached: take the
+ * {@link #getGeneration() generation} before sending a lookup and pass it to
+ * {@code put} or {@code putNotFound}, which drop the result if the product has
+ * been invalidated in the meantime.
+ *
+ * Cached products are shared among all callers and must not be modified.
+ */
+public class ProductCache {
+
+    private static final long NOT_FOUND_WEIGHT = 64;
+    private static final int MAX_INVALIDATIONS = 1024;
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long timeToLive;
+    private final long notFoundTimeToLive;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByGtin = new HashMap<String, Set<String>>();
+    private long weight;
+
+    // the generation of the most recent invalidation of each product, bounded
+    // by forgetting the oldest invalidations; results of lookups started
+    // before a forgotten invalidation are dropped as well
+    private final LinkedHashMap<String, Long> invalidations = new LinkedHashMap<String, Long>();
+    private long generation;
+    private long forgottenGeneration;
+
+    private long hitCount;
+    private long missCount;
+    private long revalidationCount;
+    private long evictionCount;
+
+    /**
+     * A cached lookup result: a product or the error response of an unknown
+     * product.
+     */
+    public static class Entry {
+        private final String gtin;
+        private final Product product;
+        private final List<ErrorMessage> notFoundErrors;
+        private final String eTag;
+        private final long weight;
+        private volatile long expires;
+
+        private Entry(String gtin, Product product, List<ErrorMessage> notFoundErrors, String eTag,
+                long weight, long expires) {
+            this.gtin = gtin;
+            this.product = product;
+            this.notFoundErrors = notFoundErrors;
+            this.eTag = eTag;
+            this.weight = weight;
+            this.expires = expires;
+        }
+
+        /**
+         * @return whether the entry has not expired yet
+         */
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expires;
+        }
+
+        /**
+         * @return the cached product, null if the product is unknown
+         */
+        public Product getProduct() {
+            return product;
+        }
+
+        /**
+         * @return the cached product
+         * @throws PLYHttpException
+         *             with HTTP status 404 if the product is unknown
+         */
+        public Product getProductOrThrow() {
+            if (product == null) {
+                throw new PLYHttpException(notFoundErrors, 404);
+            }
+            return product;
+        }
+
+        /**
+         * @return the headers to revalidate the entry with a conditional
+         *         request, or null if the entry cannot be revalidated
+         */
+        public HttpHeaders getValidators() {
+            if (product == null) {
+                return null;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            if (eTag != null) {
+                headers.setIfNoneMatch(eTag);
+            } else if (product.getVersionId() != null) {
+                headers.setIfNoneMatch("\"" + product.getVersionId() + "\"");
+            }
+            if (product.getLastUpdated() != null) {
+                headers.setIfModifiedSince(product.getLastUpdated());
+            }
+            return headers.isEmpty() ? null : headers;
+        }
+    }
+
+    /**
+     * Constructs a product cache.
+     *
+     * @param maxEntries
+     *            the maximum number of cached lookups
+     * @param maxWeight
+     *            the maximum total size in bytes of the JSON representation of
+     *            the cached products
+     * @param timeToLive
+     *            the time in milliseconds after which a cached product needs to
+     *            be revalidated
+     * @param notFoundTimeToLive
+     *            the time in milliseconds unknown products are cached for, zero
+     *            to not cache them
+     */
+    public ProductCache(int maxEntries, long maxWeight, long timeToLive, long notFoundTimeToLive) {
+        Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+        Assert.isTrue(maxWeight > 0, "maxWeight must be positive");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.timeToLive = timeToLive;
+        this.notFoundTimeToLive = notFoundTimeToLive;
+    }
+
+    /**
+     * Builds the cache key of a product lookup.
+     *
+     * @param gtin
+     *            the GTIN of the product
+     * @param language
+     *            the requested language, may be null
+     * @param fetchOnly
+     *            the requested keys, may be null
+     * @return the cache key
+     */
+    public static String key(String gtin, String language, String fetchOnly) {
+        return normalize(gtin) + '|' + (language == null ? "" : language) + '|'
+                + (fetchOnly == null ? "" : fetchOnly);
+    }
+
+    private static String normalize(String gtin) {
+        return StringUtils.isEmpty(gtin) ? "" : ProductLogic.trimleadingZeros(gtin);
+    }
+
+    /**
+     * @param key
+     *            the cache key as built by
+     *            {@link #key(String, String, String)}
+     * @return the cached entry (fresh or expired), or null if not cached
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isFresh()) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the current generation of the cache, advanced by every
+     *         invalidation; take it before sending a lookup to be cached
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches a product unless it has been invalidated after the given
+     * generation.
+     *
+     * @param key
+     *            the cache key as built by
+     *            {@link #key(String, String, String)}
+     * @param gtin
+     *            the GTIN of the product
+     * @param product
+     *            the product to cache
+     * @param headers
+     *            the headers of the response the product was received with
+     * @param generation
+     *            the generation of the cache taken before the lookup was sent
+     */
+    public void put(String key, String gtin, Product product, HttpHeaders headers, long generation) {
+        if (product == null) {
+            return;
+        }
+        long productWeight = headers != null ? headers.getContentLength() : -1;
+        if (productWeight < 0) {
+            try {
+                productWeight = ConversionTool.getObjectMapper().writeValueAsBytes(product).length;
+            } catch (JsonProcessingException e) {
+                return;
+            }
+        }
+        String eTag = headers != null ? headers.getETag() : null;
+        store(key, new Entry(normalize(gtin), product, null, eTag, productWeight, System.currentTimeMillis()
+                + timeToLive), generation);
+    }
+
+    /**
+     * Caches the error response of an unknown product unless it has been
+     * invalidated after the given generation.
+     *
+     * @param key
+     *            the cache key as built by
+     *            {@link #key(String, String, String)}
+     * @param gtin
+     *            the GTIN of the product
+     * @param error
+     *            the error received for the lookup (HTTP status 404)
+     * @param generation
+     *            the generation of the cache taken before the lookup was sent
+     */
+    public void putNotFound(String key, String gtin, PLYHttpException error, long generation) {
+        if (notFoundTimeToLive <= 0) {
+            return;
+        }
+        store(key, new Entry(normalize(gtin), null, error.getErrors(), null, NOT_FOUND_WEIGHT,
+                System.currentTimeMillis() + notFoundTimeToLive), generation);
+    }
+
+    /**
+     * Marks an expired entry as fresh again after the server confirmed it has
+     * not been modified.
+     *
+     * @param entry
+     *            the revalidated entry
+     */
+    public void revalidated(Entry entry) {
+        entry.expires = System.currentTimeMillis() + timeToLive;
+        synchronized (this) {
+            revalidationCount++;
+        }
+    }
+
+    private synchronized void store(String key, Entry entry, long generation) {
+        Long invalidated = invalidations.get(entry.gtin);
+        if (generation < forgottenGeneration || (invalidated != null && generation < invalidated)) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        Set<String> keys = keysByGtin.get(entry.gtin);
+        if (keys == null) {
+            keys = new HashSet<String>();
+            keysByGtin.put(entry.gtin, keys);
+        }
+        keys.add(key);
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.getValue().weight;
+            unindex(evicted.getValue().gtin, evicted.getKey());
+            evictionCount++;
+        }
+    }
+
+    private void unindex(String gtin, String key) {
+        Set<String> keys = keysByGtin.get(gtin);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByGtin.remove(gtin);
+        }
+    }
+
+    /**
+     * Removes all cached lookups of a product. Lookups of the product sent
+     * before are not cached anymore.
+     *
+     * @param gtin
+     *            the GTIN of the product
+     */
+    public synchronized void invalidate(String gtin) {
+        String normalizedGtin = normalize(gtin);
+        generation++;
+        invalidations.remove(normalizedGtin);
+        invalidations.put(normalizedGtin, generation);
+        if (invalidations.size() > MAX_INVALIDATIONS) {
+            Iterator<Long> oldest = invalidations.values().iterator();
+            forgottenGeneration = oldest.next();
+            oldest.remove();
+        }
+        Set<String> keys = keysByGtin.remove(normalizedGtin);
+        if (keys != null) {
+            for (String key : keys) {
+                weight -= entries.remove(key).weight;
+            }
+        }
+    }
+
+    /**
+     * Removes all cached lookups. Lookups sent before are not cached anymore.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        keysByGtin.clear();
+        weight = 0;
+        generation++;
+        invalidations.clear();
+        forgottenGeneration = generation;
+    }
+
+    /**
+     * @return the number of cached lookups
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total weight of the cached lookups in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of lookups not found in the cache or found expired
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of expired entries confirmed by the server to be
+     *         unmodified
+     */
+    public synchronized long getRevalidationCount() {
+        return revalidationCount;
+    }
+
+    /**
+     * @return the number of entries evicted due to the size bounds
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return a snapshot of the cache statistics
+     */
+    @Override
+    public synchronized String toString() {
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("entries", entries.size());
+        stats.put("weight", weight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("revalidations", revalidationCount);
+        stats.put("evictions", evictionCount);
+        return "ProductCache" + stats;
+    }
+
+}
@@ -0,0 +1,432 @@
+package com.productlayer.rest.client.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.productlayer.core.beans.Product;
+import com.productlayer.core.error.PLYException;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.ConversionTool;
+import com.productlayer.rest.client.services.ProductService;
+
+/**
+ * A local catalog of products for offline lookups by GTIN, e.g. for scans at a
+ * point of sale.
+ *
+ * The products are stored as compact JSON in direct (off-heap) byte buffers
+ * and are only deserialized when looked up, so the catalog needs a fraction
+ * of the heap of the equivalent {@code Map<String, Product>}. The index is an
+ * open-addressing hash table of primitive {@code long}s mapping the numeric
+ * value of the 14 digits GTIN to the location of the product's JSON.
+ *
+ * The catalog holds one product per GTIN; storing a product again replaces the
+ * previous one (its space is not reclaimed, see {@link #getGarbageBytes()}).
+ * Use a separate catalog per language. Lookups may be done concurrently with
+ * each other and with updates.
+ */
+public class ProductCatalog {
+
+    /**
+     * The default size in bytes of the off-heap segments holding the products.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The key of an invalid GTIN, and the marker of free slots in the index.
+     */
+    public static final long NO_KEY = -1L;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+    private ByteBuffer currentSegment;
+
+    private long[] keys;
+    private long[] locations;
+    private int size;
+    private int resizeThreshold;
+
+    private long payloadBytes;
+    private long garbageBytes;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs an empty catalog with the default segment size.
+     */
+    public ProductCatalog() {
+        this(1024, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructs an empty catalog.
+     *
+     * @param expectedSize
+     *            the expected number of products, to size the index
+     * @param segmentSize
+     *            the size in bytes of the off-heap segments holding the
+     *            products; larger products are stored in a segment of their
+     *            own
+     */
+    public ProductCatalog(int expectedSize, int segmentSize) {
+        Assert.isTrue(expectedSize >= 0, "expectedSize must not be negative");
+        Assert.isTrue(segmentSize > 0, "segmentSize must be positive");
+        this.segmentSize = segmentSize;
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocateIndex(capacity);
+    }
+
+    /**
+     * Encodes a GTIN as key of the catalog.
+     *
+     * @param gtin
+     *            the GTIN, up to 14 digits with or without leading zeros
+     * @return the numeric value of the GTIN, or {@link #NO_KEY} if
+     *         {@code gtin} does not consist of 1 to 14 digits
+     */
+    public static long key(CharSequence gtin) {
+        if (gtin == null || gtin.length() == 0 || gtin.length() > 14) {
+            return NO_KEY;
+        }
+        long key = 0;
+        for (int i = 0; i < gtin.length(); i++) {
+            int digit = gtin.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NO_KEY;
+            }
+            key = key * 10 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * Stores a product, replacing any product with the same GTIN.
+     *
+     * @param product
+     *            the product to store
+     * @return true if the product has been stored, false if it has no valid
+     *         GTIN
+     */
+    public boolean put(Product product) {
+        long key = key(product.getGtin());
+        if (key == NO_KEY) {
+            return false;
+        }
+        byte[] json;
+        try {
+            json = ConversionTool.getObjectMapper().writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new PLYException(e);
+        }
+        putJson(key, json);
+        return true;
+    }
+
+    /**
+     * Stores the JSON of a product, replacing any product with the same GTIN.
+     *
+     * @param key
+     *            the GTIN as encoded by {@link #key(CharSequence)}
+     * @param json
+     *            the JSON of the product
+     */
+    public void putJson(long key, byte[] json) {
+        Assert.isTrue(key >= 0, "invalid key");
+        lock.writeLock().lock();
+        try {
+            long location = append(json);
+            int slot = findSlot(key);
+            if (keys[slot] == key) {
+                garbageBytes += recordLength(locations[slot]);
+            } else {
+                keys[slot] = key;
+                size++;
+            }
+            locations[slot] = location;
+            if (size > resizeThreshold) {
+                allocateIndex(keys.length << 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stores many products.
+     *
+     * @param products
+     *            the products to store
+     * @return the number of products stored, i.e. having a valid GTIN
+     */
+    public int putAll(Product[] products) {
+        int stored = 0;
+        for (Product product : products) {
+            if (product != null && put(product)) {
+                stored++;
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Loads consecutive pages of products until an empty page is returned.
+     *
+     * @param pages
+     *            returns the products of the page with the given index
+     *            (starting with 0), or null or an empty array if there are no
+     *            more products
+     * @return the number of products stored
+     */
+    public int loadPages(IntFunction<Product[]> pages) {
+        int stored = 0;
+        for (int page = 0;; page++) {
+            Product[] products = pages.apply(page);
+            if (products == null || products.length == 0) {
+                return stored;
+            }
+            stored += putAll(products);
+        }
+    }
+
+    /**
+     * Loads all products matching a search page by page.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param query
+     *            [Optional] The query may contain the name, GTIN or brand of
+     *            the product
+     * @param brand
+     *            [Optional] The brand of the products
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param recordsPerPage
+     *            The amount of products to be loaded per request, maximum:
+     *            '200'
+     * @return the number of products stored
+     * @see ProductService#searchProducts
+     */
+    public int loadFromSearch(PLYRestClient client, String query, String brand, String language,
+            String categoryKey, int recordsPerPage) {
+        Assert.isTrue(recordsPerPage > 0, "recordsPerPage must be positive");
+        int stored = 0;
+        for (int page = 0;; page++) {
+            Product[] products = ProductService.searchProducts(client, query, page, recordsPerPage, null,
+                    brand, null, language, false, null, null, categoryKey, null);
+            if (products == null) {
+                return stored;
+            }
+            stored += putAll(products);
+            if (products.length < recordsPerPage) {
+                // last page
+                return stored;
+            }
+        }
+    }
+
+    /**
+     * Looks up a product by GTIN.
+     *
+     * @param gtin
+     *            the GTIN of the product, with or without leading zeros
+     * @return a new instance of the stored product, or null if not found
+     */
+    public Product get(CharSequence gtin) {
+        long key = key(gtin);
+        return key == NO_KEY ? null : get(key);
+    }
+
+    /**
+     * Looks up a product by GTIN.
+     *
+     * @param key
+     *            the GTIN as encoded by {@link #key(CharSequence)}
+     * @return a new instance of the stored product, or null if not found
+     */
+    public Product get(long key) {
+        ByteBuffer json = getJson(key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            ObjectMapper mapper = ConversionTool.getObjectMapper();
+            return mapper.readValue(new ByteBufferBackedInputStream(json), Product.class);
+        } catch (IOException e) {
+            throw new PLYException(e);
+        }
+    }
+
+    /**
+     * Looks up the JSON of a product by GTIN without deserializing it.
+     *
+     * @param key
+     *            the GTIN as encoded by {@link #key(CharSequence)}
+     * @return a read-only buffer of the JSON of the stored product, or null if
+     *         not found
+     */
+    public ByteBuffer getJson(long key) {
+        if (key < 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(key);
+            if (keys[slot] != key) {
+                return null;
+            }
+            return record(locations[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param gtin
+     *            the GTIN of the product, with or without leading zeros
+     * @return whether a product with the GTIN is stored
+     */
+    public boolean contains(CharSequence gtin) {
+        return getJson(key(gtin)) != null;
+    }
+
+    /**
+     * @return the number of stored products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of off-heap bytes holding the stored products,
+     *         including replaced products
+     */
+    public long getPayloadBytes() {
+        lock.readLock().lock();
+        try {
+            return payloadBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of off-heap bytes of replaced products
+     */
+    public long getGarbageBytes() {
+        lock.readLock().lock();
+        try {
+            return garbageBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all products and releases the off-heap segments.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            segments.clear();
+            currentSegment = null;
+            payloadBytes = 0;
+            garbageBytes = 0;
+            size = 0;
+            allocateIndex(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void allocateIndex(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldLocations = locations;
+        keys = new long[capacity];
+        locations = new long[capacity];
+        Arrays.fill(keys, NO_KEY);
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        if (oldKeys != null) {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != NO_KEY) {
+                    int slot = findSlot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    locations[slot] = oldLocations[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding {@code key} or the free slot to store it in
+     */
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != NO_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        // finalizer of MurmurHash3, spreads consecutive GTINs
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Appends a record (length and bytes) to the current segment.
+     *
+     * @return the location of the record: segment index in the upper and
+     *         offset in the lower 32 bits
+     */
+    private long append(byte[] json) {
+        int recordLength = 4 + json.length;
+        if (currentSegment == null || currentSegment.remaining() < recordLength) {
+            currentSegment = ByteBuffer.allocateDirect(Math.max(segmentSize, recordLength));
+            segments.add(currentSegment);
+        }
+        int offset = currentSegment.position();
+        currentSegment.putInt(json.length).put(json);
+        payloadBytes += recordLength;
+        return ((long) (segments.size() - 1) << 32) | offset;
+    }
+
+    private int recordLength(long location) {
+        ByteBuffer segment = segments.get((int) (location >>> 32));
+        return 4 + segment.getInt((int) location);
+    }
+
+    private ByteBuffer record(long location) {
+        ByteBuffer segment = segments.get((int) (location >>> 32)).duplicate();
+        int offset = (int) location;
+        int length = segment.getInt(offset);
+        segment.limit(offset + 4 + length).position(offset + 4);
+        return segment.slice().asReadOnlyBuffer();
+    }
+
+}
@@ -0,0 +1,609 @@
+package com.productlayer.rest.client.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.productlayer.core.beans.Product;
+import com.productlayer.core.error.PLYException;
+import com.productlayer.rest.client.helper.ConversionTool;
+
+/**
+ * A persistent catalog of products in a memory-mapped snapshot file plus an
+ * append-only log of changed products.
+ *
+ * The snapshot file is written once by {@link #write(Path, Collection)} or by
+ * a compaction and is opened with {@link FileChannel#map}, so even catalogs of
+ * several gigabytes are available immediately after a restart without reading
+ * or parsing the products. Products are deserialized only when looked up.
+ *
+ * Snapshot file layout (big-endian):
+ * <ul>
+ * <li>header: magic {@code PLYS}, format version, number of products, index
+ * offset, creation time (32 bytes)</li>
+ * <li>data: per product the length of the JSON, the {@code pl-version} and the
+ * JSON of the product</li>
+ * <li>index: per product the GTIN as {@code long} (see
+ * {@link ProductCatalog#key(CharSequence)}) and the offset of its data,
+ * sorted by GTIN for binary search</li>
+ * </ul>
+ * Data records and index entries never cross a 1 GB boundary, so the file is
+ * mapped in chunks of 1 GB.
+ *
+ * Products passed to {@link #update(Product)} with a newer {@code pl-version}
+ * are appended to the log file ({@code <snapshot>.log}) and kept in an
+ * off-heap {@link ProductCatalog}; the log is replayed when the snapshot is
+ * opened. {@link #compactAsync()} merges the log into a new snapshot file in
+ * the background and atomically replaces the old one.
+ */
+public class ProductSnapshot implements Closeable {
+
+    /**
+     * The magic number at the start of snapshot files ({@code PLYS}).
+     */
+    public static final int MAGIC = 0x504C5953;
+
+    /**
+     * The magic number at the start of log files ({@code PLYL}).
+     */
+    public static final int LOG_MAGIC = 0x504C594C;
+
+    /**
+     * The current version of the file format.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int LOG_HEADER_SIZE = 8;
+    private static final int LOG_RECORD_HEADER_SIZE = 20;
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    private final Path file;
+    private final Path logFile;
+
+    private Mapping mapping;
+    private FileChannel log;
+    private ProductCatalog overlay;
+    private Map<Long, Long> overlayVersions;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ply-snapshot-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * A snapshot file mapped into memory.
+     */
+    private static class Mapping {
+        private final MappedByteBuffer[] chunks;
+        private final int count;
+        private final long indexOffset;
+
+        private Mapping(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_SIZE) {
+                    throw new IOException("Not a product snapshot: " + file);
+                }
+                chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long position = i * CHUNK_SIZE;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(CHUNK_SIZE, size - position));
+                }
+            }
+            ByteBuffer header = chunks[0];
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a product snapshot: " + file);
+            }
+            if (header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + header.getInt(4) + ": "
+                        + file);
+            }
+            count = header.getInt(8);
+            indexOffset = header.getLong(16);
+        }
+
+        private long getLong(long offset) {
+            return chunks[(int) (offset / CHUNK_SIZE)].getLong((int) (offset % CHUNK_SIZE));
+        }
+
+        private long keyAt(int index) {
+            return getLong(indexOffset + (long) index * INDEX_ENTRY_SIZE);
+        }
+
+        private long recordAt(int index) {
+            return getLong(indexOffset + (long) index * INDEX_ENTRY_SIZE + 8);
+        }
+
+        /**
+         * @return the index of {@code key} or a negative value if not found
+         */
+        private int find(long key) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleKey = keyAt(middle);
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private long version(long record) {
+            return chunks[(int) (record / CHUNK_SIZE)].getLong((int) (record % CHUNK_SIZE) + 4);
+        }
+
+        private ByteBuffer json(long record) {
+            ByteBuffer chunk = chunks[(int) (record / CHUNK_SIZE)].duplicate();
+            int position = (int) (record % CHUNK_SIZE);
+            int length = chunk.getInt(position);
+            chunk.limit(position + RECORD_HEADER_SIZE + length).position(position + RECORD_HEADER_SIZE);
+            return chunk.slice().asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Writes a snapshot file record by record in ascending GTIN order.
+     */
+    private static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private long position = HEADER_SIZE;
+        private long[] keys = new long[1024];
+        private long[] records = new long[1024];
+        private int count;
+
+        private Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        private void add(long key, long version, ByteBuffer json) throws IOException {
+            if (count > 0 && key <= keys[count - 1]) {
+                throw new IllegalArgumentException("Products must be written in ascending GTIN order");
+            }
+            int length = json.remaining();
+            // do not let the record cross a chunk boundary
+            if (position % CHUNK_SIZE + RECORD_HEADER_SIZE + length > CHUNK_SIZE) {
+                pad(CHUNK_SIZE - position % CHUNK_SIZE);
+            }
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                records = Arrays.copyOf(records, count * 2);
+            }
+            keys[count] = key;
+            records[count] = position;
+            count++;
+            out.writeInt(length);
+            out.writeLong(version);
+            if (json.hasArray()) {
+                out.write(json.array(), json.arrayOffset() + json.position(), length);
+            } else {
+                byte[] bytes = new byte[length];
+                json.duplicate().get(bytes);
+                out.write(bytes);
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        private void pad(long bytes) throws IOException {
+            for (long i = 0; i < bytes; i++) {
+                out.write(0);
+            }
+            position += bytes;
+        }
+
+        private void finish() throws IOException {
+            pad((INDEX_ENTRY_SIZE - position % INDEX_ENTRY_SIZE) % INDEX_ENTRY_SIZE);
+            long indexOffset = position;
+            for (int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+                out.writeLong(records[i]);
+            }
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(0).putLong(indexOffset)
+                    .putLong(System.currentTimeMillis()).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private ProductSnapshot(Path file) throws IOException {
+        this.file = file;
+        this.logFile = file.resolveSibling(file.getFileName() + ".log");
+        this.mapping = new Mapping(file);
+        openLog();
+    }
+
+    /**
+     * Writes a snapshot file of products, replacing any existing file. If a
+     * GTIN occurs more than once, the product with the highest
+     * {@code pl-version} is kept. Products without a valid GTIN are skipped.
+     *
+     * @param file
+     *            the snapshot file to write
+     * @param products
+     *            the products to write
+     * @return the number of products written
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public static int write(Path file, Collection<Product> products) throws IOException {
+        List<Product> sorted = new ArrayList<Product>(products.size());
+        for (Product product : products) {
+            if (product != null && ProductCatalog.key(product.getGtin()) != ProductCatalog.NO_KEY) {
+                sorted.add(product);
+            }
+        }
+        sorted.sort(Comparator.comparingLong((Product product) -> ProductCatalog.key(product.getGtin()))
+                .thenComparing(Comparator.comparingLong(ProductSnapshot::version).reversed()));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int written = 0;
+        try (Writer writer = new Writer(temp)) {
+            long previousKey = ProductCatalog.NO_KEY;
+            for (Product product : sorted) {
+                long key = ProductCatalog.key(product.getGtin());
+                if (key != previousKey) {
+                    writer.add(key, version(product), ByteBuffer.wrap(toJson(product)));
+                    previousKey = key;
+                    written++;
+                }
+            }
+            writer.finish();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Opens a snapshot file and replays its log of changed products.
+     *
+     * @param file
+     *            the snapshot file to open
+     * @return the opened snapshot
+     * @throws IOException
+     *             if the file cannot be read or is not a snapshot of a
+     *             supported format version
+     */
+    public static ProductSnapshot open(Path file) throws IOException {
+        return new ProductSnapshot(file);
+    }
+
+    private static long version(Product product) {
+        return product.getVersionId() != null ? product.getVersionId() : 0;
+    }
+
+    private static byte[] toJson(Product product) {
+        try {
+            return ConversionTool.getObjectMapper().writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new PLYException(e);
+        }
+    }
+
+    private void openLog() throws IOException {
+        overlay = new ProductCatalog();
+        overlayVersions = new HashMap<Long, Long>();
+        log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (log.size() < LOG_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+            header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).flip();
+            log.truncate(0);
+            log.write(header, 0);
+            log.force(true);
+        } else {
+            replayLog();
+        }
+        log.position(log.size());
+    }
+
+    private void replayLog() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        log.read(header, 0);
+        if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a product snapshot log of a supported version: " + logFile);
+        }
+        long position = LOG_HEADER_SIZE;
+        long size = log.size();
+        ByteBuffer recordHeader = ByteBuffer.allocate(LOG_RECORD_HEADER_SIZE);
+        while (position + LOG_RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            log.read(recordHeader, position);
+            long key = recordHeader.getLong(0);
+            long version = recordHeader.getLong(8);
+            int length = recordHeader.getInt(16);
+            if (length < 0 || position + LOG_RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer json = ByteBuffer.allocate(length);
+            log.read(json, position + LOG_RECORD_HEADER_SIZE);
+            overlay.putJson(key, json.array());
+            overlayVersions.put(key, version);
+            position += LOG_RECORD_HEADER_SIZE + length;
+        }
+        if (position < size) {
+            // drop a record partially written before a crash
+            log.truncate(position);
+        }
+    }
+
+    /**
+     * Looks up a product by GTIN.
+     *
+     * @param gtin
+     *            the GTIN of the product, with or without leading zeros
+     * @return a new instance of the stored product, or null if not found
+     */
+    public Product get(CharSequence gtin) {
+        ByteBuffer json = getJson(ProductCatalog.key(gtin));
+        if (json == null) {
+            return null;
+        }
+        try {
+            return ConversionTool.getObjectMapper().readValue(new ByteBufferBackedInputStream(json),
+                    Product.class);
+        } catch (IOException e) {
+            throw new PLYException(e);
+        }
+    }
+
+    /**
+     * Looks up the JSON of a product by GTIN without deserializing it.
+     *
+     * @param key
+     *            the GTIN as encoded by {@link ProductCatalog#key(CharSequence)}
+     * @return a read-only buffer of the JSON of the product, or null if not
+     *         found
+     */
+    public ByteBuffer getJson(long key) {
+        if (key < 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            ByteBuffer json = overlay.getJson(key);
+            if (json != null) {
+                return json;
+            }
+            int index = mapping.find(key);
+            return index < 0 ? null : mapping.json(mapping.recordAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key
+     *            the GTIN as encoded by {@link ProductCatalog#key(CharSequence)}
+     * @return the {@code pl-version} of the stored product, or -1 if not found
+     */
+    public long getVersion(long key) {
+        lock.readLock().lock();
+        try {
+            Long version = overlayVersions.get(key);
+            if (version != null) {
+                return version;
+            }
+            int index = mapping.find(key);
+            return index < 0 ? -1 : mapping.version(mapping.recordAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a product if it is not yet known or its {@code pl-version} is
+     * newer than the stored one. The product is appended to the log and
+     * flushed to the file system.
+     *
+     * @param product
+     *            the changed product
+     * @return true if the product has been stored, false if it has no valid
+     *         GTIN or is not newer than the stored product
+     * @throws IOException
+     *             if the product cannot be appended to the log
+     */
+    public boolean update(Product product) throws IOException {
+        long key = ProductCatalog.key(product.getGtin());
+        if (key == ProductCatalog.NO_KEY) {
+            return false;
+        }
+        long version = version(product);
+        byte[] json = toJson(product);
+        lock.writeLock().lock();
+        try {
+            long storedVersion = getVersion(key);
+            if (storedVersion >= 0 && version <= storedVersion) {
+                return false;
+            }
+            ByteBuffer record = ByteBuffer.allocate(LOG_RECORD_HEADER_SIZE + json.length);
+            record.putLong(key).putLong(version).putInt(json.length).put(json).flip();
+            while (record.hasRemaining()) {
+                log.write(record);
+            }
+            log.force(false);
+            overlay.putJson(key, json);
+            overlayVersions.put(key, version);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of products in the snapshot file (not counting
+     *         products only in the log)
+     */
+    public int getSnapshotSize() {
+        lock.readLock().lock();
+        try {
+            return mapping.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of changed products in the log
+     */
+    public int getLogSize() {
+        lock.readLock().lock();
+        try {
+            return overlay.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merges the log into a new snapshot file in the background. The new file
+     * replaces the snapshot file atomically; lookups and updates continue
+     * during the compaction.
+     *
+     * @return a future completed once the new snapshot file is in use
+     */
+    public CompletableFuture<Void> compactAsync() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new PLYException(e);
+            }
+        }, compactor);
+    }
+
+    /**
+     * Merges the log into a new snapshot file. The new file replaces the
+     * snapshot file atomically.
+     *
+     * @throws IOException
+     *             if the new snapshot file cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        Mapping base;
+        long[] keys;
+        long logEnd;
+        lock.readLock().lock();
+        try {
+            base = mapping;
+            keys = new long[overlayVersions.size()];
+            int i = 0;
+            for (Long key : overlayVersions.keySet()) {
+                keys[i++] = key;
+            }
+            logEnd = log.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(keys);
+
+        // merge the sorted snapshot and the sorted log without blocking
+        // lookups or updates
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = new Writer(temp)) {
+            int baseIndex = 0;
+            int logIndex = 0;
+            while (baseIndex < base.count || logIndex < keys.length) {
+                long baseKey = baseIndex < base.count ? base.keyAt(baseIndex) : Long.MAX_VALUE;
+                long logKey = logIndex < keys.length ? keys[logIndex] : Long.MAX_VALUE;
+                if (logKey <= baseKey) {
+                    writer.add(logKey, getVersion(logKey), getJson(logKey));
+                    logIndex++;
+                    if (logKey == baseKey) {
+                        baseIndex++;
+                    }
+                } else {
+                    long record = base.recordAt(baseIndex);
+                    writer.add(baseKey, base.version(record), base.json(record));
+                    baseIndex++;
+                }
+            }
+            writer.finish();
+        }
+
+        lock.writeLock().lock();
+        try {
+            // keep the products logged during the compaction in a new log
+            Path tempLog = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+            try (FileChannel newLog = FileChannel.open(tempLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+                header.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).flip();
+                newLog.write(header);
+                log.transferTo(logEnd, log.size() - logEnd, newLog);
+                newLog.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempLog, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.close();
+            mapping = new Mapping(file);
+            openLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes the log and stops any compaction. The mapped snapshot file is
+     * released once no longer referenced.
+     *
+     * @throws IOException
+     *             if the log cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        lock.writeLock().lock();
+        try {
+            log.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+}
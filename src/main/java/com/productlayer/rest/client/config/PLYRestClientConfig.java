@@ -23,6 +23,26 @@ public class PLYRestClientConfig implements Serializable {
     private static String PROXY_HOST = "localhost";
     private static int PROXY_PORT = 8888;
 
+    private static int MAX_CONNECTIONS_TOTAL = 100;
+    private static int MAX_CONNECTIONS_PER_ROUTE = 20;
+    private static long CONNECTION_TIME_TO_LIVE = -1;
+    private static int VALIDATE_AFTER_INACTIVITY = 2000;
+    private static long IDLE_CONNECTION_TIMEOUT = 30000;
+
+    private static int CONNECT_TIMEOUT = 10000;
+    private static int SOCKET_TIMEOUT = 30000;
+    private static int CONNECTION_REQUEST_TIMEOUT = 10000;
+
+    private static boolean HTTP2_ENABLED = false;
+    private static int REQUEST_COMPRESSION_THRESHOLD = -1;
+
+    private static boolean COALESCE_GET_REQUESTS = false;
+
+    private static double REQUESTS_PER_SECOND = 0;
+    private static int REQUEST_BURST = 10;
+    private static int MAX_CONCURRENT_REQUESTS = 0;
+    private static long THROTTLE_TIMEOUT = 10000;
+
     public String apiSchema = API_SCHEMA;
     public String apiHost = API_HOST;
     public int apiPort = API_PORT;
@@ -34,6 +54,94 @@ public class PLYRestClientConfig implements Serializable {
     public String proxyHost = PROXY_HOST;
     public int proxyPort = PROXY_PORT;
 
+    /**
+     * The maximum number of pooled connections (Apache HTTPClient only).
+     */
+    public int maxConnectionsTotal = MAX_CONNECTIONS_TOTAL;
+    /**
+     * The maximum number of pooled connections per route, i.e. per API host
+     * (Apache HTTPClient only).
+     */
+    public int maxConnectionsPerRoute = MAX_CONNECTIONS_PER_ROUTE;
+    /**
+     * The maximum lifetime of a pooled connection in milliseconds, zero or
+     * negative for no limit (Apache HTTPClient only).
+     */
+    public long connectionTimeToLive = CONNECTION_TIME_TO_LIVE;
+    /**
+     * The period of inactivity in milliseconds after which a pooled connection
+     * is validated before being leased again, zero or negative to disable
+     * (Apache HTTPClient only).
+     */
+    public int validateAfterInactivity = VALIDATE_AFTER_INACTIVITY;
+    /**
+     * The time in milliseconds after which idle connections are evicted from
+     * the pool by a background thread, zero or negative to disable (Apache
+     * HTTPClient only).
+     */
+    public long idleConnectionTimeout = IDLE_CONNECTION_TIMEOUT;
+
+    /**
+     * The timeout in milliseconds until a connection is established, zero for
+     * infinite, negative for the system default.
+     */
+    public int connectTimeout = CONNECT_TIMEOUT;
+    /**
+     * The timeout in milliseconds waiting for data, zero for infinite, negative
+     * for the system default.
+     */
+    public int socketTimeout = SOCKET_TIMEOUT;
+    /**
+     * The timeout in milliseconds waiting for a connection from the pool, zero
+     * for infinite, negative for the system default (Apache HTTPClient only).
+     */
+    public int connectionRequestTimeout = CONNECTION_REQUEST_TIMEOUT;
+
+    /**
+     * Whether to send requests over HTTP/2, multiplexing concurrent requests
+     * to the API server over a single connection. Requires Apache HTTPClient
+     * 5 ({@code org.apache.httpcomponents.client5:httpclient5}) on the class
+     * path. Falls back to HTTP/1.1 if HTTPClient 5 is missing, a proxy is
+     * enabled or the server does not support HTTP/2.
+     */
+    public boolean http2Enabled = HTTP2_ENABLED;
+    /**
+     * The minimum size in bytes of POST, PUT and PATCH request bodies to send
+     * gzip compressed, negative to never compress request bodies. Responses
+     * are always requested compressed. Applies to blocking requests only.
+     */
+    public int requestCompressionThreshold = REQUEST_COMPRESSION_THRESHOLD;
+
+    /**
+     * Whether identical GET requests in flight at the same time are merged
+     * into a single call, see {@code PLYRestClient#getRequestCoalescer()}.
+     */
+    public boolean coalesceGetRequests = COALESCE_GET_REQUESTS;
+
+    /**
+     * The maximum rate of requests per second sent with the API key, zero or
+     * negative for no limit. The rate is shared by all clients using the same
+     * API key, server and limits.
+     */
+    public double requestsPerSecond = REQUESTS_PER_SECOND;
+    /**
+     * The number of requests that may be sent at once before
+     * {@link #requestsPerSecond} applies.
+     */
+    public int requestBurst = REQUEST_BURST;
+    /**
+     * The upper bound of the adaptive limit of concurrent requests sent with
+     * the API key, zero or negative for no limit. The limit adapts to the
+     * latency and overload responses of the server.
+     */
+    public int maxConcurrentRequests = MAX_CONCURRENT_REQUESTS;
+    /**
+     * The maximum time in milliseconds a request waits for the rate or
+     * concurrency limit or a pause requested by the server via Retry-After
+     * before it fails without being sent.
+     */
+    public long throttleTimeout = THROTTLE_TIMEOUT;
+
     /**
      * Initializes the configuration with default values.
      * 
@@ -82,8 +190,24 @@ public class PLYRestClientConfig implements Serializable {
      * @return a clone of this configuration object
      */
     public PLYRestClientConfig copy() {
-        return new PLYRestClientConfig(apiSchema, apiHost, apiPort, apiVersion, apiKey, proxyEnabled,
-                proxyHost, proxyPort);
+        PLYRestClientConfig copy = new PLYRestClientConfig(apiSchema, apiHost, apiPort, apiVersion, apiKey,
+                proxyEnabled, proxyHost, proxyPort);
+        copy.maxConnectionsTotal = maxConnectionsTotal;
+        copy.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        copy.connectionTimeToLive = connectionTimeToLive;
+        copy.validateAfterInactivity = validateAfterInactivity;
+        copy.idleConnectionTimeout = idleConnectionTimeout;
+        copy.connectTimeout = connectTimeout;
+        copy.socketTimeout = socketTimeout;
+        copy.connectionRequestTimeout = connectionRequestTimeout;
+        copy.http2Enabled = http2Enabled;
+        copy.requestCompressionThreshold = requestCompressionThreshold;
+        copy.coalesceGetRequests = coalesceGetRequests;
+        copy.requestsPerSecond = requestsPerSecond;
+        copy.requestBurst = requestBurst;
+        copy.maxConcurrentRequests = maxConcurrentRequests;
+        copy.throttleTimeout = throttleTimeout;
+        return copy;
     }
 
 }
@@ -1,6 +1,7 @@
 package com.productlayer.rest.client.helper;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import org.springframework.http.converter.json.MappingJackson2HttpMessageConvert
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -76,7 +78,8 @@ public class ConversionTool {
 
     /**
      * Reads the string representation of {@code object} and attempts to convert
-     * it to an instance of class {@code objectType}.
+     * it to an instance of class {@code objectType}. Byte arrays and input
+     * streams are read directly without building a string first.
      * 
      * @param object
      *            the object to read the string representation of
@@ -88,6 +91,12 @@ public class ConversionTool {
      *         if a deserialization is not possible
      */
     public static <T> T parseObject(Object object, Class<T> objectType) {
+        if (object instanceof byte[]) {
+            return parseObject((byte[]) object, objectType);
+        } else if (object instanceof InputStream) {
+            return parseObject((InputStream) object, objectType);
+        }
+
         ObjectMapper mapper = getObjectMapper();
 
         try {
@@ -99,4 +108,62 @@ public class ConversionTool {
 
         return null;
     }
+
+    /**
+     * Attempts to convert the JSON encoded {@code bytes} to an instance of
+     * class {@code objectType}.
+     * 
+     * @param bytes
+     *            the JSON to read
+     * @param objectType
+     *            the class to deserialize the JSON to
+     * @param <T>
+     *            the type to convert to
+     * @return the converted object as instance of {@code objectType}, or null
+     *         if a deserialization is not possible
+     */
+    public static <T> T parseObject(byte[] bytes, Class<T> objectType) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            return getObjectMapper().readValue(bytes, objectType);
+        } catch (IOException e) {
+        }
+
+        return null;
+    }
+
+    /**
+     * Attempts to convert the JSON read from {@code stream} to an instance of
+     * class {@code objectType}. The stream is not closed.
+     * 
+     * @param stream
+     *            the stream to read the JSON from
+     * @param objectType
+     *            the class to deserialize the JSON to
+     * @param <T>
+     *            the type to convert to
+     * @return the converted object as instance of {@code objectType}, or null
+     *         if a deserialization is not possible
+     */
+    public static <T> T parseObject(InputStream stream, Class<T> objectType) {
+        if (stream == null) {
+            return null;
+        }
+
+        try {
+            JsonParser parser = getObjectMapper().getFactory().createParser(stream);
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            try {
+                return parser.nextToken() == null ? null : parser.readValueAs(objectType);
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+        }
+
+        return null;
+    }
 }
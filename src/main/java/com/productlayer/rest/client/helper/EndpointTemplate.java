@@ -0,0 +1,224 @@
+package com.productlayer.rest.client.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.productlayer.core.utils.Assert;
+import com.productlayer.core.utils.StringUtils;
+import com.productlayer.rest.client.instrumentation.UrlTemplates;
+
+/**
+ * The path of an API endpoint with placeholders for its variable segments,
+ * e.g. "/timeline/product/{gtin}", parsed once into its literal parts so that
+ * request URLs can be built in a single pass.
+ *
+ * Variables and query parameters are percent-encoded as they are appended.
+ * The resulting URLs are sent as they are by the overloads of
+ * {@code PLYRestClient.exchange} taking a {@link Url} instead of being parsed
+ * and expanded as URI templates again.
+ *
+ * Templates are immutable and meant to be kept in constants.
+ */
+public final class EndpointTemplate {
+
+    // characters not encoded in path segments: unreserved, sub-delims, ':'
+    // and '@'
+    private static final boolean[] PATH_SAFE = safe("-._~!$&'()*+,;=:@");
+    // characters not encoded in query names and values: unreserved and
+    // sub-delims except those separating or altering parameters
+    private static final boolean[] QUERY_SAFE = safe("-._~!$'()*,:@/?");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String template;
+    private final String urlTemplate;
+    private final String[] literals;
+    private final String[] variables;
+    private final int length;
+
+    private EndpointTemplate(String template) {
+        List<String> literals = new ArrayList<String>();
+        List<String> variables = new ArrayList<String>();
+        StringBuilder urlTemplate = new StringBuilder(template.length());
+        int position = 0;
+        while (true) {
+            int start = template.indexOf('{', position);
+            if (start < 0) {
+                break;
+            }
+            int end = template.indexOf('}', start);
+            Assert.isTrue(end > start + 1, "Unterminated or empty variable in " + template);
+            literals.add(template.substring(position, start));
+            variables.add(template.substring(start + 1, end));
+            urlTemplate.append(template, position, start).append(UrlTemplates.PLACEHOLDER);
+            position = end + 1;
+        }
+        literals.add(template.substring(position));
+        urlTemplate.append(template, position, template.length());
+        this.template = template;
+        this.urlTemplate = urlTemplate.toString();
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.variables = variables.toArray(new String[variables.size()]);
+        this.length = this.urlTemplate.length();
+    }
+
+    /**
+     * Parses an endpoint template.
+     *
+     * @param template
+     *            the path of the endpoint relative to the API version, with
+     *            variable segments in braces, e.g. "/product/{gtin}"
+     * @return the parsed template
+     * @throws IllegalArgumentException
+     *             if the template is malformed or contains a query
+     */
+    public static EndpointTemplate of(String template) {
+        Assert.notNull(template, "template must not be null");
+        Assert.isTrue(template.startsWith("/"), "template must start with '/': " + template);
+        Assert.isTrue(template.indexOf('?') < 0, "template must not contain a query: " + template);
+        return new EndpointTemplate(template);
+    }
+
+    /**
+     * Starts a URL of this endpoint.
+     *
+     * @param values
+     *            the values of the variables in the order of their appearance
+     *            in the template
+     * @return the URL, to which query parameters can be added
+     * @throws IllegalArgumentException
+     *             if the number of values does not match the variables or a
+     *             value is null
+     */
+    public Url expand(Object... values) {
+        Assert.isTrue(values.length == variables.length, "Expected " + variables.length
+                + " values for " + template + ", got " + values.length);
+        StringBuilder url = new StringBuilder(length + 64);
+        url.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            Assert.notNull(values[i], "No value for {" + variables[i] + "} in " + template);
+            encode(url, values[i].toString(), PATH_SAFE);
+            url.append(literals[i + 1]);
+        }
+        return new Url(this, url);
+    }
+
+    /**
+     * @return the template as passed to {@link #of(String)}
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the template with its variables replaced by
+     *         {@link UrlTemplates#PLACEHOLDER}, as reported to the
+     *         instrumentation
+     */
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * A URL of an endpoint, percent-encoded, relative to the API version.
+     */
+    public static final class Url {
+
+        private final EndpointTemplate endpoint;
+        private final StringBuilder url;
+        private boolean hasQuery;
+
+        private Url(EndpointTemplate endpoint, StringBuilder url) {
+            this.endpoint = endpoint;
+            this.url = url;
+        }
+
+        /**
+         * Appends a query parameter unless its value is null or empty, as
+         * optional parameters are left out.
+         *
+         * @param name
+         *            the name of the parameter
+         * @param value
+         *            [Optional] the value of the parameter
+         * @return this URL
+         */
+        public Url query(String name, Object value) {
+            if (StringUtils.isEmpty(value)) {
+                return this;
+            }
+            url.append(hasQuery ? '&' : '?');
+            encode(url, name, QUERY_SAFE);
+            url.append('=');
+            encode(url, value.toString(), QUERY_SAFE);
+            hasQuery = true;
+            return this;
+        }
+
+        /**
+         * @return the endpoint of this URL
+         */
+        public EndpointTemplate getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return the encoded URL relative to the API version
+         */
+        @Override
+        public String toString() {
+            return url.toString();
+        }
+
+    }
+
+    private static boolean[] safe(String characters) {
+        boolean[] safe = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            safe[c] = true;
+        }
+        for (int i = 0; i < characters.length(); i++) {
+            safe[characters.charAt(i)] = true;
+        }
+        return safe;
+    }
+
+    private static void encode(StringBuilder url, String value, boolean[] safe) {
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && safe[c]) {
+                continue;
+            }
+            // copy the run of safe characters at once
+            url.append(value, start, i);
+            int end = i + 1;
+            if (Character.isHighSurrogate(c) && end < length && Character.isLowSurrogate(value.charAt(end))) {
+                end++;
+            }
+            if (c < 128) {
+                url.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            } else {
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    url.append('%').append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+                }
+            }
+            start = end;
+            i = end - 1;
+        }
+        url.append(value, start, length);
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.productlayer.rest.client.helper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * Static methods to bridge Spring's {@link ListenableFuture} to
+ * {@link CompletableFuture} and to limit the time a future may take.
+ */
+public class FutureHelper {
+
+    private static final ScheduledExecutorService timer = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ply-future-timeout");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /**
+     * Adapts a {@link ListenableFuture} to a {@link CompletableFuture}. If the
+     * returned future is completed before the source future (i.e. cancelled or
+     * timed out), the source future is cancelled as well.
+     *
+     * @param source
+     *            the future to adapt
+     * @param <T>
+     *            the result type
+     * @return a completable future completed by {@code source}
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(final ListenableFuture<T> source) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        source.addCallback(new ListenableFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        future.whenComplete((result, ex) -> {
+            if (!source.isDone()) {
+                source.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels {@code source} if {@code derived} is completed before it (i.e.
+     * cancelled or timed out), so that cancelling a future derived from a
+     * request, e.g. by {@code thenApply}, aborts the request.
+     *
+     * @param source
+     *            the future {@code derived} depends on
+     * @param derived
+     *            the future derived from {@code source}
+     * @param <T>
+     *            the result type of {@code derived}
+     * @return {@code derived}
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(final Future<?> source,
+            CompletableFuture<T> derived) {
+        derived.whenComplete((result, ex) -> {
+            if (!source.isDone()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    /**
+     * Completes {@code future} exceptionally with a {@link TimeoutException}
+     * if it is not done within the given time.
+     *
+     * @param future
+     *            the future to limit
+     * @param timeout
+     *            the maximum time to wait, zero or negative for no limit
+     * @param unit
+     *            the time unit of {@code timeout}
+     * @param <T>
+     *            the result type
+     * @return {@code future}
+     */
+    public static <T> CompletableFuture<T> withTimeout(final CompletableFuture<T> future, long timeout,
+            TimeUnit unit) {
+        if (timeout <= 0 || future.isDone()) {
+            return future;
+        }
+        final ScheduledFuture<?> task = timer.schedule(() -> {
+            future.completeExceptionally(new TimeoutException("No response within the timeout"));
+        }, timeout, unit);
+        future.whenComplete((result, ex) -> task.cancel(false));
+        return future;
+    }
+
+    /**
+     * Unwraps the cause of an exception thrown by a completion stage.
+     *
+     * @param ex
+     *            the exception passed to a completion stage
+     * @return the original exception
+     */
+    public static Throwable unwrap(Throwable ex) {
+        while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        return ex;
+    }
+
+    private FutureHelper() {
+
+    }
+
+}
@@ -4,9 +4,12 @@ import java.io.IOException;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.productlayer.core.beans.BaseObject;
 import com.productlayer.core.beans.Opine;
 import com.productlayer.core.beans.Product;
@@ -15,32 +18,73 @@ import com.productlayer.core.beans.Review;
 
 /**
  * The JSON deserializer for ProductLayer beans implementing {@link BaseObject}.
+ *
+ * Reads the object in a single pass: any properties preceding
+ * {@code pl-class} are buffered as tokens, then the buffered tokens followed by
+ * the remainder of the input are handed to the deserializer of the class
+ * identified by {@code pl-class}.
  */
 public class ItemDeserializer extends JsonDeserializer<BaseObject> {
 
+    private static final String CLASS_PROPERTY = "pl-class";
+
     @Override
     public BaseObject deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException,
             JsonProcessingException {
-        JsonNode node = jp.getCodec().readTree(jp);
-
-        String jsonString = node.toString();
-
-        if (node == null || node.get("pl-class") == null) {
+        JsonToken token = jp.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = jp.nextToken();
+        } else if (token != JsonToken.FIELD_NAME) {
+            jp.skipChildren();
             return null;
         }
 
-        String _class = node.get("pl-class").asText();
+        TokenBuffer buffer = new TokenBuffer(jp);
+        buffer.writeStartObject();
+        for (; token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+            String fieldName = jp.getCurrentName();
+            jp.nextToken();
+            buffer.writeFieldName(fieldName);
+            if (CLASS_PROPERTY.equals(fieldName)) {
+                buffer.copyCurrentEvent(jp);
+                Class<? extends BaseObject> type = getType(jp.getValueAsString());
+                if (type == null) {
+                    skipRemainingFields(jp);
+                    return null;
+                }
+                JsonParser parser = JsonParserSequence.createFlattened(buffer.asParser(jp), jp);
+                parser.nextToken();
+                JavaType javaType = ctxt.constructType(type);
+                JsonDeserializer<Object> deserializer = ctxt.findRootValueDeserializer(javaType);
+                return type.cast(deserializer.deserialize(parser, ctxt));
+            }
+            buffer.copyCurrentStructure(jp);
+        }
+
+        // no class information
+        return null;
+    }
 
+    private static Class<? extends BaseObject> getType(String _class) {
+        if (_class == null) {
+            return null;
+        }
         if (_class.equals("com.productlayer.Review")) {
-            return ConversionTool.getObjectMapper().readValue(jsonString, Review.class);
+            return Review.class;
         } else if (_class.equals("com.productlayer.Image")) {
-            return ConversionTool.getObjectMapper().readValue(jsonString, ProductImage.class);
+            return ProductImage.class;
         } else if (_class.equals("com.productlayer.Product")) {
-            return ConversionTool.getObjectMapper().readValue(jsonString, Product.class);
+            return Product.class;
         } else if (_class.equals("com.productlayer.Opine")) {
-            return ConversionTool.getObjectMapper().readValue(jsonString, Opine.class);
+            return Opine.class;
         }
-
         return null;
     }
+
+    private static void skipRemainingFields(JsonParser jp) throws IOException {
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            jp.nextToken();
+            jp.skipChildren();
+        }
+    }
 }
@@ -9,6 +9,8 @@ import java.util.Map.Entry;
 
 /**
  * Static methods to work on URLs.
+ *
+ * @see EndpointTemplate for building the URLs of frequently called endpoints
  */
 public class UrlHelper {
     
@@ -24,16 +26,16 @@ public class UrlHelper {
 	public static String addQueryParameterToUrl(String url, Map<String, String> parameter) {
 		if(parameter.size() == 0) return url;
 		
+		StringBuilder result = new StringBuilder(url.length() + parameter.size() * 24).append(url);
 		boolean first = true;
         for (Entry<String, String> entry : parameter.entrySet()) {
             
-            url += (first) ? "?" : "&";
-            url += entry.getKey() + "=" + entry.getValue();
+            result.append(first ? '?' : '&').append(entry.getKey()).append('=').append(entry.getValue());
             
             first = false;
         }
 	    
-	    return url;
+	    return result.toString();
 	}
 	
     /**
@@ -48,16 +50,16 @@ public class UrlHelper {
 	public static String addQueryParameterPlaceholderToUrl(String url, Map<String, String> parameter) {
         if(parameter.size() == 0) return url;
         
+        StringBuilder result = new StringBuilder(url.length() + parameter.size() * 24).append(url);
         boolean first = true;
         for (String key : parameter.keySet()) {
             
-            url += (first) ? "?" : "&";
-            url += key + "={" + key + "}";
+            result.append(first ? '?' : '&').append(key).append("={").append(key).append('}');
             
             first = false;
         }
         
-        return url;
+        return result.toString();
     }
 
     /**
@@ -0,0 +1,113 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+
+/**
+ * Spring request factory using Apache's HTTPAsyncClient which requests
+ * responses compressed with the {@link ContentCoding}s and decompresses them
+ * while they are read. HTTPAsyncClient does not decompress responses itself as
+ * their bodies are only available once they have been received completely.
+ *
+ * Cancelling the future of a request aborts its exchange, closing the
+ * connection, which HTTPAsyncClient 4.1 does not do when its own future is
+ * cancelled.
+ */
+public class CompressingAsyncClientHttpRequestFactory extends HttpComponentsAsyncClientHttpRequestFactory {
+
+    // the Apache request created by the superclass for the request being
+    // created on this thread, as it is not exposed otherwise
+    private final ThreadLocal<HttpUriRequest> created = new ThreadLocal<HttpUriRequest>();
+
+    /**
+     * @param httpAsyncClient
+     *            the started client to send requests with
+     */
+    public CompressingAsyncClientHttpRequestFactory(CloseableHttpAsyncClient httpAsyncClient) {
+        super(httpAsyncClient);
+    }
+
+    @Override
+    public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        AsyncClientHttpRequest request;
+        HttpUriRequest httpRequest;
+        try {
+            request = super.createAsyncRequest(uri, httpMethod);
+            httpRequest = created.get();
+        } finally {
+            created.remove();
+        }
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, ContentCoding.getAcceptEncoding());
+        return new DecodingAsyncClientHttpRequest(request, httpRequest);
+    }
+
+    @Override
+    protected HttpUriRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        HttpUriRequest httpRequest = super.createHttpUriRequest(httpMethod, uri);
+        created.set(httpRequest);
+        return httpRequest;
+    }
+
+    private static class DecodingAsyncClientHttpRequest implements AsyncClientHttpRequest {
+
+        private final AsyncClientHttpRequest request;
+        private final HttpUriRequest httpRequest;
+
+        DecodingAsyncClientHttpRequest(AsyncClientHttpRequest request, HttpUriRequest httpRequest) {
+            this.request = request;
+            this.httpRequest = httpRequest;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return request.getBody();
+        }
+
+        @Override
+        public ListenableFuture<ClientHttpResponse> executeAsync() throws IOException {
+            ListenableFuture<ClientHttpResponse> response = request.executeAsync();
+            return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(response) {
+                @Override
+                protected ClientHttpResponse adapt(ClientHttpResponse response) {
+                    return ContentCoding.decode(response);
+                }
+
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    if (httpRequest != null && !isDone()) {
+                        httpRequest.abort();
+                    }
+                    return super.cancel(mayInterruptIfRunning);
+                }
+            };
+        }
+
+    }
+
+}
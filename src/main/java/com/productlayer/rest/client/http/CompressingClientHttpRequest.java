@@ -0,0 +1,96 @@
+package com.productlayer.rest.client.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Compresses large request bodies with gzip and, for HTTP clients not
+ * negotiating compression themselves, requests compressed responses and
+ * decompresses them.
+ */
+class CompressingClientHttpRequest extends AbstractClientHttpRequest {
+
+    private final ClientHttpRequest request;
+    private final boolean decodeResponses;
+    private final int compressionThreshold;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+    private CompressingClientHttpRequest(ClientHttpRequest request, boolean decodeResponses,
+            int compressionThreshold) {
+        this.request = request;
+        this.decodeResponses = decodeResponses;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * @param request
+     *            the request to send
+     * @param decodeResponses
+     *            whether to request compressed responses and decompress them
+     * @param compressionThreshold
+     *            the minimum size in bytes of POST, PUT and PATCH bodies to
+     *            compress, negative to never compress
+     * @return the compressing request, or {@code request} if there is nothing
+     *         to do or its body is streamed
+     */
+    static ClientHttpRequest wrap(ClientHttpRequest request, boolean decodeResponses,
+            int compressionThreshold) {
+        if (request instanceof StreamingHttpOutputMessage || !decodeResponses && compressionThreshold < 0) {
+            return request;
+        }
+        return new CompressingClientHttpRequest(request, decodeResponses, compressionThreshold);
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return request.getMethod();
+    }
+
+    @Override
+    public URI getURI() {
+        return request.getURI();
+    }
+
+    @Override
+    protected OutputStream getBodyInternal(HttpHeaders headers) {
+        return body;
+    }
+
+    @Override
+    protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+        byte[] content = body.toByteArray();
+        HttpHeaders requestHeaders = request.getHeaders();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                requestHeaders.put(header.getKey(), header.getValue());
+            }
+        }
+        if (decodeResponses && !requestHeaders.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            requestHeaders.set(HttpHeaders.ACCEPT_ENCODING, ContentCoding.getAcceptEncoding());
+        }
+        HttpMethod method = getMethod();
+        if (compressionThreshold >= 0 && content.length >= compressionThreshold && content.length > 0
+                && (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH)
+                && !requestHeaders.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            content = ContentCoding.gzip(content);
+            requestHeaders.set(HttpHeaders.CONTENT_ENCODING, ContentCoding.GZIP);
+        }
+        if (content.length > 0) {
+            request.getBody().write(content);
+        }
+        ClientHttpResponse response = request.execute();
+        return decodeResponses ? ContentCoding.decode(response) : response;
+    }
+
+}
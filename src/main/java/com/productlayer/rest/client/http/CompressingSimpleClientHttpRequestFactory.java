@@ -0,0 +1,62 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URI;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+/**
+ * Spring request factory using Java's native URLConnection which requests
+ * responses compressed with the {@link ContentCoding}s and decompresses them
+ * while they are read. Request bodies of at least the compression threshold
+ * are sent gzip compressed.
+ */
+public class CompressingSimpleClientHttpRequestFactory extends SimpleClientHttpRequestFactory implements
+        StreamingClientHttpRequestFactory {
+
+    private final int requestCompressionThreshold;
+    private final SimpleClientHttpRequestFactory streamingFactory = new SimpleClientHttpRequestFactory();
+
+    /**
+     * @param requestCompressionThreshold
+     *            the minimum size in bytes of POST, PUT and PATCH bodies to
+     *            compress, negative to never compress
+     */
+    public CompressingSimpleClientHttpRequestFactory(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+        this.streamingFactory.setBufferRequestBody(false);
+    }
+
+    @Override
+    public void setProxy(Proxy proxy) {
+        super.setProxy(proxy);
+        streamingFactory.setProxy(proxy);
+    }
+
+    @Override
+    public void setConnectTimeout(int connectTimeout) {
+        super.setConnectTimeout(connectTimeout);
+        streamingFactory.setConnectTimeout(connectTimeout);
+    }
+
+    @Override
+    public void setReadTimeout(int readTimeout) {
+        super.setReadTimeout(readTimeout);
+        streamingFactory.setReadTimeout(readTimeout);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return CompressingClientHttpRequest.wrap(super.createRequest(uri, httpMethod), true,
+                requestCompressionThreshold);
+    }
+
+    @Override
+    public ClientHttpRequest createStreamingRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return streamingFactory.createRequest(uri, httpMethod);
+    }
+
+}
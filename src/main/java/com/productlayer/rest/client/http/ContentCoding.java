@@ -0,0 +1,215 @@
+package com.productlayer.rest.client.http;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.InputStreamFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The content codings negotiated with the API server: responses are
+ * requested gzip or deflate compressed, and brotli compressed if the brotli
+ * decoder ({@code org.brotli:dec}) is on the class path. Responses are
+ * decompressed while they are read, so the JSON parser consumes the
+ * decompressed stream directly.
+ */
+public final class ContentCoding {
+
+    /**
+     * The gzip content coding.
+     */
+    public static final String GZIP = "gzip";
+
+    /**
+     * The deflate content coding.
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * The brotli content coding.
+     */
+    public static final String BROTLI = "br";
+
+    private static final boolean BROTLI_AVAILABLE = ClassUtils.isPresent("org.brotli.dec.BrotliInputStream",
+            ContentCoding.class.getClassLoader());
+
+    private ContentCoding() {
+    }
+
+    /**
+     * @return whether brotli compressed responses can be decoded
+     */
+    public static boolean isBrotliAvailable() {
+        return BROTLI_AVAILABLE;
+    }
+
+    /**
+     * @return the value of the {@code Accept-Encoding} header listing the
+     *         supported content codings
+     */
+    public static String getAcceptEncoding() {
+        return BROTLI_AVAILABLE ? BROTLI + ", " + GZIP + ", " + DEFLATE : GZIP + ", " + DEFLATE;
+    }
+
+    /**
+     * @return the decoders of the supported content codings for the content
+     *         decoder registry of Apache HTTPClient, which requests and
+     *         decodes them itself
+     */
+    public static Map<String, InputStreamFactory> getDecoders() {
+        Map<String, InputStreamFactory> decoders = new LinkedHashMap<String, InputStreamFactory>();
+        if (BROTLI_AVAILABLE) {
+            decoders.put(BROTLI, Brotli::decode);
+        }
+        decoders.put(GZIP, GZIPInputStream::new);
+        decoders.put("x-gzip", GZIPInputStream::new);
+        decoders.put(DEFLATE, DeflateInputStream::new);
+        return decoders;
+    }
+
+    /**
+     * Wraps a stream to decompress it while it is read.
+     *
+     * @param contentEncoding
+     *            the content coding of the stream
+     * @param in
+     *            the compressed stream
+     * @return the decompressed stream, or null if the content coding is not
+     *         supported
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    public static InputStream decode(String contentEncoding, InputStream in) throws IOException {
+        String coding = contentEncoding.trim().toLowerCase();
+        if (GZIP.equals(coding) || "x-gzip".equals(coding)) {
+            return new GZIPInputStream(in);
+        } else if (DEFLATE.equals(coding)) {
+            return new DeflateInputStream(in);
+        } else if (BROTLI.equals(coding) && BROTLI_AVAILABLE) {
+            return Brotli.decode(in);
+        } else if ("identity".equals(coding)) {
+            return in;
+        }
+        return null;
+    }
+
+    /**
+     * Compresses a request body with gzip.
+     *
+     * @param content
+     *            the uncompressed request body
+     * @return the compressed request body
+     * @throws IOException
+     *             never
+     */
+    public static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * @param response
+     *            a response which may be compressed
+     * @return the response decompressing its body while it is read, or
+     *         {@code response} if it is not compressed
+     */
+    static ClientHttpResponse decode(ClientHttpResponse response) {
+        String contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null || contentEncoding.trim().equalsIgnoreCase("identity")) {
+            return response;
+        }
+        return new DecodingClientHttpResponse(response, contentEncoding);
+    }
+
+    private static class DecodingClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final String contentEncoding;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        DecodingClientHttpResponse(ClientHttpResponse response, String contentEncoding) {
+            this.response = response;
+            this.contentEncoding = contentEncoding;
+            // the headers describe the decoded body
+            this.headers = new HttpHeaders();
+            this.headers.putAll(response.getHeaders());
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                InputStream in = response.getBody();
+                // empty bodies, e.g. of 304 responses, are not encoded
+                if (!in.markSupported()) {
+                    in = new BufferedInputStream(in);
+                }
+                in.mark(1);
+                if (in.read() < 0) {
+                    body = in;
+                } else {
+                    in.reset();
+                    InputStream decoded = decode(contentEncoding, in);
+                    if (decoded == null) {
+                        throw new IOException("Unsupported content encoding: " + contentEncoding);
+                    }
+                    body = decoded;
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+
+    }
+
+    /**
+     * Isolates the references to the optional brotli decoder.
+     */
+    private static class Brotli {
+
+        static InputStream decode(InputStream in) throws IOException {
+            return new org.brotli.dec.BrotliInputStream(in);
+        }
+
+    }
+
+}
@@ -0,0 +1,361 @@
+package com.productlayer.rest.client.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.productlayer.rest.client.config.PLYRestClientConfig;
+import com.productlayer.rest.client.instrumentation.RequestMetrics;
+
+/**
+ * Spring request factory sending requests over HTTP/2 with Apache HTTPClient
+ * 5. Concurrent requests to a host are multiplexed as streams over a single
+ * connection per host instead of a connection per request.
+ *
+ * HTTPS connections negotiate HTTP/2 via ALPN, plain HTTP connections use
+ * HTTP/2 with prior knowledge. If the first request to a host fails to
+ * negotiate HTTP/2, i.e. ALPN selects another protocol or the host rejects
+ * the HTTP/2 connection preface, the host is assumed not to support HTTP/2 and
+ * requests to it are sent by the HTTP/1.1 fallback factory for the next
+ * {@link #HTTP1_EXPIRY_MILLIS} milliseconds. The failed request has not been
+ * processed by the host; it is resent over HTTP/1.1 if its method is
+ * idempotent and fails otherwise. Other failures, e.g. timeouts or reset
+ * connections, are reported as usual and do not affect the protocol used.
+ *
+ * Responses are requested compressed with the {@link ContentCoding}s and
+ * decompressed while they are read.
+ *
+ * Streaming requests are sent by the fallback factory, as the HTTP/2 client
+ * buffers request and response bodies.
+ *
+ * Requires {@code org.apache.httpcomponents.client5:httpclient5} on the class
+ * path.
+ */
+public class Http2ClientHttpRequestFactory implements StreamingClientHttpRequestFactory, Closeable {
+
+    /**
+     * The time in milliseconds after which HTTP/2 is tried again for a host
+     * that failed to negotiate it.
+     */
+    public static final long HTTP1_EXPIRY_MILLIS = 10 * 60 * 1000;
+
+    private final CloseableHttpAsyncClient client;
+    private final ClientHttpRequestFactory fallback;
+    private final int requestCompressionThreshold;
+
+    private final Set<String> http2Hosts = ConcurrentHashMap.newKeySet();
+    // hosts not supporting HTTP/2 mapped to the System.nanoTime() to try
+    // HTTP/2 again at
+    private final Map<String, Long> http1Hosts = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Builds the HTTP/2 client as specified by {@code config}, falling back to
+     * a {@link PooledHttpComponentsClientHttpRequestFactory}.
+     *
+     * @param config
+     *            the timeout and pool configuration
+     */
+    public Http2ClientHttpRequestFactory(PLYRestClientConfig config) {
+        this(config, new PooledHttpComponentsClientHttpRequestFactory(config));
+    }
+
+    /**
+     * Builds the HTTP/2 client as specified by {@code config}.
+     *
+     * @param config
+     *            the timeout configuration
+     * @param fallback
+     *            the factory sending requests to hosts not supporting HTTP/2
+     */
+    public Http2ClientHttpRequestFactory(PLYRestClientConfig config, ClientHttpRequestFactory fallback) {
+        this.fallback = fallback;
+        this.requestCompressionThreshold = config.requestCompressionThreshold;
+
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+        RequestConfig.Builder requestConfig = RequestConfig.custom().setRedirectsEnabled(false);
+        if (config.connectTimeout >= 0) {
+            connectionConfig.setConnectTimeout(Timeout.ofMilliseconds(config.connectTimeout));
+        }
+        if (config.socketTimeout >= 0) {
+            connectionConfig.setSocketTimeout(Timeout.ofMilliseconds(config.socketTimeout));
+            requestConfig.setResponseTimeout(Timeout.ofMilliseconds(config.socketTimeout));
+        }
+        if (config.connectionRequestTimeout >= 0) {
+            requestConfig.setConnectionRequestTimeout(Timeout
+                    .ofMilliseconds(config.connectionRequestTimeout));
+        }
+
+        // redirects, retries and cookies are handled by the PLYRestClient
+        H2AsyncClientBuilder clientBuilder = HttpAsyncClients.customHttp2()
+                .setIOReactorConfig(IOReactorConfig.custom().setSoKeepAlive(true).build())
+                .setDefaultConnectionConfig(connectionConfig.build())
+                .setDefaultRequestConfig(requestConfig.build()).disableRedirectHandling()
+                .disableAutomaticRetries().disableCookieManagement().useSystemProperties();
+        if (config.idleConnectionTimeout > 0) {
+            clientBuilder.evictIdleConnections(TimeValue.ofMilliseconds(config.idleConnectionTimeout));
+        }
+        this.client = clientBuilder.build();
+        this.client.start();
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        if (isHttp1(authority(uri))) {
+            return fallback.createRequest(uri, httpMethod);
+        }
+        ClientHttpRequest request = new Http2ClientHttpRequest(uri, httpMethod);
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            request = MeteredClientHttpRequest.wrap(request, metrics);
+        }
+        // the HTTP/2 client does not negotiate compression itself
+        return CompressingClientHttpRequest.wrap(request, true, requestCompressionThreshold);
+    }
+
+    @Override
+    public ClientHttpRequest createStreamingRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        if (fallback instanceof StreamingClientHttpRequestFactory) {
+            return ((StreamingClientHttpRequestFactory) fallback).createStreamingRequest(uri, httpMethod);
+        }
+        return fallback.createRequest(uri, httpMethod);
+    }
+
+    /**
+     * @param uri
+     *            the URI of a request
+     * @return false if requests to the host of {@code uri} are sent by the
+     *         HTTP/1.1 fallback factory
+     */
+    public boolean isHttp2(URI uri) {
+        return !isHttp1(authority(uri));
+    }
+
+    /**
+     * @return the factory sending requests to hosts not supporting HTTP/2
+     */
+    public ClientHttpRequestFactory getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Shuts down the HTTP/2 client and the fallback factory, closing their
+     * connections.
+     */
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+        try {
+            if (fallback instanceof DisposableBean) {
+                ((DisposableBean) fallback).destroy();
+            } else if (fallback instanceof Closeable) {
+                ((Closeable) fallback).close();
+            }
+        } catch (Exception e) {
+            // closed as far as possible
+        }
+    }
+
+    private static String authority(URI uri) {
+        return uri.getScheme() + "://" + uri.getAuthority();
+    }
+
+    private boolean isHttp1(String authority) {
+        Long until = http1Hosts.get(authority);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        http1Hosts.remove(authority, until);
+        return false;
+    }
+
+    private static boolean isNegotiationFailure(Throwable cause) {
+        // ALPN did not select h2, the host answered the connection preface
+        // with something other than HTTP/2 frames or closed the connection on
+        // it as HTTP/1.1 servers do
+        return cause instanceof ProtocolNegotiationException || cause instanceof H2ConnectionException
+                || cause instanceof ProtocolException || cause instanceof ConnectionClosedException;
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method != HttpMethod.POST && method != HttpMethod.PATCH;
+    }
+
+    private class Http2ClientHttpRequest extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        Http2ClientHttpRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            byte[] content = body.toByteArray();
+            SimpleHttpRequest request = SimpleHttpRequest.create(method.name(), uri);
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                String name = header.getKey();
+                // connection-specific headers are not allowed in HTTP/2 and
+                // the content headers are set with the body
+                if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                        || HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+                        || HttpHeaders.HOST.equalsIgnoreCase(name)
+                        || HttpHeaders.CONNECTION.equalsIgnoreCase(name)
+                        || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)
+                        || HttpHeaders.UPGRADE.equalsIgnoreCase(name)
+                        || "Keep-Alive".equalsIgnoreCase(name)) {
+                    continue;
+                }
+                for (String value : header.getValue()) {
+                    request.addHeader(name, value);
+                }
+            }
+            if (content.length > 0 || headers.getContentType() != null) {
+                request.setBody(content, headers.getContentType() != null ? ContentType.parse(headers
+                        .getContentType().toString()) : ContentType.APPLICATION_OCTET_STREAM);
+            }
+
+            String authority = authority(uri);
+            Future<SimpleHttpResponse> future = client.execute(request, null);
+            SimpleHttpResponse response;
+            try {
+                response = future.get();
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!http2Hosts.contains(authority) && isNegotiationFailure(cause)) {
+                    http1Hosts.put(authority, System.nanoTime() + HTTP1_EXPIRY_MILLIS * 1000000);
+                    if (isIdempotent(method)) {
+                        return executeFallback(headers, content);
+                    }
+                }
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            http2Hosts.add(authority);
+            return new Http2ClientHttpResponse(response);
+        }
+
+        private ClientHttpResponse executeFallback(HttpHeaders headers, byte[] content) throws IOException {
+            ClientHttpRequest request = fallback.createRequest(uri, method);
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                    request.getHeaders().put(header.getKey(), header.getValue());
+                }
+            }
+            if (content.length > 0) {
+                request.getBody().write(content);
+            }
+            return request.execute();
+        }
+
+    }
+
+    private static class Http2ClientHttpResponse extends AbstractClientHttpResponse {
+
+        private final SimpleHttpResponse response;
+        private HttpHeaders headers;
+
+        Http2ClientHttpResponse(SimpleHttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.getCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            // HTTP/2 has no reason phrases
+            return response.getReasonPhrase() != null ? response.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                HttpHeaders responseHeaders = new HttpHeaders();
+                for (Header header : response.getHeaders()) {
+                    responseHeaders.add(header.getName(), header.getValue());
+                }
+                if (response.getContentType() != null
+                        && !responseHeaders.containsKey(HttpHeaders.CONTENT_TYPE)) {
+                    responseHeaders.set(HttpHeaders.CONTENT_TYPE, response.getContentType().toString());
+                }
+                headers = responseHeaders;
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            byte[] body = response.getBodyBytes();
+            return new ByteArrayInputStream(body != null ? body : new byte[0]);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
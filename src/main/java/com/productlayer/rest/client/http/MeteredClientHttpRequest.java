@@ -0,0 +1,172 @@
+package com.productlayer.rest.client.http;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.productlayer.rest.client.instrumentation.RequestMetrics;
+
+/**
+ * Counts the bytes of the request and response bodies of a request and
+ * records when the response has been received.
+ */
+class MeteredClientHttpRequest implements ClientHttpRequest {
+
+    private final ClientHttpRequest request;
+    private final RequestMetrics metrics;
+    private OutputStream body;
+
+    private MeteredClientHttpRequest(ClientHttpRequest request, RequestMetrics metrics) {
+        this.request = request;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return request.getMethod();
+    }
+
+    @Override
+    public URI getURI() {
+        return request.getURI();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return request.getHeaders();
+    }
+
+    /**
+     * @param request
+     *            the request to meter
+     * @param metrics
+     *            the metrics to record to
+     * @return the metered request, streaming its body if {@code request} does
+     */
+    static ClientHttpRequest wrap(ClientHttpRequest request, RequestMetrics metrics) {
+        if (request instanceof StreamingHttpOutputMessage) {
+            return new Streaming(request, metrics);
+        }
+        return new MeteredClientHttpRequest(request, metrics);
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+        if (body == null) {
+            body = counting(request.getBody());
+        }
+        return body;
+    }
+
+    OutputStream counting(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                metrics.addBytesSent(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                metrics.addBytesSent(len);
+            }
+        };
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        ClientHttpResponse response = request.execute();
+        metrics.onResponseReceived();
+        return new MeteredClientHttpResponse(response);
+    }
+
+    private static class Streaming extends MeteredClientHttpRequest implements StreamingHttpOutputMessage {
+
+        private final StreamingHttpOutputMessage streaming;
+
+        Streaming(ClientHttpRequest request, RequestMetrics metrics) {
+            super(request, metrics);
+            this.streaming = (StreamingHttpOutputMessage) request;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            streaming.setBody(out -> body.writeTo(counting(out)));
+        }
+
+    }
+
+    private class MeteredClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private InputStream body;
+
+        MeteredClientHttpResponse(ClientHttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new FilterInputStream(response.getBody()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = in.read();
+                        if (b >= 0) {
+                            metrics.addBytesReceived(1);
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = in.read(b, off, len);
+                        if (read > 0) {
+                            metrics.addBytesReceived(read);
+                        }
+                        return read;
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+
+    }
+
+}
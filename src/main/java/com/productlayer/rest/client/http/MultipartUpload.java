@@ -0,0 +1,89 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+/**
+ * A {@code multipart/form-data} request body with a single file part, written
+ * while the request is sent. Its length is known in advance if the length of
+ * the file is, so it can be sent with a {@code Content-Length} instead of
+ * chunked.
+ */
+public class MultipartUpload implements StreamingHttpOutputMessage.Body {
+
+    private static final char[] BOUNDARY_CHARS = ("-_1234567890abcdefghijklmnopqrstuvwxyz"
+            + "ABCDEFGHIJKLMNOPQRSTUVWXYZ").toCharArray();
+
+    private final UploadSource source;
+    private final String boundary;
+    private final byte[] head;
+    private final byte[] tail;
+
+    /**
+     * @param name
+     *            the name of the form field of the file
+     * @param source
+     *            the file to upload
+     */
+    public MultipartUpload(String name, UploadSource source) {
+        this.source = source;
+        this.boundary = generateBoundary();
+        StringBuilder head = new StringBuilder("--").append(boundary).append("\r\n");
+        head.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+        if (source.getFilename() != null) {
+            head.append("; filename=\"").append(escape(source.getFilename())).append('"');
+        }
+        head.append("\r\nContent-Type: ").append(source.getContentType()).append("\r\n\r\n");
+        this.head = head.toString().getBytes(StandardCharsets.UTF_8);
+        this.tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the content type of the body including its boundary
+     */
+    public MediaType getContentType() {
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Collections.singletonMap("boundary", boundary));
+    }
+
+    /**
+     * @return the number of bytes of the body, or -1 if unknown
+     */
+    public long getContentLength() {
+        return source.getLength() >= 0 ? head.length + source.getLength() + tail.length : -1;
+    }
+
+    /**
+     * @return whether the body can be sent again
+     */
+    public boolean isRepeatable() {
+        return source.isRepeatable();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(head);
+        source.writeTo(out);
+        out.write(tail);
+        out.flush();
+    }
+
+    private static String generateBoundary() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] boundary = new char[random.nextInt(11) + 30];
+        for (int i = 0; i < boundary.length; i++) {
+            boundary[i] = BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)];
+        }
+        return new String(boundary);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "").replace("\n", "");
+    }
+
+}
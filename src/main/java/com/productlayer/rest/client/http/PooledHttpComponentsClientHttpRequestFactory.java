@@ -0,0 +1,178 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import com.productlayer.rest.client.config.PLYRestClientConfig;
+import com.productlayer.rest.client.instrumentation.RequestMetrics;
+
+/**
+ * Spring request factory backed by an Apache HTTPClient with a pooled
+ * connection manager tuned by the {@link PLYRestClientConfig}. Keeps a
+ * reference to the connection manager to expose the pool statistics.
+ *
+ * Requests sent while {@link RequestMetrics} are bound to the sending thread
+ * record the bytes of their bodies and the time waited for a connection.
+ *
+ * Responses are requested compressed with the {@link ContentCoding}s and
+ * decompressed by the HTTP client while they are read. Request bodies above
+ * the {@link PLYRestClientConfig#requestCompressionThreshold} are sent gzip
+ * compressed. Streaming requests share the pooled client.
+ */
+public class PooledHttpComponentsClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory
+        implements StreamingClientHttpRequestFactory {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final int requestCompressionThreshold;
+    private final HttpComponentsClientHttpRequestFactory streamingFactory;
+
+    /**
+     * Builds the pooled HTTP client as specified by {@code config}.
+     *
+     * @param config
+     *            the pool, timeout and proxy configuration
+     */
+    public PooledHttpComponentsClientHttpRequestFactory(PLYRestClientConfig config) {
+        this(config, HttpClientBuilder.create());
+    }
+
+    /**
+     * Builds the pooled HTTP client as specified by {@code config} using a
+     * pre-configured {@code clientBuilder}.
+     *
+     * @param config
+     *            the pool, timeout and proxy configuration
+     * @param clientBuilder
+     *            the builder to add the connection manager and configuration
+     *            to
+     */
+    public PooledHttpComponentsClientHttpRequestFactory(PLYRestClientConfig config,
+            HttpClientBuilder clientBuilder) {
+        this(createConnectionManager(config), config, clientBuilder);
+    }
+
+    private PooledHttpComponentsClientHttpRequestFactory(PoolingHttpClientConnectionManager connectionManager,
+            PLYRestClientConfig config, HttpClientBuilder clientBuilder) {
+        super(buildClient(connectionManager, config, clientBuilder));
+        this.connectionManager = connectionManager;
+        this.requestCompressionThreshold = config.requestCompressionThreshold;
+        this.streamingFactory = new HttpComponentsClientHttpRequestFactory(getHttpClient());
+        this.streamingFactory.setBufferRequestBody(false);
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(PLYRestClientConfig config) {
+        PoolingHttpClientConnectionManager connectionManager = new MeteredConnectionManager(
+                config.connectionTimeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(config.maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(config.validateAfterInactivity);
+        return connectionManager;
+    }
+
+    private static org.apache.http.client.HttpClient buildClient(
+            PoolingHttpClientConnectionManager connectionManager, PLYRestClientConfig config,
+            HttpClientBuilder clientBuilder) {
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(config.connectTimeout)
+                .setSocketTimeout(config.socketTimeout)
+                .setConnectionRequestTimeout(config.connectionRequestTimeout).build();
+
+        clientBuilder.setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig)
+                .setContentDecoderRegistry(ContentCoding.getDecoders());
+
+        if (config.idleConnectionTimeout > 0) {
+            clientBuilder.evictExpiredConnections().evictIdleConnections(config.idleConnectionTimeout,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        if (config.proxyEnabled) {
+            clientBuilder.setProxy(new HttpHost(config.proxyHost, config.proxyPort));
+        }
+
+        return clientBuilder.build();
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        ClientHttpRequest request = super.createRequest(uri, httpMethod);
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            request = MeteredClientHttpRequest.wrap(request, metrics);
+        }
+        return CompressingClientHttpRequest.wrap(request, false, requestCompressionThreshold);
+    }
+
+    @Override
+    public ClientHttpRequest createStreamingRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        ClientHttpRequest request = streamingFactory.createRequest(uri, httpMethod);
+        RequestMetrics metrics = RequestMetrics.current();
+        return metrics != null ? MeteredClientHttpRequest.wrap(request, metrics) : request;
+    }
+
+    /**
+     * @return the connection manager pooling the HTTP connections
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * @return the total statistics (leased, pending, available and maximum
+     *         number of connections) of the connection pool
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Records the time waited for a connection of the pool.
+     */
+    private static class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+        MeteredConnectionManager(long timeToLive, TimeUnit timeUnit) {
+            super(timeToLive, timeUnit);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ConnectionRequest request = super.requestConnection(route, state);
+            final RequestMetrics metrics = RequestMetrics.current();
+            if (metrics == null) {
+                return request;
+            }
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException,
+                        ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, timeUnit);
+                    } finally {
+                        metrics.addPoolWait(System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.productlayer.rest.client.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.rest.client.helper.FutureHelper;
+
+/**
+ * Merges identical requests in flight at the same time into a single call
+ * ("single-flight"). The first caller of {@link #execute(String, Supplier)}
+ * for a key sends the request, any other caller with the same key meanwhile
+ * waits for and receives the same response or exception.
+ *
+ * Responses are shared among all waiting callers and their bodies must not be
+ * modified.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<?>>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<ResponseEntity<?>>>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Sends a request unless an identical one is in flight, in which case its
+     * response is awaited instead.
+     *
+     * @param key
+     *            identifies identical requests
+     * @param call
+     *            sends the request
+     * @param <T>
+     *            the type of the response body
+     * @return the response of this or the identical request in flight
+     * @throws RuntimeException
+     *             any exception thrown by this or the identical request in
+     *             flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, Supplier<ResponseEntity<T>> call) {
+        CompletableFuture<ResponseEntity<?>> own = new CompletableFuture<ResponseEntity<?>>();
+        CompletableFuture<ResponseEntity<?>> pending = inFlight.putIfAbsent(key, own);
+        if (pending == null) {
+            requests.increment();
+            try {
+                ResponseEntity<T> response = call.get();
+                own.complete(response);
+                return response;
+            } catch (RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+        coalesced.increment();
+        try {
+            return (ResponseEntity<T>) pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for an identical request", e);
+        } catch (ExecutionException e) {
+            Throwable cause = FutureHelper.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RestClientException("Identical request failed", cause);
+        }
+    }
+
+    /**
+     * @return the number of requests actually sent
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of calls served by an identical request in flight,
+     *         i.e. the number of requests saved
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestCoalescer [requests=" + getRequestCount() + ", coalesced=" + getCoalescedCount()
+                + ", inFlight=" + getInFlightCount() + "]";
+    }
+
+}
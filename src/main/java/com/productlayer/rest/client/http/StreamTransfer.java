@@ -0,0 +1,197 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Copies bodies of uploads and downloads in fixed-size chunks, so their size
+ * does not affect the heap. Transfers from and to files use
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} and
+ * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}.
+ */
+public final class StreamTransfer {
+
+    /**
+     * The size of the chunks copied between progress notifications.
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private StreamTransfer() {
+    }
+
+    /**
+     * Copies a stream to a channel until the end of the stream.
+     *
+     * @param in
+     *            the stream to read, not closed
+     * @param target
+     *            the channel to write to, not closed; a file channel is written
+     *            from its current position
+     * @param total
+     *            the number of bytes expected, or -1 if unknown
+     * @param listener
+     *            [Optional] the listener to notify of the progress
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public static long copy(InputStream in, WritableByteChannel target, long total,
+            TransferProgressListener listener) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        long transferred = 0;
+        if (target instanceof FileChannel) {
+            FileChannel file = (FileChannel) target;
+            long position = file.position();
+            long count;
+            // transferFrom only returns 0 at the end of a blocking source
+            while ((count = file.transferFrom(source, position + transferred, CHUNK_SIZE)) > 0) {
+                transferred += count;
+                notify(listener, transferred, total);
+            }
+            file.position(position + transferred);
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    transferred += target.write(buffer);
+                }
+                buffer.clear();
+                notify(listener, transferred, total);
+            }
+        }
+        if (transferred == 0) {
+            notify(listener, 0, total);
+        }
+        return transferred;
+    }
+
+    /**
+     * Copies a stream to another stream until the end of the input stream.
+     *
+     * @param in
+     *            the stream to read, not closed
+     * @param out
+     *            the stream to write to, not closed
+     * @param total
+     *            the number of bytes expected, or -1 if unknown
+     * @param listener
+     *            [Optional] the listener to notify of the progress
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public static long copy(InputStream in, OutputStream out, long total, TransferProgressListener listener)
+            throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long transferred = 0;
+        int count;
+        while ((count = read(in, buffer)) > 0) {
+            out.write(buffer, 0, count);
+            transferred += count;
+            notify(listener, transferred, total);
+        }
+        if (transferred == 0) {
+            notify(listener, 0, total);
+        }
+        return transferred;
+    }
+
+    /**
+     * Copies a whole file to a stream.
+     *
+     * @param file
+     *            the file to read from its start, not closed
+     * @param out
+     *            the stream to write to, not closed
+     * @param listener
+     *            [Optional] the listener to notify of the progress
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if reading or writing fails
+     */
+    public static long copy(FileChannel file, OutputStream out, TransferProgressListener listener)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long total = file.size();
+        long transferred = 0;
+        while (transferred < total) {
+            long count = file.transferTo(transferred, Math.min(CHUNK_SIZE, total - transferred), target);
+            if (count <= 0) {
+                // truncated while being read
+                break;
+            }
+            transferred += count;
+            notify(listener, transferred, total);
+        }
+        if (total == 0) {
+            notify(listener, 0, 0);
+        }
+        return transferred;
+    }
+
+    /**
+     * Copies the remaining bytes of a buffer to a stream without changing the
+     * position of the buffer.
+     *
+     * @param buffer
+     *            the buffer to read
+     * @param out
+     *            the stream to write to, not closed
+     * @param listener
+     *            [Optional] the listener to notify of the progress
+     * @return the number of bytes copied
+     * @throws IOException
+     *             if writing fails
+     */
+    public static long copy(ByteBuffer buffer, OutputStream out, TransferProgressListener listener)
+            throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        long total = source.remaining();
+        WritableByteChannel target = source.hasArray() ? null : Channels.newChannel(out);
+        long transferred = 0;
+        while (source.hasRemaining()) {
+            int count = Math.min(CHUNK_SIZE, source.remaining());
+            if (target == null) {
+                out.write(source.array(), source.arrayOffset() + source.position(), count);
+                source.position(source.position() + count);
+            } else {
+                ByteBuffer chunk = source.duplicate();
+                chunk.limit(chunk.position() + count);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+                source.position(chunk.position());
+            }
+            transferred += count;
+            notify(listener, transferred, total);
+        }
+        if (total == 0) {
+            notify(listener, 0, 0);
+        }
+        return transferred;
+    }
+
+    private static int read(InputStream in, byte[] buffer) throws IOException {
+        // fill the buffer to notify per chunk rather than per network read
+        int filled = 0;
+        int count;
+        while (filled < buffer.length && (count = in.read(buffer, filled, buffer.length - filled)) >= 0) {
+            filled += count;
+        }
+        return filled;
+    }
+
+    private static void notify(TransferProgressListener listener, long transferred, long total) {
+        if (listener != null) {
+            listener.onProgress(transferred, total);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Request factory which can create requests writing their bodies directly to
+ * the connection instead of buffering them, for uploads and downloads of
+ * arbitrary size.
+ */
+public interface StreamingClientHttpRequestFactory extends ClientHttpRequestFactory {
+
+    /**
+     * Creates a request streaming its body to the connection. The body is sent
+     * with a fixed length if the {@code Content-Length} header is set before
+     * the body is written, chunked otherwise. The body of the response is read
+     * from the connection while it is received.
+     *
+     * @param uri
+     *            the URI to send the request to
+     * @param httpMethod
+     *            the HTTP method of the request
+     * @return the request
+     * @throws IOException
+     *             if the request cannot be created
+     */
+    ClientHttpRequest createStreamingRequest(URI uri, HttpMethod httpMethod) throws IOException;
+
+}
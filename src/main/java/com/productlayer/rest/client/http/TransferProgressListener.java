@@ -0,0 +1,19 @@
+package com.productlayer.rest.client.http;
+
+/**
+ * Receives the progress of a streamed upload or download.
+ */
+public interface TransferProgressListener {
+
+    /**
+     * Called after each chunk of the body has been transferred and once the
+     * transfer is complete.
+     *
+     * @param transferred
+     *            the number of bytes transferred so far
+     * @param total
+     *            the total number of bytes to transfer, or -1 if unknown
+     */
+    void onProgress(long transferred, long total);
+
+}
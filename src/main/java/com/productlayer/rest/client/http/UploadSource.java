@@ -0,0 +1,133 @@
+package com.productlayer.rest.client.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The content of a file to upload, streamed from a file, an input stream or
+ * a byte buffer while the request is sent instead of being buffered.
+ */
+public final class UploadSource {
+
+    private final String filename;
+    private final long length;
+    private final Path path;
+    private final InputStream stream;
+    private final ByteBuffer buffer;
+    private volatile TransferProgressListener progressListener;
+
+    private UploadSource(String filename, long length, Path path, InputStream stream, ByteBuffer buffer) {
+        this.filename = filename;
+        this.length = length;
+        this.path = path;
+        this.stream = stream;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param path
+     *            the file to upload
+     * @return the upload of the file, named after the file
+     * @throws IOException
+     *             if the size of the file cannot be read
+     */
+    public static UploadSource of(Path path) throws IOException {
+        return new UploadSource(path.getFileName().toString(), Files.size(path), path, null, null);
+    }
+
+    /**
+     * @param stream
+     *            the content to upload, read once and not closed
+     * @param length
+     *            the number of bytes of the content, or -1 if unknown to send
+     *            the content chunked
+     * @param filename
+     *            the name of the file
+     * @return the upload of the stream's content
+     */
+    public static UploadSource of(InputStream stream, long length, String filename) {
+        return new UploadSource(filename, length, null, stream, null);
+    }
+
+    /**
+     * @param buffer
+     *            the content to upload between the buffer's position and
+     *            limit; the position is not changed
+     * @param filename
+     *            the name of the file
+     * @return the upload of the buffer's content
+     */
+    public static UploadSource of(ByteBuffer buffer, String filename) {
+        return new UploadSource(filename, buffer.remaining(), null, null, buffer);
+    }
+
+    /**
+     * @param progressListener
+     *            the listener to notify of the bytes of the content sent
+     * @return this upload
+     */
+    public UploadSource withProgressListener(TransferProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * @return the name of the file
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @return the media type of the file as guessed from its name
+     */
+    public MediaType getContentType() {
+        String contentType = filename != null ? URLConnection.guessContentTypeFromName(filename) : null;
+        return contentType != null ? MediaType.parseMediaType(contentType)
+                : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * @return the number of bytes of the content, or -1 if unknown
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return whether the content can be sent again, false for streams
+     */
+    public boolean isRepeatable() {
+        return stream == null;
+    }
+
+    /**
+     * Writes the content to {@code out}.
+     *
+     * @param out
+     *            the stream to write to, not closed
+     * @throws IOException
+     *             if reading the content or writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (path != null) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+                StreamTransfer.copy(file, out, progressListener);
+            }
+        } else if (buffer != null) {
+            StreamTransfer.copy(buffer, out, progressListener);
+        } else {
+            StreamTransfer.copy(stream, out, length, progressListener);
+        }
+    }
+
+}
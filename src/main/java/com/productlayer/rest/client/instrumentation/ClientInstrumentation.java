@@ -0,0 +1,64 @@
+package com.productlayer.rest.client.instrumentation;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Receives every request of a
+ * {@link com.productlayer.rest.client.PLYRestClient}, e.g. to record metrics
+ * or traces. See {@link MicrometerInstrumentation} and
+ * {@link OpenTelemetryInstrumentation} for adapters to the respective
+ * libraries.
+ *
+ * Each call of an {@code exchange*} method is reported once by
+ * {@link #onRequest(RequestInfo, HttpHeaders)} before and
+ * {@link #onResponse(RequestInfo, RequestMetrics, Object)} after it,
+ * including all retries and redirects. Implementations are called from the
+ * threads sending requests (or completing asynchronous ones) and should
+ * return quickly.
+ */
+public interface ClientInstrumentation {
+
+    /**
+     * Called before a request is sent.
+     *
+     * @param request
+     *            The method, URL template and service method of the request
+     * @param headers
+     *            The headers to add to the request, e.g. to propagate a
+     *            trace context
+     * @return any context to pass to
+     *         {@link #onResponse(RequestInfo, RequestMetrics, Object)}, e.g.
+     *         a span
+     */
+    default Object onRequest(RequestInfo request, HttpHeaders headers) {
+        return null;
+    }
+
+    /**
+     * Called after a request completed, successfully or not.
+     *
+     * @param request
+     *            The request as passed to
+     *            {@link #onRequest(RequestInfo, HttpHeaders)}
+     * @param metrics
+     *            The outcome, timings and sizes of the request
+     * @param context
+     *            The context returned by
+     *            {@link #onRequest(RequestInfo, HttpHeaders)}
+     */
+    void onResponse(RequestInfo request, RequestMetrics metrics, Object context);
+
+    /**
+     * Called when a response is looked up in a client-side cache, e.g. the
+     * {@link com.productlayer.rest.client.cache.ProductCache}.
+     *
+     * @param cache
+     *            The name of the cache
+     * @param hit
+     *            Whether a fresh response has been found, so no request is
+     *            sent
+     */
+    default void onCacheLookup(String cache, boolean hit) {
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.productlayer.rest.client.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the requests of a client as Micrometer meters. Requires
+ * {@code io.micrometer:micrometer-core} on the class path.
+ *
+ * <ul>
+ * <li>{@code productlayer.client.requests}: timer with percentile histogram,
+ * tagged by {@code method}, {@code uri} (the URL template), {@code service},
+ * {@code status}, {@code outcome} and {@code error} (the ProductLayer status
+ * code)</li>
+ * <li>{@code productlayer.client.request.size} and
+ * {@code productlayer.client.response.size}: body sizes in bytes of blocking
+ * requests</li>
+ * <li>{@code productlayer.client.deserialization}: time reading and
+ * deserializing response bodies</li>
+ * <li>{@code productlayer.client.retries}: number of retried attempts</li>
+ * <li>{@code productlayer.client.pool.wait}: time waited for pooled
+ * connections</li>
+ * <li>{@code productlayer.client.cache.lookups}: cache lookups tagged by
+ * {@code cache} and {@code result} (hit or miss)</li>
+ * </ul>
+ */
+public class MicrometerInstrumentation implements ClientInstrumentation {
+
+    /**
+     * The prefix of the names of all meters.
+     */
+    public static final String PREFIX = "productlayer.client";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+
+    /**
+     * @param registry
+     *            the registry to register the meters with
+     */
+    public MicrometerInstrumentation(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onResponse(RequestInfo request, RequestMetrics metrics, Object context) {
+        Tags endpoint = Tags.of("method", request.getMethod().name(), "uri", request.getUrlTemplate(),
+                "service", request.getServiceMethod() != null ? request.getServiceMethod() : NONE);
+        int errorCode = metrics.getErrorCode();
+        Tags outcome = endpoint.and("status", status(metrics.getStatus()), "outcome",
+                outcome(metrics.getStatus()), "error", errorCode != 0 ? String.valueOf(errorCode) : NONE);
+
+        Timer.builder(PREFIX + ".requests").tags(outcome).publishPercentileHistogram().register(registry)
+                .record(metrics.getDurationNanos(), TimeUnit.NANOSECONDS);
+        if (metrics.getAttempts() == 0 || request.isAsync()) {
+            // rejected locally or merged into another request, or not measured
+            return;
+        }
+        DistributionSummary.builder(PREFIX + ".request.size").baseUnit("bytes").tags(endpoint)
+                .register(registry).record(metrics.getBytesSent());
+        DistributionSummary.builder(PREFIX + ".response.size").baseUnit("bytes").tags(endpoint)
+                .register(registry).record(metrics.getBytesReceived());
+        if (metrics.getDeserializationNanos() > 0) {
+            Timer.builder(PREFIX + ".deserialization").tags(endpoint).register(registry)
+                    .record(metrics.getDeserializationNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (metrics.getRetries() > 0) {
+            Counter.builder(PREFIX + ".retries").tags(endpoint).register(registry)
+                    .increment(metrics.getRetries());
+        }
+        Timer.builder(PREFIX + ".pool.wait").register(registry)
+                .record(metrics.getPoolWaitNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onCacheLookup(String cache, boolean hit) {
+        Counter.builder(PREFIX + ".cache.lookups").tags("cache", cache, "result", hit ? "hit" : "miss")
+                .register(registry).increment();
+    }
+
+    private static String status(int status) {
+        if (status == 0) {
+            return "IO_ERROR";
+        }
+        return status < 0 ? "CLIENT_ERROR" : String.valueOf(status);
+    }
+
+    private static String outcome(int status) {
+        if (status >= 200 && status < 300) {
+            return "SUCCESS";
+        } else if (status >= 300 && status < 400) {
+            return "REDIRECTION";
+        } else if (status >= 400 && status < 500) {
+            return "CLIENT_ERROR";
+        } else if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        return "UNKNOWN";
+    }
+
+}
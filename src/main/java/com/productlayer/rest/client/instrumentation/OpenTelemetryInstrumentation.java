@@ -0,0 +1,106 @@
+package com.productlayer.rest.client.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+/**
+ * Traces the requests of a client as OpenTelemetry client spans and
+ * propagates the trace context to the API server in the request headers (e.g.
+ * {@code traceparent}). The spans are children of the span current when the
+ * request is sent. Requires {@code io.opentelemetry:opentelemetry-api} on the
+ * class path.
+ */
+public class OpenTelemetryInstrumentation implements ClientInstrumentation {
+
+    /**
+     * The name of the tracer.
+     */
+    public static final String INSTRUMENTATION_NAME = "com.productlayer.ply-java-sdk";
+
+    private static final AttributeKey<String> METHOD = AttributeKey.stringKey("http.request.method");
+    private static final AttributeKey<String> URL = AttributeKey.stringKey("url.full");
+    private static final AttributeKey<String> ROUTE = AttributeKey.stringKey("url.template");
+    private static final AttributeKey<String> SERVICE = AttributeKey.stringKey("code.function");
+    private static final AttributeKey<Long> STATUS = AttributeKey.longKey("http.response.status_code");
+    private static final AttributeKey<Long> ERROR_CODE = AttributeKey.longKey("productlayer.error_code");
+    private static final AttributeKey<Long> RESEND_COUNT = AttributeKey.longKey("http.request.resend_count");
+    private static final AttributeKey<Long> REQUEST_SIZE = AttributeKey.longKey("http.request.body.size");
+    private static final AttributeKey<Long> RESPONSE_SIZE = AttributeKey.longKey("http.response.body.size");
+    private static final AttributeKey<Long> POOL_WAIT = AttributeKey.longKey("productlayer.pool_wait_ms");
+    private static final AttributeKey<String> CACHE = AttributeKey.stringKey("productlayer.cache");
+
+    private static final TextMapSetter<HttpHeaders> SETTER = (headers, key, value) -> headers.set(key, value);
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+
+    /**
+     * @param openTelemetry
+     *            the OpenTelemetry instance providing the tracer and the
+     *            propagators
+     */
+    public OpenTelemetryInstrumentation(OpenTelemetry openTelemetry) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+    }
+
+    @Override
+    public Object onRequest(RequestInfo request, HttpHeaders headers) {
+        Span span = tracer.spanBuilder(request.getMethod().name() + " " + request.getUrlTemplate())
+                .setSpanKind(SpanKind.CLIENT).setAttribute(METHOD, request.getMethod().name())
+                .setAttribute(URL, request.getUrl()).setAttribute(ROUTE, request.getUrlTemplate())
+                .startSpan();
+        if (request.getServiceMethod() != null) {
+            span.setAttribute(SERVICE, request.getServiceMethod());
+        }
+        propagator.inject(Context.current().with(span), headers, SETTER);
+        return span;
+    }
+
+    @Override
+    public void onResponse(RequestInfo request, RequestMetrics metrics, Object context) {
+        if (!(context instanceof Span)) {
+            return;
+        }
+        Span span = (Span) context;
+        if (metrics.getStatus() > 0) {
+            span.setAttribute(STATUS, (long) metrics.getStatus());
+        }
+        if (metrics.getErrorCode() != 0) {
+            span.setAttribute(ERROR_CODE, (long) metrics.getErrorCode());
+        }
+        if (metrics.getRetries() > 0) {
+            span.setAttribute(RESEND_COUNT, (long) metrics.getRetries());
+        }
+        if (metrics.getAttempts() > 0 && !request.isAsync()) {
+            span.setAttribute(REQUEST_SIZE, metrics.getBytesSent());
+            span.setAttribute(RESPONSE_SIZE, metrics.getBytesReceived());
+            span.setAttribute(POOL_WAIT, TimeUnit.NANOSECONDS.toMillis(metrics.getPoolWaitNanos()));
+        }
+        if (metrics.getError() != null) {
+            span.recordException(metrics.getError());
+            span.setStatus(StatusCode.ERROR);
+        } else if (metrics.getStatus() >= 400) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    @Override
+    public void onCacheLookup(String cache, boolean hit) {
+        Span.current().addEvent(hit ? "cache hit" : "cache miss", Attributes.of(CACHE, cache));
+    }
+
+}
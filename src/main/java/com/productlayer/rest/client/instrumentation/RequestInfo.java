@@ -0,0 +1,153 @@
+package com.productlayer.rest.client.instrumentation;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Describes a request reported to a {@link ClientInstrumentation}: the HTTP
+ * method, the URL template to tag metrics with and the service method that
+ * sent it.
+ */
+public class RequestInfo {
+
+    private static final String SERVICES_PACKAGE = "com.productlayer.rest.client.services.";
+
+    private final HttpMethod method;
+    private final String url;
+    private final String urlTemplate;
+    private final boolean async;
+    // the stack of the sending thread, resolved to the service method on
+    // first use as most of the cost lies in building its elements
+    private Throwable callSite;
+    private String serviceMethod;
+
+    /**
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request as passed to the client
+     * @param urlTemplate
+     *            the URL with its variable path segments replaced by
+     *            placeholders
+     * @param serviceMethod
+     *            the service method sending the request, e.g.
+     *            "ProductService.getProductForGtin", or null
+     * @param async
+     *            whether the request is sent by a non-blocking HTTP client
+     */
+    public RequestInfo(HttpMethod method, String url, String urlTemplate, String serviceMethod,
+            boolean async) {
+        this.method = method;
+        this.url = url;
+        this.urlTemplate = urlTemplate;
+        this.serviceMethod = serviceMethod;
+        this.async = async;
+    }
+
+    private RequestInfo(HttpMethod method, String url, String urlTemplate, Throwable callSite,
+            boolean async) {
+        this.method = method;
+        this.url = url;
+        this.urlTemplate = urlTemplate;
+        this.callSite = callSite;
+        this.async = async;
+    }
+
+    /**
+     * Describes a request sent by the calling thread, deriving the URL
+     * template by {@link UrlTemplates#of(String)} and the service method from
+     * the stack of the calling thread once it is requested.
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request as passed to the client
+     * @param async
+     *            whether the request is sent by a non-blocking HTTP client
+     * @return the description of the request
+     */
+    public static RequestInfo of(HttpMethod method, String url, boolean async) {
+        return new RequestInfo(method, url, UrlTemplates.of(url), new Throwable(), async);
+    }
+
+    /**
+     * Describes a request to an endpoint whose URL template is known, e.g.
+     * from an {@link com.productlayer.rest.client.helper.EndpointTemplate},
+     * deriving the service method from the stack of the calling thread once it
+     * is requested.
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request as passed to the client
+     * @param urlTemplate
+     *            the URL with its variable path segments replaced by
+     *            placeholders
+     * @param async
+     *            whether the request is sent by a non-blocking HTTP client
+     * @return the description of the request
+     */
+    public static RequestInfo of(HttpMethod method, String url, String urlTemplate, boolean async) {
+        return new RequestInfo(method, url, urlTemplate, new Throwable(), async);
+    }
+
+    private static String serviceMethodOf(Throwable callSite) {
+        for (StackTraceElement element : callSite.getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith(SERVICES_PACKAGE) && className.indexOf('$') < 0) {
+                return className.substring(SERVICES_PACKAGE.length()) + "." + element.getMethodName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the HTTP method of the request
+     */
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the URL of the request as passed to the client, possibly with
+     *         placeholders for the query parameters
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the path of the request with its variable segments (GTINs, IDs,
+     *         nick names, ...) replaced by placeholders, e.g.
+     *         "/product/{id}/images"
+     */
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    /**
+     * @return the service method sending the request, e.g.
+     *         "ProductService.getProductForGtin", or null if the client has
+     *         been called directly
+     */
+    public synchronized String getServiceMethod() {
+        if (callSite != null) {
+            serviceMethod = serviceMethodOf(callSite);
+            callSite = null;
+        }
+        return serviceMethod;
+    }
+
+    /**
+     * @return whether the request is sent by a non-blocking HTTP client
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestInfo [method=" + method + ", urlTemplate=" + urlTemplate + ", serviceMethod="
+                + getServiceMethod() + ", async=" + async + "]";
+    }
+
+}
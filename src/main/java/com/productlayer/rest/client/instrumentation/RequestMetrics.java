@@ -0,0 +1,221 @@
+package com.productlayer.rest.client.instrumentation;
+
+import java.util.List;
+
+import com.productlayer.core.beans.errors.ErrorMessage;
+import com.productlayer.core.error.PLYHttpException;
+
+/**
+ * The outcome, timings and sizes of a request reported to a
+ * {@link ClientInstrumentation}.
+ *
+ * While a blocking request is sent its metrics are bound to the sending
+ * thread (see {@link #current()}), so the HTTP client can record the bytes
+ * transferred and the time waited for a pooled connection. These are only
+ * measured by the
+ * {@link com.productlayer.rest.client.http.PooledHttpComponentsClientHttpRequestFactory}
+ * and remain zero for other HTTP clients and asynchronous requests.
+ *
+ * Instances are not thread-safe; they are filled by the thread sending the
+ * request and read once it completed.
+ */
+public class RequestMetrics {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<RequestMetrics>();
+
+    private final long startNanos = System.nanoTime();
+    private long endNanos;
+    private long responseNanos;
+    private int status = -1;
+    private Throwable error;
+    private int attempts;
+    private long bytesSent;
+    private long bytesReceived;
+    private long poolWaitNanos;
+
+    private RequestMetrics previous;
+
+    /**
+     * Starts measuring a request without binding the metrics to the calling
+     * thread, e.g. an asynchronous one.
+     */
+    public RequestMetrics() {
+    }
+
+    /**
+     * @return the metrics of the blocking request being sent by the calling
+     *         thread, or null if none is sent or it is not instrumented
+     */
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts measuring a blocking request sent by the calling thread.
+     *
+     * @return the metrics bound to the calling thread until
+     *         {@link #end(int, Throwable)} is called
+     */
+    public static RequestMetrics begin() {
+        RequestMetrics metrics = new RequestMetrics();
+        metrics.previous = CURRENT.get();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Ends measuring the request and unbinds the metrics from the calling
+     * thread if bound by {@link #begin()}.
+     *
+     * @param status
+     *            the HTTP status code of the response, 0 if no response has
+     *            been received due to an I/O error, negative if the request
+     *            failed otherwise
+     * @param error
+     *            the error of the request, or null if it succeeded
+     */
+    public void end(int status, Throwable error) {
+        this.endNanos = System.nanoTime();
+        this.status = status;
+        this.error = error;
+        if (CURRENT.get() == this) {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Records that an attempt of the request is sent.
+     */
+    public void onAttempt() {
+        attempts++;
+    }
+
+    /**
+     * Records that the status and headers of a response have been received.
+     */
+    public void onResponseReceived() {
+        responseNanos = System.nanoTime();
+    }
+
+    /**
+     * @param bytes
+     *            the number of bytes of the request body written
+     */
+    public void addBytesSent(long bytes) {
+        bytesSent += bytes;
+    }
+
+    /**
+     * @param bytes
+     *            the number of bytes of the response body read
+     */
+    public void addBytesReceived(long bytes) {
+        bytesReceived += bytes;
+    }
+
+    /**
+     * @param nanos
+     *            the time waited for a connection of the pool in nanoseconds
+     */
+    public void addPoolWait(long nanos) {
+        poolWaitNanos += nanos;
+    }
+
+    /**
+     * @return the HTTP status code of the response, 0 if no response has been
+     *         received due to an I/O error, negative if the request failed
+     *         otherwise
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the error of the request, or null if it succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return the first ProductLayer status code (see
+     *         {@link com.productlayer.core.error.PLYStatusCodes}) or HTTP
+     *         status code of the error response, or 0 if the request did not
+     *         fail with a {@link PLYHttpException}
+     */
+    public int getErrorCode() {
+        if (!(error instanceof PLYHttpException)) {
+            return 0;
+        }
+        List<ErrorMessage> errors = ((PLYHttpException) error).getErrors();
+        if (errors != null && !errors.isEmpty()) {
+            return errors.get(0).getCode();
+        }
+        return ((PLYHttpException) error).getHttpStatus();
+    }
+
+    /**
+     * @return the duration of the request in nanoseconds, including all
+     *         attempts and any time waiting for permits
+     */
+    public long getDurationNanos() {
+        return (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * @return the time between receiving the headers of the last response and
+     *         the completion of the request in nanoseconds, i.e. reading and
+     *         deserializing the response body, or 0 if not measured
+     */
+    public long getDeserializationNanos() {
+        return responseNanos != 0 && endNanos != 0 ? endNanos - responseNanos : 0;
+    }
+
+    /**
+     * @return the number of attempts sent, 0 if the request has been rejected
+     *         locally or merged into an identical request in flight
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return the number of attempts retried
+     */
+    public int getRetries() {
+        return Math.max(0, attempts - 1);
+    }
+
+    /**
+     * @return the number of bytes of the request bodies sent
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the number of bytes of the response bodies received
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the time waited for connections of the pool in nanoseconds
+     */
+    public long getPoolWaitNanos() {
+        return poolWaitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics [status=" + status + ", durationNanos=" + getDurationNanos() + ", attempts="
+                + attempts + ", bytesSent=" + bytesSent + ", bytesReceived=" + bytesReceived
+                + ", poolWaitNanos=" + poolWaitNanos + "]";
+    }
+
+}
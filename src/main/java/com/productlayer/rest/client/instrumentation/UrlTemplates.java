@@ -0,0 +1,95 @@
+package com.productlayer.rest.client.instrumentation;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Derives URL templates from the URLs of requests, so metrics can be tagged
+ * by endpoint without a separate time series per GTIN, user or image.
+ *
+ * The services build their URLs by concatenating the IDs into the path, so
+ * the template is reconstructed: a path segment is variable if it follows a
+ * resource name (e.g. the GTIN in "/product/4006381333931") or contains a
+ * digit, unless it is one of the fixed sub-resources of the API (e.g.
+ * "/user/me"). The query is dropped.
+ */
+public final class UrlTemplates {
+
+    /**
+     * The placeholder replacing a variable path segment.
+     */
+    public static final String PLACEHOLDER = "{id}";
+
+    private static final Set<String> RESOURCES = new HashSet<String>(Arrays.asList("achievements",
+            "activities", "category", "chat_groups", "image", "list", "opine", "product", "review", "search",
+            "share", "user", "users"));
+
+    private static final Set<String> FIXED = new HashSet<String>(Arrays.asList("change_password", "count",
+            "follow", "lost_password", "me", "report_problem", "setting", "top_scorer", "unfollow"));
+
+    private UrlTemplates() {
+    }
+
+    /**
+     * @param url
+     *            the URL of a request, either the path relative to the API
+     *            version or the full URL
+     * @return the path of the URL relative to the API version with its
+     *         variable segments replaced by {@link #PLACEHOLDER}
+     */
+    public static String of(String url) {
+        int start = 0;
+        if (url.startsWith("http")) {
+            // skip the scheme, host and API version
+            start = url.indexOf('/', url.indexOf("//") + 2);
+            start = start < 0 ? -1 : url.indexOf('/', start + 1);
+            if (start < 0) {
+                return "/";
+            }
+        }
+        int end = url.indexOf('?', start);
+        if (end < 0) {
+            end = url.length();
+        }
+        StringBuilder template = new StringBuilder(end - start + 8);
+        String previous = null;
+        int segmentStart = start;
+        while (segmentStart < end) {
+            if (url.charAt(segmentStart) == '/') {
+                segmentStart++;
+                continue;
+            }
+            int segmentEnd = url.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+            String segment = url.substring(segmentStart, segmentEnd);
+            template.append('/');
+            if (isVariable(previous, segment)) {
+                template.append(PLACEHOLDER);
+            } else {
+                template.append(segment);
+            }
+            previous = segment;
+            segmentStart = segmentEnd + 1;
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    private static boolean isVariable(String previous, String segment) {
+        if (FIXED.contains(segment) || segment.startsWith("{")) {
+            return false;
+        }
+        if (previous != null && RESOURCES.contains(previous)) {
+            return true;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.productlayer.rest.client.resilience;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import com.productlayer.core.utils.Assert;
+
+/**
+ * Limits the number of concurrent requests to a limit adapting to the
+ * observed latency and errors (additive increase, multiplicative decrease).
+ *
+ * The limit grows by about one per round trip while requests succeed and use
+ * the current limit. It is halved whenever the server signals overload and
+ * reduced by 10% whenever the average latency exceeds twice the lowest
+ * latency observed recently, i.e. as soon as requests start queuing on the
+ * server. The latency is tracked per {@link EndpointGroup}, as e.g. image
+ * uploads take far longer than product lookups even on an idle server.
+ *
+ * Requests sent on threads that must not block wait for a permit via
+ * {@link #acquireAsync()} and are served in order as permits are released.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double SMOOTHING = 0.1;
+    private static final int MIN_LATENCY_WINDOW = 1000;
+
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private final Map<EndpointGroup, Latency> latencies = new EnumMap<EndpointGroup, Latency>(
+            EndpointGroup.class);
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<CompletableFuture<Void>>();
+
+    /**
+     * Constructs a limit starting at half of {@code maxLimit}.
+     *
+     * @param maxLimit
+     *            the upper bound of the limit
+     */
+    public AdaptiveConcurrencyLimit(int maxLimit) {
+        Assert.isTrue(maxLimit > 0, "maxLimit must be positive");
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(1, maxLimit / 2);
+        for (EndpointGroup group : EndpointGroup.values()) {
+            latencies.put(group, new Latency());
+        }
+    }
+
+    /**
+     * Waits until fewer requests than the current limit are in flight.
+     *
+     * @param timeoutNanos
+     *            the maximum time to wait
+     * @return true if the request may be sent and {@link #release} must be
+     *         called once it completed, false on timeout
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized boolean acquire(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining / 1000000, (int) (remaining % 1000000));
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Takes a permit if fewer requests than the current limit are in flight,
+     * without waiting.
+     *
+     * @return true if the request may be sent and {@link #release} must be
+     *         called once it completed, false if the limit has been reached
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Takes a permit as soon as fewer requests than the current limit are in
+     * flight, without blocking the calling thread.
+     *
+     * @return a future completed once the permit has been taken, possibly on
+     *         the thread releasing a permit; {@link #release} or
+     *         {@link #cancel()} must be called once it completed, cancel the
+     *         future to stop waiting
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> permit = new CompletableFuture<Void>();
+        synchronized (this) {
+            waiters.add(permit);
+        }
+        grant();
+        return permit;
+    }
+
+    /**
+     * Returns a permit without adapting the limit, if the request has not been
+     * sent after all.
+     */
+    public void cancel() {
+        synchronized (this) {
+            inFlight--;
+            notifyAll();
+        }
+        grant();
+    }
+
+    /**
+     * Adapts the limit to the outcome of a request and lets the next request
+     * waiting in {@link #acquire(long)} or {@link #acquireAsync()} proceed.
+     *
+     * @param group
+     *            the group of the endpoint to track the latency of, or null if
+     *            the latency of the request is no measure of the load of the
+     *            server, e.g. for error responses or streamed uploads
+     * @param latencyNanos
+     *            the time the request took
+     * @param overloaded
+     *            whether the server signalled overload or did not respond
+     */
+    public void release(EndpointGroup group, long latencyNanos, boolean overloaded) {
+        synchronized (this) {
+            adapt(group, latencyNanos, overloaded);
+            notifyAll();
+        }
+        grant();
+    }
+
+    private void adapt(EndpointGroup group, long latencyNanos, boolean overloaded) {
+        boolean limited = inFlight >= (int) limit;
+        inFlight--;
+        if (overloaded) {
+            limit = Math.max(1, limit * BACKOFF_RATIO);
+        } else if (group != null && latencies.get(group).isQueuing(latencyNanos)) {
+            limit = Math.max(1, limit * LATENCY_BACKOFF_RATIO);
+        } else if (limited) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    /**
+     * Hands free permits to the requests waiting in {@link #acquireAsync()},
+     * completing their futures outside of the lock.
+     */
+    private void grant() {
+        while (true) {
+            CompletableFuture<Void> permit;
+            synchronized (this) {
+                if (inFlight >= (int) limit || waiters.isEmpty()) {
+                    return;
+                }
+                permit = waiters.poll();
+                if (permit.isDone()) {
+                    // stopped waiting
+                    continue;
+                }
+                inFlight++;
+            }
+            if (!permit.complete(null)) {
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    /**
+     * The lowest and average latency of the requests to a group of endpoints.
+     */
+    private static class Latency {
+
+        private long min = Long.MAX_VALUE;
+        private double average;
+        private int samples;
+
+        /**
+         * Adds a sample and checks whether requests queue on the server.
+         */
+        boolean isQueuing(long latencyNanos) {
+            if (++samples >= MIN_LATENCY_WINDOW) {
+                // forget the lowest latency now and then to follow changes of
+                // the network
+                samples = 0;
+                min = Long.MAX_VALUE;
+            }
+            min = Math.min(min, latencyNanos);
+            average = average == 0 ? latencyNanos : average + SMOOTHING * (latencyNanos - average);
+            if (average > min * LATENCY_TOLERANCE) {
+                // wait for new samples before backing off again
+                average = min;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * @return the current limit of concurrent requests
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+}
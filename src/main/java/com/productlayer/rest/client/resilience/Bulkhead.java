@@ -0,0 +1,92 @@
+package com.productlayer.rest.client.resilience;
+
+/**
+ * Limits the number of concurrent requests to an endpoint group, so a slow
+ * group cannot hold all connections of the pool.
+ */
+public class Bulkhead {
+
+    private volatile int limit;
+    private int inFlight;
+
+    /**
+     * @param limit
+     *            the maximum number of concurrent requests, zero or negative
+     *            for no limit
+     */
+    public Bulkhead(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Waits until fewer requests than the limit are in flight.
+     *
+     * @param maxWait
+     *            the maximum time to wait in milliseconds
+     * @return true if the request may be sent and {@link #release()} must be
+     *         called once it completed, false if the bulkhead is full
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized boolean acquire(long maxWait) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxWait;
+        while (limit > 0 && inFlight >= limit) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Takes a permit if fewer requests than the limit are in flight, without
+     * waiting.
+     *
+     * @return true if the request may be sent and {@link #release()} must be
+     *         called once it completed, false if the bulkhead is full
+     */
+    public synchronized boolean tryAcquire() {
+        if (limit > 0 && inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Lets the next request waiting in {@link #acquire(long)} proceed.
+     */
+    public synchronized void release() {
+        inFlight--;
+        notify();
+    }
+
+    /**
+     * @return the maximum number of concurrent requests, zero or negative for
+     *         no limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param limit
+     *            the maximum number of concurrent requests, zero or negative
+     *            for no limit
+     */
+    public synchronized void setLimit(int limit) {
+        this.limit = limit;
+        notifyAll();
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+}
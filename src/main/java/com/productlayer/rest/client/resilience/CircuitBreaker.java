@@ -0,0 +1,210 @@
+package com.productlayer.rest.client.resilience;
+
+import java.util.List;
+
+import com.productlayer.core.utils.Assert;
+
+/**
+ * Stops sending requests to an endpoint group while most of its recent
+ * requests failed.
+ *
+ * While {@link State#CLOSED} the outcomes of the recent requests are recorded.
+ * If the failure rate reaches the threshold the breaker opens and rejects all
+ * requests immediately. After the open duration the breaker is
+ * {@link State#HALF_OPEN} and lets a few probe requests through: if they all
+ * succeed the breaker closes again, if one fails it opens again.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Requests are sent and their outcome is recorded.
+         */
+        CLOSED,
+        /**
+         * Requests are rejected.
+         */
+        OPEN,
+        /**
+         * A limited number of probe requests are sent.
+         */
+        HALF_OPEN
+    }
+
+    private final EndpointGroup group;
+    private final List<CircuitBreakerListener> listeners;
+
+    private final boolean[] window;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openDuration;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int calls;
+    private int failures;
+    private long openUntil;
+    private int probes;
+    private int probeSuccesses;
+
+    /**
+     * Constructs a closed circuit breaker.
+     *
+     * @param group
+     *            the endpoint group guarded by the breaker
+     * @param listeners
+     *            the listeners to notify of state transitions
+     * @param windowSize
+     *            the number of recent requests to compute the failure rate of
+     * @param minCalls
+     *            the minimum number of recorded requests before the breaker
+     *            may open
+     * @param failureRateThreshold
+     *            the failure rate opening the breaker, between 0 and 1
+     * @param openDuration
+     *            the time in milliseconds the breaker stays open before
+     *            probing
+     * @param halfOpenProbes
+     *            the number of successful probe requests closing the breaker
+     */
+    public CircuitBreaker(EndpointGroup group, List<CircuitBreakerListener> listeners, int windowSize,
+            int minCalls, double failureRateThreshold, long openDuration, int halfOpenProbes) {
+        Assert.isTrue(windowSize > 0, "windowSize must be positive");
+        Assert.isTrue(halfOpenProbes > 0, "halfOpenProbes must be positive");
+        this.group = group;
+        this.listeners = listeners;
+        this.window = new boolean[windowSize];
+        this.minCalls = Math.min(Math.max(1, minCalls), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * @return whether a request may be sent; if so its outcome must be
+     *         recorded by {@link #onResult(boolean)}
+     */
+    public boolean tryAcquire() {
+        State from;
+        synchronized (this) {
+            from = state;
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probes = 0;
+                probeSuccesses = 0;
+            }
+            if (probes >= halfOpenProbes) {
+                return false;
+            }
+            probes++;
+        }
+        if (from != State.HALF_OPEN) {
+            notifyListeners(from, State.HALF_OPEN);
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of a request permitted by {@link #tryAcquire()}.
+     *
+     * @param failed
+     *            whether the request failed due to the server being
+     *            unavailable
+     */
+    public void onResult(boolean failed) {
+        State from;
+        State to;
+        synchronized (this) {
+            from = state;
+            if (state == State.HALF_OPEN) {
+                if (failed) {
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    state = State.CLOSED;
+                    calls = 0;
+                    failures = 0;
+                    position = 0;
+                }
+            } else if (state == State.CLOSED) {
+                if (calls == window.length) {
+                    if (window[position]) {
+                        failures--;
+                    }
+                } else {
+                    calls++;
+                }
+                window[position] = failed;
+                if (failed) {
+                    failures++;
+                }
+                position = (position + 1) % window.length;
+                if (failed && calls >= minCalls && failures >= failureRateThreshold * calls) {
+                    open();
+                }
+            }
+            to = state;
+        }
+        if (from != to) {
+            notifyListeners(from, to);
+        }
+    }
+
+    /**
+     * Releases a permit of {@link #tryAcquire()} without recording an
+     * outcome, e.g. if the request has not been sent after all.
+     */
+    public synchronized void cancel() {
+        if (state == State.HALF_OPEN && probes > probeSuccesses) {
+            probes--;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openDuration;
+    }
+
+    private void notifyListeners(State from, State to) {
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onStateChange(group, from, to);
+        }
+    }
+
+    /**
+     * @return the current state of the breaker
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the failure rate of the recent requests recorded while closed
+     */
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    /**
+     * @return the endpoint group guarded by the breaker
+     */
+    public EndpointGroup getGroup() {
+        return group;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker [group=" + group + ", state=" + state + ", failureRate=" + getFailureRate()
+                + "]";
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.productlayer.rest.client.resilience;
+
+/**
+ * Receives the state transitions of the circuit breakers and the rejected
+ * requests of an {@link EndpointIsolation}.
+ *
+ * Listeners are called from the threads sending requests and should return
+ * quickly.
+ */
+public interface CircuitBreakerListener {
+
+    /**
+     * Called when the circuit breaker of an endpoint group changes its state.
+     *
+     * @param group
+     *            The endpoint group
+     * @param from
+     *            The previous state
+     * @param to
+     *            The new state
+     */
+    void onStateChange(EndpointGroup group, CircuitBreaker.State from, CircuitBreaker.State to);
+
+    /**
+     * Called when a request is rejected without being sent, because the
+     * circuit breaker of its group is open or its bulkhead is full.
+     *
+     * @param group
+     *            The endpoint group
+     * @param state
+     *            The state of the circuit breaker
+     * @param bulkheadFull
+     *            Whether the request has been rejected by the bulkhead
+     */
+    default void onRejected(EndpointGroup group, CircuitBreaker.State state, boolean bulkheadFull) {
+    }
+
+}
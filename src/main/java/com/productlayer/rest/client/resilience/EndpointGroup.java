@@ -0,0 +1,108 @@
+package com.productlayer.rest.client.resilience;
+
+/**
+ * Groups of endpoints of the API server isolated from each other by
+ * {@link EndpointIsolation}, so an outage of e.g. the image backend does not
+ * affect product lookups.
+ */
+public enum EndpointGroup {
+
+    /**
+     * Products, categories, reviews, opines and product lists.
+     */
+    PRODUCTS,
+
+    /**
+     * Images of products, opines, lists and users.
+     */
+    IMAGES,
+
+    /**
+     * Users, authentication, achievements and activities.
+     */
+    USERS,
+
+    /**
+     * Timelines.
+     */
+    TIMELINE,
+
+    /**
+     * Chat groups and messages.
+     */
+    CHAT,
+
+    /**
+     * Connections to and searches in social networks.
+     */
+    SOCIAL,
+
+    /**
+     * Any other endpoint, e.g. localizations.
+     */
+    OTHER;
+
+    /**
+     * Determines the group of the endpoint addressed by a URL.
+     *
+     * @param url
+     *            the URL of the request, either the path relative to the API
+     *            version or the full URL
+     * @return the group of the endpoint
+     */
+    public static EndpointGroup of(String url) {
+        int start = 0;
+        if (url.startsWith("http")) {
+            // skip the scheme, host and API version
+            start = url.indexOf('/', url.indexOf("//") + 2);
+            start = start < 0 ? url.length() : url.indexOf('/', start + 1);
+            if (start < 0) {
+                return OTHER;
+            }
+        }
+        int end = url.indexOf('?', start);
+        String path = url.substring(start, end < 0 ? url.length() : end);
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        int slash = path.indexOf('/');
+        String first = slash < 0 ? path : path.substring(0, slash);
+
+        if (first.equals("image") || first.equals("images") || path.endsWith("/images")
+                || path.contains("/default_image") || path.endsWith("/avatar") || path.endsWith(".jpg")) {
+            return IMAGES;
+        }
+        if (first.equals("connect") || first.equals("signin") || path.endsWith("/social_response")
+                || path.endsWith("/token_expired") || path.startsWith(first + "/search/")) {
+            return SOCIAL;
+        }
+        switch (first) {
+        case "product":
+        case "products":
+        case "category":
+        case "categories":
+        case "review":
+        case "reviews":
+        case "opine":
+        case "opines":
+        case "list":
+        case "lists":
+            return PRODUCTS;
+        case "user":
+        case "users":
+        case "achievements":
+        case "activities":
+        case "login":
+        case "logout":
+        case "signedin":
+            return USERS;
+        case "timeline":
+            return TIMELINE;
+        case "chat_groups":
+            return CHAT;
+        default:
+            return OTHER;
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.productlayer.rest.client.resilience;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.beans.errors.ErrorMessage;
+import com.productlayer.core.error.PLYHttpException;
+
+/**
+ * Isolates the {@link EndpointGroup}s of the API server from each other with
+ * a {@link CircuitBreaker} and a {@link Bulkhead} per group.
+ *
+ * Requests to a group whose breaker is open or whose bulkhead stays full for
+ * the maximum wait fail immediately with a {@link PLYHttpException} of status
+ * 503 (Service Unavailable) without being sent. I/O errors and 5xx responses
+ * count as failures of a group, other responses as successes. Requests sent on
+ * threads that must not block are rejected at once if their bulkhead is full
+ * (see {@link #tryAcquire(String)}).
+ */
+public class EndpointIsolation {
+
+    /**
+     * The default number of recent requests to compute the failure rate of.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+
+    /**
+     * The default minimum number of requests before a breaker may open.
+     */
+    public static final int DEFAULT_MIN_CALLS = 10;
+
+    /**
+     * The default failure rate opening a breaker.
+     */
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    /**
+     * The default time in milliseconds a breaker stays open before probing.
+     */
+    public static final long DEFAULT_OPEN_DURATION = 10000;
+
+    /**
+     * The default number of successful probe requests closing a breaker.
+     */
+    public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+    /**
+     * The default maximum number of concurrent requests per group.
+     */
+    public static final int DEFAULT_BULKHEAD_LIMIT = 10;
+
+    /**
+     * The default maximum time in milliseconds to wait for a full bulkhead.
+     */
+    public static final long DEFAULT_BULKHEAD_WAIT = 100;
+
+    private final Map<EndpointGroup, CircuitBreaker> circuitBreakers =
+            new EnumMap<EndpointGroup, CircuitBreaker>(EndpointGroup.class);
+    private final Map<EndpointGroup, Bulkhead> bulkheads =
+            new EnumMap<EndpointGroup, Bulkhead>(EndpointGroup.class);
+    private final List<CircuitBreakerListener> listeners =
+            new CopyOnWriteArrayList<CircuitBreakerListener>();
+    private final long bulkheadWait;
+
+    /**
+     * Constructs circuit breakers and bulkheads with the default settings.
+     */
+    public EndpointIsolation() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION,
+                DEFAULT_HALF_OPEN_PROBES, DEFAULT_BULKHEAD_LIMIT, DEFAULT_BULKHEAD_WAIT);
+    }
+
+    /**
+     * Constructs circuit breakers and bulkheads with the same settings for
+     * each group. The bulkhead limits can be changed per group via
+     * {@link #getBulkhead(EndpointGroup)}.
+     *
+     * @param windowSize
+     *            the number of recent requests to compute the failure rate of
+     * @param minCalls
+     *            the minimum number of requests before a breaker may open
+     * @param failureRateThreshold
+     *            the failure rate opening a breaker, between 0 and 1
+     * @param openDuration
+     *            the time in milliseconds a breaker stays open before probing
+     * @param halfOpenProbes
+     *            the number of successful probe requests closing a breaker
+     * @param bulkheadLimit
+     *            the maximum number of concurrent requests per group, zero or
+     *            negative for no limit
+     * @param bulkheadWait
+     *            the maximum time in milliseconds to wait for a full bulkhead
+     */
+    public EndpointIsolation(int windowSize, int minCalls, double failureRateThreshold, long openDuration,
+            int halfOpenProbes, int bulkheadLimit, long bulkheadWait) {
+        for (EndpointGroup group : EndpointGroup.values()) {
+            circuitBreakers.put(group, new CircuitBreaker(group, listeners, windowSize, minCalls,
+                    failureRateThreshold, openDuration, halfOpenProbes));
+            bulkheads.put(group, new Bulkhead(bulkheadLimit));
+        }
+        this.bulkheadWait = bulkheadWait;
+    }
+
+    /**
+     * @param listener
+     *            the listener to notify of state transitions and rejected
+     *            requests
+     */
+    public void addListener(CircuitBreakerListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     *            the listener to remove
+     */
+    public void removeListener(CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param group
+     *            the endpoint group
+     * @return the circuit breaker of the group
+     */
+    public CircuitBreaker getCircuitBreaker(EndpointGroup group) {
+        return circuitBreakers.get(group);
+    }
+
+    /**
+     * @param group
+     *            the endpoint group
+     * @return the bulkhead of the group
+     */
+    public Bulkhead getBulkhead(EndpointGroup group) {
+        return bulkheads.get(group);
+    }
+
+    /**
+     * Checks the circuit breaker and waits for the bulkhead of the group of a
+     * request.
+     *
+     * @param url
+     *            the URL of the request
+     * @return the group of the request to pass to
+     *         {@link #release(EndpointGroup, int)}, which must be called once
+     *         the request completed
+     * @throws PLYHttpException
+     *             with status 503 if the circuit breaker is open or the
+     *             bulkhead is full
+     * @throws RestClientException
+     *             if interrupted while waiting
+     */
+    public EndpointGroup acquire(String url) throws PLYHttpException, RestClientException {
+        EndpointGroup group = EndpointGroup.of(url);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(group);
+        if (!circuitBreaker.tryAcquire()) {
+            throw reject(group, circuitBreaker.getState(), false);
+        }
+        boolean acquired;
+        try {
+            acquired = bulkheads.get(group).acquire(bulkheadWait);
+        } catch (InterruptedException e) {
+            circuitBreaker.cancel();
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting to send the request", e);
+        }
+        if (!acquired) {
+            // a full bulkhead says nothing about the health of the group
+            circuitBreaker.cancel();
+            throw reject(group, circuitBreaker.getState(), true);
+        }
+        return group;
+    }
+
+    /**
+     * Checks the circuit breaker and takes a permit of the bulkhead of the
+     * group of a request without waiting, for requests sent on threads that
+     * must not block, e.g. the I/O threads of the non-blocking HTTP client.
+     *
+     * @param url
+     *            the URL of the request
+     * @return the group of the request to pass to
+     *         {@link #release(EndpointGroup, int)}, which must be called once
+     *         the request completed
+     * @throws PLYHttpException
+     *             with status 503 if the circuit breaker is open or the
+     *             bulkhead is full
+     */
+    public EndpointGroup tryAcquire(String url) throws PLYHttpException {
+        EndpointGroup group = EndpointGroup.of(url);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(group);
+        if (!circuitBreaker.tryAcquire()) {
+            throw reject(group, circuitBreaker.getState(), false);
+        }
+        if (!bulkheads.get(group).tryAcquire()) {
+            circuitBreaker.cancel();
+            throw reject(group, circuitBreaker.getState(), true);
+        }
+        return group;
+    }
+
+    private PLYHttpException reject(EndpointGroup group, CircuitBreaker.State state, boolean bulkheadFull) {
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onRejected(group, state, bulkheadFull);
+        }
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        String message = (bulkheadFull ? "Too many concurrent requests to " : "Circuit breaker open for ")
+                + group.name().toLowerCase();
+        return new PLYHttpException(new ErrorMessage(message, status.value()), status.value());
+    }
+
+    /**
+     * Records the outcome of a request permitted by {@link #acquire(String)}.
+     *
+     * @param group
+     *            the group returned by {@link #acquire(String)}
+     * @param status
+     *            the HTTP status code of the response, 0 if no response has
+     *            been received due to an I/O error, negative if the request
+     *            failed otherwise
+     */
+    public void release(EndpointGroup group, int status) {
+        bulkheads.get(group).release();
+        circuitBreakers.get(group).onResult(status == 0 || status >= 500);
+    }
+
+    /**
+     * Releases a permit of {@link #acquire(String)} or
+     * {@link #tryAcquire(String)} without recording an outcome, if the request
+     * has not been sent after all.
+     *
+     * @param group
+     *            the group returned by {@link #acquire(String)} or
+     *            {@link #tryAcquire(String)}
+     */
+    public void cancel(EndpointGroup group) {
+        bulkheads.get(group).release();
+        circuitBreakers.get(group).cancel();
+    }
+
+}
@@ -0,0 +1,360 @@
+package com.productlayer.rest.client.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.beans.errors.ErrorMessage;
+import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.rest.client.config.PLYRestClientConfig;
+
+/**
+ * Throttles the requests sent with an API key so they stay within the quota
+ * of the API server. A throttle combines
+ * <ul>
+ * <li>a {@link TokenBucket} limiting the rate of requests (if
+ * {@link PLYRestClientConfig#requestsPerSecond} is positive),</li>
+ * <li>an {@link AdaptiveConcurrencyLimit} limiting the number of concurrent
+ * requests (if {@link PLYRestClientConfig#maxConcurrentRequests} is
+ * positive),</li>
+ * <li>pausing all requests for the time requested by a {@code Retry-After}
+ * header of a 429 (Too Many Requests) or 503 (Service Unavailable)
+ * response.</li>
+ * </ul>
+ *
+ * There is one throttle per API key, shared by all clients, threads and
+ * services using the key with the same server and limits; clients configuring
+ * different limits for the same key get a throttle of their own, so they
+ * never run with the limits of another client. A request that cannot be sent
+ * within
+ * {@link PLYRestClientConfig#throttleTimeout} fails with a
+ * {@link PLYHttpException} of status 429 without being sent.
+ *
+ * {@link #acquire()} blocks the calling thread while a request is delayed.
+ * Requests sent on threads that must not block, e.g. the I/O threads of the
+ * non-blocking HTTP client, use {@link #acquireAsync()}, which defers them on
+ * a thread of the throttle instead.
+ */
+public class RequestThrottle {
+
+    private static final ConcurrentMap<String, RequestThrottle> THROTTLES =
+            new ConcurrentHashMap<String, RequestThrottle>();
+
+    private static final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ply-request-throttle");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final TokenBucket tokenBucket;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final long timeoutNanos;
+
+    private final AtomicLong pausedUntil = new AtomicLong(System.nanoTime());
+
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a throttle as specified by {@code config}.
+     *
+     * @param config
+     *            the rate, concurrency and timeout configuration
+     */
+    public RequestThrottle(PLYRestClientConfig config) {
+        tokenBucket = config.requestsPerSecond > 0 ? new TokenBucket(config.requestsPerSecond, Math.max(1,
+                config.requestBurst)) : null;
+        concurrencyLimit = config.maxConcurrentRequests > 0 ? new AdaptiveConcurrencyLimit(
+                config.maxConcurrentRequests) : null;
+        timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.throttleTimeout));
+    }
+
+    /**
+     * Gets the throttle shared by all clients using the API key, server and
+     * limits of {@code config}.
+     *
+     * @param config
+     *            the configuration of the client
+     * @return the throttle of the API key, or null if neither the rate nor the
+     *         concurrency of requests are limited by {@code config}
+     */
+    public static RequestThrottle forApiKey(PLYRestClientConfig config) {
+        if (config.requestsPerSecond <= 0 && config.maxConcurrentRequests <= 0) {
+            return null;
+        }
+        return THROTTLES.computeIfAbsent(keyOf(config), key -> new RequestThrottle(config));
+    }
+
+    private static String keyOf(PLYRestClientConfig config) {
+        return config.apiKey + '@' + config.apiHost + ':' + config.apiPort + '/' + config.requestsPerSecond
+                + '/' + config.requestBurst + '/' + config.maxConcurrentRequests + '/'
+                + config.throttleTimeout;
+    }
+
+    /**
+     * Waits until a request may be sent.
+     *
+     * @return the start time of the request to pass to
+     *         {@link #release(EndpointGroup, long, int, HttpHeaders)}, which
+     *         must be called once the request completed
+     * @throws PLYHttpException
+     *             with status 429 if the request cannot be sent within the
+     *             timeout
+     * @throws RestClientException
+     *             if interrupted while waiting
+     */
+    public long acquire() throws PLYHttpException, RestClientException {
+        long now = System.nanoTime();
+        long deadline = now + timeoutNanos;
+        try {
+            long wait = pausedUntil.get() - now;
+            if (wait > timeoutNanos) {
+                throw reject();
+            }
+            if (tokenBucket != null) {
+                long tokenWait = tokenBucket.reserve(deadline - now - Math.max(0, wait));
+                if (tokenWait < 0) {
+                    throw reject();
+                }
+                wait = Math.max(wait, tokenWait);
+            }
+            if (wait > 0) {
+                delayed.increment();
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if (concurrencyLimit != null
+                    && !concurrencyLimit.acquire(Math.max(0, deadline - System.nanoTime()))) {
+                refundToken();
+                throw reject();
+            }
+        } catch (InterruptedException e) {
+            refundToken();
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting to send the request", e);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Acquires the permission to send a request without blocking the calling
+     * thread. A request delayed to stay within the rate, a requested pause or
+     * the concurrency limit is deferred on a thread of the throttle.
+     *
+     * @return a future completed with the start time of the request to pass
+     *         to {@link #release(EndpointGroup, long, int, HttpHeaders)} once
+     *         it may be sent, on the calling thread if it is not delayed, or
+     *         completed exceptionally with a {@link PLYHttpException} with
+     *         status 429 if the request cannot be sent within the timeout;
+     *         cancel the future to withdraw the request,
+     *         {@link #release(EndpointGroup, long, int, HttpHeaders)} or
+     *         {@link #cancel()} must be called if it completed normally
+     */
+    public CompletableFuture<Long> acquireAsync() {
+        final CompletableFuture<Long> acquired = new CompletableFuture<Long>();
+        long now = System.nanoTime();
+        final long deadline = now + timeoutNanos;
+        long wait = pausedUntil.get() - now;
+        if (wait > timeoutNanos) {
+            acquired.completeExceptionally(reject());
+            return acquired;
+        }
+        if (tokenBucket != null) {
+            long tokenWait = tokenBucket.reserve(deadline - now - Math.max(0, wait));
+            if (tokenWait < 0) {
+                acquired.completeExceptionally(reject());
+                return acquired;
+            }
+            wait = Math.max(wait, tokenWait);
+        }
+        if (wait > 0) {
+            delayed.increment();
+            scheduler.schedule(() -> acquireConcurrency(acquired, deadline), wait, TimeUnit.NANOSECONDS);
+        } else {
+            acquireConcurrency(acquired, deadline);
+        }
+        return acquired;
+    }
+
+    private void acquireConcurrency(final CompletableFuture<Long> acquired, long deadline) {
+        if (acquired.isDone()) {
+            // withdrawn while delayed
+            refundToken();
+            return;
+        }
+        if (concurrencyLimit == null) {
+            acquired.complete(System.nanoTime());
+            return;
+        }
+        if (concurrencyLimit.tryAcquire()) {
+            grant(acquired);
+            return;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            refundToken();
+            acquired.completeExceptionally(reject());
+            return;
+        }
+        final CompletableFuture<Void> permit = concurrencyLimit.acquireAsync();
+        final ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            if (permit.cancel(false)) {
+                refundToken();
+                acquired.completeExceptionally(reject());
+            }
+        }, remaining, TimeUnit.NANOSECONDS);
+        // permits are released by completing requests, i.e. on the I/O
+        // threads of the HTTP client, which must not send the next request
+        permit.thenRunAsync(() -> {
+            timeout.cancel(false);
+            grant(acquired);
+        }, scheduler);
+        acquired.whenComplete((start, ex) -> {
+            if (!permit.isDone() && permit.cancel(false)) {
+                // withdrawn while waiting
+                refundToken();
+            }
+        });
+    }
+
+    private void grant(CompletableFuture<Long> acquired) {
+        if (!acquired.complete(System.nanoTime())) {
+            // withdrawn meanwhile
+            concurrencyLimit.cancel();
+            refundToken();
+        }
+    }
+
+    /**
+     * Returns the permission of {@link #acquire()} or {@link #acquireAsync()}
+     * without recording an outcome, if the request has not been sent after
+     * all.
+     */
+    public void cancel() {
+        if (concurrencyLimit != null) {
+            concurrencyLimit.cancel();
+        }
+        refundToken();
+    }
+
+    private void refundToken() {
+        if (tokenBucket != null) {
+            tokenBucket.refund();
+        }
+    }
+
+    private PLYHttpException reject() {
+        rejected.increment();
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        return new PLYHttpException(new ErrorMessage(status.getReasonPhrase(), status.value()),
+                status.value());
+    }
+
+    /**
+     * Records the outcome of a request sent after {@link #acquire()}.
+     *
+     * @param group
+     *            the group of the endpoint addressed by the request, or null
+     *            if its latency is no measure of the load of the server, e.g.
+     *            for streamed uploads and downloads
+     * @param start
+     *            the start time returned by {@link #acquire()}, or the time
+     *            the request has been sent if it waited for other permits
+     *            afterwards
+     * @param status
+     *            the HTTP status code of the response, 0 if no response has
+     *            been received due to an I/O error, negative if the request
+     *            failed otherwise
+     * @param headers
+     *            the headers of the response, may be null
+     */
+    public void release(EndpointGroup group, long start, int status, HttpHeaders headers) {
+        long now = System.nanoTime();
+        boolean overloaded = status == 0 || status == HttpStatus.TOO_MANY_REQUESTS.value()
+                || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+        if (concurrencyLimit != null) {
+            // error responses may be answered without doing the work
+            boolean successful = status >= 200 && status < 300;
+            concurrencyLimit.release(successful ? group : null, now - start, overloaded);
+        }
+        if (overloaded && headers != null) {
+            long retryAfter = parseRetryAfter(headers);
+            if (retryAfter > 0) {
+                long until = now + TimeUnit.MILLISECONDS.toNanos(retryAfter);
+                pausedUntil.accumulateAndGet(until, (a, b) -> a - b > 0 ? a : b);
+            }
+        }
+    }
+
+    /**
+     * @return the delay in milliseconds requested by the Retry-After header
+     *         (in seconds or as HTTP date), or 0 if none
+     */
+    private static long parseRetryAfter(HttpHeaders headers) {
+        String retryAfter = headers.getFirst("Retry-After");
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, headers.getFirstDate("Retry-After") - System.currentTimeMillis());
+            } catch (IllegalArgumentException e2) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the current limit of concurrent requests, or -1 if the
+     *         concurrency is not limited
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit != null ? concurrencyLimit.getLimit() : -1;
+    }
+
+    /**
+     * @return the number of requests in flight, or -1 if the concurrency is
+     *         not limited
+     */
+    public int getInFlight() {
+        return concurrencyLimit != null ? concurrencyLimit.getInFlight() : -1;
+    }
+
+    /**
+     * @return the number of requests delayed to stay within the rate or a
+     *         requested pause
+     */
+    public long getDelayedCount() {
+        return delayed.sum();
+    }
+
+    /**
+     * @return the number of requests rejected without being sent
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestThrottle [limit=" + getConcurrencyLimit() + ", inFlight=" + getInFlight()
+                + ", delayed=" + getDelayedCount() + ", rejected=" + getRejectedCount() + "]";
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.productlayer.rest.client.resilience;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Receives the outcome of every attempt of a request sent under a
+ * {@link RetryPolicy}, e.g. to record metrics per attempt.
+ *
+ * Listeners are called from the thread sending the request and should return
+ * quickly.
+ */
+public interface RetryListener {
+
+    /**
+     * Called after each attempt of a request.
+     *
+     * @param method
+     *            The HTTP method of the request
+     * @param url
+     *            The URL of the request as passed to the client
+     * @param attempt
+     *            The number of the attempt, starting with 1
+     * @param durationMillis
+     *            The duration of the attempt in milliseconds
+     * @param error
+     *            The error of the attempt, or null if it succeeded
+     * @param willRetry
+     *            Whether the request is attempted again
+     */
+    void onAttempt(HttpMethod method, String url, int attempt, long durationMillis, Throwable error,
+            boolean willRetry);
+
+}
@@ -0,0 +1,479 @@
+package com.productlayer.rest.client.resilience;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.helper.FutureHelper;
+
+/**
+ * Retries requests failing with a transient error: an I/O error or a 429
+ * (Too Many Requests), 502 (Bad Gateway), 503 (Service Unavailable) or 504
+ * (Gateway Timeout) response.
+ *
+ * GET, HEAD, OPTIONS, PUT and DELETE requests are retried as they are
+ * idempotent. POST requests are only retried if their path has been marked as
+ * safe to repeat by {@link #addSafePost(String)}.
+ *
+ * The delay between attempts grows with decorrelated jitter, i.e. randomly
+ * between the base delay and three times the previous delay, capped by the
+ * maximum delay, and is at least the delay requested via Retry-After. A
+ * request is not retried once its deadline would pass before the next
+ * attempt. To avoid multiplying the load on a failing server, retries are
+ * limited by a budget: every request adds a fraction of a retry to the
+ * budget, every retry takes one. Asynchronous requests are retried the same
+ * way from a thread of the policy.
+ */
+public class RetryPolicy {
+
+    /**
+     * The default maximum number of attempts per request.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * The default minimum delay between attempts in milliseconds.
+     */
+    public static final long DEFAULT_BASE_DELAY = 100;
+
+    /**
+     * The default maximum delay between attempts in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY = 5000;
+
+    /**
+     * The default time in milliseconds after which a request is no longer
+     * retried.
+     */
+    public static final long DEFAULT_DEADLINE = 30000;
+
+    /**
+     * The default number of retries added to the budget per request.
+     */
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+    /**
+     * The default number of retries the budget starts with and never falls
+     * below when refilled.
+     */
+    public static final int DEFAULT_MIN_BUDGET = 10;
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final long deadline;
+    private final double budgetRatio;
+    private final double maxBudget;
+
+    private double budget;
+
+    private static final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ply-retry");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final List<Pattern> safePosts = new CopyOnWriteArrayList<Pattern>();
+    private volatile RetryListener listener;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * Constructs a policy with the default settings.
+     */
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_DEADLINE,
+                DEFAULT_BUDGET_RATIO, DEFAULT_MIN_BUDGET);
+    }
+
+    /**
+     * Constructs a policy.
+     *
+     * @param maxAttempts
+     *            the maximum number of attempts per request (including the
+     *            first one)
+     * @param baseDelay
+     *            the minimum delay between attempts in milliseconds
+     * @param maxDelay
+     *            the maximum delay between attempts in milliseconds (unless
+     *            the server requests a longer one)
+     * @param deadline
+     *            the time in milliseconds since the first attempt after which
+     *            a request is no longer retried
+     * @param budgetRatio
+     *            the number of retries added to the budget per request, e.g.
+     *            0.1 to allow one retry per ten requests
+     * @param minBudget
+     *            the number of retries the budget starts with, also the
+     *            maximum number of retries saved up while requests succeed
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, long deadline, double budgetRatio,
+            int minBudget) {
+        Assert.isTrue(maxAttempts > 0, "maxAttempts must be positive");
+        Assert.isTrue(baseDelay >= 0 && maxDelay >= baseDelay, "invalid delays");
+        Assert.isTrue(budgetRatio >= 0, "budgetRatio must not be negative");
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.deadline = deadline;
+        this.budgetRatio = budgetRatio;
+        this.maxBudget = Math.max(minBudget, 1);
+        this.budget = minBudget;
+    }
+
+    /**
+     * Marks POST requests to matching paths as safe to repeat, e.g. because
+     * the server ignores duplicates.
+     *
+     * @param pathPattern
+     *            the path of the endpoint relative to the API version, where
+     *            {@code *} matches a single path segment, e.g.
+     *            {@code /product/&#42;/up_vote}
+     * @return this policy
+     */
+    public RetryPolicy addSafePost(String pathPattern) {
+        Assert.notNull(pathPattern, "pathPattern must not be null");
+        StringBuilder regex = new StringBuilder();
+        for (String part : pathPattern.split("\\*", -1)) {
+            if (regex.length() > 0) {
+                regex.append("[^/]*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        safePosts.add(Pattern.compile(regex.toString()));
+        return this;
+    }
+
+    /**
+     * @param listener
+     *            the listener to notify after every attempt, null for none
+     * @return this policy
+     */
+    public RetryPolicy setListener(RetryListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request, either the path relative to the API
+     *            version or the full URL
+     * @return whether failures of the request may be retried
+     */
+    public boolean isRetryable(HttpMethod method, String url) {
+        switch (method) {
+        case GET:
+        case HEAD:
+        case OPTIONS:
+        case PUT:
+        case DELETE:
+            return true;
+        case POST:
+            String path = getPath(url);
+            for (Pattern safePost : safePosts) {
+                if (safePost.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        default:
+            return false;
+        }
+    }
+
+    private static String getPath(String url) {
+        int end = url.indexOf('?');
+        String path = end < 0 ? url : url.substring(0, end);
+        if (path.startsWith("http")) {
+            // strip the scheme, host and API version
+            int start = path.indexOf('/', path.indexOf("//") + 2);
+            start = start < 0 ? path.length() : path.indexOf('/', start + 1);
+            path = start < 0 ? "" : path.substring(start);
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /**
+     * Sends a request and retries it on transient errors if allowed by this
+     * policy.
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request as passed to the client
+     * @param call
+     *            sends the request once
+     * @param <T>
+     *            the type of the response body
+     * @return the response of the first successful attempt
+     * @throws RuntimeException
+     *             the exception of the last attempt
+     */
+    public <T> ResponseEntity<T> execute(HttpMethod method, String url, Supplier<ResponseEntity<T>> call) {
+        calls.increment();
+        deposit();
+        boolean retryable = isRetryable(method, url);
+        long start = System.currentTimeMillis();
+        long delay = baseDelay;
+        for (int attempt = 1;; attempt++) {
+            attempts.increment();
+            long attemptStart = System.currentTimeMillis();
+            try {
+                ResponseEntity<T> response = call.get();
+                notifyListener(method, url, attempt, attemptStart, null, false);
+                if (attempt > 1) {
+                    recovered.increment();
+                }
+                return response;
+            } catch (RuntimeException e) {
+                delay = nextDelay(method, url, retryable, attempt, start, attemptStart, delay, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                try {
+                    TimeUnit.MILLISECONDS.sleep(Math.max(delay, getRetryAfter(e)));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RestClientException("Interrupted while waiting to retry the request", ie);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a request asynchronously and retries it on transient errors if
+     * allowed by this policy. Retries are scheduled on a thread of the policy
+     * without blocking the calling thread.
+     *
+     * @param method
+     *            the HTTP method of the request
+     * @param url
+     *            the URL of the request as passed to the client
+     * @param call
+     *            sends the request once
+     * @param <T>
+     *            the type of the response body
+     * @return a future completed with the response of the first successful
+     *         attempt, or exceptionally with the error of the last attempt;
+     *         cancelling it cancels the current attempt and any further
+     *         retries
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> executeAsync(HttpMethod method, String url,
+            Supplier<CompletableFuture<ResponseEntity<T>>> call) {
+        calls.increment();
+        deposit();
+        CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<ResponseEntity<T>>();
+        attemptAsync(method, url, call, isRetryable(method, url), System.currentTimeMillis(), baseDelay, 1,
+                result);
+        return result;
+    }
+
+    private <T> void attemptAsync(final HttpMethod method, final String url,
+            final Supplier<CompletableFuture<ResponseEntity<T>>> call, final boolean retryable,
+            final long start, final long delay, final int attempt,
+            final CompletableFuture<ResponseEntity<T>> result) {
+        if (result.isDone()) {
+            // cancelled while waiting to retry
+            return;
+        }
+        attempts.increment();
+        final long attemptStart = System.currentTimeMillis();
+        CompletableFuture<ResponseEntity<T>> sent;
+        try {
+            sent = call.get();
+        } catch (RuntimeException e) {
+            sent = new CompletableFuture<ResponseEntity<T>>();
+            sent.completeExceptionally(e);
+        }
+        FutureHelper.propagateCancellation(sent, result);
+        sent.whenComplete((response, ex) -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (ex == null) {
+                notifyListener(method, url, attempt, attemptStart, null, false);
+                if (attempt > 1) {
+                    recovered.increment();
+                }
+                result.complete(response);
+                return;
+            }
+            Throwable cause = FutureHelper.unwrap(ex);
+            if (!(cause instanceof RuntimeException)) {
+                notifyListener(method, url, attempt, attemptStart, cause, false);
+                result.completeExceptionally(cause);
+                return;
+            }
+            RuntimeException e = (RuntimeException) cause;
+            long next = nextDelay(method, url, retryable, attempt, start, attemptStart, delay, e);
+            if (next < 0) {
+                result.completeExceptionally(e);
+                return;
+            }
+            scheduler.schedule(() -> attemptAsync(method, url, call, retryable, start, next, attempt + 1,
+                    result), Math.max(next, getRetryAfter(e)), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * @return the delay in milliseconds before the next attempt, or -1 if the
+     *         request is not retried
+     */
+    private long nextDelay(HttpMethod method, String url, boolean retryable, int attempt, long start,
+            long attemptStart, long delay, RuntimeException e) {
+        if (!retryable || !isTransient(e)) {
+            notifyListener(method, url, attempt, attemptStart, e, false);
+            return -1;
+        }
+        delay = Math.min(maxDelay, baseDelay
+                + (long) (ThreadLocalRandom.current().nextDouble() * (delay * 3 - baseDelay)));
+        long wait = Math.max(delay, getRetryAfter(e));
+        if (attempt >= maxAttempts || System.currentTimeMillis() + wait - start > deadline) {
+            exhausted.increment();
+            notifyListener(method, url, attempt, attemptStart, e, false);
+            return -1;
+        }
+        if (!withdraw()) {
+            budgetExhausted.increment();
+            notifyListener(method, url, attempt, attemptStart, e, false);
+            return -1;
+        }
+        notifyListener(method, url, attempt, attemptStart, e, true);
+        return delay;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException) {
+            HttpStatus status = ((HttpStatusCodeException) e).getStatusCode();
+            return status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.BAD_GATEWAY
+                    || status == HttpStatus.SERVICE_UNAVAILABLE || status == HttpStatus.GATEWAY_TIMEOUT;
+        }
+        return false;
+    }
+
+    private static long getRetryAfter(RuntimeException e) {
+        HttpHeaders headers = e instanceof HttpStatusCodeException ? ((HttpStatusCodeException) e)
+                .getResponseHeaders() : null;
+        if (headers != null) {
+            String retryAfter = headers.getFirst("Retry-After");
+            if (retryAfter != null) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                } catch (NumberFormatException nfe) {
+                    // HTTP dates are left to the request throttle
+                }
+            }
+        }
+        return 0;
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(maxBudget, budget + budgetRatio);
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private void notifyListener(HttpMethod method, String url, int attempt, long attemptStart,
+            Throwable error, boolean willRetry) {
+        RetryListener listener = this.listener;
+        if (listener != null) {
+            listener.onAttempt(method, url, attempt, System.currentTimeMillis() - attemptStart, error,
+                    willRetry);
+        }
+    }
+
+    /**
+     * @return the number of requests sent under this policy
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of attempts including retries
+     */
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    /**
+     * @return the number of retries
+     */
+    public long getRetryCount() {
+        return attempts.sum() - calls.sum();
+    }
+
+    /**
+     * @return the number of requests that succeeded after a retry
+     */
+    public long getRecoveredCount() {
+        return recovered.sum();
+    }
+
+    /**
+     * @return the number of requests that failed after the maximum number of
+     *         attempts or at the deadline
+     */
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    /**
+     * @return the number of requests not retried because the retry budget was
+     *         used up
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * @return the number of retries currently left in the budget
+     */
+    public synchronized double getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy [calls=" + getCallCount() + ", retries=" + getRetryCount() + ", recovered="
+                + getRecoveredCount() + ", exhausted=" + getExhaustedCount() + ", budgetExhausted="
+                + getBudgetExhaustedCount() + "]";
+    }
+
+}
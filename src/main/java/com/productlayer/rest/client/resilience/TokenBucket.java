@@ -0,0 +1,71 @@
+package com.productlayer.rest.client.resilience;
+
+import com.productlayer.core.utils.Assert;
+
+/**
+ * Limits the rate of requests to a number of permits per second while
+ * allowing short bursts. Permits are reserved in advance, i.e. a caller may
+ * take a permit that becomes available only in the future and wait for it.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a full bucket.
+     *
+     * @param permitsPerSecond
+     *            the sustained rate of permits
+     * @param burst
+     *            the maximum number of permits available at once
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        Assert.isTrue(permitsPerSecond > 0, "permitsPerSecond must be positive");
+        Assert.isTrue(burst > 0, "burst must be positive");
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserves a permit if it becomes available within {@code maxWaitNanos}.
+     *
+     * @param maxWaitNanos
+     *            the maximum time to wait for the permit
+     * @return the time in nanoseconds to wait before using the permit, or -1
+     *         if no permit has been reserved
+     */
+    public synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    /**
+     * Returns a permit reserved by {@link #reserve(long)} that has not been
+     * used after all, e.g. because the request has been rejected otherwise.
+     */
+    public synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * @return the number of permits currently available, negative if permits
+     *         have been reserved in advance
+     */
+    public synchronized double getAvailablePermits() {
+        return Math.min(capacity, tokens + (System.nanoTime() - lastRefill) * permitsPerNano);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.productlayer.rest.client.services;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
@@ -7,12 +9,18 @@ import org.springframework.web.client.RestClientException;
 import com.productlayer.core.beans.activities.RichActivity;
 import com.productlayer.core.error.PLYHttpException;
 import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for retrieving activities for the logged in user.
  */
 public class ActivityService {
 
+    private static final EndpointTemplate ACTIVITIES = EndpointTemplate.of("/activities");
+    private static final EndpointTemplate ACTIVITY_READ = EndpointTemplate
+            .of("/activities/{activityID}/read");
+
     /**
      * Get the last 20 activities for the logged in user sorted by update
      * timestamp.
@@ -27,13 +35,30 @@ public class ActivityService {
      *             On any client-side HTTP error
      */
     public static RichActivity[] getActivities(PLYRestClient client) {
-        String url = "/activities";
+        EndpointTemplate.Url url = ACTIVITIES.expand();
 
-        ResponseEntity<RichActivity[]> response = client.exchange(url, HttpMethod.GET, RichActivity[].class,
-                null);
+        ResponseEntity<RichActivity[]> response = client.exchange(url, HttpMethod.GET, RichActivity[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get the last 20 activities for the logged in user sorted
+     * by update timestamp.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @return A future completed with A list of activities.
+     * @see #getActivities
+     */
+    public static CompletableFuture<RichActivity[]> getActivitiesAsync(PLYRestClient client) {
+        EndpointTemplate.Url url = ACTIVITIES.expand();
+
+        CompletableFuture<ResponseEntity<RichActivity[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                RichActivity[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Set a specific activity to read.
      *
@@ -49,11 +74,30 @@ public class ActivityService {
      *             On any client-side HTTP error
      */
     public static RichActivity setActivityToRead(PLYRestClient client, String activityId) {
-        String url = "/activities/" + activityId + "/read";
+        EndpointTemplate.Url url = ACTIVITY_READ.expand(activityId);
 
-        ResponseEntity<RichActivity> response = client.exchange(url, HttpMethod.POST, RichActivity.class,
-                null);
+        ResponseEntity<RichActivity> response = client.exchange(url, HttpMethod.POST, RichActivity.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously set a specific activity to read.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param activityId
+     *            The identifier of the activity.
+     * @return A future completed with A the updated activity.
+     * @see #setActivityToRead
+     */
+    public static CompletableFuture<RichActivity> setActivityToReadAsync(PLYRestClient client,
+            String activityId) {
+        EndpointTemplate.Url url = ACTIVITY_READ.expand(activityId);
+
+        CompletableFuture<ResponseEntity<RichActivity>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                RichActivity.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
@@ -1,7 +1,6 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -9,15 +8,19 @@ import org.springframework.web.client.RestClientException;
 
 import com.productlayer.core.beans.Category;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for retrieving product categories.
  */
 public class CategoryService {
 
+    private static final EndpointTemplate CATEGORY = EndpointTemplate.of("/category/{categoryKey}");
+    private static final EndpointTemplate CATEGORY_KEYS = EndpointTemplate.of("/categories/keys");
+    private static final EndpointTemplate CATEGORIES = EndpointTemplate.of("/categories");
+
     /**
      * Gets the category identified by the specified key.
      *
@@ -36,18 +39,35 @@ public class CategoryService {
      *             On any client-side HTTP error
      */
     public static Category getCategoryForKey(PLYRestClient client, String categoryKey, String language) {
-        String url = "/category/" + categoryKey;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = CATEGORY.expand(categoryKey).query("language", language);
 
-        ResponseEntity<Category> response = client.exchange(url, HttpMethod.GET, Category.class, parameters);
+        ResponseEntity<Category> response = client.exchange(url, HttpMethod.GET, Category.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the category identified by the specified key.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param categoryKey
+     *            The category key starting with 'pl-prod-cat-', e.g.:
+     *            pl-prod-cat-books
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with the identified category
+     * @see #getCategoryForKey
+     */
+    public static CompletableFuture<Category> getCategoryForKeyAsync(PLYRestClient client,
+            String categoryKey, String language) {
+        EndpointTemplate.Url url = CATEGORY.expand(categoryKey).query("language", language);
+
+        CompletableFuture<ResponseEntity<Category>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Category.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets all category keys.
      *
@@ -61,12 +81,29 @@ public class CategoryService {
      *             On any client-side HTTP error
      */
     public static String[] getCategoryKeys(PLYRestClient client) {
-        String url = "/categories/keys";
+        EndpointTemplate.Url url = CATEGORY_KEYS.expand();
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, null);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets all category keys.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @return A future completed with all category keys
+     * @see #getCategoryKeys
+     */
+    public static CompletableFuture<String[]> getCategoryKeysAsync(PLYRestClient client) {
+        EndpointTemplate.Url url = CATEGORY_KEYS.expand();
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the main categories with product counts and sub categories.
      *
@@ -82,17 +119,31 @@ public class CategoryService {
      *             On any client-side HTTP error
      */
     public static Category[] getMainCategories(PLYRestClient client, String language) {
-        String url = "/categories";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = CATEGORIES.expand().query("language", language);
 
-        ResponseEntity<Category[]> response = client.exchange(url, HttpMethod.GET, Category[].class,
-                parameters);
+        ResponseEntity<Category[]> response = client.exchange(url, HttpMethod.GET, Category[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the main categories with product counts and sub
+     * categories.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with all main categories
+     * @see #getMainCategories
+     */
+    public static CompletableFuture<Category[]> getMainCategoriesAsync(PLYRestClient client,
+            String language) {
+        EndpointTemplate.Url url = CATEGORIES.expand().query("language", language);
+
+        CompletableFuture<ResponseEntity<Category[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Category[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
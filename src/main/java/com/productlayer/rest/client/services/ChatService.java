@@ -2,7 +2,7 @@ package com.productlayer.rest.client.services;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -11,15 +11,26 @@ import org.springframework.web.client.RestClientException;
 import com.productlayer.core.beans.chat.ChatGroup;
 import com.productlayer.core.beans.chat.ChatMessage;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for sending/receiving messages to/from other users.
  */
 public class ChatService {
 
+    private static final EndpointTemplate CHAT_GROUPS = EndpointTemplate.of("/chat_groups");
+    private static final EndpointTemplate CHAT_GROUP = EndpointTemplate.of("/chat_groups/{chatGroupId}");
+    private static final EndpointTemplate CHAT_GROUP_USERS = EndpointTemplate
+            .of("/chat_groups/{chatGroupId}/users");
+    private static final EndpointTemplate CHAT_GROUP_USER = EndpointTemplate
+            .of("/chat_groups/{chatGroupId}/users/{userId}");
+    private static final EndpointTemplate CHAT_GROUP_TITLE = EndpointTemplate
+            .of("/chat_groups/{chatGroupId}/title");
+    private static final EndpointTemplate CHAT_GROUP_MESSAGES = EndpointTemplate
+            .of("/chat_groups/{chatGroupId}/messages");
+
     /**
      * Add users to the chat group.
      *
@@ -37,13 +48,35 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatGroup addUserToChatGroup(PLYRestClient client, String chatGroupId, List<String> userIds) {
-        String url = "/chat_groups/" + chatGroupId + "/users";
+        EndpointTemplate.Url url = CHAT_GROUP_USERS.expand(chatGroupId);
 
         ResponseEntity<ChatGroup> response = client.exchangeWithObject(url, HttpMethod.POST, userIds,
-                ChatGroup.class, null);
+                ChatGroup.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously add users to the chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @param userIds
+     *            The userIds
+     * @return A future completed with the updated chat group.
+     * @see #addUserToChatGroup
+     */
+    public static CompletableFuture<ChatGroup> addUserToChatGroupAsync(PLYRestClient client,
+            String chatGroupId, List<String> userIds) {
+        EndpointTemplate.Url url = CHAT_GROUP_USERS.expand(chatGroupId);
+
+        CompletableFuture<ResponseEntity<ChatGroup>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, userIds, ChatGroup.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get a specific chat group.
      *
@@ -62,13 +95,35 @@ public class ChatService {
      */
     public static ChatGroup changeChatGroupTitle(PLYRestClient client, String chatGroupId,
             HashMap<String, String> body) {
-        String url = "/chat_groups/" + chatGroupId + "/title";
+        EndpointTemplate.Url url = CHAT_GROUP_TITLE.expand(chatGroupId);
 
         ResponseEntity<ChatGroup> response = client.exchangeWithObject(url, HttpMethod.PUT, body,
-                ChatGroup.class, null);
+                ChatGroup.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get a specific chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @param body
+     *            The body
+     * @return A future completed with the updated chat group.
+     * @see #changeChatGroupTitle
+     */
+    public static CompletableFuture<ChatGroup> changeChatGroupTitleAsync(PLYRestClient client,
+            String chatGroupId, HashMap<String, String> body) {
+        EndpointTemplate.Url url = CHAT_GROUP_TITLE.expand(chatGroupId);
+
+        CompletableFuture<ResponseEntity<ChatGroup>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.PUT, body, ChatGroup.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Create a new chat group.
      *
@@ -84,13 +139,32 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatGroup createChatGroups(PLYRestClient client, ChatGroup group) {
-        String url = "/chat_groups";
+        EndpointTemplate.Url url = CHAT_GROUPS.expand();
 
         ResponseEntity<ChatGroup> response = client.exchangeWithObject(url, HttpMethod.POST, group,
-                ChatGroup.class, null);
+                ChatGroup.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously create a new chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param group
+     *            The group
+     * @return A future completed with the created chat group.
+     * @see #createChatGroups
+     */
+    public static CompletableFuture<ChatGroup> createChatGroupsAsync(PLYRestClient client, ChatGroup group) {
+        EndpointTemplate.Url url = CHAT_GROUPS.expand();
+
+        CompletableFuture<ResponseEntity<ChatGroup>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, group, ChatGroup.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get the chat groups for the logged in user.
      *
@@ -104,12 +178,30 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatGroup[] getChatGroups(PLYRestClient client) {
-        String url = "/chat_groups";
+        EndpointTemplate.Url url = CHAT_GROUPS.expand();
 
-        ResponseEntity<ChatGroup[]> response = client.exchange(url, HttpMethod.GET, ChatGroup[].class, null);
+        ResponseEntity<ChatGroup[]> response = client.exchange(url, HttpMethod.GET, ChatGroup[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get the chat groups for the logged in user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @return A future completed with A list of chat groups for the logged in
+     *         user.
+     * @see #getChatGroups
+     */
+    public static CompletableFuture<ChatGroup[]> getChatGroupsAsync(PLYRestClient client) {
+        EndpointTemplate.Url url = CHAT_GROUPS.expand();
+
+        CompletableFuture<ResponseEntity<ChatGroup[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ChatGroup[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get chat messages from the chat group.
      *
@@ -135,25 +227,45 @@ public class ChatService {
      */
     public static ChatMessage[] getChatMessagesFromGroup(PLYRestClient client, String chatGroupId,
             Long sinceTimestamp, Long untilTimestamp, Integer count) {
-        String url = "/chat_groups/" + chatGroupId + "/messages";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(sinceTimestamp)) {
-            parameters.put("since_timestamp", sinceTimestamp.toString());
-        }
-        if (!StringUtils.isEmpty(untilTimestamp)) {
-            parameters.put("until_timestamp", untilTimestamp.toString());
-        }
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", count.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<ChatMessage[]> response = client.exchange(url, HttpMethod.GET, ChatMessage[].class,
-                parameters);
+        EndpointTemplate.Url url = CHAT_GROUP_MESSAGES.expand(chatGroupId)
+                .query("since_timestamp", sinceTimestamp).query("until_timestamp", untilTimestamp)
+                .query("count", count);
+
+        ResponseEntity<ChatMessage[]> response = client.exchange(url, HttpMethod.GET, ChatMessage[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get chat messages from the chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @param sinceTimestamp
+     *            [Optional] Request entries since this timestamp in ms since
+     *            01.01.1970.
+     * @param untilTimestamp
+     *            [Optional] Request entries until this timestamp in ms since
+     *            01.01.1970.
+     * @param count
+     *            [Optional] The amount of results to be returned, default and
+     *            maximum: '200'
+     * @return A future completed with the chat messages.
+     * @see #getChatMessagesFromGroup
+     */
+    public static CompletableFuture<ChatMessage[]> getChatMessagesFromGroupAsync(PLYRestClient client,
+            String chatGroupId, Long sinceTimestamp, Long untilTimestamp, Integer count) {
+        EndpointTemplate.Url url = CHAT_GROUP_MESSAGES.expand(chatGroupId)
+                .query("since_timestamp", sinceTimestamp).query("until_timestamp", untilTimestamp)
+                .query("count", count);
+
+        CompletableFuture<ResponseEntity<ChatMessage[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ChatMessage[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get a specific chat group.
      *
@@ -169,12 +281,32 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatGroup getSpecificChatGroup(PLYRestClient client, String chatGroupId) {
-        String url = "/chat_groups/" + chatGroupId;
+        EndpointTemplate.Url url = CHAT_GROUP.expand(chatGroupId);
 
-        ResponseEntity<ChatGroup> response = client.exchange(url, HttpMethod.GET, ChatGroup.class, null);
+        ResponseEntity<ChatGroup> response = client.exchange(url, HttpMethod.GET, ChatGroup.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get a specific chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @return A future completed with the chat group for the specified id.
+     * @see #getSpecificChatGroup
+     */
+    public static CompletableFuture<ChatGroup> getSpecificChatGroupAsync(PLYRestClient client,
+            String chatGroupId) {
+        EndpointTemplate.Url url = CHAT_GROUP.expand(chatGroupId);
+
+        CompletableFuture<ResponseEntity<ChatGroup>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ChatGroup.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Send a new message.
      *
@@ -192,13 +324,35 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatMessage postChatMessage(PLYRestClient client, String chatGroupId, ChatMessage message) {
-        String url = "/chat_groups/" + chatGroupId + "/messages";
+        EndpointTemplate.Url url = CHAT_GROUP_MESSAGES.expand(chatGroupId);
 
         ResponseEntity<ChatMessage> response = client.exchangeWithObject(url, HttpMethod.POST, message,
-                ChatMessage.class, null);
+                ChatMessage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously send a new message.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @param message
+     *            The message
+     * @return A future completed with the chat message.
+     * @see #postChatMessage
+     */
+    public static CompletableFuture<ChatMessage> postChatMessageAsync(PLYRestClient client,
+            String chatGroupId, ChatMessage message) {
+        EndpointTemplate.Url url = CHAT_GROUP_MESSAGES.expand(chatGroupId);
+
+        CompletableFuture<ResponseEntity<ChatMessage>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, message, ChatMessage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Remove user from the chat group.
      *
@@ -216,10 +370,32 @@ public class ChatService {
      *             On any client-side HTTP error
      */
     public static ChatGroup removeUserFromChatGroup(PLYRestClient client, String chatGroupId, String userId) {
-        String url = "/chat_groups/" + chatGroupId + "/users/" + userId;
+        EndpointTemplate.Url url = CHAT_GROUP_USER.expand(chatGroupId, userId);
 
-        ResponseEntity<ChatGroup> response = client.exchange(url, HttpMethod.DELETE, ChatGroup.class, null);
+        ResponseEntity<ChatGroup> response = client.exchange(url, HttpMethod.DELETE, ChatGroup.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously remove user from the chat group.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param chatGroupId
+     *            The identifier of the chat group.
+     * @param userId
+     *            The identifier of the user
+     * @return A future completed with the updated chat group.
+     * @see #removeUserFromChatGroup
+     */
+    public static CompletableFuture<ChatGroup> removeUserFromChatGroupAsync(PLYRestClient client,
+            String chatGroupId, String userId) {
+        EndpointTemplate.Url url = CHAT_GROUP_USER.expand(chatGroupId, userId);
+
+        CompletableFuture<ResponseEntity<ChatGroup>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                ChatGroup.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
@@ -1,7 +1,6 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -9,15 +8,19 @@ import org.springframework.web.client.RestClientException;
 
 import com.productlayer.core.beans.gamification.Achievement;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for achievements.
  */
 public class GamificationService {
 
+    private static final EndpointTemplate ACHIEVEMENT = EndpointTemplate.of("/achievements/{key}");
+    private static final EndpointTemplate USER_ACHIEVEMENTS = EndpointTemplate
+            .of("/users/{userId}/achievements");
+
     /**
      * Gets localized achievement for key.
      *
@@ -35,19 +38,34 @@ public class GamificationService {
      *             On any client-side HTTP error
      */
     public static Achievement getAchievementForKey(PLYRestClient client, String key, String language) {
-        String url = "/achievements/" + key;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = ACHIEVEMENT.expand(key).query("language", language);
 
-        ResponseEntity<Achievement> response = client.exchange(url, HttpMethod.GET, Achievement.class,
-                parameters);
+        ResponseEntity<Achievement> response = client.exchange(url, HttpMethod.GET, Achievement.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localized achievement for key.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param key
+     *            The key of the achievement. e.g.: pl-achv-first_photo
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with the localized achievement
+     * @see #getAchievementForKey
+     */
+    public static CompletableFuture<Achievement> getAchievementForKeyAsync(PLYRestClient client, String key,
+            String language) {
+        EndpointTemplate.Url url = ACHIEVEMENT.expand(key).query("language", language);
+
+        CompletableFuture<ResponseEntity<Achievement>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Achievement.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets all achievements unlocked by the given user.
      *
@@ -65,17 +83,32 @@ public class GamificationService {
      *             On any client-side HTTP error
      */
     public static Achievement[] getAchievementForUser(PLYRestClient client, String userId, String language) {
-        String url = "/users/" + userId + "/achievements";
+        EndpointTemplate.Url url = USER_ACHIEVEMENTS.expand(userId).query("language", language);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<Achievement[]> response = client.exchange(url, HttpMethod.GET, Achievement[].class,
-                parameters);
+        ResponseEntity<Achievement[]> response = client.exchange(url, HttpMethod.GET, Achievement[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets all achievements unlocked by the given user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userId
+     *            The identifier of the user
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with any achievements unlocked by the user
+     * @see #getAchievementForUser
+     */
+    public static CompletableFuture<Achievement[]> getAchievementForUserAsync(PLYRestClient client,
+            String userId, String language) {
+        EndpointTemplate.Url url = USER_ACHIEVEMENTS.expand(userId).query("language", language);
+
+        CompletableFuture<ResponseEntity<Achievement[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Achievement[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
@@ -1,29 +1,57 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import org.springframework.core.io.FileSystemResource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 
 import com.productlayer.core.beans.ProductImage;
 import com.productlayer.core.beans.UserAvatarImage;
 import com.productlayer.core.beans.reports.ProblemReport;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.cache.ImageCache;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.http.UploadSource;
+import com.productlayer.rest.client.instrumentation.ClientInstrumentation;
 
 /**
  * Methods for managing images.
  */
 public class ImageService {
 
+    private static final EndpointTemplate IMAGE = EndpointTemplate.of("/image/{imageID}");
+    private static final EndpointTemplate DEFAULT_PRODUCT_IMAGE = EndpointTemplate
+            .of("/product/{gtin}/default_image");
+    private static final EndpointTemplate USER_AVATAR = EndpointTemplate.of("/user/{userID}/avatar");
+    private static final EndpointTemplate IMAGE_DOWN_VOTE = EndpointTemplate.of("/image/{imageID}/down_vote");
+    private static final EndpointTemplate DEFAULT_PRODUCT_IMAGE_META = EndpointTemplate
+            .of("/product/{gtin}/default_image/meta");
+    private static final EndpointTemplate IMAGE_META = EndpointTemplate.of("/image/{imageID}/meta");
+    private static final EndpointTemplate PRODUCT_IMAGES = EndpointTemplate.of("/product/{gtin}/images");
+    private static final EndpointTemplate OPINE_IMAGES = EndpointTemplate.of("/opine/{opineID}/images");
+    private static final EndpointTemplate IMAGES_REPORT_PROBLEM = EndpointTemplate
+            .of("/images/report_problem");
+    private static final EndpointTemplate IMAGE_ROTATE = EndpointTemplate.of("/image/{imageID}/rotate");
+    private static final EndpointTemplate IMAGE_UP_VOTE = EndpointTemplate.of("/image/{imageID}/up_vote");
+
     /**
      * Deletes a specific product image. Only the owner or an admin can delete
      * the image. If the user earns points for this operation
@@ -42,13 +70,36 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage[] deleteProductImage(PLYRestClient client, String imageID) {
-        String url = "/image/" + imageID;
+        EndpointTemplate.Url url = IMAGE.expand(imageID);
 
         ResponseEntity<ProductImage[]> response = client.exchange(url, HttpMethod.DELETE,
-                ProductImage[].class, null);
+                ProductImage[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously deletes a specific product image. Only the owner or an
+     * admin can delete the image. If the user earns points for this operation
+     * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
+     * will be present in the response header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the image
+     * @return A future completed with the metadata of any deleted images
+     * @see #deleteProductImage
+     */
+    public static CompletableFuture<ProductImage[]> deleteProductImageAsync(PLYRestClient client,
+            String imageID) {
+        EndpointTemplate.Url url = IMAGE.expand(imageID);
+
+        CompletableFuture<ResponseEntity<ProductImage[]>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                ProductImage[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Deletes the avatar image of a user.
      *
@@ -64,13 +115,34 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static UserAvatarImage deleteUserAvatar(PLYRestClient client, String userID) {
-        String url = "/user/" + userID + "/avatar";
+        EndpointTemplate.Url url = USER_AVATAR.expand(userID);
 
         ResponseEntity<UserAvatarImage> response = client.exchange(url, HttpMethod.DELETE,
-                UserAvatarImage.class, null);
+                UserAvatarImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously deletes the avatar image of a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @return A future completed with the metadata of the deleted user avatar
+     *         image
+     * @see #deleteUserAvatar
+     */
+    public static CompletableFuture<UserAvatarImage> deleteUserAvatarAsync(PLYRestClient client,
+            String userID) {
+        EndpointTemplate.Url url = USER_AVATAR.expand(userID);
+
+        CompletableFuture<ResponseEntity<UserAvatarImage>> sent = client.exchangeAsync(url,
+                HttpMethod.DELETE, UserAvatarImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Downvotes a specific product image. If the user already up voted the
      * image the up-vote will be removed.
@@ -88,13 +160,69 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage downVoteProductImage(PLYRestClient client, String imageID) {
-        String url = "/image/" + imageID + "/down_vote";
+        EndpointTemplate.Url url = IMAGE_DOWN_VOTE.expand(imageID);
 
-        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.POST, ProductImage.class,
-                null);
+        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.POST, ProductImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously downvotes a specific product image. If the user already up
+     * voted the image the up-vote will be removed.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the metadata object or the identifier of the
+     *            file ({image_id}.jpg)
+     * @return A future completed with the image metadata with the new vote
+     *         score
+     * @see #downVoteProductImage
+     */
+    public static CompletableFuture<ProductImage> downVoteProductImageAsync(PLYRestClient client,
+            String imageID) {
+        EndpointTemplate.Url url = IMAGE_DOWN_VOTE.expand(imageID);
+
+        CompletableFuture<ResponseEntity<ProductImage>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                ProductImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
+    /**
+     * Gets the default image (highest voted image) of a specific product,
+     * served from the client's {@link ImageCache} if one is set.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param maxWidth
+     *            [Optional] The preferred maximum width
+     * @param maxHeight
+     *            [Optional] The preferred maximum height
+     * @param crop
+     *            [Optional] Whether the image should be cropped
+     * @param quality
+     *            [Optional] The quality of the image between 20 and 100
+     * @return The image data, or null if the product has no image
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static ByteBuffer getDefaultProductImage(PLYRestClient client, String gtin, Integer maxWidth,
+            Integer maxHeight, Boolean crop, Integer quality) {
+        // the image file ID identifies the image data, the default image of a
+        // product may change
+        ProductImage meta = getDefaultProductImageMeta(client, gtin);
+        if (meta == null || meta.getImageFileId() == null) {
+            return null;
+        }
+        return getImage(client, meta.getImageFileId(), maxWidth, maxHeight, crop, quality);
+    }
+
     /**
      * Gets the default image (highest voted image) of a product. For some
      * browsers you need to add the .jpg file extension
@@ -117,24 +245,8 @@ public class ImageService {
      */
     public static String getDefaultProductImageForSizeURL(PLYRestClient client, String gtin,
             Integer maxWidth, Integer maxHeight, Boolean crop, Integer quality) {
-        String url = client.getUrlForMethod("/product/" + gtin + "/default_image");
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(maxWidth)) {
-            parameters.put("max_width", maxWidth.toString());
-        }
-        if (!StringUtils.isEmpty(maxHeight)) {
-            parameters.put("max_height", maxHeight.toString());
-        }
-        if (!StringUtils.isEmpty(crop)) {
-            parameters.put("crop", crop.toString());
-        }
-        if (!StringUtils.isEmpty(quality)) {
-            parameters.put("quality", quality.toString());
-        }
-        url = UrlHelper.addQueryParameterToUrl(url, parameters);
-
-        return url;
+        return client.getUrlForMethod(sized(DEFAULT_PRODUCT_IMAGE.expand(gtin), maxWidth, maxHeight, crop,
+                quality).toString());
     }
 
     /**
@@ -153,13 +265,168 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage getDefaultProductImageMeta(PLYRestClient client, String gtin) {
-        String url = "/product/" + gtin + "/default_image/meta";
+        EndpointTemplate.Url url = DEFAULT_PRODUCT_IMAGE_META.expand(gtin);
 
-        ResponseEntity<ProductImage> response = client
-                .exchange(url, HttpMethod.GET, ProductImage.class, null);
+        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.GET, ProductImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the metadata of the default image (highest voted
+     * image) of a specific product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @return A future completed with the image metadata
+     * @see #getDefaultProductImageMeta
+     */
+    public static CompletableFuture<ProductImage> getDefaultProductImageMetaAsync(PLYRestClient client,
+            String gtin) {
+        EndpointTemplate.Url url = DEFAULT_PRODUCT_IMAGE_META.expand(gtin);
+
+        CompletableFuture<ResponseEntity<ProductImage>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
+    /**
+     * Gets a specific image, served from the client's {@link ImageCache} if one
+     * is set. Expired images are revalidated with a conditional request and
+     * only downloaded again if they have been modified.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageFileId
+     *            The identifier of the image file
+     * @param maxWidth
+     *            [Optional] The preferred maximum width
+     * @param maxHeight
+     *            [Optional] The preferred maximum height
+     * @param crop
+     *            [Optional] Whether the image should be cropped
+     * @param quality
+     *            [Optional] The quality of the image between 20 and 100
+     * @return The read-only image data, memory-mapped if the image is cached
+     *         and frequently requested
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static ByteBuffer getImage(PLYRestClient client, String imageFileId, Integer maxWidth,
+            Integer maxHeight, Boolean crop, Integer quality) {
+        ImageCache cache = client.getImageCache();
+        if (cache == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            client.download(sized(IMAGE.expand(imageFileId), maxWidth, maxHeight, crop, quality), null,
+                    Channels.newChannel(out), null);
+            return ByteBuffer.wrap(out.toByteArray()).asReadOnlyBuffer();
+        }
+        ImageCache.Entry entry = getCachedImage(client, cache, imageFileId, maxWidth, maxHeight, crop,
+                quality);
+        try {
+            return entry.read();
+        } catch (NoSuchFileException e) {
+            // evicted meanwhile
+            cache.remove(entry);
+            entry = getCachedImage(client, cache, imageFileId, maxWidth, maxHeight, crop, quality);
+            try {
+                return entry.read();
+            } catch (IOException e2) {
+                throw new ResourceAccessException("I/O error reading cached image: " + e2.getMessage(), e2);
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error reading cached image: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a specific image to {@code target}, served from the client's
+     * {@link ImageCache} if one is set, otherwise streamed while it is
+     * downloaded.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageFileId
+     *            The identifier of the image file
+     * @param maxWidth
+     *            [Optional] The preferred maximum width
+     * @param maxHeight
+     *            [Optional] The preferred maximum height
+     * @param crop
+     *            [Optional] Whether the image should be cropped
+     * @param quality
+     *            [Optional] The quality of the image between 20 and 100
+     * @param target
+     *            The channel to write the image to, not closed
+     * @return The number of bytes written
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static long getImage(PLYRestClient client, String imageFileId, Integer maxWidth,
+            Integer maxHeight, Boolean crop, Integer quality, WritableByteChannel target) {
+        ImageCache cache = client.getImageCache();
+        if (cache == null) {
+            ResponseEntity<Long> response = client.download(sized(IMAGE.expand(imageFileId), maxWidth,
+                    maxHeight, crop, quality), null, target, null);
+            return response.getBody() != null ? response.getBody() : 0;
+        }
+        ImageCache.Entry entry = getCachedImage(client, cache, imageFileId, maxWidth, maxHeight, crop,
+                quality);
+        try {
+            return entry.transferTo(target);
+        } catch (NoSuchFileException e) {
+            // evicted meanwhile, nothing has been written yet
+            cache.remove(entry);
+            entry = getCachedImage(client, cache, imageFileId, maxWidth, maxHeight, crop, quality);
+            try {
+                return entry.transferTo(target);
+            } catch (IOException e2) {
+                throw new ResourceAccessException("I/O error writing cached image: " + e2.getMessage(), e2);
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error writing cached image: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a specific image to {@code out}.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageFileId
+     *            The identifier of the image file
+     * @param maxWidth
+     *            [Optional] The preferred maximum width
+     * @param maxHeight
+     *            [Optional] The preferred maximum height
+     * @param crop
+     *            [Optional] Whether the image should be cropped
+     * @param quality
+     *            [Optional] The quality of the image between 20 and 100
+     * @param out
+     *            The stream to write the image to, not closed
+     * @return The number of bytes written
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     * @see #getImage(PLYRestClient, String, Integer, Integer, Boolean, Integer,
+     *      WritableByteChannel)
+     */
+    public static long getImage(PLYRestClient client, String imageFileId, Integer maxWidth,
+            Integer maxHeight, Boolean crop, Integer quality, OutputStream out) {
+        return getImage(client, imageFileId, maxWidth, maxHeight, crop, quality, Channels.newChannel(out));
+    }
+
     /**
      * Gets a specific image. For some browsers you need to add the .jpg file
      * extension (/image/{image_id}.jpg) to the url.
@@ -181,24 +448,8 @@ public class ImageService {
      */
     public static String getImageForSizeURL(PLYRestClient client, String imageID, Integer maxWidth,
             Integer maxHeight, Boolean crop, Integer quality) {
-        String url = client.getUrlForMethod("/image/" + imageID);
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(maxWidth)) {
-            parameters.put("max_width", maxWidth.toString());
-        }
-        if (!StringUtils.isEmpty(maxHeight)) {
-            parameters.put("max_height", maxHeight.toString());
-        }
-        if (!StringUtils.isEmpty(crop)) {
-            parameters.put("crop", crop.toString());
-        }
-        if (!StringUtils.isEmpty(quality)) {
-            parameters.put("quality", quality.toString());
-        }
-        url = UrlHelper.addQueryParameterToUrl(url, parameters);
-
-        return url;
+        return client.getUrlForMethod(sized(IMAGE.expand(imageID), maxWidth, maxHeight, crop, quality)
+                .toString());
     }
 
     /**
@@ -216,13 +467,31 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage getImageMeta(PLYRestClient client, String imageID) {
-        String url = "/image/" + imageID + "/meta";
+        EndpointTemplate.Url url = IMAGE_META.expand(imageID);
 
-        ResponseEntity<ProductImage> response = client
-                .exchange(url, HttpMethod.GET, ProductImage.class, null);
+        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.GET, ProductImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a specific image meta information.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the image
+     * @return A future completed with the image metadata
+     * @see #getImageMeta
+     */
+    public static CompletableFuture<ProductImage> getImageMetaAsync(PLYRestClient client, String imageID) {
+        EndpointTemplate.Url url = IMAGE_META.expand(imageID);
+
+        CompletableFuture<ResponseEntity<ProductImage>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets all image metadata of a specific product. Use this to get all image
      * URLs of a product.
@@ -239,13 +508,32 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage[] getProductImages(PLYRestClient client, String gtin) {
-        String url = "/product/" + gtin + "/images";
+        EndpointTemplate.Url url = PRODUCT_IMAGES.expand(gtin);
 
-        ResponseEntity<ProductImage[]> response = client.exchange(url, HttpMethod.GET, ProductImage[].class,
-                null);
+        ResponseEntity<ProductImage[]> response = client.exchange(url, HttpMethod.GET, ProductImage[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets all image metadata of a specific product. Use this to
+     * get all image URLs of a product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @return A future completed with any found product image metadata
+     * @see #getProductImages
+     */
+    public static CompletableFuture<ProductImage[]> getProductImagesAsync(PLYRestClient client, String gtin) {
+        EndpointTemplate.Url url = PRODUCT_IMAGES.expand(gtin);
+
+        CompletableFuture<ResponseEntity<ProductImage[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductImage[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the avatar of a specific user.
      *
@@ -261,15 +549,7 @@ public class ImageService {
      * @return the URL to the requested data
      */
     public static String getUserAvatarURL(PLYRestClient client, String userID, Integer size) {
-        String url = client.getUrlForMethod("/user/" + userID + "/avatar");
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(size)) {
-            parameters.put("size", size.toString());
-        }
-        url = UrlHelper.addQueryParameterToUrl(url, parameters);
-
-        return url;
+        return client.getUrlForMethod(USER_AVATAR.expand(userID).query("size", size).toString());
     }
 
     /**
@@ -290,19 +570,36 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProblemReport reportImage(PLYRestClient client, String imageID, ProblemReport report) {
-        String url = "/images/report_problem";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(imageID)) {
-            parameters.put("image_id", imageID);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = IMAGES_REPORT_PROBLEM.expand().query("image_id", imageID);
 
         ResponseEntity<ProblemReport> response = client.exchangeWithObject(url, HttpMethod.POST, report,
-                ProblemReport.class, parameters);
+                ProblemReport.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously sends a report about copyright infringements or any other
+     * problems with the image.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the image
+     * @param report
+     *            The report
+     * @return A future completed with the problem report object
+     * @see #reportImage
+     */
+    public static CompletableFuture<ProblemReport> reportImageAsync(PLYRestClient client, String imageID,
+            ProblemReport report) {
+        EndpointTemplate.Url url = IMAGES_REPORT_PROBLEM.expand().query("image_id", imageID);
+
+        CompletableFuture<ResponseEntity<ProblemReport>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, report, ProblemReport.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Rotates the image clockwise.
      *
@@ -320,19 +617,34 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage rotateImage(PLYRestClient client, String imageID, Integer degrees) {
-        String url = "/image/" + imageID + "/rotate";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(degrees)) {
-            parameters.put("degrees", degrees.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = IMAGE_ROTATE.expand(imageID).query("degrees", degrees);
 
-        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.PUT, ProductImage.class,
-                parameters);
+        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.PUT, ProductImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously rotates the image clockwise.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the image
+     * @param degrees
+     *            [Optional] The degrees to rotate the image clockwise
+     * @return A future completed with the image metadata after the rotation
+     * @see #rotateImage
+     */
+    public static CompletableFuture<ProductImage> rotateImageAsync(PLYRestClient client, String imageID,
+            Integer degrees) {
+        EndpointTemplate.Url url = IMAGE_ROTATE.expand(imageID).query("degrees", degrees);
+
+        CompletableFuture<ResponseEntity<ProductImage>> sent = client.exchangeAsync(url, HttpMethod.PUT,
+                ProductImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Upvotes a specific product image. If the user already down voted the
      * image the down-vote will be removed.
@@ -350,13 +662,35 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage upVoteProductImage(PLYRestClient client, String imageID) {
-        String url = "/image/" + imageID + "/up_vote";
+        EndpointTemplate.Url url = IMAGE_UP_VOTE.expand(imageID);
 
-        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.POST, ProductImage.class,
-                null);
+        ResponseEntity<ProductImage> response = client.exchange(url, HttpMethod.POST, ProductImage.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously upvotes a specific product image. If the user already down
+     * voted the image the down-vote will be removed.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param imageID
+     *            The identifier of the metadata object or the identifier of the
+     *            file ({image_id}.jpg)
+     * @return A future completed with the image metadata with the new vote
+     *         score
+     * @see #upVoteProductImage
+     */
+    public static CompletableFuture<ProductImage> upVoteProductImageAsync(PLYRestClient client,
+            String imageID) {
+        EndpointTemplate.Url url = IMAGE_UP_VOTE.expand(imageID);
+
+        CompletableFuture<ResponseEntity<ProductImage>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                ProductImage.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Updates the avatar image of a user.
      *
@@ -374,13 +708,34 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static UserAvatarImage updateUserAvatar(PLYRestClient client, String userID, String filePath) {
-        MultiValueMap<String, Object> mvm = new LinkedMultiValueMap<String, Object>();
-        mvm.add("file", new FileSystemResource(filePath));
+        try {
+            return updateUserAvatar(client, userID, UploadSource.of(Paths.get(filePath)));
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error reading " + filePath + ": " + e.getMessage(), e);
+        }
+    }
 
-        String url = "/user/" + userID + "/avatar";
+    /**
+     * Updates the avatar image of a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param upload
+     *            the file to upload, streamed while the request is sent
+     * @return The metadata of the updated user avatar image
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static UserAvatarImage updateUserAvatar(PLYRestClient client, String userID, UploadSource upload) {
+        EndpointTemplate.Url url = USER_AVATAR.expand(userID);
 
-        ResponseEntity<UserAvatarImage> response = client.exchangeWithObjectAndContentType(url,
-                HttpMethod.POST, mvm, MediaType.MULTIPART_FORM_DATA, UserAvatarImage.class, null);
+        ResponseEntity<UserAvatarImage> response = client.exchangeWithUpload(url, HttpMethod.POST, "file",
+                upload, UserAvatarImage.class);
         return response.getBody();
     }
 
@@ -404,13 +759,37 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage uploadOpineImage(PLYRestClient client, String opineID, String filePath) {
-        MultiValueMap<String, Object> mvm = new LinkedMultiValueMap<String, Object>();
-        mvm.add("file", new FileSystemResource(filePath));
+        try {
+            return uploadOpineImage(client, opineID, UploadSource.of(Paths.get(filePath)));
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error reading " + filePath + ": " + e.getMessage(), e);
+        }
+    }
 
-        String url = "/opine/" + opineID + "/images";
+    /**
+     * Uploads an image for an opine. If the user earns points for this
+     * operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @param upload
+     *            the file to upload, streamed while the request is sent
+     * @return The metadata of the uploaded image
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static ProductImage uploadOpineImage(PLYRestClient client, String opineID, UploadSource upload) {
+        EndpointTemplate.Url url = OPINE_IMAGES.expand(opineID);
 
-        ResponseEntity<ProductImage> response = client.exchangeWithObjectAndContentType(url, HttpMethod.POST,
-                mvm, MediaType.MULTIPART_FORM_DATA, ProductImage.class, null);
+        ResponseEntity<ProductImage> response = client.exchangeWithUpload(url, HttpMethod.POST, "file",
+                upload, ProductImage.class);
         return response.getBody();
     }
 
@@ -433,14 +812,88 @@ public class ImageService {
      *             On any client-side HTTP error
      */
     public static ProductImage uploadProductImage(PLYRestClient client, String gtin, String filePath) {
-        MultiValueMap<String, Object> mvm = new LinkedMultiValueMap<String, Object>();
-        mvm.add("file", new FileSystemResource(filePath));
+        try {
+            return uploadProductImage(client, gtin, UploadSource.of(Paths.get(filePath)));
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error reading " + filePath + ": " + e.getMessage(), e);
+        }
+    }
 
-        String url = "/product/" + gtin + "/images";
+    /**
+     * Uploads a product image. If the user earns points for this operation
+     * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
+     * will be present in the response header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param upload
+     *            the file to upload, streamed while the request is sent
+     * @return The image metadata
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static ProductImage uploadProductImage(PLYRestClient client, String gtin, UploadSource upload) {
+        EndpointTemplate.Url url = PRODUCT_IMAGES.expand(gtin);
 
-        ResponseEntity<ProductImage> response = client.exchangeWithObjectAndContentType(url, HttpMethod.POST,
-                mvm, MediaType.MULTIPART_FORM_DATA, ProductImage.class, null);
+        ResponseEntity<ProductImage> response = client.exchangeWithUpload(url, HttpMethod.POST, "file",
+                upload, ProductImage.class);
         return response.getBody();
     }
 
+    private static EndpointTemplate.Url sized(EndpointTemplate.Url url, Integer maxWidth, Integer maxHeight,
+            Boolean crop, Integer quality) {
+        return url.query("max_width", maxWidth).query("max_height", maxHeight).query("crop", crop)
+                .query("quality", quality);
+    }
+
+    private static ImageCache.Entry getCachedImage(PLYRestClient client, ImageCache cache,
+            String imageFileId, Integer maxWidth, Integer maxHeight, Boolean crop, Integer quality) {
+        String key = ImageCache.key(imageFileId, maxWidth, maxHeight, crop, quality);
+        ImageCache.Entry entry = cache.get(key);
+        boolean hit = entry != null && entry.isFresh();
+        ClientInstrumentation instrumentation = client.getInstrumentation();
+        if (instrumentation != null) {
+            instrumentation.onCacheLookup("image", hit);
+        }
+        if (hit) {
+            return entry;
+        }
+
+        HttpHeaders validators = entry != null ? entry.getValidators() : null;
+        EndpointTemplate.Url url = sized(IMAGE.expand(imageFileId), maxWidth, maxHeight, crop, quality);
+        Path file = null;
+        try {
+            file = cache.createTempFile();
+            ResponseEntity<Long> response;
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                response = client.download(url, validators, target, null);
+            }
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && entry != null) {
+                Files.delete(file);
+                cache.revalidated(entry);
+                return entry;
+            }
+            entry = cache.put(key, imageFileId, file, response.getBody() != null ? response.getBody() : 0,
+                    response.getHeaders());
+            file = null;
+            return entry;
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error caching image " + imageFileId + ": "
+                    + e.getMessage(), e);
+        } finally {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // left for the cleanup on the next start
+                }
+            }
+        }
+    }
+
 }
@@ -1,7 +1,7 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -10,15 +10,21 @@ import org.springframework.web.client.RestClientException;
 
 import com.productlayer.core.beans.localization.LocalizedKey;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for managing localizations.
  */
 public class LocalizationService {
 
+    private static final EndpointTemplate LOCALIZATION = EndpointTemplate.of("/localization");
+    private static final EndpointTemplate PROPERTIES_FILE = EndpointTemplate
+            .of("/localization/file/Localizable.{language}.properties");
+    private static final EndpointTemplate STRINGS_FILE = EndpointTemplate
+            .of("/localization/file/Localizable.{language}.strings");
+
     /**
      * Gets localizable strings property file for Java applications.
      * 
@@ -30,12 +36,34 @@ public class LocalizationService {
      * @return The content of the localizable property file
      */
     public static String getLocalizedPropertiesFile(PLYRestClient client, String language) {
-        String url = "/localization/file/Localizable." + language + ".properties";
+        EndpointTemplate.Url url = PROPERTIES_FILE.expand(language);
 
-        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class, null);
+        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localizable strings property file for Java
+     * applications.
+     * 
+     * @param client
+     *            the REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param language
+     *            The language (e.g.: 'en' or 'de')
+     * @return A future completed with the content of the localizable property
+     *         file
+     * @see #getLocalizedPropertiesFile
+     */
+    public static CompletableFuture<String> getLocalizedPropertiesFileAsync(PLYRestClient client,
+            String language) {
+        EndpointTemplate.Url url = PROPERTIES_FILE.expand(language);
+
+        CompletableFuture<ResponseEntity<String>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets localizable strings file for iOS applications.
      * 
@@ -47,12 +75,33 @@ public class LocalizationService {
      * @return The content of the localizable strings file
      */
     public static String getLocalizedStringsFile(PLYRestClient client, String language) {
-        String url = "/localization/file/Localizable." + language + ".strings";
+        EndpointTemplate.Url url = STRINGS_FILE.expand(language);
 
-        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class, null);
+        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localizable strings file for iOS applications.
+     * 
+     * @param client
+     *            the REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param language
+     *            The language (e.g.: 'en' or 'de')
+     * @return A future completed with the content of the localizable strings
+     *         file
+     * @see #getLocalizedStringsFile
+     */
+    public static CompletableFuture<String> getLocalizedStringsFileAsync(PLYRestClient client,
+            String language) {
+        EndpointTemplate.Url url = STRINGS_FILE.expand(language);
+
+        CompletableFuture<ResponseEntity<String>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets localized keys for a domain.
      *
@@ -76,26 +125,44 @@ public class LocalizationService {
      */
     public static Map<String, String> getLocalizedKeys(PLYRestClient client, String domain,
             boolean fetchChilds, String language) {
-        String url = "/localization";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(domain)) {
-            parameters.put("domain", domain);
-        }
-        if (!StringUtils.isEmpty(fetchChilds)) {
-            parameters.put("fetchChilds", String.valueOf(fetchChilds));
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LOCALIZATION.expand().query("domain", domain)
+                .query("fetchChilds", fetchChilds).query("language", language);
 
         ResponseEntity<Map<String, String>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, String>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localized keys for a domain.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param domain
+     *            [Optional] The root domain, e.g.: pl-prod
+     * @param fetchChilds
+     *            [Optional] If true all localizations containing the domain are
+     *            returned, otherwise only the specific key will be returned.
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return A future completed with any keys belonging to the specific base
+     *         domain and as their value the translation to the preferred
+     *         language
+     * @see #getLocalizedKeys
+     */
+    public static CompletableFuture<Map<String, String>> getLocalizedKeysAsync(PLYRestClient client,
+            String domain, boolean fetchChilds, String language) {
+        EndpointTemplate.Url url = LOCALIZATION.expand().query("domain", domain)
+                .query("fetchChilds", fetchChilds).query("language", language);
+
+        CompletableFuture<ResponseEntity<Map<String, String>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<Map<String, String>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Creates a new localization.
      *
@@ -110,9 +177,29 @@ public class LocalizationService {
      *             On any client-side HTTP error
      */
     public static void insertLocalizedKey(PLYRestClient client, LocalizedKey item) {
-        String url = "/localization";
+        EndpointTemplate.Url url = LOCALIZATION.expand();
+
+        client.exchangeWithObject(url, HttpMethod.POST, item, Void.class);
+    }
+
+    /**
+     * Asynchronously creates a new localization.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param item
+     *            The item
+     * @return A future completed when the request has
+     *         succeeded
+     * @see #insertLocalizedKey
+     */
+    public static CompletableFuture<Void> insertLocalizedKeyAsync(PLYRestClient client, LocalizedKey item) {
+        EndpointTemplate.Url url = LOCALIZATION.expand();
 
-        client.exchangeWithObject(url, HttpMethod.POST, item, Void.class, null);
+        CompletableFuture<ResponseEntity<Void>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                item, Void.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> null));
     }
 
     /**
@@ -129,9 +216,29 @@ public class LocalizationService {
      *             On any client-side HTTP error
      */
     public static void updateLocalizedKey(PLYRestClient client, LocalizedKey item) {
-        String url = "/localization";
+        EndpointTemplate.Url url = LOCALIZATION.expand();
+
+        client.exchangeWithObject(url, HttpMethod.PUT, item, Void.class);
+    }
+
+    /**
+     * Asynchronously updates a localization.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param item
+     *            The item
+     * @return A future completed when the request has
+     *         succeeded
+     * @see #updateLocalizedKey
+     */
+    public static CompletableFuture<Void> updateLocalizedKeyAsync(PLYRestClient client, LocalizedKey item) {
+        EndpointTemplate.Url url = LOCALIZATION.expand();
 
-        client.exchangeWithObject(url, HttpMethod.PUT, item, Void.class, null);
+        CompletableFuture<ResponseEntity<Void>> sent = client.exchangeWithObjectAsync(url, HttpMethod.PUT,
+                item, Void.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> null));
     }
 
 }
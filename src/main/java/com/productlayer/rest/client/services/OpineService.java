@@ -1,7 +1,6 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -10,15 +9,21 @@ import org.springframework.web.client.RestClientException;
 import com.productlayer.core.beans.Opine;
 import com.productlayer.core.beans.reports.ProblemReport;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for managing opines.
  */
 public class OpineService {
 
+    private static final EndpointTemplate OPINES = EndpointTemplate.of("/opines");
+    private static final EndpointTemplate OPINE = EndpointTemplate.of("/opine/{opineID}");
+    private static final EndpointTemplate OPINE_DOWN_VOTE = EndpointTemplate.of("/opine/{opineID}/down_vote");
+    private static final EndpointTemplate OPINE_UP_VOTE = EndpointTemplate.of("/opine/{opineID}/up_vote");
+    private static final EndpointTemplate OPINE_REPORT = EndpointTemplate.of("/opine/report_problem");
+
     /**
      * Posts an opine. If the user earns points for this operation
      * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
@@ -36,13 +41,34 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static Opine createOpine(PLYRestClient client, Opine opine) {
-        String url = "/opines";
+        EndpointTemplate.Url url = OPINES.expand();
 
-        ResponseEntity<Opine> response = client.exchangeWithObject(url, HttpMethod.POST, opine, Opine.class,
-                null);
+        ResponseEntity<Opine> response = client.exchangeWithObject(url, HttpMethod.POST, opine, Opine.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously posts an opine. If the user earns points for this
+     * operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opine
+     *            The opine
+     * @return A future completed with the newly created opine
+     * @see #createOpine
+     */
+    public static CompletableFuture<Opine> createOpineAsync(PLYRestClient client, Opine opine) {
+        EndpointTemplate.Url url = OPINES.expand();
+
+        CompletableFuture<ResponseEntity<Opine>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                opine, Opine.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Deletes an opine. Only the owner of the opine can delete it. If the user
      * earns points for this operation 'X-ProductLayer-User-Points' and
@@ -61,12 +87,34 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static Opine deleteOpine(PLYRestClient client, String opineID) {
-        String url = "/opine/" + opineID;
+        EndpointTemplate.Url url = OPINE.expand(opineID);
 
-        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.DELETE, Opine.class, null);
+        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.DELETE, Opine.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously deletes an opine. Only the owner of the opine can delete
+     * it. If the user earns points for this operation
+     * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
+     * will be present in the response header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @return A future completed with the deleted opine
+     * @see #deleteOpine
+     */
+    public static CompletableFuture<Opine> deleteOpineAsync(PLYRestClient client, String opineID) {
+        EndpointTemplate.Url url = OPINE.expand(opineID);
+
+        CompletableFuture<ResponseEntity<Opine>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                Opine.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Downvotes a specific opine.
      *
@@ -82,12 +130,31 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static Opine downVoteOpine(PLYRestClient client, String opineID) {
-        String url = "/opine/" + opineID + "/down_vote";
+        EndpointTemplate.Url url = OPINE_DOWN_VOTE.expand(opineID);
 
-        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.POST, Opine.class, null);
+        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.POST, Opine.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously downvotes a specific opine.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @return A future completed with the opine with the new vote score
+     * @see #downVoteOpine
+     */
+    public static CompletableFuture<Opine> downVoteOpineAsync(PLYRestClient client, String opineID) {
+        EndpointTemplate.Url url = OPINE_DOWN_VOTE.expand(opineID);
+
+        CompletableFuture<ResponseEntity<Opine>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Opine.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets a specific opine.
      *
@@ -103,12 +170,31 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static Opine getOpine(PLYRestClient client, String opineID) {
-        String url = "/opine/" + opineID;
+        EndpointTemplate.Url url = OPINE.expand(opineID);
 
-        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.GET, Opine.class, null);
+        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.GET, Opine.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a specific opine.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @return A future completed with the identified opine
+     * @see #getOpine
+     */
+    public static CompletableFuture<Opine> getOpineAsync(PLYRestClient client, String opineID) {
+        EndpointTemplate.Url url = OPINE.expand(opineID);
+
+        CompletableFuture<ResponseEntity<Opine>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Opine.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Sends a report about copyright infringements or any other problems with
      * the opine.
@@ -127,19 +213,36 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static ProblemReport reportOpine(PLYRestClient client, String opineID, ProblemReport report) {
-        String url = "/opine/report_problem";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(opineID)) {
-            parameters.put("opine_id", opineID);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = OPINE_REPORT.expand().query("opine_id", opineID);
 
         ResponseEntity<ProblemReport> response = client.exchangeWithObject(url, HttpMethod.POST, report,
-                ProblemReport.class, parameters);
+                ProblemReport.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously sends a report about copyright infringements or any other
+     * problems with the opine.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @param report
+     *            The report
+     * @return A future completed with the problem report object
+     * @see #reportOpine
+     */
+    public static CompletableFuture<ProblemReport> reportOpineAsync(PLYRestClient client, String opineID,
+            ProblemReport report) {
+        EndpointTemplate.Url url = OPINE_REPORT.expand().query("opine_id", opineID);
+
+        CompletableFuture<ResponseEntity<ProblemReport>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, report, ProblemReport.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Searches for an opine.
      *
@@ -181,39 +284,64 @@ public class OpineService {
     public static Opine[] searchOpines(PLYRestClient client, Integer page, Integer recordsPerPage,
             String gtin, String language, Boolean showFriendsOnly, String nickname, String userID,
             String order_by) {
-        String url = "/opines";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(gtin)) {
-            parameters.put("gtin", gtin);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(showFriendsOnly)) {
-            parameters.put("show_friends_only", showFriendsOnly.toString());
-        }
-        if (!StringUtils.isEmpty(nickname)) {
-            parameters.put("nickname", nickname);
-        }
-        if (!StringUtils.isEmpty(userID)) {
-            parameters.put("user_id", userID);
-        }
-        if (!StringUtils.isEmpty(order_by)) {
-            parameters.put("order_by", order_by);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<Opine[]> response = client.exchange(url, HttpMethod.GET, Opine[].class, parameters);
+        EndpointTemplate.Url url = OPINES.expand().query("page", page)
+                .query("records_per_page", recordsPerPage).query("gtin", gtin).query("language", language)
+                .query("show_friends_only", showFriendsOnly).query("nickname", nickname)
+                .query("user_id", userID).query("order_by", order_by);
+
+        ResponseEntity<Opine[]> response = client.exchange(url, HttpMethod.GET, Opine[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously searches for an opine.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @param gtin
+     *            [Optional] The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param showFriendsOnly
+     *            [Optional] Show only content created by friends (followed
+     *            users), default: 'false'
+     * @param nickname
+     *            [Optional] The nickname of the user
+     * @param userID
+     *            [Optional] The identifier of the user
+     * @param order_by
+     *            [Optional] Used to sort the result-set by one or more columns.
+     *            The order by parameters are <strong>seperated by a
+     *            semicolon</strong>. Also you need to provide a prefix
+     *            <strong>asc for ascending</strong> or <strong>desc for
+     *            descending order</strong><br>
+     * <br>
+     *            <strong>Default:</strong> pl-created-time_asc (The date the
+     *            opine was created ascending)
+     * @return A future completed with any opines matching the specified
+     *         criteria
+     * @see #searchOpines
+     */
+    public static CompletableFuture<Opine[]> searchOpinesAsync(PLYRestClient client, Integer page,
+            Integer recordsPerPage, String gtin, String language, Boolean showFriendsOnly, String nickname,
+            String userID, String order_by) {
+        EndpointTemplate.Url url = OPINES.expand().query("page", page)
+                .query("records_per_page", recordsPerPage).query("gtin", gtin).query("language", language)
+                .query("show_friends_only", showFriendsOnly).query("nickname", nickname)
+                .query("user_id", userID).query("order_by", order_by);
+
+        CompletableFuture<ResponseEntity<Opine[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Opine[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Upvotes a specific opine.
      *
@@ -229,10 +357,29 @@ public class OpineService {
      *             On any client-side HTTP error
      */
     public static Opine upVoteOpine(PLYRestClient client, String opineID) {
-        String url = "/opine/" + opineID + "/up_vote";
+        EndpointTemplate.Url url = OPINE_UP_VOTE.expand(opineID);
 
-        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.POST, Opine.class, null);
+        ResponseEntity<Opine> response = client.exchange(url, HttpMethod.POST, Opine.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously upvotes a specific opine.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @return A future completed with the opine with the new vote score
+     * @see #upVoteOpine
+     */
+    public static CompletableFuture<Opine> upVoteOpineAsync(PLYRestClient client, String opineID) {
+        EndpointTemplate.Url url = OPINE_UP_VOTE.expand(opineID);
+
+        CompletableFuture<ResponseEntity<Opine>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Opine.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
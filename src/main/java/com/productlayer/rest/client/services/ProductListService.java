@@ -1,24 +1,41 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 
 import com.productlayer.core.beans.lists.ProductList;
 import com.productlayer.core.beans.lists.ProductListItem;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.http.TransferProgressListener;
 
 /**
  * Methods for managing lists of products.
  */
 public class ProductListService {
 
+    private static final EndpointTemplate LIST_PRODUCT = EndpointTemplate
+            .of("/list/{productlistId}/product/{gtin}");
+    private static final EndpointTemplate LISTS = EndpointTemplate.of("/lists");
+    private static final EndpointTemplate LIST = EndpointTemplate.of("/list/{productlistId}");
+    private static final EndpointTemplate USER_LISTS = EndpointTemplate.of("/user/{userId}/lists");
+    private static final EndpointTemplate LIST_IMAGE = EndpointTemplate.of("/list/{productlistId}/image.jpg");
+    private static final EndpointTemplate LIST_SHARE = EndpointTemplate
+            .of("/list/{productlistId}/share/{userId}");
+
     /**
      * Adds the product to the list or, if it exists, replaces it.
      *
@@ -42,19 +59,41 @@ public class ProductListService {
      */
     public static ProductList addToProductList(PLYRestClient client, String productlistId, String gtin,
             String language, ProductListItem listItem) {
-        String url = "/list/" + productlistId + "/product/" + gtin;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST_PRODUCT.expand(productlistId, gtin).query("language", language);
 
         ResponseEntity<ProductList> response = client.exchangeWithObject(url, HttpMethod.PUT, listItem,
-                ProductList.class, parameters);
+                ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously adds the product to the list or, if it exists, replaces
+     * it.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @param listItem
+     *            The listItem
+     * @return A future completed with the updated product list
+     * @see #addToProductList
+     */
+    public static CompletableFuture<ProductList> addToProductListAsync(PLYRestClient client,
+            String productlistId, String gtin, String language, ProductListItem listItem) {
+        EndpointTemplate.Url url = LIST_PRODUCT.expand(productlistId, gtin).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.PUT, listItem, ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Creates a new product list for the authenticated user.
      *
@@ -73,19 +112,36 @@ public class ProductListService {
      *             On any client-side HTTP error
      */
     public static ProductList createNewProductList(PLYRestClient client, ProductList list, String language) {
-        String url = "/lists";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LISTS.expand().query("language", language);
 
         ResponseEntity<ProductList> response = client.exchangeWithObject(url, HttpMethod.POST, list,
-                ProductList.class, parameters);
+                ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously creates a new product list for the authenticated user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param list
+     *            The list
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with the newly created product list
+     * @see #createNewProductList
+     */
+    public static CompletableFuture<ProductList> createNewProductListAsync(PLYRestClient client,
+            ProductList list, String language) {
+        EndpointTemplate.Url url = LISTS.expand().query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, list, ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Deletes a product from the list.
      *
@@ -107,19 +163,37 @@ public class ProductListService {
      */
     public static ProductList deleteFromProductList(PLYRestClient client, String productlistId, String gtin,
             String language) {
-        String url = "/list/" + productlistId + "/product/" + gtin;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST_PRODUCT.expand(productlistId, gtin).query("language", language);
 
-        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class,
-                parameters);
+        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously deletes a product from the list.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language for the loaded product
+     *            objects.
+     * @return A future completed with the updated product list
+     * @see #deleteFromProductList
+     */
+    public static CompletableFuture<ProductList> deleteFromProductListAsync(PLYRestClient client,
+            String productlistId, String gtin, String language) {
+        EndpointTemplate.Url url = LIST_PRODUCT.expand(productlistId, gtin).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Deletes the product list matching the ID.
      *
@@ -135,13 +209,32 @@ public class ProductListService {
      *             On any client-side HTTP error
      */
     public static ProductList deleteProductList(PLYRestClient client, String productlistId) {
-        String url = "/list/" + productlistId;
+        EndpointTemplate.Url url = LIST.expand(productlistId);
 
-        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class,
-                null);
+        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously deletes the product list matching the ID.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @return A future completed with the deleted product list
+     * @see #deleteProductList
+     */
+    public static CompletableFuture<ProductList> deleteProductListAsync(PLYRestClient client,
+            String productlistId) {
+        EndpointTemplate.Url url = LIST.expand(productlistId);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets a product list by ID.
      *
@@ -160,19 +253,35 @@ public class ProductListService {
      *             On any client-side HTTP error
      */
     public static ProductList getProductList(PLYRestClient client, String productlistId, String language) {
-        String url = "/list/" + productlistId;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST.expand(productlistId).query("language", language);
 
-        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.GET, ProductList.class,
-                parameters);
+        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.GET, ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a product list by ID.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with the identified product list
+     * @see #getProductList
+     */
+    public static CompletableFuture<ProductList> getProductListAsync(PLYRestClient client,
+            String productlistId, String language) {
+        EndpointTemplate.Url url = LIST.expand(productlistId).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get the product list mosaic image.
      *
@@ -184,18 +293,96 @@ public class ProductListService {
      * @return the URL to the requested data
      */
     public static String getProductListImageURL(PLYRestClient client, Long productlistId) {
-        String url = client.getUrlForMethod("/list/" + productlistId + "/image.jpg");
-
-        return url;
+        return client.getUrlForMethod(LIST_IMAGE.expand(productlistId).toString());
     }
     
     public static byte[] getProductListImage(PLYRestClient client, Long productlistId) {
-        String url = getProductListImageURL(client, productlistId);
+        EndpointTemplate.Url url = LIST_IMAGE.expand(productlistId);
 
-        ResponseEntity<byte[]> response = client.exchange(url, HttpMethod.GET, byte[].class, null);
+        ResponseEntity<byte[]> response = client.exchange(url, HttpMethod.GET, byte[].class);
         return response.getBody();
     }
 
+    /**
+     * Downloads the product list mosaic image into a channel without buffering
+     * it in memory.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param target
+     *            The channel to write the image to, not closed
+     * @param progressListener
+     *            [Optional] The listener to notify of the bytes received
+     * @return The number of bytes written
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static long getProductListImage(PLYRestClient client, Long productlistId,
+            WritableByteChannel target, TransferProgressListener progressListener) {
+        EndpointTemplate.Url url = LIST_IMAGE.expand(productlistId);
+
+        ResponseEntity<Long> response = client.download(url, null, target, progressListener);
+        return response.getBody() != null ? response.getBody() : 0;
+    }
+
+    /**
+     * Downloads the product list mosaic image into a stream without buffering
+     * it in memory.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param out
+     *            The stream to write the image to, not closed
+     * @param progressListener
+     *            [Optional] The listener to notify of the bytes received
+     * @return The number of bytes written
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static long getProductListImage(PLYRestClient client, Long productlistId, OutputStream out,
+            TransferProgressListener progressListener) {
+        return getProductListImage(client, productlistId, Channels.newChannel(out), progressListener);
+    }
+
+    /**
+     * Downloads the product list mosaic image into a file, transferring the
+     * received bytes directly to the file. An existing file is replaced.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param file
+     *            The file to write the image to
+     * @param progressListener
+     *            [Optional] The listener to notify of the bytes received
+     * @return The number of bytes written
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure
+     * @throws RestClientException
+     *             On any client-side HTTP error
+     */
+    public static long getProductListImage(PLYRestClient client, Long productlistId, Path file,
+            TransferProgressListener progressListener) {
+        try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return getProductListImage(client, productlistId, target, progressListener);
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error writing " + file + ": " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Gets product lists matching certain criteria.
      *
@@ -230,31 +417,53 @@ public class ProductListService {
      */
     public static ProductList[] searchProductLists(PLYRestClient client, String type, String user_id,
             Integer page, Integer recordsPerPage, String language) {
-        String url = "/lists";
+        EndpointTemplate.Url url = LISTS.expand().query("type", type).query("user_id", user_id)
+                .query("page", page).query("records_per_page", recordsPerPage).query("language", language);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(type)) {
-            parameters.put("type", type);
-        }
-        if (!StringUtils.isEmpty(user_id)) {
-            parameters.put("user_id", user_id);
-        }
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<ProductList[]> response = client.exchange(url, HttpMethod.GET, ProductList[].class,
-                parameters);
+        ResponseEntity<ProductList[]> response = client.exchange(url, HttpMethod.GET, ProductList[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets product lists matching certain criteria.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param type
+     *            [Optional] The type can be:
+     *            <ul>
+     *            <li>owned (Shows only product lists which are owned by the
+     *            user.)</li>
+     *            <li>shared (Shows only product lists which have been shared by
+     *            the user.)</li>
+     *            <li>public (Shows all public product lists.)</li>
+     *            </ul>
+     * @param user_id
+     *            [Optional] The identifier of the user
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with product lists matching the specified
+     *         criteria
+     * @see #searchProductLists
+     */
+    public static CompletableFuture<ProductList[]> searchProductListsAsync(PLYRestClient client, String type,
+            String user_id, Integer page, Integer recordsPerPage, String language) {
+        EndpointTemplate.Url url = LISTS.expand().query("type", type).query("user_id", user_id)
+                .query("page", page).query("records_per_page", recordsPerPage).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductList[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets a user's product lists matching certain criteria.
      *
@@ -282,28 +491,46 @@ public class ProductListService {
      */
     public static ProductList[] searchUserProductLists(PLYRestClient client, String listType, String userId,
             Integer page, Integer recordsPerPage, String language) {
-        String url = "/user/" + userId + "/lists";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(listType)) {
-            parameters.put("list_type", listType);
-        }
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_LISTS.expand(userId).query("list_type", listType).query("page", page)
+                .query("records_per_page", recordsPerPage).query("language", language);
 
-        ResponseEntity<ProductList[]> response = client.exchange(url, HttpMethod.GET, ProductList[].class,
-                parameters);
+        ResponseEntity<ProductList[]> response = client.exchange(url, HttpMethod.GET, ProductList[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a user's product lists matching certain criteria.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param listType
+     *            [Optional] The type of the product list
+     * @param userId
+     *            The identifier of the user
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with product lists of the user matching the
+     *         specified criteria
+     * @see #searchUserProductLists
+     */
+    public static CompletableFuture<ProductList[]> searchUserProductListsAsync(PLYRestClient client,
+            String listType, String userId, Integer page, Integer recordsPerPage, String language) {
+        EndpointTemplate.Url url = USER_LISTS.expand(userId).query("list_type", listType).query("page", page)
+                .query("records_per_page", recordsPerPage).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ProductList[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Shares a list with a user.
      *
@@ -325,19 +552,37 @@ public class ProductListService {
      */
     public static ProductList shareProductList(PLYRestClient client, String productlistId, String userId,
             String language) {
-        String url = "/list/" + productlistId + "/share/" + userId;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST_SHARE.expand(productlistId, userId).query("language", language);
 
-        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.POST, ProductList.class,
-                parameters);
+        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.POST, ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously shares a list with a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param userId
+     *            The identifier of the user
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with the updated product list
+     * @see #shareProductList
+     */
+    public static CompletableFuture<ProductList> shareProductListAsync(PLYRestClient client,
+            String productlistId, String userId, String language) {
+        EndpointTemplate.Url url = LIST_SHARE.expand(productlistId, userId).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Unshares a list with a user.
      *
@@ -359,19 +604,37 @@ public class ProductListService {
      */
     public static ProductList unshareProductList(PLYRestClient client, String productlistId, String userId,
             String language) {
-        String url = "/list/" + productlistId + "/share/" + userId;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST_SHARE.expand(productlistId, userId).query("language", language);
 
-        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class,
-                parameters);
+        ResponseEntity<ProductList> response = client.exchange(url, HttpMethod.DELETE, ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously unshares a list with a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param userId
+     *            The identifier of the user
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @return A future completed with the updated product list
+     * @see #unshareProductList
+     */
+    public static CompletableFuture<ProductList> unshareProductListAsync(PLYRestClient client,
+            String productlistId, String userId, String language) {
+        EndpointTemplate.Url url = LIST_SHARE.expand(productlistId, userId).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Updates a product list.
      *
@@ -393,17 +656,36 @@ public class ProductListService {
      */
     public static ProductList updateProductList(PLYRestClient client, String productlistId, String language,
             ProductList list) {
-        String url = "/list/" + productlistId;
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = LIST.expand(productlistId).query("language", language);
 
         ResponseEntity<ProductList> response = client.exchangeWithObject(url, HttpMethod.PUT, list,
-                ProductList.class, parameters);
+                ProductList.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously updates a product list.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productlistId
+     *            The identifier of the product list
+     * @param language
+     *            [Optional] The preferred language of the product (e.g.: 'en'
+     *            or 'de')
+     * @param list
+     *            The list
+     * @return A future completed with the updated product list
+     * @see #updateProductList
+     */
+    public static CompletableFuture<ProductList> updateProductListAsync(PLYRestClient client,
+            String productlistId, String language, ProductList list) {
+        EndpointTemplate.Url url = LIST.expand(productlistId).query("language", language);
+
+        CompletableFuture<ResponseEntity<ProductList>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.PUT, list, ProductList.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
@@ -1,12 +1,24 @@
 package com.productlayer.rest.client.services;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
 
@@ -19,15 +31,48 @@ import com.productlayer.core.beans.ValuesForKey;
 import com.productlayer.core.beans.ranking.RankingResults;
 import com.productlayer.core.beans.reports.ProblemReport;
 import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.core.logic.ProductLogic;
+import com.productlayer.core.utils.Assert;
 import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.cache.ProductCache;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.instrumentation.ClientInstrumentation;
 
 /**
  * Methods for managing products.
  */
 public class ProductService {
 
+    /**
+     * The default maximum number of concurrent requests of batch lookups.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+    private static final EndpointTemplate PRODUCT = EndpointTemplate.of("/product/{gtin}");
+    private static final EndpointTemplate PRODUCTS = EndpointTemplate.of("/products");
+    private static final EndpointTemplate PRODUCT_DOWN_VOTE = EndpointTemplate
+            .of("/product/{productID}/down_vote");
+    private static final EndpointTemplate PRODUCT_RECOMMENDED_BRAND_OWNERS = EndpointTemplate
+            .of("/product/{gtin}/recommended_brand_owners");
+    private static final EndpointTemplate PRODUCTS_BRAND_OWNERS = EndpointTemplate
+            .of("/products/brand_owners");
+    private static final EndpointTemplate PRODUCTS_BRANDS = EndpointTemplate.of("/products/brands");
+    private static final EndpointTemplate PRODUCT_RECOMMENDED_CATEGORIES = EndpointTemplate
+            .of("/product/{gtin}/recommended_categories");
+    private static final EndpointTemplate PRODUCTS_CATEGORIES = EndpointTemplate.of("/products/categories");
+    private static final EndpointTemplate PRODUCTS_COUNT = EndpointTemplate.of("/products/count");
+    private static final EndpointTemplate PRODUCTS_HOTTEST = EndpointTemplate.of("/products/hottest");
+    private static final EndpointTemplate PRODUCTS_CHARACTERISTICS = EndpointTemplate
+            .of("/products/characteristics");
+    private static final EndpointTemplate PRODUCTS_NUTRITIOUS = EndpointTemplate.of("/products/nutritious");
+    private static final EndpointTemplate PRODUCTS_VALUES = EndpointTemplate.of("/products/values");
+    private static final EndpointTemplate PRODUCTS_REPORT_PROBLEM = EndpointTemplate
+            .of("/products/report_problem");
+    private static final EndpointTemplate PRODUCT_UP_VOTE = EndpointTemplate
+            .of("/product/{productID}/up_vote");
+
     /**
      * Searches for a product by GTIN (more than one result may be returned).
      * The GTIN is unique for a product but a Product object will be returned
@@ -53,6 +98,29 @@ public class ProductService {
                 null, null);
     }
 
+    /**
+     * Asynchronously searches for a product by GTIN (more than one result may
+     * be returned). The GTIN is unique for a product but a Product object will
+     * be returned per locale.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            [Optional] The GTIN (barcode) of the product
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @return A future completed with any products matching the GTIN
+     * @see #searchProductsByGtin
+     */
+    public static CompletableFuture<Product[]> searchProductsByGtinAsync(PLYRestClient client, String gtin,
+            boolean suggestions) {
+        return searchProductsAsync(client, null, null, null, gtin, null, null, null, suggestions, null, null,
+                null, null);
+    }
+
     /**
      * Searches for products by using the query string.
      * 
@@ -80,6 +148,31 @@ public class ProductService {
                 categoryKey, null);
     }
 
+    /**
+     * Asynchronously searches for products by using the query string.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param query
+     *            The query may contain the name, GTIN or brand of the product
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @return A future completed with any products matching the specified
+     *         criteria
+     * @see #searchProductsByQuery
+     */
+    public static CompletableFuture<Product[]> searchProductsByQueryAsync(PLYRestClient client, String query,
+            String categoryKey, boolean suggestions) {
+        return searchProductsAsync(client, query, null, null, null, null, null, null, suggestions, null,
+                null, categoryKey, null);
+    }
+
     /**
      * Gets a product by GTIN and language.
      * 
@@ -113,31 +206,43 @@ public class ProductService {
 
         Product[] products = searchProducts(client, null, null, null, gtin, null, null, null, suggestions,
                 fetchOnly, null, null, null);
-        if (products == null || products.length == 0) {
-            return null;
-        }
-        if (products.length == 1) {
-            return products[0];
-        }
+        return selectLocale(products, language);
+    }
 
-        Product defaultLocale = null;
-        for (Product product : products) {
-            if (product.getLanguage() != null) {
-                // If requested locale has been found return the product.
-                if (product.getLanguage().equalsIgnoreCase(language)) {
-                    return product;
-                } else if (product.getLanguage().startsWith("en") && defaultLocale == null) {
-                    defaultLocale = product;
-                }
-            }
-        }
-        // return default locale product or the first product if requested and
-        // default locale was not found.
-        if (defaultLocale != null) {
-            return defaultLocale;
-        } else {
-            return products[0];
+    /**
+     * Asynchronously gets a product by GTIN and language.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            The preferred language (e.g.: 'en' or 'de')
+     * @param searchAlsoOtherLocales
+     *            Whether to also try different locales if the one specified is
+     *            not found
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @return A future completed with the identified product or null if not
+     *         found
+     * @see #getProductForGtinAndLocale
+     */
+    public static CompletableFuture<Product> getProductForGtinAndLocaleAsync(PLYRestClient client,
+            String gtin, final String language, boolean searchAlsoOtherLocales, boolean suggestions,
+            String fetchOnly) {
+        if (!searchAlsoOtherLocales) {
+            return getProductForGtinAsync(client, gtin, language, suggestions, fetchOnly);
         }
+
+        CompletableFuture<Product[]> found = searchProductsAsync(client, null, null, null, gtin, null, null,
+                null, suggestions, fetchOnly, null, null, null);
+        return FutureHelper.propagateCancellation(found, found.thenApply(products -> selectLocale(products,
+                language)));
     }
 
     /**
@@ -166,6 +271,29 @@ public class ProductService {
                 null, null);
     }
 
+    /**
+     * Asynchronously searches for products by brand.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param brand
+     *            The brand of the product
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @return A future completed with any products matching the brand
+     * @see #searchProductsByBrand
+     */
+    public static CompletableFuture<Product[]> searchProductsByBrandAsync(PLYRestClient client, String brand,
+            Integer page, Integer recordsPerPage) {
+        return searchProductsAsync(client, null, page, recordsPerPage, null, brand, null, null, false, null,
+                null, null, null);
+    }
+
     /**
      * Searches for products by brand owner.
      * 
@@ -192,6 +320,29 @@ public class ProductService {
                 null, null, null);
     }
 
+    /**
+     * Asynchronously searches for products by brand owner.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param brandOwner
+     *            The brand owner of the product
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @return A future completed with any products matching the brand owner
+     * @see #searchProductsByBrandOwner
+     */
+    public static CompletableFuture<Product[]> searchProductsByBrandOwnerAsync(PLYRestClient client,
+            String brandOwner, Integer page, Integer recordsPerPage) {
+        return searchProductsAsync(client, null, page, recordsPerPage, null, null, brandOwner, null, false,
+                null, null, null, null);
+    }
+
     /**
      * Updates a specific product. If the user earns points for this operation
      * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
@@ -212,6 +363,24 @@ public class ProductService {
         return updateProduct(client, product.getGtin(), product);
     }
 
+    /**
+     * Asynchronously updates a specific product. If the user earns points for
+     * this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param product
+     *            The product
+     * @return A future completed with the updated product
+     * @see #updateProduct(PLYRestClient, Product)
+     */
+    public static CompletableFuture<Product> updateProductAsync(PLYRestClient client, Product product) {
+        return updateProductAsync(client, product.getGtin(), product);
+    }
+
     /**
      * Creates a new product. If the user earns points for this operation
      * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
@@ -229,13 +398,35 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Product createProduct(PLYRestClient client, Product product) {
-        String url = "/products";
+        EndpointTemplate.Url url = PRODUCTS.expand();
 
         ResponseEntity<Product> response = client.exchangeWithObject(url, HttpMethod.POST, product,
-                Product.class, null);
+                Product.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously creates a new product. If the user earns points for this
+     * operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param product
+     *            The product
+     * @return A future completed with the newly created product
+     * @see #createProduct
+     */
+    public static CompletableFuture<Product> createProductAsync(PLYRestClient client, Product product) {
+        EndpointTemplate.Url url = PRODUCTS.expand();
+
+        CompletableFuture<ResponseEntity<Product>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, product, Product.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Downvotes a specific product. By using the product ID instead of the GTIN
      * it's possible to vote for a specific localized product.
@@ -253,12 +444,38 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Product downVoteProduct(PLYRestClient client, String productID) {
-        String url = "/product/" + productID + "/down_vote";
+        EndpointTemplate.Url url = PRODUCT_DOWN_VOTE.expand(productID);
 
-        ResponseEntity<Product> response = client.exchange(url, HttpMethod.POST, Product.class, null);
+        ResponseEntity<Product> response = client.exchange(url, HttpMethod.POST, Product.class);
+        invalidateCachedProduct(client, response.getBody());
         return response.getBody();
     }
 
+    /**
+     * Asynchronously downvotes a specific product. By using the product ID
+     * instead of the GTIN it's possible to vote for a specific localized
+     * product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productID
+     *            The identifier of the product (identifies a specific localized
+     *            product, e.g.: Apple iPhone 5S (en))
+     * @return A future completed with the product with the new vote score
+     * @see #downVoteProduct
+     */
+    public static CompletableFuture<Product> downVoteProductAsync(PLYRestClient client, String productID) {
+        EndpointTemplate.Url url = PRODUCT_DOWN_VOTE.expand(productID);
+
+        CompletableFuture<ResponseEntity<Product>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Product.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> {
+            invalidateCachedProduct(client, response.getBody());
+            return response.getBody();
+        }));
+    }
+
     /**
      * Gets suggestions of brand owners of a GTIN.
      *
@@ -274,13 +491,32 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static BrandOwner[] getBrandOwnerSuggestions(PLYRestClient client, String gtin) {
-        String url = "/product/" + gtin + "/recommended_brand_owners";
+        EndpointTemplate.Url url = PRODUCT_RECOMMENDED_BRAND_OWNERS.expand(gtin);
 
-        ResponseEntity<BrandOwner[]> response = client
-                .exchange(url, HttpMethod.GET, BrandOwner[].class, null);
+        ResponseEntity<BrandOwner[]> response = client.exchange(url, HttpMethod.GET, BrandOwner[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets suggestions of brand owners of a GTIN.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @return A future completed with any suggested brand owners for a GTIN
+     * @see #getBrandOwnerSuggestions
+     */
+    public static CompletableFuture<BrandOwner[]> getBrandOwnerSuggestionsAsync(PLYRestClient client,
+            String gtin) {
+        EndpointTemplate.Url url = PRODUCT_RECOMMENDED_BRAND_OWNERS.expand(gtin);
+
+        CompletableFuture<ResponseEntity<BrandOwner[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BrandOwner[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets known brand owner names.
      *
@@ -294,12 +530,29 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static String[] getBrandOwners(PLYRestClient client) {
-        String url = "/products/brand_owners";
+        EndpointTemplate.Url url = PRODUCTS_BRAND_OWNERS.expand();
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, null);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets known brand owner names.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @return A future completed with all brand owner names
+     * @see #getBrandOwners
+     */
+    public static CompletableFuture<String[]> getBrandOwnersAsync(PLYRestClient client) {
+        EndpointTemplate.Url url = PRODUCTS_BRAND_OWNERS.expand();
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets known brand names.
      *
@@ -313,12 +566,29 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static String[] getBrands(PLYRestClient client) {
-        String url = "/products/brands";
+        EndpointTemplate.Url url = PRODUCTS_BRANDS.expand();
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, null);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets known brand names.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @return A future completed with all brand names
+     * @see #getBrands
+     */
+    public static CompletableFuture<String[]> getBrandsAsync(PLYRestClient client) {
+        EndpointTemplate.Url url = PRODUCTS_BRANDS.expand();
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets suggestions of categories of a GTIN.
      *
@@ -334,12 +604,32 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Category[] getCategorySuggestions(PLYRestClient client, String gtin) {
-        String url = "/product/" + gtin + "/recommended_categories";
+        EndpointTemplate.Url url = PRODUCT_RECOMMENDED_CATEGORIES.expand(gtin);
 
-        ResponseEntity<Category[]> response = client.exchange(url, HttpMethod.GET, Category[].class, null);
+        ResponseEntity<Category[]> response = client.exchange(url, HttpMethod.GET, Category[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets suggestions of categories of a GTIN.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @return A future completed with any suggested categories for a GTIN
+     * @see #getCategorySuggestions
+     */
+    public static CompletableFuture<Category[]> getCategorySuggestionsAsync(PLYRestClient client,
+            String gtin) {
+        EndpointTemplate.Url url = PRODUCT_RECOMMENDED_CATEGORIES.expand(gtin);
+
+        CompletableFuture<ResponseEntity<Category[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Category[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the scoring history within a range from a product.
      *
@@ -373,41 +663,58 @@ public class ProductService {
     public static RankingResults<Product> getHottestProducts(PLYRestClient client, Date from_date,
             Date to_date, Integer count, String language, Boolean showOpines, Boolean showReviews,
             Boolean showPictures, Boolean showProducts) {
-        String url = "/products/hottest";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(from_date)) {
-            parameters.put("from_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(from_date));
-        }
-        if (!StringUtils.isEmpty(to_date)) {
-            parameters.put("to_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(to_date));
-        }
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", count.toString());
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(showOpines)) {
-            parameters.put("opines", showOpines.toString());
-        }
-        if (!StringUtils.isEmpty(showReviews)) {
-            parameters.put("reviews", showReviews.toString());
-        }
-        if (!StringUtils.isEmpty(showPictures)) {
-            parameters.put("images", showPictures.toString());
-        }
-        if (!StringUtils.isEmpty(showProducts)) {
-            parameters.put("products", showProducts.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = PRODUCTS_HOTTEST.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("count", count).query("language", language)
+                .query("opines", showOpines).query("reviews", showReviews).query("images", showPictures)
+                .query("products", showProducts);
 
         ResponseEntity<RankingResults<Product>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<RankingResults<Product>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the scoring history within a range from a product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param from_date
+     *            [Optional] Start date, format: yyyy-MM-dd HH:mm:ss
+     * @param to_date
+     *            [Optional] End date, format: yyyy-MM-dd HH:mm:ss
+     * @param count
+     *            [Optional] The amount of results to be returned, default:
+     *            '200'
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @return A future completed with the hottest products contained within a
+     *         ranking results object
+     * @see #getHottestProducts
+     */
+    public static CompletableFuture<RankingResults<Product>> getHottestProductsAsync(PLYRestClient client,
+            Date from_date, Date to_date, Integer count, String language, Boolean showOpines,
+            Boolean showReviews, Boolean showPictures, Boolean showProducts) {
+        EndpointTemplate.Url url = PRODUCTS_HOTTEST.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("count", count).query("language", language)
+                .query("opines", showOpines).query("reviews", showReviews).query("images", showPictures)
+                .query("products", showProducts);
+
+        CompletableFuture<ResponseEntity<RankingResults<Product>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<RankingResults<Product>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets localized category keys.
      *
@@ -425,20 +732,36 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Map<String, String> getLocalizedCategories(PLYRestClient client, String language) {
-        String url = "/products/categories";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = PRODUCTS_CATEGORIES.expand().query("language", language);
 
         ResponseEntity<Map<String, String>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, String>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localized category keys.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return A future completed with all category keys and as their value the
+     *         translation to the preferred language
+     * @see #getLocalizedCategories
+     */
+    public static CompletableFuture<Map<String, String>> getLocalizedCategoriesAsync(PLYRestClient client,
+            String language) {
+        EndpointTemplate.Url url = PRODUCTS_CATEGORIES.expand().query("language", language);
+
+        CompletableFuture<ResponseEntity<Map<String, String>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<Map<String, String>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets localized characteristics keys.
      *
@@ -456,20 +779,36 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Map<String, String> getLocalizedCharacteristics(PLYRestClient client, String language) {
-        String url = "/products/characteristics";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = PRODUCTS_CHARACTERISTICS.expand().query("language", language);
 
         ResponseEntity<Map<String, String>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, String>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets localized characteristics keys.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return A future completed with all characteristics keys and as their
+     *         value the translation to the preferred language
+     * @see #getLocalizedCharacteristics
+     */
+    public static CompletableFuture<Map<String,
+            String>> getLocalizedCharacteristicsAsync(PLYRestClient client, String language) {
+        EndpointTemplate.Url url = PRODUCTS_CHARACTERISTICS.expand().query("language", language);
+
+        CompletableFuture<ResponseEntity<Map<String, String>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<Map<String, String>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets localized nutrition keys.
      *
@@ -487,27 +826,43 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Map<String, String> getLocalizedNutrition(PLYRestClient client, String language) {
-        String url = "/products/nutritious";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = PRODUCTS_NUTRITIOUS.expand().query("language", language);
 
         ResponseEntity<Map<String, String>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, String>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
     /**
-     * Gets the overall product count or the count for a specific timeframe.
+     * Asynchronously gets localized nutrition keys.
      *
      * @param client
      *            The REST client configured to handle communications with the
      *            ProductLayer API server
-     * @param from_date
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return A future completed with all nutrition keys and as their value the
+     *         translation to the preferred language
+     * @see #getLocalizedNutrition
+     */
+    public static CompletableFuture<Map<String, String>> getLocalizedNutritionAsync(PLYRestClient client,
+            String language) {
+        EndpointTemplate.Url url = PRODUCTS_NUTRITIOUS.expand().query("language", language);
+
+        CompletableFuture<ResponseEntity<Map<String, String>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<Map<String, String>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
+    /**
+     * Gets the overall product count or the count for a specific timeframe.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param from_date
      *            [Optional] Start date, format: yyyy-MM-dd HH:mm:ss
      * @param to_date
      *            [Optional] End date, format: yyyy-MM-dd HH:mm:ss
@@ -520,31 +875,53 @@ public class ProductService {
      * @throws RestClientException
      *             On any client-side HTTP error
      */
-    public static Count getProductCount(PLYRestClient client, Date from_date, Date to_date, String categoryKey) {
-        String url = "/products/count";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(from_date)) {
-            parameters.put("from_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(from_date));
-        }
-        if (!StringUtils.isEmpty(to_date)) {
-            parameters.put("to_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(to_date));
-        }
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+    public static Count getProductCount(PLYRestClient client, Date from_date, Date to_date,
+            String categoryKey) {
+        EndpointTemplate.Url url = PRODUCTS_COUNT.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("category_key", categoryKey);
 
         ResponseEntity<ResultMessageWithCount> response = client.exchange(url, HttpMethod.GET,
-                ResultMessageWithCount.class, parameters);
+                ResultMessageWithCount.class);
         return (Count) response.getBody().getResult();
     }
 
+    /**
+     * Asynchronously gets the overall product count or the count for a
+     * specific timeframe.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param from_date
+     *            [Optional] Start date, format: yyyy-MM-dd HH:mm:ss
+     * @param to_date
+     *            [Optional] End date, format: yyyy-MM-dd HH:mm:ss
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @return A future completed with the product count
+     * @see #getProductCount
+     */
+    public static CompletableFuture<Count> getProductCountAsync(PLYRestClient client, Date from_date,
+            Date to_date, String categoryKey) {
+        EndpointTemplate.Url url = PRODUCTS_COUNT.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("category_key", categoryKey);
+
+        CompletableFuture<ResponseEntity<ResultMessageWithCount>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, ResultMessageWithCount.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> (Count) response.getBody()
+                .getResult()));
+    }
+
     /**
      * Gets a product by GTIN and language. If language=auto the best language
      * match will be returned. Best language match using preferred language
      * header and predefined secondary languages.
      *
+     * If the client has a {@link ProductCache}, the returned product may be the
+     * cached instance shared with all other callers. It must not be modified;
+     * copy it before making changes, e.g. to update the product.
+     *
      * @param client
      *            The REST client configured to handle communications with the
      *            ProductLayer API server
@@ -566,24 +943,263 @@ public class ProductService {
      */
     public static Product getProductForGtin(PLYRestClient client, String gtin, String language,
             Boolean suggestions, String fetchOnly) {
-        String url = "/product/" + gtin;
+        EndpointTemplate.Url url = productForGtinUrl(gtin, language, suggestions, fetchOnly);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
+        ProductCache cache = client.getProductCache();
+        if (cache == null || Boolean.TRUE.equals(suggestions)) {
+            ResponseEntity<Product> response = client.exchange(url, HttpMethod.GET, Product.class);
+            return response.getBody();
         }
-        if (!StringUtils.isEmpty(suggestions)) {
-            parameters.put("suggestions", suggestions.toString());
-        }
-        if (!StringUtils.isEmpty(fetchOnly)) {
-            parameters.put("fetch_only", fetchOnly);
+
+        String key = productCacheKey(client, gtin, language, fetchOnly);
+        ProductCache.Entry entry = lookUp(client, cache, key);
+        if (entry != null && entry.isFresh()) {
+            return entry.getProductOrThrow();
         }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
 
-        ResponseEntity<Product> response = client.exchange(url, HttpMethod.GET, Product.class, parameters);
+        HttpHeaders validators = entry != null ? entry.getValidators() : null;
+        long generation = cache.getGeneration();
+        ResponseEntity<Product> response;
+        try {
+            response = client.exchange(url, HttpMethod.GET, Product.class, validators);
+        } catch (PLYHttpException e) {
+            if (e.getHttpStatus() == HttpStatus.NOT_FOUND.value()) {
+                cache.putNotFound(key, gtin, e, generation);
+            }
+            throw e;
+        }
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && entry != null) {
+            cache.revalidated(entry);
+            return entry.getProduct();
+        }
+        cache.put(key, gtin, response.getBody(), response.getHeaders(), generation);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a product by GTIN and language. If language=auto the
+     * best language match will be returned. Best language match using
+     * preferred language header and predefined secondary languages.
+     *
+     * Like with {@link #getProductForGtin}, the product may be the shared
+     * cached instance and must not be modified.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @return A future completed with the identified product
+     * @see #getProductForGtin(PLYRestClient, String, String, Boolean, String)
+     */
+    public static CompletableFuture<Product> getProductForGtinAsync(PLYRestClient client, final String gtin,
+            String language, Boolean suggestions, String fetchOnly) {
+        EndpointTemplate.Url url = productForGtinUrl(gtin, language, suggestions, fetchOnly);
+
+        final ProductCache cache = client.getProductCache();
+        if (cache == null || Boolean.TRUE.equals(suggestions)) {
+            CompletableFuture<ResponseEntity<Product>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                    Product.class);
+            return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+        }
+
+        final String key = productCacheKey(client, gtin, language, fetchOnly);
+        final ProductCache.Entry entry = lookUp(client, cache, key);
+        if (entry != null && entry.isFresh()) {
+            CompletableFuture<Product> cached = new CompletableFuture<Product>();
+            try {
+                cached.complete(entry.getProductOrThrow());
+            } catch (PLYHttpException e) {
+                cached.completeExceptionally(e);
+            }
+            return cached;
+        }
+
+        HttpHeaders validators = entry != null ? entry.getValidators() : null;
+        final long generation = cache.getGeneration();
+        CompletableFuture<ResponseEntity<Product>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Product.class, validators);
+        return FutureHelper.propagateCancellation(sent, sent.handle((response, ex) -> {
+            if (ex != null) {
+                Throwable cause = FutureHelper.unwrap(ex);
+                if (cause instanceof PLYHttpException
+                        && ((PLYHttpException) cause).getHttpStatus() == HttpStatus.NOT_FOUND.value()) {
+                    cache.putNotFound(key, gtin, (PLYHttpException) cause, generation);
+                }
+                throw new CompletionException(cause);
+            }
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && entry != null) {
+                cache.revalidated(entry);
+                return entry.getProduct();
+            }
+            cache.put(key, gtin, response.getBody(), response.getHeaders(), generation);
+            return response.getBody();
+        }));
+    }
+
+    private static String productCacheKey(PLYRestClient client, String gtin, String language,
+            String fetchOnly) {
+        // the response depends on the whole accept language header, including
+        // the additional languages, if no specific language is requested
+        String cacheLanguage = language;
+        if (StringUtils.isEmpty(language) || "auto".equals(language)) {
+            cacheLanguage = language + ":" + client.getAcceptLanguage();
+        }
+        return ProductCache.key(gtin, cacheLanguage, fetchOnly);
+    }
+
+    private static ProductCache.Entry lookUp(PLYRestClient client, ProductCache cache, String key) {
+        ProductCache.Entry entry = cache.get(key);
+        ClientInstrumentation instrumentation = client.getInstrumentation();
+        if (instrumentation != null) {
+            instrumentation.onCacheLookup("product", entry != null && entry.isFresh());
+        }
+        return entry;
+    }
+
+    /**
+     * Gets products for a batch of GTINs. The GTINs are normalized to 14
+     * digits and duplicates are removed before the lookups are sent
+     * concurrently using the non-blocking HTTP client, at most
+     * {@code maxInFlight} at a time. Like single lookups, they are served from
+     * and stored in the product cache of the client and retried according to
+     * its retry policy. A failing lookup does not abort the batch: invalid
+     * GTINs, unknown products (HTTP status 404) and any other errors are
+     * reported per GTIN in {@code failures}. Products served from or stored in
+     * the cache are shared with all other callers and must not be modified.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtins
+     *            The GTINs (barcodes) of the products
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @param maxInFlight
+     *            The maximum number of concurrent requests
+     * @param failures
+     *            [Optional] A map to store the error of any failed lookup in,
+     *            keyed by the normalized GTIN (or the GTIN as passed if it is
+     *            not valid)
+     * @return The identified products keyed by the normalized 14 digits GTIN
+     * @throws RestClientException
+     *             If interrupted while waiting for the lookups to finish
+     */
+    public static Map<String, Product> getProductsForGtins(PLYRestClient client, Collection<String> gtins,
+            String language, Boolean suggestions, String fetchOnly, int maxInFlight,
+            final Map<String, Exception> failures) {
+        Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+
+        Set<String> normalizedGtins = new LinkedHashSet<String>();
+        for (String gtin : gtins) {
+            try {
+                String normalizedGtin = ProductLogic.createFull14DigitsGTIN(gtin);
+                if (normalizedGtin != null) {
+                    normalizedGtins.add(normalizedGtin);
+                }
+            } catch (PLYHttpException e) {
+                if (failures != null) {
+                    failures.put(gtin, e);
+                }
+            }
+        }
+
+        final Map<String, Product> products = new ConcurrentHashMap<String, Product>();
+        final Map<String, Exception> errors = new ConcurrentHashMap<String, Exception>();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final CountDownLatch done = new CountDownLatch(normalizedGtins.size());
+        List<CompletableFuture<Product>> lookups = new ArrayList<CompletableFuture<Product>>(normalizedGtins
+                .size());
+        try {
+            for (final String gtin : normalizedGtins) {
+                inFlight.acquire();
+                CompletableFuture<Product> lookup;
+                try {
+                    lookup = getProductForGtinAsync(client, gtin, language, suggestions, fetchOnly);
+                } catch (RuntimeException e) {
+                    lookup = new CompletableFuture<Product>();
+                    lookup.completeExceptionally(e);
+                }
+                lookups.add(lookup);
+                lookup.whenComplete((product, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = FutureHelper.unwrap(ex);
+                        errors.put(gtin, cause instanceof Exception ? (Exception) cause : new RuntimeException(
+                                cause));
+                    } else if (product != null) {
+                        products.put(gtin, product);
+                    }
+                    inFlight.release();
+                    done.countDown();
+                });
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            // abort the lookups still in flight
+            for (CompletableFuture<Product> lookup : lookups) {
+                lookup.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while looking up products", e);
+        }
+
+        if (failures != null) {
+            failures.putAll(errors);
+        }
+        // keep the order of the requested GTINs
+        Map<String, Product> result = new LinkedHashMap<String, Product>();
+        for (String gtin : normalizedGtins) {
+            Product product = products.get(gtin);
+            if (product != null) {
+                result.put(gtin, product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets products for a batch of GTINs using at most
+     * {@value #DEFAULT_MAX_IN_FLIGHT} concurrent requests. Any failed lookups
+     * are left out of the result.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtins
+     *            The GTINs (barcodes) of the products
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return The identified products keyed by the normalized 14 digits GTIN
+     * @throws RestClientException
+     *             If interrupted while waiting for the lookups to finish
+     * @see #getProductsForGtins(PLYRestClient, Collection, String, Boolean,
+     *      String, int, Map)
+     */
+    public static Map<String, Product> getProductsForGtins(PLYRestClient client, Collection<String> gtins,
+            String language) {
+        return getProductsForGtins(client, gtins, language, null, null, DEFAULT_MAX_IN_FLIGHT, null);
+    }
+
+    private static EndpointTemplate.Url productForGtinUrl(String gtin, String language, Boolean suggestions,
+            String fetchOnly) {
+        return PRODUCT.expand(gtin).query("language", language).query("suggestions", suggestions)
+                .query("fetch_only", fetchOnly);
+    }
+
     /**
      * Gets the values of a specific key.<br>
      * <br>
@@ -605,22 +1221,38 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static ValuesForKey getValuesForKey(PLYRestClient client, String key, String language) {
-        String url = "/products/values";
+        EndpointTemplate.Url url = PRODUCTS_VALUES.expand().query("key", key).query("language", language);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(key)) {
-            parameters.put("key", key);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<ValuesForKey> response = client.exchange(url, HttpMethod.GET, ValuesForKey.class,
-                parameters);
+        ResponseEntity<ValuesForKey> response = client.exchange(url, HttpMethod.GET, ValuesForKey.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the values of a specific key.<br>
+     * <br>
+     * e.g.: ?key=pl-brand-name&amp;language=en returns all brands which have
+     * been entered for products with the locale en.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param key
+     *            The key to query the values of.
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @return A future completed with all values of the specified key
+     * @see #getValuesForKey
+     */
+    public static CompletableFuture<ValuesForKey> getValuesForKeyAsync(PLYRestClient client, String key,
+            String language) {
+        EndpointTemplate.Url url = PRODUCTS_VALUES.expand().query("key", key).query("language", language);
+
+        CompletableFuture<ResponseEntity<ValuesForKey>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                ValuesForKey.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Sends a report about copyright infringements or any other problems with
      * the product.
@@ -640,19 +1272,37 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static ProblemReport reportProduct(PLYRestClient client, String productID, ProblemReport report) {
-        String url = "/products/report_problem";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(productID)) {
-            parameters.put("product_id", productID);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = PRODUCTS_REPORT_PROBLEM.expand().query("product_id", productID);
 
         ResponseEntity<ProblemReport> response = client.exchangeWithObject(url, HttpMethod.POST, report,
-                ProblemReport.class, parameters);
+                ProblemReport.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously sends a report about copyright infringements or any other
+     * problems with the product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productID
+     *            The identifier of the product (identifies a specific localized
+     *            product, e.g.: Apple iPhone 5S (en))
+     * @param report
+     *            The report
+     * @return A future completed with the problem report object
+     * @see #reportProduct
+     */
+    public static CompletableFuture<ProblemReport> reportProductAsync(PLYRestClient client, String productID,
+            ProblemReport report) {
+        EndpointTemplate.Url url = PRODUCTS_REPORT_PROBLEM.expand().query("product_id", productID);
+
+        CompletableFuture<ResponseEntity<ProblemReport>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, report, ProblemReport.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Searches for products. If no search parameters are present the first 50
      * products will be presented.
@@ -707,52 +1357,84 @@ public class ProductService {
     public static Product[] searchProducts(PLYRestClient client, String query, Integer page,
             Integer recordsPerPage, String gtin, String brand, String brandOwner, String language,
             Boolean suggestions, String fetchOnly, String name, String categoryKey, String order_by) {
-        String url = "/products";
+        EndpointTemplate.Url url = searchProductsUrl(query, page, recordsPerPage, gtin, brand, brandOwner,
+                language, suggestions, fetchOnly, name, categoryKey, order_by);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(query)) {
-            parameters.put("query", query);
-        }
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(gtin)) {
-            parameters.put("gtin", gtin);
-        }
-        if (!StringUtils.isEmpty(brand)) {
-            parameters.put("brand", brand);
-        }
-        if (!StringUtils.isEmpty(brandOwner)) {
-            parameters.put("brand_owner", brandOwner);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(suggestions)) {
-            parameters.put("suggestions", suggestions.toString());
-        }
-        if (!StringUtils.isEmpty(fetchOnly)) {
-            parameters.put("fetch_only", fetchOnly);
-        }
-        if (!StringUtils.isEmpty(name)) {
-            parameters.put("name", name);
-        }
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        if (!StringUtils.isEmpty(order_by)) {
-            parameters.put("order_by", order_by);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<Product[]> response = client
-                .exchange(url, HttpMethod.GET, Product[].class, parameters);
+        ResponseEntity<Product[]> response = client.exchange(url, HttpMethod.GET, Product[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously searches for products. If no search parameters are present
+     * the first 50 products will be presented.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param query
+     *            [Optional] The query may contain the name, GTIN or brand of
+     *            the product. <b>ATTENTION: If the query is set all other url
+     *            parameters will be ignored!</b>
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @param gtin
+     *            [Optional] The GTIN (barcode) of the product
+     * @param brand
+     *            [Optional] The brand of the product
+     * @param brandOwner
+     *            [Optional] The brand owner of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param suggestions
+     *            [Optional] Make product suggestions if search returns no
+     *            results. Product suggestions are all returned products without
+     *            a pl-id parameter. Default: false
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @param name
+     *            [Optional] The name of the product or a substring of it.
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param order_by
+     *            [Optional] Used to sort the result-set by one or more columns.
+     *            The order by parameters are <strong>seperated by a
+     *            semicolon</strong>. Also you need to provide a prefix
+     *            <strong>asc for ascending</strong> or <strong>desc for
+     *            descending order</strong><br>
+     * <br>
+     *            <strong>Default:</strong> pl-prod-name_asc (Product names
+     *            ascending)
+     * @return A future completed with any products matching the specified
+     *         criteria
+     * @see #searchProducts
+     */
+    public static CompletableFuture<Product[]> searchProductsAsync(PLYRestClient client, String query,
+            Integer page, Integer recordsPerPage, String gtin, String brand, String brandOwner,
+            String language, Boolean suggestions, String fetchOnly, String name, String categoryKey,
+            String order_by) {
+        EndpointTemplate.Url url = searchProductsUrl(query, page, recordsPerPage, gtin, brand, brandOwner,
+                language, suggestions, fetchOnly, name, categoryKey, order_by);
+
+        CompletableFuture<ResponseEntity<Product[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Product[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
+    private static EndpointTemplate.Url searchProductsUrl(String query, Integer page, Integer recordsPerPage,
+            String gtin, String brand, String brandOwner, String language, Boolean suggestions,
+            String fetchOnly, String name, String categoryKey, String order_by) {
+        return PRODUCTS.expand().query("query", query).query("page", page)
+                .query("records_per_page", recordsPerPage).query("gtin", gtin).query("brand", brand)
+                .query("brand_owner", brandOwner).query("language", language)
+                .query("suggestions", suggestions).query("fetch_only", fetchOnly).query("name", name)
+                .query("category_key", categoryKey).query("order_by", order_by);
+    }
+
     /**
      * Upvotes a specific product. By using the product ID instead of the GTIN
      * it's possible to vote for a specific localized product.
@@ -770,12 +1452,38 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Product upVoteProduct(PLYRestClient client, String productID) {
-        String url = "/product/" + productID + "/up_vote";
+        EndpointTemplate.Url url = PRODUCT_UP_VOTE.expand(productID);
 
-        ResponseEntity<Product> response = client.exchange(url, HttpMethod.POST, Product.class, null);
+        ResponseEntity<Product> response = client.exchange(url, HttpMethod.POST, Product.class);
+        invalidateCachedProduct(client, response.getBody());
         return response.getBody();
     }
 
+    /**
+     * Asynchronously upvotes a specific product. By using the product ID
+     * instead of the GTIN it's possible to vote for a specific localized
+     * product.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param productID
+     *            The identifier of the product (identifies a specific localized
+     *            product, e.g.: Apple iPhone 5S (en))
+     * @return A future completed with the product with the new vote score
+     * @see #upVoteProduct
+     */
+    public static CompletableFuture<Product> upVoteProductAsync(PLYRestClient client, String productID) {
+        EndpointTemplate.Url url = PRODUCT_UP_VOTE.expand(productID);
+
+        CompletableFuture<ResponseEntity<Product>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Product.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> {
+            invalidateCachedProduct(client, response.getBody());
+            return response.getBody();
+        }));
+    }
+
     /**
      * Updates a specific product. If the user earns points for this operation
      * 'X-ProductLayer-User-Points' and 'X-ProductLayer-User-Points-Changed'
@@ -795,11 +1503,93 @@ public class ProductService {
      *             On any client-side HTTP error
      */
     public static Product updateProduct(PLYRestClient client, String gtin, Product product) {
-        String url = "/product/" + gtin;
+        EndpointTemplate.Url url = PRODUCT.expand(gtin);
 
         ResponseEntity<Product> response = client.exchangeWithObject(url, HttpMethod.PUT, product,
-                Product.class, null);
+                Product.class);
+        ProductCache cache = client.getProductCache();
+        if (cache != null) {
+            cache.invalidate(gtin);
+        }
         return response.getBody();
     }
 
+    /**
+     * Asynchronously updates a specific product. If the user earns points for
+     * this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param product
+     *            The product
+     * @return A future completed with the updated product
+     * @see #updateProduct(PLYRestClient, String, Product)
+     */
+    public static CompletableFuture<Product> updateProductAsync(PLYRestClient client, final String gtin,
+            Product product) {
+        EndpointTemplate.Url url = PRODUCT.expand(gtin);
+
+        CompletableFuture<ResponseEntity<Product>> sent = client.exchangeWithObjectAsync(url, HttpMethod.PUT,
+                product, Product.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> {
+            ProductCache cache = client.getProductCache();
+            if (cache != null) {
+                cache.invalidate(gtin);
+            }
+            return response.getBody();
+        }));
+    }
+
+    /**
+     * Picks the product of the requested language, else the English or the
+     * first product out of the products found per locale.
+     */
+    private static Product selectLocale(Product[] products, String language) {
+        if (products == null || products.length == 0) {
+            return null;
+        }
+        if (products.length == 1) {
+            return products[0];
+        }
+
+        Product defaultLocale = null;
+        for (Product product : products) {
+            if (product.getLanguage() != null) {
+                // If requested locale has been found return the product.
+                if (product.getLanguage().equalsIgnoreCase(language)) {
+                    return product;
+                } else if (product.getLanguage().startsWith("en") && defaultLocale == null) {
+                    defaultLocale = product;
+                }
+            }
+        }
+        // return default locale product or the first product if requested and
+        // default locale was not found.
+        if (defaultLocale != null) {
+            return defaultLocale;
+        } else {
+            return products[0];
+        }
+    }
+
+    /**
+     * Removes all cached lookups of a modified product from the product cache
+     * of the client, if any.
+     */
+    private static void invalidateCachedProduct(PLYRestClient client, Product product) {
+        ProductCache cache = client.getProductCache();
+        if (cache != null && product != null && product.getGtin() != null) {
+            cache.invalidate(product.getGtin());
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date) : null;
+    }
+
 }
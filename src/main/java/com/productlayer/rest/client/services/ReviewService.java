@@ -1,7 +1,6 @@
 package com.productlayer.rest.client.services;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -11,15 +10,25 @@ import com.productlayer.core.beans.Review;
 import com.productlayer.core.beans.reports.ProblemReport;
 import com.productlayer.core.beans.summary.FullReviewStatistics;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for managing reviews of products.
  */
 public class ReviewService {
 
+    private static final EndpointTemplate PRODUCT_REVIEW = EndpointTemplate.of("/product/{gtin}/review");
+    private static final EndpointTemplate REVIEW_DOWN_VOTE = EndpointTemplate
+            .of("/review/{reviewID}/down_vote");
+    private static final EndpointTemplate REVIEW = EndpointTemplate.of("/review/{reviewID}");
+    private static final EndpointTemplate REVIEWS_STATISTICS = EndpointTemplate.of("/reviews/statistics");
+    private static final EndpointTemplate REVIEWS_REPORT_PROBLEM = EndpointTemplate
+            .of("/reviews/report_problem");
+    private static final EndpointTemplate REVIEWS = EndpointTemplate.of("/reviews");
+    private static final EndpointTemplate REVIEW_UP_VOTE = EndpointTemplate.of("/review/{reviewID}/up_vote");
+
     /**
      * Creates a new review for a product. If the user earns points for this
      * operation 'X-ProductLayer-User-Points' and
@@ -41,6 +50,24 @@ public class ReviewService {
         return createReview(client, review.getProductGtin(), review);
     }
 
+    /**
+     * Asynchronously creates a new review for a product. If the user earns
+     * points for this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param review
+     *            The review
+     * @return A future completed with the newly created review
+     * @see #createReview
+     */
+    public static CompletableFuture<Review> createReviewAsync(PLYRestClient client, Review review) {
+        return createReviewAsync(client, review.getProductGtin(), review);
+    }
+
     /**
      * Updates an existing review of a product. Only the title, body, rating and
      * language can be changed. If the user earns points for this operation
@@ -62,6 +89,25 @@ public class ReviewService {
         return updateReview(client, review.getId(), review);
     }
 
+    /**
+     * Asynchronously updates an existing review of a product. Only the title,
+     * body, rating and language can be changed. If the user earns points for
+     * this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param review
+     *            The review
+     * @return A future completed with the updated review
+     * @see #updateReview
+     */
+    public static CompletableFuture<Review> updateReviewAsync(PLYRestClient client, Review review) {
+        return updateReviewAsync(client, review.getId(), review);
+    }
+
     /**
      * Creates a new review for a product. If the user earns points for this
      * operation 'X-ProductLayer-User-Points' and
@@ -82,13 +128,38 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static Review createReview(PLYRestClient client, String gtin, Review review) {
-        String url = "/product/" + gtin + "/review";
+        EndpointTemplate.Url url = PRODUCT_REVIEW.expand(gtin);
 
         ResponseEntity<Review> response = client.exchangeWithObject(url, HttpMethod.POST, review,
-                Review.class, null);
+                Review.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously creates a new review for a product. If the user earns
+     * points for this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param review
+     *            The review
+     * @return A future completed with the newly created review
+     * @see #createReview
+     */
+    public static CompletableFuture<Review> createReviewAsync(PLYRestClient client, String gtin,
+            Review review) {
+        EndpointTemplate.Url url = PRODUCT_REVIEW.expand(gtin);
+
+        CompletableFuture<ResponseEntity<Review>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                review, Review.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Downvotes a specific review.
      *
@@ -104,12 +175,31 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static Review downVoteReview(PLYRestClient client, String reviewID) {
-        String url = "/review/" + reviewID + "/down_vote";
+        EndpointTemplate.Url url = REVIEW_DOWN_VOTE.expand(reviewID);
 
-        ResponseEntity<Review> response = client.exchange(url, HttpMethod.POST, Review.class, null);
+        ResponseEntity<Review> response = client.exchange(url, HttpMethod.POST, Review.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously downvotes a specific review.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param reviewID
+     *            The identifier of the review
+     * @return A future completed with the review with the new vote score
+     * @see #downVoteReview
+     */
+    public static CompletableFuture<Review> downVoteReviewAsync(PLYRestClient client, String reviewID) {
+        EndpointTemplate.Url url = REVIEW_DOWN_VOTE.expand(reviewID);
+
+        CompletableFuture<ResponseEntity<Review>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Review.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets a review by ID.
      *
@@ -125,12 +215,31 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static Review getReview(PLYRestClient client, String reviewID) {
-        String url = "/review/" + reviewID;
+        EndpointTemplate.Url url = REVIEW.expand(reviewID);
 
-        ResponseEntity<Review> response = client.exchange(url, HttpMethod.GET, Review.class, null);
+        ResponseEntity<Review> response = client.exchange(url, HttpMethod.GET, Review.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a review by ID.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param reviewID
+     *            The identifier of the review
+     * @return A future completed with the identified review
+     * @see #getReview
+     */
+    public static CompletableFuture<Review> getReviewAsync(PLYRestClient client, String reviewID) {
+        EndpointTemplate.Url url = REVIEW.expand(reviewID);
+
+        CompletableFuture<ResponseEntity<Review>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Review.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the review statistics for the specified GTIN and language.
      *
@@ -148,22 +257,38 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static FullReviewStatistics getReviewStatistics(PLYRestClient client, String gtin, String language) {
-        String url = "/reviews/statistics";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(gtin)) {
-            parameters.put("gtin", gtin);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = REVIEWS_STATISTICS.expand().query("gtin", gtin)
+                .query("language", language);
 
         ResponseEntity<FullReviewStatistics> response = client.exchange(url, HttpMethod.GET,
-                FullReviewStatistics.class, parameters);
+                FullReviewStatistics.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the review statistics for the specified GTIN and
+     * language.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with the review statistics
+     * @see #getReviewStatistics
+     */
+    public static CompletableFuture<FullReviewStatistics> getReviewStatisticsAsync(PLYRestClient client,
+            String gtin, String language) {
+        EndpointTemplate.Url url = REVIEWS_STATISTICS.expand().query("gtin", gtin)
+                .query("language", language);
+
+        CompletableFuture<ResponseEntity<FullReviewStatistics>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, FullReviewStatistics.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Sends a report about copyright infringements or any other problems with
      * the review.
@@ -182,19 +307,36 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static ProblemReport reportReview(PLYRestClient client, String reviewID, ProblemReport report) {
-        String url = "/reviews/report_problem";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(reviewID)) {
-            parameters.put("review_id", reviewID);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = REVIEWS_REPORT_PROBLEM.expand().query("review_id", reviewID);
 
         ResponseEntity<ProblemReport> response = client.exchangeWithObject(url, HttpMethod.POST, report,
-                ProblemReport.class, parameters);
+                ProblemReport.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously sends a report about copyright infringements or any other
+     * problems with the review.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param reviewID
+     *            The identifier of the review
+     * @param report
+     *            The report
+     * @return A future completed with the problem report object
+     * @see #reportReview
+     */
+    public static CompletableFuture<ProblemReport> reportReviewAsync(PLYRestClient client, String reviewID,
+            ProblemReport report) {
+        EndpointTemplate.Url url = REVIEWS_REPORT_PROBLEM.expand().query("review_id", reviewID);
+
+        CompletableFuture<ResponseEntity<ProblemReport>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, report, ProblemReport.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Searches for reviews.
      *
@@ -236,39 +378,65 @@ public class ReviewService {
      */
     public static Review[] searchReviews(PLYRestClient client, Integer page, Integer recordsPerPage,
             String gtin, String language, String nickname, String userID, Integer rating, String order_by) {
-        String url = "/reviews";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(gtin)) {
-            parameters.put("gtin", gtin);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(nickname)) {
-            parameters.put("nickname", nickname);
-        }
-        if (!StringUtils.isEmpty(userID)) {
-            parameters.put("user_id", userID);
-        }
-        if (!StringUtils.isEmpty(rating)) {
-            parameters.put("rating", rating.toString());
-        }
-        if (!StringUtils.isEmpty(order_by)) {
-            parameters.put("order_by", order_by);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<Review[]> response = client.exchange(url, HttpMethod.GET, Review[].class, parameters);
+        EndpointTemplate.Url url = REVIEWS.expand().query("page", page)
+                .query("records_per_page", recordsPerPage).query("gtin", gtin).query("language", language)
+                .query("nickname", nickname).query("user_id", userID).query("rating", rating)
+                .query("order_by", order_by);
+
+        ResponseEntity<Review[]> response = client.exchange(url, HttpMethod.GET, Review[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously searches for reviews.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, the first page will be shown
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page,
+     *            default: '200'
+     * @param gtin
+     *            [Optional] The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de'),
+     *            default: 'en'
+     * @param nickname
+     *            [Optional] The nickname of the user
+     * @param userID
+     *            [Optional] The identifier of the user
+     * @param rating
+     *            [Optional] The rating between 0 and 5 stars
+     * @param order_by
+     *            [Optional] Used to sort the result-set by one or more columns.
+     *            The order by parameters are <strong>seperated by a
+     *            semicolon</strong>. Also you need to provide a prefix
+     *            <strong>asc for ascending</strong> or <strong>desc for
+     *            descending order</strong><br>
+     * <br>
+     *            <strong>Default:</strong> pl-upd-time_desc,
+     *            pl-created-time_desc (Newly inserted and updated reviews
+     *            first.)
+     * @return A future completed with any reviews matching the specified
+     *         criteria
+     * @see #searchReviews
+     */
+    public static CompletableFuture<Review[]> searchReviewsAsync(PLYRestClient client, Integer page,
+            Integer recordsPerPage, String gtin, String language, String nickname, String userID,
+            Integer rating, String order_by) {
+        EndpointTemplate.Url url = REVIEWS.expand().query("page", page)
+                .query("records_per_page", recordsPerPage).query("gtin", gtin).query("language", language)
+                .query("nickname", nickname).query("user_id", userID).query("rating", rating)
+                .query("order_by", order_by);
+
+        CompletableFuture<ResponseEntity<Review[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Review[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Upvotes a specific review.
      *
@@ -284,12 +452,31 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static Review upVoteReview(PLYRestClient client, String reviewID) {
-        String url = "/review/" + reviewID + "/up_vote";
+        EndpointTemplate.Url url = REVIEW_UP_VOTE.expand(reviewID);
 
-        ResponseEntity<Review> response = client.exchange(url, HttpMethod.POST, Review.class, null);
+        ResponseEntity<Review> response = client.exchange(url, HttpMethod.POST, Review.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously upvotes a specific review.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param reviewID
+     *            The identifier of the review
+     * @return A future completed with the review with the new vote score
+     * @see #upVoteReview
+     */
+    public static CompletableFuture<Review> upVoteReviewAsync(PLYRestClient client, String reviewID) {
+        EndpointTemplate.Url url = REVIEW_UP_VOTE.expand(reviewID);
+
+        CompletableFuture<ResponseEntity<Review>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                Review.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Updates an existing review of a product. Only the title, body, rating and
      * language can be changed. If the user earns points for this operation
@@ -310,11 +497,37 @@ public class ReviewService {
      *             On any client-side HTTP error
      */
     public static Review updateReview(PLYRestClient client, String reviewID, Review review) {
-        String url = "/review/" + reviewID;
+        EndpointTemplate.Url url = REVIEW.expand(reviewID);
 
         ResponseEntity<Review> response = client.exchangeWithObject(url, HttpMethod.PUT, review,
-                Review.class, null);
+                Review.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously updates an existing review of a product. Only the title,
+     * body, rating and language can be changed. If the user earns points for
+     * this operation 'X-ProductLayer-User-Points' and
+     * 'X-ProductLayer-User-Points-Changed' will be present in the response
+     * header.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param reviewID
+     *            The identifier of the review
+     * @param review
+     *            The review
+     * @return A future completed with the updated review
+     * @see #updateReview
+     */
+    public static CompletableFuture<Review> updateReviewAsync(PLYRestClient client, String reviewID,
+            Review review) {
+        EndpointTemplate.Url url = REVIEW.expand(reviewID);
+
+        CompletableFuture<ResponseEntity<Review>> sent = client.exchangeWithObjectAsync(url, HttpMethod.PUT,
+                review, Review.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
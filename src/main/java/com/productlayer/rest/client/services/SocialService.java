@@ -3,8 +3,7 @@ package com.productlayer.rest.client.services;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -14,15 +13,24 @@ import com.productlayer.core.beans.Opine;
 import com.productlayer.core.beans.User;
 import com.productlayer.core.beans.social.SocialOpine;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for managing social network connections.
  */
 public class SocialService {
 
+    private static final EndpointTemplate CONNECT = EndpointTemplate.of("/connect/{provider}");
+    private static final EndpointTemplate SIGNIN = EndpointTemplate.of("/signin/{provider}");
+    private static final EndpointTemplate OPINE_SOCIAL_RESPONSE = EndpointTemplate
+            .of("/opine/{opineID}/social_response");
+    private static final EndpointTemplate PROVIDER_TOKEN_EXPIRED = EndpointTemplate
+            .of("/{providerId}/token_expired");
+    private static final EndpointTemplate PROVIDER_SEARCH = EndpointTemplate
+            .of("/{providerId}/search/{gtin}");
+
     /**
      * Gets the provider connection URL.
      * 
@@ -40,16 +48,12 @@ public class SocialService {
      */
     public static String getProviderConnectionURL(PLYRestClient client, String provider, String redirectUrl,
             String token) {
-        String url;
         try {
-            url = "connect/" + provider + "?callback=" + URLEncoder.encode(redirectUrl, "UTF-8") + "&"
-                    + token;
+            return client.getUrlForMethod(CONNECT.expand(provider) + "?callback="
+                    + URLEncoder.encode(redirectUrl, "UTF-8") + "&" + token);
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
-        String fullUrl = (url.startsWith("http")) ? url : client.getUrlForMethod(url);
-
-        return fullUrl;
     }
 
     /**
@@ -66,16 +70,12 @@ public class SocialService {
      * @return The provider sign in URL
      */
     public static String getProviderSigninURL(PLYRestClient client, String provider, String redirectUrl) {
-        String url;
         try {
-            url = "signin/" + provider + "?callback=" + URLEncoder.encode(redirectUrl, "UTF-8") + "&API-KEY="
-                    + client.getConfigApiKey();
+            return client.getUrlForMethod(SIGNIN.expand(provider) + "?callback="
+                    + URLEncoder.encode(redirectUrl, "UTF-8") + "&API-KEY=" + client.getConfigApiKey());
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
-        String fullUrl = (url.startsWith("http")) ? url : client.getUrlForMethod(url);
-
-        return fullUrl;
     }
 
     /**
@@ -94,20 +94,48 @@ public class SocialService {
      * @return The URL to redirect to
      */
     public static URI connectProvider(PLYRestClient client, String provider, String redirectUrl) {
-        String url = "connect/" + provider;
-
-        Map<String, String> parameters = new HashMap<String, String>();
+        EndpointTemplate.Url url;
         try {
-            parameters.put("callback", URLEncoder.encode(redirectUrl, "UTF-8"));
+            url = CONNECT.expand(provider).query("callback", URLEncoder.encode(redirectUrl, "UTF-8"));
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
 
-        ResponseEntity<String> response = client.exchange(url, HttpMethod.POST, String.class, parameters);
+        ResponseEntity<String> response = client.exchange(url, HttpMethod.POST, String.class);
         return response.getHeaders().getLocation();
     }
 
+    /**
+     * Asynchronously connects the user to a social network provider like
+     * Twitter or Facebook. After establishing a connection to the provider on
+     * behalf of the member the user will be redirected to the provided URL.
+     * 
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param provider
+     *            The social service provider, currently valid are only facebook
+     *            and twitter
+     * @param redirectUrl
+     *            The URL for redirecting after provider connect
+     * @return A future completed with the URL to redirect to
+     * @see #connectProvider
+     */
+    public static CompletableFuture<URI> connectProviderAsync(PLYRestClient client, String provider,
+            String redirectUrl) {
+        EndpointTemplate.Url url;
+        try {
+            url = CONNECT.expand(provider).query("callback", URLEncoder.encode(redirectUrl, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+
+        CompletableFuture<ResponseEntity<String>> sent = client.exchangeAsync(url, HttpMethod.POST,
+                String.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getHeaders()
+                .getLocation()));
+    }
+
     /**
      * Removes the social network connection from the logged in user.
      * 
@@ -120,12 +148,33 @@ public class SocialService {
      * @return The updated user object
      */
     public static User disconnectProvider(PLYRestClient client, String provider) {
-        String url = "connect/" + provider;
+        EndpointTemplate.Url url = CONNECT.expand(provider);
 
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.DELETE, User.class, null);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.DELETE, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously removes the social network connection from the logged in
+     * user.
+     * 
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param provider
+     *            The social service provider, currently valid are only facebook
+     *            and twitter
+     * @return A future completed with the updated user object
+     * @see #disconnectProvider
+     */
+    public static CompletableFuture<User> disconnectProviderAsync(PLYRestClient client, String provider) {
+        EndpointTemplate.Url url = CONNECT.expand(provider);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.DELETE,
+                User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get the social response for the specific post.
      *
@@ -141,13 +190,32 @@ public class SocialService {
      *             On any client-side HTTP error
      */
     public static SocialOpine[] getSocialReplies(PLYRestClient client, String opineID) {
-        String url = "/opine/" + opineID + "/social_response";
+        EndpointTemplate.Url url = OPINE_SOCIAL_RESPONSE.expand(opineID);
 
-        ResponseEntity<SocialOpine[]> response = client.exchange(url, HttpMethod.GET, SocialOpine[].class,
-                null);
+        ResponseEntity<SocialOpine[]> response = client.exchange(url, HttpMethod.GET, SocialOpine[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get the social response for the specific post.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param opineID
+     *            The identifier of the opine
+     * @return A future completed with A list of social responses
+     * @see #getSocialReplies
+     */
+    public static CompletableFuture<SocialOpine[]> getSocialRepliesAsync(PLYRestClient client,
+            String opineID) {
+        EndpointTemplate.Url url = OPINE_SOCIAL_RESPONSE.expand(opineID);
+
+        CompletableFuture<ResponseEntity<SocialOpine[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                SocialOpine[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Check if the token for this provider is expired.
      *
@@ -164,12 +232,33 @@ public class SocialService {
      *             On any client-side HTTP error
      */
     public static Boolean isTokenValid(PLYRestClient client, String providerId) {
-        String url = "/" + providerId + "/token_expired";
+        EndpointTemplate.Url url = PROVIDER_TOKEN_EXPIRED.expand(providerId);
 
-        ResponseEntity<Boolean> response = client.exchange(url, HttpMethod.GET, Boolean.class, null);
+        ResponseEntity<Boolean> response = client.exchange(url, HttpMethod.GET, Boolean.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously check if the token for this provider is expired.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param providerId
+     *            The social service provider (currently only facebook and
+     *            twitter are valid)
+     * @return A future completed with true if the token is expired, otherwise
+     *         false.
+     * @see #isTokenValid
+     */
+    public static CompletableFuture<Boolean> isTokenValidAsync(PLYRestClient client, String providerId) {
+        EndpointTemplate.Url url = PROVIDER_TOKEN_EXPIRED.expand(providerId);
+
+        CompletableFuture<ResponseEntity<Boolean>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Boolean.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Get tweets about a product
      *
@@ -191,16 +280,35 @@ public class SocialService {
      */
     public static Opine[] searchForProductPosts(PLYRestClient client, String providerId, String gtin,
             String language) {
-        String url = "/" + providerId + "/search/" + gtin;
+        EndpointTemplate.Url url = PROVIDER_SEARCH.expand(providerId, gtin).query("language", language);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<Opine[]> response = client.exchange(url, HttpMethod.GET, Opine[].class, parameters);
+        ResponseEntity<Opine[]> response = client.exchange(url, HttpMethod.GET, Opine[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get tweets about a product
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param providerId
+     *            The social service provider (currently only facebook and
+     *            twitter are valid)
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @return A future completed with the updated user
+     * @see #searchForProductPosts
+     */
+    public static CompletableFuture<Opine[]> searchForProductPostsAsync(PLYRestClient client,
+            String providerId, String gtin, String language) {
+        EndpointTemplate.Url url = PROVIDER_SEARCH.expand(providerId, gtin).query("language", language);
+
+        CompletableFuture<ResponseEntity<Opine[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Opine[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
 }
@@ -5,6 +5,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -15,13 +20,21 @@ import com.productlayer.core.beans.ResultSetWithCursor;
 import com.productlayer.core.error.PLYHttpException;
 import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.timeline.TimelineIterator;
 
 /**
  * Methods for accessing timelines.
  */
 public class TimelineService {
 
+    private static final EndpointTemplate TIMELINE = EndpointTemplate.of("/timeline");
+    private static final EndpointTemplate TIMELINE_ME = EndpointTemplate.of("/timeline/me");
+    private static final EndpointTemplate PRODUCT_TIMELINE = EndpointTemplate.of("/timeline/product/{gtin}");
+    private static final EndpointTemplate USER_TIMELINE = EndpointTemplate.of("/timeline/user/{userID}");
+
     /**
      * Gets the most recent social content posted using parameters stored in the
      * URL. The timeline is always sorted by date.
@@ -42,24 +55,29 @@ public class TimelineService {
     public static ResultSetWithCursor getTimelineFromURL(PLYRestClient client, String url) {
         ResponseEntity<BaseObject[]> response = client
                 .exchange(url, HttpMethod.GET, BaseObject[].class, null);
-        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(response.getBody()));
-        ResultSetWithCursor cursor = new ResultSetWithCursor();
-        cursor.setResults(results);
-        if (results.size() == 0) {
-            return cursor;
-        }
-        String newestId = results.get(0).getId();
-        Map<String, String> parametersSince = new HashMap<String, String>();
-        parametersSince.put("since_id", newestId);
-        String resultsUrlSince = UrlHelper.replaceQueryParameterInUrl(url, parametersSince);
-        cursor.setSinceThisResultsUrl(resultsUrlSince);
-        String oldestId = results.get(results.size() - 1).getId();
-        Map<String, String> parametersUntil = new HashMap<String, String>();
-        parametersUntil.put("until_id", oldestId);
-        String resultsUrlUntil = UrlHelper.replaceQueryParameterInUrl(url, parametersUntil);
-        cursor.setUntilThisResultsUrl(resultsUrlUntil);
-        cursor.setThisResultsUrl(url);
-        return cursor;
+        return toCursor(response.getBody(), url);
+    }
+
+    /**
+     * Asynchronously gets the most recent social content posted using
+     * parameters stored in the URL. The timeline is always sorted by date.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param url
+     *            The URL containing the path to the endpoint and any filter
+     *            parameters
+     * @return A future completed with the timeline and URLs to load the
+     *         timeline since or until the provided timeline
+     * @see #getTimelineFromURL(PLYRestClient, String)
+     */
+    public static CompletableFuture<ResultSetWithCursor> getTimelineFromURLAsync(PLYRestClient client,
+            final String url) {
+        CompletableFuture<ResponseEntity<BaseObject[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BaseObject[].class, null);
+        return FutureHelper.propagateCancellation(sent,
+                sent.thenApply(response -> toCursor(response.getBody(), url)));
     }
 
     /**
@@ -99,58 +117,61 @@ public class TimelineService {
     public static ResultSetWithCursor getMyTimeline(PLYRestClient client, Integer count, String sinceID,
             String untilID, Boolean showOpines, Boolean showReviews, Boolean showPictures,
             Boolean showProducts, Boolean includeFriends) {
-        String url = "/timeline/me";
+        String resultsUrl = TIMELINE_ME.expand().toString();
 
-        String resultsUrl = "/timeline/me";
+        Map<String, String> parameters = myTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, includeFriends);
+        EndpointTemplate.Url url = withQuery(TIMELINE_ME.expand(), parameters);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", count.toString());
-        }
-        if (!StringUtils.isEmpty(sinceID)) {
-            parameters.put("since_id", sinceID);
-        }
-        if (!StringUtils.isEmpty(untilID)) {
-            parameters.put("until_id", untilID);
-        }
-        if (!StringUtils.isEmpty(showOpines)) {
-            parameters.put("opines", showOpines.toString());
-        }
-        if (!StringUtils.isEmpty(showReviews)) {
-            parameters.put("reviews", showReviews.toString());
-        }
-        if (!StringUtils.isEmpty(showPictures)) {
-            parameters.put("images", showPictures.toString());
-        }
-        if (!StringUtils.isEmpty(showProducts)) {
-            parameters.put("products", showProducts.toString());
-        }
-        if (!StringUtils.isEmpty(includeFriends)) {
-            parameters.put("include_friends", includeFriends.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class);
+        return toCursor(response.getBody(), resultsUrl, parameters);
+    }
 
-        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class,
-                parameters);
-        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(response.getBody()));
-        ResultSetWithCursor cursor = new ResultSetWithCursor();
-        cursor.setResults(results);
-        if (results.size() == 0) {
-            return cursor;
-        }
-        String newestId = results.get(0).getId();
-        Map<String, String> parametersSince = new HashMap<String, String>(parameters);
-        parametersSince.put("since_id", newestId);
-        String resultsUrlSince = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersSince);
-        cursor.setSinceThisResultsUrl(resultsUrlSince);
-        String oldestId = results.get(results.size() - 1).getId();
-        Map<String, String> parametersUntil = new HashMap<String, String>(parameters);
-        parametersUntil.put("until_id", oldestId);
-        String resultsUrlUntil = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersUntil);
-        cursor.setUntilThisResultsUrl(resultsUrlUntil);
-        resultsUrl = UrlHelper.addQueryParameterToUrl(resultsUrl, parameters);
-        cursor.setThisResultsUrl(resultsUrl);
-        return cursor;
+    /**
+     * Asynchronously gets the most recent social content posted by the signed
+     * in user. The timeline is always sorted by date.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param count
+     *            [Optional] The amount of results to be returned, default and
+     *            maximum: '200'
+     * @param sinceID
+     *            [Optional] Results with an ID greater than (that is, more
+     *            recent than) the specified ID
+     * @param untilID
+     *            [Optional] Results with an ID less than (that is, older than)
+     *            the specified ID
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @param includeFriends
+     *            [Optional] Show also content created by friends, default:
+     *            'false'
+     * @return A future completed with the timeline of the currently signed in
+     *         user and URLs to load the timeline since or until the provided
+     *         timeline
+     * @see #getMyTimeline
+     */
+    public static CompletableFuture<ResultSetWithCursor> getMyTimelineAsync(PLYRestClient client,
+            Integer count, String sinceID, String untilID, Boolean showOpines, Boolean showReviews,
+            Boolean showPictures, Boolean showProducts, Boolean includeFriends) {
+        final String resultsUrl = TIMELINE_ME.expand().toString();
+
+        final Map<String, String> parameters = myTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, includeFriends);
+        EndpointTemplate.Url url = withQuery(TIMELINE_ME.expand(), parameters);
+
+        CompletableFuture<ResponseEntity<BaseObject[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BaseObject[].class);
+        return FutureHelper.propagateCancellation(sent,
+                sent.thenApply(response -> toCursor(response.getBody(), resultsUrl, parameters)));
     }
 
     /**
@@ -192,58 +213,62 @@ public class TimelineService {
     public static ResultSetWithCursor getProductTimeline(PLYRestClient client, String gtin, Integer count,
             String sinceID, String untilID, Boolean showOpines, Boolean showReviews, Boolean showPictures,
             Boolean showProducts, Boolean showFriendsOnly) {
-        String url = "/timeline/product/" + gtin;
+        String resultsUrl = PRODUCT_TIMELINE.expand(gtin).toString();
 
-        String resultsUrl = "/timeline/product/" + gtin;
+        Map<String, String> parameters = productTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, showFriendsOnly);
+        EndpointTemplate.Url url = withQuery(PRODUCT_TIMELINE.expand(gtin), parameters);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", count.toString());
-        }
-        if (!StringUtils.isEmpty(sinceID)) {
-            parameters.put("since_id", sinceID);
-        }
-        if (!StringUtils.isEmpty(untilID)) {
-            parameters.put("until_id", untilID);
-        }
-        if (!StringUtils.isEmpty(showOpines)) {
-            parameters.put("opines", showOpines.toString());
-        }
-        if (!StringUtils.isEmpty(showReviews)) {
-            parameters.put("reviews", showReviews.toString());
-        }
-        if (!StringUtils.isEmpty(showPictures)) {
-            parameters.put("images", showPictures.toString());
-        }
-        if (!StringUtils.isEmpty(showProducts)) {
-            parameters.put("products", showProducts.toString());
-        }
-        if (!StringUtils.isEmpty(showFriendsOnly)) {
-            parameters.put("show_friends_only", showFriendsOnly.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class);
+        return toCursor(response.getBody(), resultsUrl, parameters);
+    }
 
-        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class,
-                parameters);
-        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(response.getBody()));
-        ResultSetWithCursor cursor = new ResultSetWithCursor();
-        cursor.setResults(results);
-        if (results.size() == 0) {
-            return cursor;
-        }
-        String newestId = results.get(0).getId();
-        Map<String, String> parametersSince = new HashMap<String, String>(parameters);
-        parametersSince.put("since_id", newestId);
-        String resultsUrlSince = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersSince);
-        cursor.setSinceThisResultsUrl(resultsUrlSince);
-        String oldestId = results.get(results.size() - 1).getId();
-        Map<String, String> parametersUntil = new HashMap<String, String>(parameters);
-        parametersUntil.put("until_id", oldestId);
-        String resultsUrlUntil = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersUntil);
-        cursor.setUntilThisResultsUrl(resultsUrlUntil);
-        resultsUrl = UrlHelper.addQueryParameterToUrl(resultsUrl, parameters);
-        cursor.setThisResultsUrl(resultsUrl);
-        return cursor;
+    /**
+     * Asynchronously gets the most recent social content for a product. The
+     * timeline is always sorted by date.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param count
+     *            [Optional] The amount of results to be returned, default and
+     *            maximum: '200'
+     * @param sinceID
+     *            [Optional] Results with an ID greater than (that is, more
+     *            recent than) the specified ID
+     * @param untilID
+     *            [Optional] Results with an ID less than (that is, older than)
+     *            the specified ID
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @param showFriendsOnly
+     *            [Optional] Show only content created by friends (followed
+     *            users), default: 'false'
+     * @return A future completed with the timeline and URLs to
+     *         load the timeline since or until the provided timeline
+     * @see #getProductTimeline
+     */
+    public static CompletableFuture<ResultSetWithCursor> getProductTimelineAsync(PLYRestClient client,
+            String gtin, Integer count, String sinceID, String untilID, Boolean showOpines,
+            Boolean showReviews, Boolean showPictures, Boolean showProducts, Boolean showFriendsOnly) {
+        final String resultsUrl = PRODUCT_TIMELINE.expand(gtin).toString();
+
+        final Map<String, String> parameters = productTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, showFriendsOnly);
+        EndpointTemplate.Url url = withQuery(PRODUCT_TIMELINE.expand(gtin), parameters);
+
+        CompletableFuture<ResponseEntity<BaseObject[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BaseObject[].class);
+        return FutureHelper.propagateCancellation(sent,
+                sent.thenApply(response -> toCursor(response.getBody(), resultsUrl, parameters)));
     }
 
     /**
@@ -290,67 +315,68 @@ public class TimelineService {
     public static ResultSetWithCursor getTimeline(PLYRestClient client, String categoryKey, String brand,
             String brandOwner, Integer count, String sinceID, String untilID, Boolean showOpines,
             Boolean showReviews, Boolean showPictures, Boolean showProducts, Boolean showFriendsOnly) {
-        String url = "/timeline";
+        String resultsUrl = TIMELINE.expand().toString();
 
-        String resultsUrl = "/timeline";
+        Map<String, String> parameters = timelineParameters(categoryKey, brand, brandOwner, count, sinceID,
+                untilID, showOpines, showReviews, showPictures, showProducts, showFriendsOnly);
+        EndpointTemplate.Url url = withQuery(TIMELINE.expand(), parameters);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        if (!StringUtils.isEmpty(brand)) {
-            parameters.put("brand", brand);
-        }
-        if (!StringUtils.isEmpty(brandOwner)) {
-            parameters.put("brand_owner", brandOwner);
-        }
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", count.toString());
-        }
-        if (!StringUtils.isEmpty(sinceID)) {
-            parameters.put("since_id", sinceID);
-        }
-        if (!StringUtils.isEmpty(untilID)) {
-            parameters.put("until_id", untilID);
-        }
-        if (!StringUtils.isEmpty(showOpines)) {
-            parameters.put("opines", showOpines.toString());
-        }
-        if (!StringUtils.isEmpty(showReviews)) {
-            parameters.put("reviews", showReviews.toString());
-        }
-        if (!StringUtils.isEmpty(showPictures)) {
-            parameters.put("images", showPictures.toString());
-        }
-        if (!StringUtils.isEmpty(showProducts)) {
-            parameters.put("products", showProducts.toString());
-        }
-        if (!StringUtils.isEmpty(showFriendsOnly)) {
-            parameters.put("show_friends_only", showFriendsOnly.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class);
+        return toCursor(response.getBody(), resultsUrl, parameters);
+    }
 
-        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class,
-                parameters);
-        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(response.getBody()));
-        ResultSetWithCursor cursor = new ResultSetWithCursor();
-        cursor.setResults(results);
-        if (results.size() == 0) {
-            return cursor;
-        }
-        String newestId = results.get(0).getId();
-        Map<String, String> parametersSince = new HashMap<String, String>(parameters);
-        parametersSince.put("since_id", newestId);
-        String resultsUrlSince = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersSince);
-        cursor.setSinceThisResultsUrl(resultsUrlSince);
-        String oldestId = results.get(results.size() - 1).getId();
-        Map<String, String> parametersUntil = new HashMap<String, String>(parameters);
-        parametersUntil.put("until_id", oldestId);
-        String resultsUrlUntil = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersUntil);
-        cursor.setUntilThisResultsUrl(resultsUrlUntil);
-        resultsUrl = UrlHelper.addQueryParameterToUrl(resultsUrl, parameters);
-        cursor.setThisResultsUrl(resultsUrl);
-        return cursor;
+    /**
+     * Asynchronously gets the most recent social content posted. The timeline
+     * is always sorted by date.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param brand
+     *            [Optional] The brand of the product
+     * @param brandOwner
+     *            [Optional] The brand owner of the product
+     * @param count
+     *            [Optional] The amount of results to be returned, default and
+     *            maximum: '200'
+     * @param sinceID
+     *            [Optional] Results with an ID greater than (that is, more
+     *            recent than) the specified ID
+     * @param untilID
+     *            [Optional] Results with an ID less than (that is, older than)
+     *            the specified ID
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @param showFriendsOnly
+     *            [Optional] Show only content created by friends (followed
+     *            users), default: 'false'
+     * @return A future completed with the timeline and URLs to
+     *         load the timeline since or until the provided timeline
+     * @see #getTimeline
+     */
+    public static CompletableFuture<ResultSetWithCursor> getTimelineAsync(PLYRestClient client,
+            String categoryKey, String brand, String brandOwner, Integer count, String sinceID,
+            String untilID, Boolean showOpines, Boolean showReviews, Boolean showPictures,
+            Boolean showProducts, Boolean showFriendsOnly) {
+        final String resultsUrl = TIMELINE.expand().toString();
+
+        final Map<String, String> parameters = timelineParameters(categoryKey, brand, brandOwner, count,
+                sinceID, untilID, showOpines, showReviews, showPictures, showProducts, showFriendsOnly);
+        EndpointTemplate.Url url = withQuery(TIMELINE.expand(), parameters);
+
+        CompletableFuture<ResponseEntity<BaseObject[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BaseObject[].class);
+        return FutureHelper.propagateCancellation(sent,
+                sent.thenApply(response -> toCursor(response.getBody(), resultsUrl, parameters)));
     }
 
     /**
@@ -392,10 +418,191 @@ public class TimelineService {
     public static ResultSetWithCursor getUserTimeline(PLYRestClient client, String userID, Integer count,
             String sinceID, String untilID, Boolean showOpines, Boolean showReviews, Boolean showPictures,
             Boolean showProducts, Boolean includeFriends) {
-        String url = "/timeline/user/" + userID;
+        String resultsUrl = USER_TIMELINE.expand(userID).toString();
+
+        Map<String, String> parameters = userTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, includeFriends);
+        EndpointTemplate.Url url = withQuery(USER_TIMELINE.expand(userID), parameters);
+
+        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class);
+        return toCursor(response.getBody(), resultsUrl, parameters);
+    }
+
+    /**
+     * Asynchronously gets the most recent social content posted by a user ID.
+     * The timeline is always sorted by date.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param count
+     *            [Optional] The amount of results to be returned, default and
+     *            maximum: '200'
+     * @param sinceID
+     *            [Optional] Results with an ID greater than (that is, more
+     *            recent than) the specified ID
+     * @param untilID
+     *            [Optional] Results with an ID less than (that is, older than)
+     *            the specified ID
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @param includeFriends
+     *            [Optional] Show also content created by friends, default:
+     *            'false'
+     * @return A future completed with the timeline of a user and URLs to
+     *         load the timeline since or until the provided timeline
+     * @see #getUserTimeline
+     */
+    public static CompletableFuture<ResultSetWithCursor> getUserTimelineAsync(PLYRestClient client,
+            String userID, Integer count, String sinceID, String untilID, Boolean showOpines,
+            Boolean showReviews, Boolean showPictures, Boolean showProducts, Boolean includeFriends) {
+        final String resultsUrl = USER_TIMELINE.expand(userID).toString();
+
+        final Map<String, String> parameters = userTimelineParameters(count, sinceID, untilID, showOpines,
+                showReviews, showPictures, showProducts, includeFriends);
+        EndpointTemplate.Url url = withQuery(USER_TIMELINE.expand(userID), parameters);
+
+        CompletableFuture<ResponseEntity<BaseObject[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                BaseObject[].class);
+        return FutureHelper.propagateCancellation(sent,
+                sent.thenApply(response -> toCursor(response.getBody(), resultsUrl, parameters)));
+    }
+
+    /**
+     * Iterates lazily over the social content of a timeline, from the most
+     * recent to the oldest item. The timeline is loaded page by page and the
+     * next page is prefetched in the background while the current one is
+     * consumed.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param url
+     *            The URL containing the path to the endpoint and any filter
+     *            parameters (e.g. '/timeline/me?reviews=false' or the
+     *            {@link ResultSetWithCursor#getThisResultsUrl()} of a timeline)
+     * @param pageSize
+     *            The amount of results to be requested per page, maximum: '200'
+     * @param maxItems
+     *            The maximum number of items to return, zero or negative for no
+     *            limit
+     * @return An iterator over the timeline items; iterating throws
+     *         {@link PLYHttpException} or {@link RestClientException} if a page
+     *         cannot be loaded
+     */
+    public static TimelineIterator iterate(PLYRestClient client, String url, int pageSize, long maxItems) {
+        return new TimelineIterator(client, url, pageSize, maxItems);
+    }
+
+    /**
+     * Lazily streams the social content of a timeline, from the most recent to
+     * the oldest item. The timeline is loaded page by page and the next page
+     * is prefetched in the background while the current one is consumed.
+     * Items of an unknown type are skipped. Closing the stream cancels any
+     * pending request, aborting its HTTP exchange.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param url
+     *            The URL containing the path to the endpoint and any filter
+     *            parameters (e.g. '/timeline/me?reviews=false' or the
+     *            {@link ResultSetWithCursor#getThisResultsUrl()} of a timeline)
+     * @param pageSize
+     *            The amount of results to be requested per page, maximum: '200'
+     * @param maxItems
+     *            The maximum number of items to return, zero or negative for no
+     *            limit
+     * @return A sequential stream of the timeline items
+     * @see #iterate(PLYRestClient, String, int, long)
+     */
+    public static Stream<BaseObject> stream(PLYRestClient client, String url, int pageSize, long maxItems) {
+        TimelineIterator iterator = iterate(client, url, pageSize, maxItems);
+        Spliterator<BaseObject> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    // items of an unknown type are deserialized as null
+    private static String getNewestId(List<BaseObject> results) {
+        for (BaseObject item : results) {
+            if (item != null) {
+                return item.getId();
+            }
+        }
+        return null;
+    }
+
+    private static String getOldestId(List<BaseObject> results) {
+        for (int i = results.size() - 1; i >= 0; i--) {
+            if (results.get(i) != null) {
+                return results.get(i).getId();
+            }
+        }
+        return null;
+    }
 
-        String resultsUrl = "/timeline/user/" + userID;
+    private static ResultSetWithCursor toCursor(BaseObject[] body, String url) {
+        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(body));
+        ResultSetWithCursor cursor = new ResultSetWithCursor();
+        cursor.setResults(results);
+        String newestId = getNewestId(results);
+        if (newestId == null) {
+            return cursor;
+        }
+        Map<String, String> parametersSince = new HashMap<String, String>();
+        parametersSince.put("since_id", newestId);
+        String resultsUrlSince = UrlHelper.replaceQueryParameterInUrl(url, parametersSince);
+        cursor.setSinceThisResultsUrl(resultsUrlSince);
+        String oldestId = getOldestId(results);
+        Map<String, String> parametersUntil = new HashMap<String, String>();
+        parametersUntil.put("until_id", oldestId);
+        String resultsUrlUntil = UrlHelper.replaceQueryParameterInUrl(url, parametersUntil);
+        cursor.setUntilThisResultsUrl(resultsUrlUntil);
+        cursor.setThisResultsUrl(url);
+        return cursor;
+    }
 
+    private static ResultSetWithCursor toCursor(BaseObject[] body, String resultsUrl,
+            Map<String, String> parameters) {
+        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(body));
+        ResultSetWithCursor cursor = new ResultSetWithCursor();
+        cursor.setResults(results);
+        String newestId = getNewestId(results);
+        if (newestId == null) {
+            return cursor;
+        }
+        Map<String, String> parametersSince = new HashMap<String, String>(parameters);
+        parametersSince.put("since_id", newestId);
+        String resultsUrlSince = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersSince);
+        cursor.setSinceThisResultsUrl(resultsUrlSince);
+        String oldestId = getOldestId(results);
+        Map<String, String> parametersUntil = new HashMap<String, String>(parameters);
+        parametersUntil.put("until_id", oldestId);
+        String resultsUrlUntil = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersUntil);
+        cursor.setUntilThisResultsUrl(resultsUrlUntil);
+        cursor.setThisResultsUrl(UrlHelper.addQueryParameterToUrl(resultsUrl, parameters));
+        return cursor;
+    }
+
+    private static EndpointTemplate.Url withQuery(EndpointTemplate.Url url, Map<String, String> parameters) {
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            url.query(parameter.getKey(), parameter.getValue());
+        }
+        return url;
+    }
+
+    private static Map<String, String> myTimelineParameters(Integer count, String sinceID, String untilID,
+            Boolean showOpines, Boolean showReviews, Boolean showPictures, Boolean showProducts,
+            Boolean includeFriends) {
         Map<String, String> parameters = new HashMap<String, String>();
         if (!StringUtils.isEmpty(count)) {
             parameters.put("count", count.toString());
@@ -421,29 +628,109 @@ public class TimelineService {
         if (!StringUtils.isEmpty(includeFriends)) {
             parameters.put("include_friends", includeFriends.toString());
         }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        return parameters;
+    }
 
-        ResponseEntity<BaseObject[]> response = client.exchange(url, HttpMethod.GET, BaseObject[].class,
-                parameters);
-        List<BaseObject> results = new ArrayList<BaseObject>(Arrays.asList(response.getBody()));
-        ResultSetWithCursor cursor = new ResultSetWithCursor();
-        cursor.setResults(results);
-        if (results.size() == 0) {
-            return cursor;
+    private static Map<String, String> productTimelineParameters(Integer count, String sinceID,
+            String untilID, Boolean showOpines, Boolean showReviews, Boolean showPictures,
+            Boolean showProducts, Boolean showFriendsOnly) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (!StringUtils.isEmpty(count)) {
+            parameters.put("count", count.toString());
         }
-        String newestId = results.get(0).getId();
-        Map<String, String> parametersSince = new HashMap<String, String>(parameters);
-        parametersSince.put("since_id", newestId);
-        String resultsUrlSince = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersSince);
-        cursor.setSinceThisResultsUrl(resultsUrlSince);
-        String oldestId = results.get(results.size() - 1).getId();
-        Map<String, String> parametersUntil = new HashMap<String, String>(parameters);
-        parametersUntil.put("until_id", oldestId);
-        String resultsUrlUntil = UrlHelper.addQueryParameterToUrl(resultsUrl, parametersUntil);
-        cursor.setUntilThisResultsUrl(resultsUrlUntil);
-        resultsUrl = UrlHelper.addQueryParameterToUrl(resultsUrl, parameters);
-        cursor.setThisResultsUrl(resultsUrl);
-        return cursor;
+        if (!StringUtils.isEmpty(sinceID)) {
+            parameters.put("since_id", sinceID);
+        }
+        if (!StringUtils.isEmpty(untilID)) {
+            parameters.put("until_id", untilID);
+        }
+        if (!StringUtils.isEmpty(showOpines)) {
+            parameters.put("opines", showOpines.toString());
+        }
+        if (!StringUtils.isEmpty(showReviews)) {
+            parameters.put("reviews", showReviews.toString());
+        }
+        if (!StringUtils.isEmpty(showPictures)) {
+            parameters.put("images", showPictures.toString());
+        }
+        if (!StringUtils.isEmpty(showProducts)) {
+            parameters.put("products", showProducts.toString());
+        }
+        if (!StringUtils.isEmpty(showFriendsOnly)) {
+            parameters.put("show_friends_only", showFriendsOnly.toString());
+        }
+        return parameters;
+    }
+
+    private static Map<String, String> timelineParameters(String categoryKey, String brand,
+            String brandOwner, Integer count, String sinceID, String untilID, Boolean showOpines,
+            Boolean showReviews, Boolean showPictures, Boolean showProducts, Boolean showFriendsOnly) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (!StringUtils.isEmpty(categoryKey)) {
+            parameters.put("category_key", categoryKey);
+        }
+        if (!StringUtils.isEmpty(brand)) {
+            parameters.put("brand", brand);
+        }
+        if (!StringUtils.isEmpty(brandOwner)) {
+            parameters.put("brand_owner", brandOwner);
+        }
+        if (!StringUtils.isEmpty(count)) {
+            parameters.put("count", count.toString());
+        }
+        if (!StringUtils.isEmpty(sinceID)) {
+            parameters.put("since_id", sinceID);
+        }
+        if (!StringUtils.isEmpty(untilID)) {
+            parameters.put("until_id", untilID);
+        }
+        if (!StringUtils.isEmpty(showOpines)) {
+            parameters.put("opines", showOpines.toString());
+        }
+        if (!StringUtils.isEmpty(showReviews)) {
+            parameters.put("reviews", showReviews.toString());
+        }
+        if (!StringUtils.isEmpty(showPictures)) {
+            parameters.put("images", showPictures.toString());
+        }
+        if (!StringUtils.isEmpty(showProducts)) {
+            parameters.put("products", showProducts.toString());
+        }
+        if (!StringUtils.isEmpty(showFriendsOnly)) {
+            parameters.put("show_friends_only", showFriendsOnly.toString());
+        }
+        return parameters;
+    }
+
+    private static Map<String, String> userTimelineParameters(Integer count, String sinceID, String untilID,
+            Boolean showOpines, Boolean showReviews, Boolean showPictures, Boolean showProducts,
+            Boolean includeFriends) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        if (!StringUtils.isEmpty(count)) {
+            parameters.put("count", count.toString());
+        }
+        if (!StringUtils.isEmpty(sinceID)) {
+            parameters.put("since_id", sinceID);
+        }
+        if (!StringUtils.isEmpty(untilID)) {
+            parameters.put("until_id", untilID);
+        }
+        if (!StringUtils.isEmpty(showOpines)) {
+            parameters.put("opines", showOpines.toString());
+        }
+        if (!StringUtils.isEmpty(showReviews)) {
+            parameters.put("reviews", showReviews.toString());
+        }
+        if (!StringUtils.isEmpty(showPictures)) {
+            parameters.put("images", showPictures.toString());
+        }
+        if (!StringUtils.isEmpty(showProducts)) {
+            parameters.put("products", showProducts.toString());
+        }
+        if (!StringUtils.isEmpty(includeFriends)) {
+            parameters.put("include_friends", includeFriends.toString());
+        }
+        return parameters;
     }
 
 }
@@ -2,9 +2,9 @@ package com.productlayer.rest.client.services;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -21,17 +21,64 @@ import com.productlayer.core.beans.UserEmail;
 import com.productlayer.core.beans.ranking.RankingResults;
 import com.productlayer.core.beans.reports.ProblemReport;
 import com.productlayer.core.error.PLYHttpException;
-import com.productlayer.core.utils.StringUtils;
 import com.productlayer.rest.client.PLYRestClient;
-import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.helper.EndpointTemplate;
+import com.productlayer.rest.client.helper.FutureHelper;
 
 /**
  * Methods for managing users.
  */
 public class UserService {
 
+    private static final EndpointTemplate LOGIN = EndpointTemplate.of("/login");
+    private static final EndpointTemplate LOGOUT = EndpointTemplate.of("/logout");
+    private static final EndpointTemplate SIGNED_IN = EndpointTemplate.of("/signedin");
+    private static final EndpointTemplate USER_CHANGE_PASSWORD = EndpointTemplate.of("/user/change_password");
+    private static final EndpointTemplate USERS = EndpointTemplate.of("/users");
+    private static final EndpointTemplate USERS_COUNT = EndpointTemplate.of("/users/count");
+    private static final EndpointTemplate USERS_TOP_SCORER = EndpointTemplate.of("/users/top_scorer");
+    private static final EndpointTemplate ME = EndpointTemplate.of("/user");
+    private static final EndpointTemplate USER_SETTING_DISABLE_EMAIL_NEWSLETTER = EndpointTemplate
+            .of("/user/setting/disable_email_newsletter");
+    private static final EndpointTemplate USER_SETTING_DISABLE_EMAIL_NOTIFICATION = EndpointTemplate
+            .of("/user/setting/disable_email_notification");
+    private static final EndpointTemplate USER_SETTING_EMAIL_NEWSLETTER = EndpointTemplate
+            .of("/user/setting/email_newsletter");
+    private static final EndpointTemplate USER_SETTING_EMAIL_NOTIFICATION = EndpointTemplate
+            .of("/user/setting/email_notification");
+    private static final EndpointTemplate USER_ME_FIND_FRIENDS = EndpointTemplate.of("/user/me/find_friends");
+    private static final EndpointTemplate USER_FOLLOW = EndpointTemplate.of("/user/follow");
+    private static final EndpointTemplate USER_DOWN_VOTED_PRODUCTS_IDS = EndpointTemplate
+            .of("/user/{userID}/down_voted/products/ids");
+    private static final EndpointTemplate USER_DOWN_VOTED_PRODUCTS_COUNT = EndpointTemplate
+            .of("/user/{userID}/down_voted/products/count");
+    private static final EndpointTemplate USER_DOWN_VOTED_PRODUCTS = EndpointTemplate
+            .of("/user/{userID}/down_voted/products");
+    private static final EndpointTemplate USER_FOLLOWING_IDS = EndpointTemplate
+            .of("/user/{nicknameOrId}/following_ids");
+    private static final EndpointTemplate USER_FOLLOWING = EndpointTemplate
+            .of("/user/{nicknameOrId}/following");
+    private static final EndpointTemplate USER_FOLLOWER_IDS = EndpointTemplate
+            .of("/user/{nicknameOrId}/follower_ids");
+    private static final EndpointTemplate USER_FOLLOWER = EndpointTemplate
+            .of("/user/{nicknameOrId}/follower");
+    private static final EndpointTemplate USER_UP_VOTED_PRODUCTS_IDS = EndpointTemplate
+            .of("/user/{userID}/up_voted/products/ids");
+    private static final EndpointTemplate USER_UP_VOTED_PRODUCTS_COUNT = EndpointTemplate
+            .of("/user/{userID}/up_voted/products/count");
+    private static final EndpointTemplate USER_UP_VOTED_PRODUCTS = EndpointTemplate
+            .of("/user/{userID}/up_voted/products");
+    private static final EndpointTemplate USER = EndpointTemplate.of("/user/{nicknameOrID}");
+    private static final EndpointTemplate USER_POINTS = EndpointTemplate.of("/user/{userId}/points");
+    private static final EndpointTemplate USER_POINTS_HISTORY = EndpointTemplate
+            .of("/user/{userId}/points_history");
+    private static final EndpointTemplate USERS_REPORT_PROBLEM = EndpointTemplate.of("/users/report_problem");
+    private static final EndpointTemplate USER_LOST_PASSWORD = EndpointTemplate.of("/user/lost_password");
+    private static final EndpointTemplate USER_UNFOLLOW = EndpointTemplate.of("/user/unfollow");
+
     /**
-     * Logs in the user using basic authentication.
+     * Logs in the user using basic authentication. Requires a mutable
+     * {@code client}.
      * 
      * @param client
      *            The REST client configured to handle communications with the
@@ -51,13 +98,13 @@ public class UserService {
         client.setUsername(username);
         client.setPassword(password);
 
-        String url = "login";
+        EndpointTemplate.Url url = LOGIN.expand();
         if (rememberMe) {
-            url += "?remember_me=true";
+            url.query("remember_me", true);
         }
 
         try {
-            ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class, null);
+            ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class);
             if (response.getStatusCode() == HttpStatus.OK) {
                 List<String> sessionCookies = response.getHeaders().get("Set-Cookie");
                 if (sessionCookies != null && !sessionCookies.isEmpty()) {
@@ -85,7 +132,8 @@ public class UserService {
     }
 
     /**
-     * Logs in the user using an authorization token.
+     * Logs in the user using an authorization token. Requires a mutable
+     * {@code client}.
      * 
      * @param client
      *            The REST client configured to handle communications with the
@@ -102,10 +150,10 @@ public class UserService {
     public static User login(PLYRestClient client, String token, Boolean rememberMe) {
         client.setToken("X-ProductLayer-Auth-Token=" + token);
 
-        String url = "login";
+        EndpointTemplate.Url url = LOGIN.expand();
 
         try {
-            ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class, null);
+            ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class);
             if (response.getStatusCode() == HttpStatus.OK) {
                 List<String> sessionCookies = response.getHeaders().get("Set-Cookie");
                 if (sessionCookies != null && !sessionCookies.isEmpty()) {
@@ -137,7 +185,8 @@ public class UserService {
     /**
      * Logs out the current user.
      * 
-     * Clears username/password/session/token in {@code client}.
+     * Clears username/password/session/token in {@code client}, which
+     * therefore needs to be mutable.
      * 
      * @param client
      *            The REST client configured to handle communications with the
@@ -148,9 +197,9 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static void logout(PLYRestClient client) {
-        String url = "logout";
+        EndpointTemplate.Url url = LOGOUT.expand();
 
-        client.exchange(url, HttpMethod.POST, String.class, null);
+        client.exchange(url, HttpMethod.POST, String.class);
 
         client.setToken(null);
         client.setSession(null);
@@ -167,12 +216,14 @@ public class UserService {
      * @return True if signed in, false else
      */
     public static boolean isSignedIn(PLYRestClient client) {
-        String url = "signedin";
+        EndpointTemplate.Url url = SIGNED_IN.expand();
 
         try {
-            ResponseEntity<String> status = client.exchange(url, HttpMethod.GET, String.class, null);
+            ResponseEntity<String> status = client.exchange(url, HttpMethod.GET, String.class);
             if (status.getBody().equalsIgnoreCase("false")) {
-                client.setSession(null);
+                if (!client.isImmutable()) {
+                    client.setSession(null);
+                }
                 return false;
             } else {
                 return true;
@@ -218,6 +269,35 @@ public class UserService {
         return changePassword(client, resetToken, changePassword);
     }
 
+    /**
+     * Asynchronously changes the password of the current user. An email will be
+     * sent to the user, so a compromised account can be detected. The user will
+     * be automatically logged out and needs to login with the new password.
+     * <br> There are 2 ways of updating the password: <ul> <li>the user must be
+     * logged in</li> <li>a reset token must be present</li> </ul> The reset
+     * token will be sent via email if the user doesn't know the password.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param resetToken
+     *            [Optional] The user must be logged in or the reset token must
+     *            be set to reset the password.
+     * @param oldPassword
+     *            The current password
+     * @param newPassword
+     *            The new password
+     * @return A future completed with the user if found
+     * @see #changePassword
+     */
+    public static CompletableFuture<User> changePasswordAsync(PLYRestClient client, String resetToken,
+            String oldPassword, String newPassword) {
+        UserChangePassword changePassword = new UserChangePassword();
+        changePassword.setOldPassword(oldPassword);
+        changePassword.setNewPassword(newPassword);
+        return changePasswordAsync(client, resetToken, changePassword);
+    }
+
     /**
      * Changes the password of the current user. An email will be sent to the
      * user, so a compromised account can be detected. The user will be
@@ -246,19 +326,46 @@ public class UserService {
      */
     public static User changePassword(PLYRestClient client, String resetToken,
             UserChangePassword changePassword) {
-        String url = "/user/change_password";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(resetToken)) {
-            parameters.put("reset_token", resetToken);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_CHANGE_PASSWORD.expand().query("reset_token", resetToken);
 
         ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.POST, changePassword,
-                User.class, parameters);
+                User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously changes the password of the current user. An email will
+     * be sent to the user, so a compromised account can be detected. The user
+     * will be automatically logged out and needs to login with the new
+     * password. <br>
+     * There are 2 ways of updating the password:
+     * <ul>
+     * <li>the user must be logged in</li>
+     * <li>a reset token must be present</li>
+     * </ul>
+     * The reset token will be sent via email if the user doesn't know the
+     * password.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param resetToken
+     *            [Optional] The user must be logged in or the reset token must
+     *            be set to reset the password.
+     * @param changePassword
+     *            The changePassword
+     * @return A future completed with the user if found
+     * @see #changePassword
+     */
+    public static CompletableFuture<User> changePasswordAsync(PLYRestClient client, String resetToken,
+            UserChangePassword changePassword) {
+        EndpointTemplate.Url url = USER_CHANGE_PASSWORD.expand().query("reset_token", resetToken);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                changePassword, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Registers a new user. Minimum information which must be provided is
      * (nickname, email).
@@ -275,13 +382,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User createUser(PLYRestClient client, User user) {
-        String url = "/users";
+        EndpointTemplate.Url url = USERS.expand();
 
-        ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.POST, user, User.class,
-                null);
+        ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.POST, user, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously registers a new user. Minimum information which must be
+     * provided is (nickname, email).
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param user
+     *            The user
+     * @return A future completed with the newly created user
+     * @see #createUser
+     */
+    public static CompletableFuture<User> createUserAsync(PLYRestClient client, User user) {
+        EndpointTemplate.Url url = USERS.expand();
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                user, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Disable email newsletter with the token from a newsletter email.
      *
@@ -298,18 +424,34 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String disableEmailNewsletterViaToken(PLYRestClient client, String token) {
-        String url = "/user/setting/disable_email_newsletter";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(token)) {
-            parameters.put("token", token);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_SETTING_DISABLE_EMAIL_NEWSLETTER.expand().query("token", token);
 
-        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class, parameters);
+        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously disable email newsletter with the token from a newsletter
+     * email.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param token
+     *            The one time token from the email can only be used to disable
+     *            the email newsletter.
+     * @return A future completed with OK if success.
+     * @see #disableEmailNewsletterViaToken
+     */
+    public static CompletableFuture<String> disableEmailNewsletterViaTokenAsync(PLYRestClient client,
+            String token) {
+        EndpointTemplate.Url url = USER_SETTING_DISABLE_EMAIL_NEWSLETTER.expand().query("token", token);
+
+        CompletableFuture<ResponseEntity<String>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Disable email notifications with the token from a notification email.
      *
@@ -326,18 +468,34 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String disableEmailNotificationViaToken(PLYRestClient client, String token) {
-        String url = "/user/setting/disable_email_notification";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(token)) {
-            parameters.put("token", token);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_SETTING_DISABLE_EMAIL_NOTIFICATION.expand().query("token", token);
 
-        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class, parameters);
+        ResponseEntity<String> response = client.exchange(url, HttpMethod.GET, String.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously disable email notifications with the token from a
+     * notification email.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param token
+     *            The one time token from the email can only be used to disable
+     *            the email notifications.
+     * @return A future completed with OK if success.
+     * @see #disableEmailNotificationViaToken
+     */
+    public static CompletableFuture<String> disableEmailNotificationViaTokenAsync(PLYRestClient client,
+            String token) {
+        EndpointTemplate.Url url = USER_SETTING_DISABLE_EMAIL_NOTIFICATION.expand().query("token", token);
+
+        CompletableFuture<ResponseEntity<String>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Enable or disable email newsletter for the user.
      *
@@ -353,18 +511,31 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User enableOrDisableEmailNewsletter(PLYRestClient client, Boolean enable) {
-        String url = "/user/setting/email_newsletter";
+        EndpointTemplate.Url url = USER_SETTING_EMAIL_NEWSLETTER.expand().query("enable", enable);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(enable)) {
-            parameters.put("enable", enable.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.PUT, User.class, parameters);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.PUT, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously enable or disable email newsletter for the user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param enable
+     *            Boolean for enabling or disabling the email newsletter
+     * @return A future completed with the user if found.
+     * @see #enableOrDisableEmailNewsletter
+     */
+    public static CompletableFuture<User> enableOrDisableEmailNewsletterAsync(PLYRestClient client,
+            Boolean enable) {
+        EndpointTemplate.Url url = USER_SETTING_EMAIL_NEWSLETTER.expand().query("enable", enable);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.PUT, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Enable or disable email notification for the user.
      *
@@ -380,18 +551,31 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User enableOrDisableEmailNotification(PLYRestClient client, Boolean enable) {
-        String url = "/user/setting/email_notification";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(enable)) {
-            parameters.put("enable", enable.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_SETTING_EMAIL_NOTIFICATION.expand().query("enable", enable);
 
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.PUT, User.class, parameters);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.PUT, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously enable or disable email notification for the user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param enable
+     *            Boolean for enabling or disabling the email notification
+     * @return A future completed with the user if found.
+     * @see #enableOrDisableEmailNotification
+     */
+    public static CompletableFuture<User> enableOrDisableEmailNotificationAsync(PLYRestClient client,
+            Boolean enable) {
+        EndpointTemplate.Url url = USER_SETTING_EMAIL_NOTIFICATION.expand().query("enable", enable);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.PUT, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Find friends from other connected social providers which have already a
      * productlayer account .
@@ -413,21 +597,40 @@ public class UserService {
      */
     public static User[] findFriendsFromOtherSocialNetworks(PLYRestClient client, Boolean facebook,
             Boolean twitter) {
-        String url = "/user/me/find_friends";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(facebook)) {
-            parameters.put("facebook", facebook.toString());
-        }
-        if (!StringUtils.isEmpty(twitter)) {
-            parameters.put("twitter", twitter.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_ME_FIND_FRIENDS.expand().query("facebook", facebook)
+                .query("twitter", twitter);
 
-        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class, parameters);
+        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously find friends from other connected social providers which
+     * have already a productlayer account .
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param facebook
+     *            [Optional] Find facebook friends which are already here.
+     *            Default: true
+     * @param twitter
+     *            [Optional] Find twitter friends which are already here.
+     *            Default: true
+     * @return A future completed with the found friends from other social
+     *         providers.
+     * @see #findFriendsFromOtherSocialNetworks
+     */
+    public static CompletableFuture<User[]> findFriendsFromOtherSocialNetworksAsync(PLYRestClient client,
+            Boolean facebook, Boolean twitter) {
+        EndpointTemplate.Url url = USER_ME_FIND_FRIENDS.expand().query("facebook", facebook)
+                .query("twitter", twitter);
+
+        CompletableFuture<ResponseEntity<User[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                User[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Follows a specific user.
      *
@@ -443,18 +646,30 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User followUser(PLYRestClient client, String followUser) {
-        String url = "/user/follow";
+        EndpointTemplate.Url url = USER_FOLLOW.expand().query("nickname", followUser);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(followUser)) {
-            parameters.put("nickname", followUser);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class, parameters);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously follows a specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param followUser
+     *            The nickname of the user
+     * @return A future completed with the updated user
+     * @see #followUser
+     */
+    public static CompletableFuture<User> followUserAsync(PLYRestClient client, String followUser) {
+        EndpointTemplate.Url url = USER_FOLLOW.expand().query("nickname", followUser);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.POST, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets GTINs of all products that have been downvoted by a user.
      *
@@ -473,18 +688,38 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String[] getDownVotedGTINsFromUser(PLYRestClient client, String userID, String categoryKey) {
-        String url = "/user/" + userID + "/down_voted/products/ids";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS_IDS.expand(userID)
+                .query("category_key", categoryKey);
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, parameters);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets GTINs of all products that have been downvoted by a
+     * user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @return A future completed with GTINs of any found products
+     * @see #getDownVotedGTINsFromUser
+     */
+    public static CompletableFuture<String[]> getDownVotedGTINsFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey) {
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS_IDS.expand(userID)
+                .query("category_key", categoryKey);
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the count of all products that have been downvoted by a user. If a
      * category key is present, only the count for the specified category and
@@ -506,19 +741,41 @@ public class UserService {
      */
     public static Count getDownVotedProductCountFromUser(PLYRestClient client, String userID,
             String categoryKey) {
-        String url = "/user/" + userID + "/down_voted/products/count";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS_COUNT.expand(userID)
+                .query("category_key", categoryKey);
 
         ResponseEntity<ResultMessageWithCount> response = client.exchange(url, HttpMethod.GET,
-                ResultMessageWithCount.class, parameters);
+                ResultMessageWithCount.class);
         return (Count) response.getBody().getResult();
     }
 
+    /**
+     * Asynchronously gets the count of all products that have been downvoted by
+     * a user. If a category key is present, only the count for the specified
+     * category and subcategories is returned.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @return A future completed with the product count
+     * @see #getDownVotedProductCountFromUser
+     */
+    public static CompletableFuture<Count> getDownVotedProductCountFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey) {
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS_COUNT.expand(userID)
+                .query("category_key", categoryKey);
+
+        CompletableFuture<ResponseEntity<ResultMessageWithCount>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, ResultMessageWithCount.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> (Count) response.getBody()
+                .getResult()));
+    }
+
     /**
      * Get all products which have been down-voted by the user.
      *
@@ -542,25 +799,41 @@ public class UserService {
      */
     public static Product[] getDownVotedProductsFromUser(PLYRestClient client, String userID,
             String categoryKey, String language, String fetchOnly) {
-        String url = "/user/" + userID + "/down_voted/products";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(fetchOnly)) {
-            parameters.put("fetch_only", fetchOnly);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS.expand(userID).query("category_key", categoryKey)
+                .query("language", language).query("fetch_only", fetchOnly);
 
-        ResponseEntity<Product[]> response = client
-                .exchange(url, HttpMethod.GET, Product[].class, parameters);
+        ResponseEntity<Product[]> response = client.exchange(url, HttpMethod.GET, Product[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get all products which have been down-voted by the user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @return A future completed with array of products
+     * @see #getDownVotedProductsFromUser
+     */
+    public static CompletableFuture<Product[]> getDownVotedProductsFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey, String language, String fetchOnly) {
+        EndpointTemplate.Url url = USER_DOWN_VOTED_PRODUCTS.expand(userID).query("category_key", categoryKey)
+                .query("language", language).query("fetch_only", fetchOnly);
+
+        CompletableFuture<ResponseEntity<Product[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Product[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the followed users IDs of the specific user.
      *
@@ -576,12 +849,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String[] getFollowedUserIDs(PLYRestClient client, String nicknameOrId) {
-        String url = "/user/" + nicknameOrId + "/following_ids";
+        EndpointTemplate.Url url = USER_FOLLOWING_IDS.expand(nicknameOrId);
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, null);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the followed users IDs of the specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param nicknameOrId
+     *            The nickname or ID of the user
+     * @return A future completed with any followed user IDs
+     * @see #getFollowedUserIDs
+     */
+    public static CompletableFuture<String[]> getFollowedUserIDsAsync(PLYRestClient client,
+            String nicknameOrId) {
+        EndpointTemplate.Url url = USER_FOLLOWING_IDS.expand(nicknameOrId);
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the followed users of a specific user.
      *
@@ -612,24 +905,48 @@ public class UserService {
      */
     public static User[] getFollowedUsers(PLYRestClient client, Integer page, Integer recordsPerPage,
             String nicknameOrId, String orderBy) {
-        String url = "/user/" + nicknameOrId + "/following";
+        EndpointTemplate.Url url = USER_FOLLOWING.expand(nicknameOrId).query("page", page)
+                .query("records_per_page", recordsPerPage).query("order_by", orderBy);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(orderBy)) {
-            parameters.put("order_by", orderBy);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class, parameters);
+        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the followed users of a specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, paging is disabled
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page
+     * @param nicknameOrId
+     *            The nickname or ID of the user
+     * @param orderBy
+     *            [Optional] Used to sort the result-set by one or more columns.
+     *            The order by parameters are <strong>seperated by a
+     *            semicolon</strong>. Also you need to provide a prefix
+     *            <strong>asc for ascending</strong> or <strong>desc for
+     *            descending order</strong><br>
+     * <br>
+     *            <strong>Default:</strong> pl-usr-points_desc (User Score
+     *            descending)
+     * @return A future completed with any followed users
+     * @see #getFollowedUsers
+     */
+    public static CompletableFuture<User[]> getFollowedUsersAsync(PLYRestClient client, Integer page,
+            Integer recordsPerPage, String nicknameOrId, String orderBy) {
+        EndpointTemplate.Url url = USER_FOLLOWING.expand(nicknameOrId).query("page", page)
+                .query("records_per_page", recordsPerPage).query("order_by", orderBy);
+
+        CompletableFuture<ResponseEntity<User[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                User[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the follower IDs of a specific user.
      *
@@ -645,12 +962,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String[] getFollowingUserIDs(PLYRestClient client, String nicknameOrId) {
-        String url = "/user/" + nicknameOrId + "/follower_ids";
+        EndpointTemplate.Url url = USER_FOLLOWER_IDS.expand(nicknameOrId);
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, null);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the follower IDs of a specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param nicknameOrId
+     *            The nickname or ID of the user
+     * @return A future completed with any user IDs following the specified user
+     * @see #getFollowingUserIDs
+     */
+    public static CompletableFuture<String[]> getFollowingUserIDsAsync(PLYRestClient client,
+            String nicknameOrId) {
+        EndpointTemplate.Url url = USER_FOLLOWER_IDS.expand(nicknameOrId);
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the followers of a specific user.
      *
@@ -681,24 +1018,48 @@ public class UserService {
      */
     public static User[] getFollowingUsers(PLYRestClient client, Integer page, Integer recordsPerPage,
             String nicknameOrId, String orderBy) {
-        String url = "/user/" + nicknameOrId + "/follower";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(page)) {
-            parameters.put("page", page.toString());
-        }
-        if (!StringUtils.isEmpty(recordsPerPage)) {
-            parameters.put("records_per_page", recordsPerPage.toString());
-        }
-        if (!StringUtils.isEmpty(orderBy)) {
-            parameters.put("order_by", orderBy);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_FOLLOWER.expand(nicknameOrId).query("page", page)
+                .query("records_per_page", recordsPerPage).query("order_by", orderBy);
 
-        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class, parameters);
+        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the followers of a specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param page
+     *            [Optional] The page to be displayed starting with 0 - if no
+     *            page has been provided, paging is disabled
+     * @param recordsPerPage
+     *            [Optional] The amount of items to be displayed per page
+     * @param nicknameOrId
+     *            The nickname or ID of the user
+     * @param orderBy
+     *            [Optional] Used to sort the result-set by one or more columns.
+     *            The order by parameters are <strong>seperated by a
+     *            semicolon</strong>. Also you need to provide a prefix
+     *            <strong>asc for ascending</strong> or <strong>desc for
+     *            descending order</strong><br>
+     * <br>
+     *            <strong>Default:</strong> pl-usr-points_desc (User Score
+     *            descending)
+     * @return A future completed with any users following the specified user
+     * @see #getFollowingUsers
+     */
+    public static CompletableFuture<User[]> getFollowingUsersAsync(PLYRestClient client, Integer page,
+            Integer recordsPerPage, String nicknameOrId, String orderBy) {
+        EndpointTemplate.Url url = USER_FOLLOWER.expand(nicknameOrId).query("page", page)
+                .query("records_per_page", recordsPerPage).query("order_by", orderBy);
+
+        CompletableFuture<ResponseEntity<User[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                User[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the top scoring users within a time range.
      *
@@ -728,38 +1089,53 @@ public class UserService {
      */
     public static RankingResults<User> getTopScorers(PLYRestClient client, Date from_date, Date to_date,
             int count, Boolean showOpines, Boolean showReviews, Boolean showPictures, Boolean showProducts) {
-        String url = "/users/top_scorer";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(from_date)) {
-            parameters.put("from_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(from_date));
-        }
-        if (!StringUtils.isEmpty(to_date)) {
-            parameters.put("to_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(to_date));
-        }
-        if (!StringUtils.isEmpty(count)) {
-            parameters.put("count", String.valueOf(count));
-        }
-        if (!StringUtils.isEmpty(showOpines)) {
-            parameters.put("opines", showOpines.toString());
-        }
-        if (!StringUtils.isEmpty(showReviews)) {
-            parameters.put("reviews", showReviews.toString());
-        }
-        if (!StringUtils.isEmpty(showPictures)) {
-            parameters.put("images", showPictures.toString());
-        }
-        if (!StringUtils.isEmpty(showProducts)) {
-            parameters.put("products", showProducts.toString());
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USERS_TOP_SCORER.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("count", count).query("opines", showOpines)
+                .query("reviews", showReviews).query("images", showPictures).query("products", showProducts);
 
         ResponseEntity<RankingResults<User>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<RankingResults<User>>() {
-                }, parameters);
+                });
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets the top scoring users within a time range.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param from_date
+     *            [Optional] Start date, format: yyyy-MM-dd HH:mm:ss
+     * @param to_date
+     *            [Optional] End date, format: yyyy-MM-dd HH:mm:ss
+     * @param count
+     *            [Optional] The amount of results to be returned, default:
+     *            '200'
+     * @param showOpines
+     *            [Optional] Display opines, default: 'true'
+     * @param showReviews
+     *            [Optional] Display reviews, default: 'true'
+     * @param showPictures
+     *            [Optional] Display uploaded images, default: 'true'
+     * @param showProducts
+     *            [Optional] Display created/updated products, default: 'true'
+     * @return A future completed with the top users contained within a ranking
+     *         results object
+     * @see #getTopScorers
+     */
+    public static CompletableFuture<RankingResults<User>> getTopScorersAsync(PLYRestClient client,
+            Date from_date, Date to_date, int count, Boolean showOpines, Boolean showReviews,
+            Boolean showPictures, Boolean showProducts) {
+        EndpointTemplate.Url url = USERS_TOP_SCORER.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date)).query("count", count).query("opines", showOpines)
+                .query("reviews", showReviews).query("images", showPictures).query("products", showProducts);
+
+        CompletableFuture<ResponseEntity<RankingResults<User>>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, new ParameterizedTypeReference<RankingResults<User>>() { });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets GTINs of all products that have been upvoted by a user.
      *
@@ -778,18 +1154,38 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static String[] getUpVotedGTINsFromUser(PLYRestClient client, String userID, String categoryKey) {
-        String url = "/user/" + userID + "/up_voted/products/ids";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS_IDS.expand(userID)
+                .query("category_key", categoryKey);
 
-        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class, parameters);
+        ResponseEntity<String[]> response = client.exchange(url, HttpMethod.GET, String[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets GTINs of all products that have been upvoted by a
+     * user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @return A future completed with GTINs of any found products
+     * @see #getUpVotedGTINsFromUser
+     */
+    public static CompletableFuture<String[]> getUpVotedGTINsFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey) {
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS_IDS.expand(userID)
+                .query("category_key", categoryKey);
+
+        CompletableFuture<ResponseEntity<String[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                String[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the count of all products that have been upvoted by a user. If a
      * category key is present, only the count for the specified category and
@@ -810,19 +1206,41 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static Count getUpVotedProductCountFromUser(PLYRestClient client, String userID, String categoryKey) {
-        String url = "/user/" + userID + "/up_voted/products/count";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS_COUNT.expand(userID)
+                .query("category_key", categoryKey);
 
         ResponseEntity<ResultMessageWithCount> response = client.exchange(url, HttpMethod.GET,
-                ResultMessageWithCount.class, parameters);
+                ResultMessageWithCount.class);
         return (Count) response.getBody().getResult();
     }
 
+    /**
+     * Asynchronously gets the count of all products that have been upvoted by a
+     * user. If a category key is present, only the count for the specified
+     * category and subcategories is returned.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @return A future completed with the product count
+     * @see #getUpVotedProductCountFromUser
+     */
+    public static CompletableFuture<Count> getUpVotedProductCountFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey) {
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS_COUNT.expand(userID)
+                .query("category_key", categoryKey);
+
+        CompletableFuture<ResponseEntity<ResultMessageWithCount>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, ResultMessageWithCount.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> (Count) response.getBody()
+                .getResult()));
+    }
+
     /**
      * Get all products which have been up-voted by the user.
      *
@@ -846,25 +1264,41 @@ public class UserService {
      */
     public static Product[] getUpVotedProductsFromUser(PLYRestClient client, String userID,
             String categoryKey, String language, String fetchOnly) {
-        String url = "/user/" + userID + "/up_voted/products";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(categoryKey)) {
-            parameters.put("category_key", categoryKey);
-        }
-        if (!StringUtils.isEmpty(language)) {
-            parameters.put("language", language);
-        }
-        if (!StringUtils.isEmpty(fetchOnly)) {
-            parameters.put("fetch_only", fetchOnly);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS.expand(userID).query("category_key", categoryKey)
+                .query("language", language).query("fetch_only", fetchOnly);
 
-        ResponseEntity<Product[]> response = client
-                .exchange(url, HttpMethod.GET, Product[].class, parameters);
+        ResponseEntity<Product[]> response = client.exchange(url, HttpMethod.GET, Product[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously get all products which have been up-voted by the user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userID
+     *            The identifier of the user
+     * @param categoryKey
+     *            [Optional] The category key starting with 'pl-prod-cat-',
+     *            e.g.: pl-prod-cat-books
+     * @param language
+     *            [Optional] The preferred language (e.g.: 'en' or 'de')
+     * @param fetchOnly
+     *            [Optional] Fetch only specific keys
+     * @return A future completed with array of products
+     * @see #getUpVotedProductsFromUser
+     */
+    public static CompletableFuture<Product[]> getUpVotedProductsFromUserAsync(PLYRestClient client,
+            String userID, String categoryKey, String language, String fetchOnly) {
+        EndpointTemplate.Url url = USER_UP_VOTED_PRODUCTS.expand(userID).query("category_key", categoryKey)
+                .query("language", language).query("fetch_only", fetchOnly);
+
+        CompletableFuture<ResponseEntity<Product[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                Product[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets a specific user by nickname or ID. The nickname can change so the ID
      * should be used to request user data.
@@ -881,12 +1315,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User getUserByNicknameOrID(PLYRestClient client, String nicknameOrID) {
-        String url = "/user/" + nicknameOrID;
+        EndpointTemplate.Url url = USER.expand(nicknameOrID);
 
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.GET, User.class, null);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.GET, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously gets a specific user by nickname or ID. The nickname can
+     * change so the ID should be used to request user data.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param nicknameOrID
+     *            The nickname or ID of the user
+     * @return A future completed with the identified user
+     * @see #getUserByNicknameOrID
+     */
+    public static CompletableFuture<User> getUserByNicknameOrIDAsync(PLYRestClient client,
+            String nicknameOrID) {
+        EndpointTemplate.Url url = USER.expand(nicknameOrID);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.GET, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Gets the overall user count or the count for a specific timeframe.
      *
@@ -904,22 +1358,39 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static Count getUserCount(PLYRestClient client, Date from_date, Date to_date) {
-        String url = "/users/count";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(from_date)) {
-            parameters.put("from_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(from_date));
-        }
-        if (!StringUtils.isEmpty(to_date)) {
-            parameters.put("to_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(to_date));
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USERS_COUNT.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date));
 
         ResponseEntity<ResultMessageWithCount> response = client.exchange(url, HttpMethod.GET,
-                ResultMessageWithCount.class, parameters);
+                ResultMessageWithCount.class);
         return (Count) response.getBody().getResult();
     }
 
+    /**
+     * Asynchronously gets the overall user count or the count for a specific
+     * timeframe.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param from_date
+     *            [Optional] Start date, format: yyyy-MM-dd HH:mm:ss
+     * @param to_date
+     *            [Optional] End date, format: yyyy-MM-dd HH:mm:ss
+     * @return A future completed with the user count
+     * @see #getUserCount
+     */
+    public static CompletableFuture<Count> getUserCountAsync(PLYRestClient client, Date from_date,
+            Date to_date) {
+        EndpointTemplate.Url url = USERS_COUNT.expand().query("from_date", formatDate(from_date))
+                .query("to_date", formatDate(to_date));
+
+        CompletableFuture<ResponseEntity<ResultMessageWithCount>> sent = client.exchangeAsync(url,
+                HttpMethod.GET, ResultMessageWithCount.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> (Count) response.getBody()
+                .getResult()));
+    }
+
     /**
      * Gets the points of a user.
      *
@@ -935,14 +1406,35 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static Long getUserPoints(PLYRestClient client, String userId) {
-        String url = "/user/" + userId + "/points";
+        EndpointTemplate.Url url = USER_POINTS.expand(userId);
 
         ResponseEntity<Map<String, Long>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, Long>>() {
-                }, null);
+                });
         return Long.parseLong(response.getBody().get("points").toString());
     }
 
+    /**
+     * Asynchronously gets the points of a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userId
+     *            The identifier of the user
+     * @return A future completed with the user's points
+     * @see #getUserPoints
+     */
+    public static CompletableFuture<Long> getUserPointsAsync(PLYRestClient client, String userId) {
+        EndpointTemplate.Url url = USER_POINTS.expand(userId);
+
+        CompletableFuture<ResponseEntity<Map<String, Long>>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                new ParameterizedTypeReference<Map<String, Long>>() {
+                });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> Long.parseLong(response
+                .getBody().get("points").toString())));
+    }
+
     /**
      * Get a user's scoring history within a time range.
      *
@@ -962,23 +1454,42 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static Long getUserPointsHistory(PLYRestClient client, String userId, Date from_date, Date to_date) {
-        String url = "/user/" + userId + "/points_history";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(from_date)) {
-            parameters.put("from_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(from_date));
-        }
-        if (!StringUtils.isEmpty(to_date)) {
-            parameters.put("to_date", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(to_date));
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_POINTS_HISTORY.expand(userId)
+                .query("from_date", formatDate(from_date)).query("to_date", formatDate(to_date));
 
         ResponseEntity<Map<String, Long>> response = client.exchange(url, HttpMethod.GET,
                 new ParameterizedTypeReference<Map<String, Long>>() {
-                }, parameters);
+                });
         return Long.parseLong(response.getBody().get("points").toString());
     }
 
+    /**
+     * Asynchronously get a user's scoring history within a time range.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userId
+     *            The identifier of the user
+     * @param from_date
+     *            [Optional] Start date, format: yyyy-MM-dd
+     * @param to_date
+     *            [Optional] End date, format: yyyy-MM-dd
+     * @return A future completed with the user's scoring history
+     * @see #getUserPointsHistory
+     */
+    public static CompletableFuture<Long> getUserPointsHistoryAsync(PLYRestClient client, String userId,
+            Date from_date, Date to_date) {
+        EndpointTemplate.Url url = USER_POINTS_HISTORY.expand(userId)
+                .query("from_date", formatDate(from_date)).query("to_date", formatDate(to_date));
+
+        CompletableFuture<ResponseEntity<Map<String, Long>>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                new ParameterizedTypeReference<Map<String, Long>>() {
+                });
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> Long.parseLong(response
+                .getBody().get("points").toString())));
+    }
+
     /**
      * Sends a report about a user.
      *
@@ -996,19 +1507,35 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static ProblemReport reportUser(PLYRestClient client, String userId, ProblemReport report) {
-        String url = "/users/report_problem";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(userId)) {
-            parameters.put("user_id", userId);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USERS_REPORT_PROBLEM.expand().query("user_id", userId);
 
         ResponseEntity<ProblemReport> response = client.exchangeWithObject(url, HttpMethod.POST, report,
-                ProblemReport.class, parameters);
+                ProblemReport.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously sends a report about a user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param userId
+     *            The identifier of the user
+     * @param report
+     *            The report
+     * @return A future completed with the problem report object
+     * @see #reportUser
+     */
+    public static CompletableFuture<ProblemReport> reportUserAsync(PLYRestClient client, String userId,
+            ProblemReport report) {
+        EndpointTemplate.Url url = USERS_REPORT_PROBLEM.expand().query("user_id", userId);
+
+        CompletableFuture<ResponseEntity<ProblemReport>> sent = client.exchangeWithObjectAsync(url,
+                HttpMethod.POST, report, ProblemReport.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Generates a new password for the user. The password will be sent to the
      * user's email address.
@@ -1025,13 +1552,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User resetPasswordViaEmail(PLYRestClient client, UserEmail user) {
-        String url = "/user/lost_password";
+        EndpointTemplate.Url url = USER_LOST_PASSWORD.expand();
 
-        ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.POST, user, User.class,
-                null);
+        ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.POST, user, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously generates a new password for the user. The password will
+     * be sent to the user's email address.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param user
+     *            The user
+     * @return A future completed with the user if found
+     * @see #resetPasswordViaEmail
+     */
+    public static CompletableFuture<User> resetPasswordViaEmailAsync(PLYRestClient client, UserEmail user) {
+        EndpointTemplate.Url url = USER_LOST_PASSWORD.expand();
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeWithObjectAsync(url, HttpMethod.POST,
+                user, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Searches for a user with a simple text search.
      *
@@ -1048,18 +1594,32 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User[] searchUsers(PLYRestClient client, String query) {
-        String url = "/users";
+        EndpointTemplate.Url url = USERS.expand().query("query", query);
 
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(query)) {
-            parameters.put("query", query);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
-
-        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class, parameters);
+        ResponseEntity<User[]> response = client.exchange(url, HttpMethod.GET, User[].class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously searches for a user with a simple text search.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param query
+     *            The query may contain the email, nickname, first name and last
+     *            name of the user.
+     * @return A future completed with any users matching the text search
+     * @see #searchUsers
+     */
+    public static CompletableFuture<User[]> searchUsersAsync(PLYRestClient client, String query) {
+        EndpointTemplate.Url url = USERS.expand().query("query", query);
+
+        CompletableFuture<ResponseEntity<User[]>> sent = client.exchangeAsync(url, HttpMethod.GET,
+                User[].class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Unfollows a specific user.
      *
@@ -1075,18 +1635,30 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User unfollowUser(PLYRestClient client, String followUser) {
-        String url = "/user/unfollow";
-
-        Map<String, String> parameters = new HashMap<String, String>();
-        if (!StringUtils.isEmpty(followUser)) {
-            parameters.put("nickname", followUser);
-        }
-        url = UrlHelper.addQueryParameterPlaceholderToUrl(url, parameters);
+        EndpointTemplate.Url url = USER_UNFOLLOW.expand().query("nickname", followUser);
 
-        ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class, parameters);
+        ResponseEntity<User> response = client.exchange(url, HttpMethod.POST, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously unfollows a specific user.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param followUser
+     *            The nickname of the user
+     * @return A future completed with the updated user
+     * @see #unfollowUser
+     */
+    public static CompletableFuture<User> unfollowUserAsync(PLYRestClient client, String followUser) {
+        EndpointTemplate.Url url = USER_UNFOLLOW.expand().query("nickname", followUser);
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeAsync(url, HttpMethod.POST, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
     /**
      * Updates a specific user. Users can only update their own account.
      *
@@ -1102,11 +1674,34 @@ public class UserService {
      *             On any client-side HTTP error
      */
     public static User updateUser(PLYRestClient client, User user) {
-        String url = "/user";
+        EndpointTemplate.Url url = ME.expand();
 
-        ResponseEntity<User> response = client
-                .exchangeWithObject(url, HttpMethod.PUT, user, User.class, null);
+        ResponseEntity<User> response = client.exchangeWithObject(url, HttpMethod.PUT, user, User.class);
         return response.getBody();
     }
 
+    /**
+     * Asynchronously updates a specific user. Users can only update their own
+     * account.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param user
+     *            The user
+     * @return A future completed with the updated user
+     * @see #updateUser
+     */
+    public static CompletableFuture<User> updateUserAsync(PLYRestClient client, User user) {
+        EndpointTemplate.Url url = ME.expand();
+
+        CompletableFuture<ResponseEntity<User>> sent = client.exchangeWithObjectAsync(url, HttpMethod.PUT,
+                user, User.class);
+        return FutureHelper.propagateCancellation(sent, sent.thenApply(response -> response.getBody()));
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date) : null;
+    }
+
 }
@@ -0,0 +1,174 @@
+package com.productlayer.rest.client.timeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.beans.BaseObject;
+import com.productlayer.core.beans.ResultSetWithCursor;
+import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.services.TimelineService;
+
+/**
+ * Iterates over a timeline from the most recent to the oldest item, loading
+ * the timeline page by page. As soon as a page has been received the next
+ * (older) page is requested in the background using the non-blocking HTTP
+ * client, so it is usually available by the time the current page has been
+ * consumed.
+ *
+ * Items of an unknown type are skipped. Instances are not thread-safe. Call
+ * {@link #close()} to cancel any pending request, aborting its HTTP exchange,
+ * if the iteration is abandoned early.
+ *
+ * @see TimelineService#iterate(PLYRestClient, String, int, long)
+ * @see TimelineService#stream(PLYRestClient, String, int, long)
+ */
+public class TimelineIterator implements Iterator<BaseObject>, AutoCloseable {
+
+    private final PLYRestClient client;
+    private final long maxItems;
+
+    private Iterator<BaseObject> page = Collections.<BaseObject> emptyIterator();
+    private CompletableFuture<ResultSetWithCursor> nextPage;
+    private String lastId;
+    private long returned;
+    private boolean closed;
+
+    /**
+     * Starts loading the first page of the timeline.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param url
+     *            The URL of the timeline containing the path to the endpoint
+     *            and any filter parameters (e.g. '/timeline/me?reviews=false')
+     * @param pageSize
+     *            The amount of results to be requested per page, at most '200'
+     * @param maxItems
+     *            The maximum number of items to return, zero or negative for no
+     *            limit
+     */
+    public TimelineIterator(PLYRestClient client, String url, int pageSize, long maxItems) {
+        Assert.notNull(client, "client must not be null");
+        Assert.notNull(url, "url must not be null");
+        Assert.isTrue(pageSize > 0, "pageSize must be positive");
+        this.client = client;
+        this.maxItems = maxItems;
+        if (maxItems > 0 && maxItems < pageSize) {
+            pageSize = (int) maxItems;
+        }
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("count", Integer.toString(pageSize));
+        nextPage = TimelineService.getTimelineFromURLAsync(client, UrlHelper.replaceQueryParameterInUrl(url,
+                parameters));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PLYHttpException
+     *             On any HTTP status code indicating failure while loading the
+     *             next page
+     * @throws RestClientException
+     *             On any client-side HTTP error while loading the next page
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (maxItems > 0 && returned >= maxItems) {
+            close();
+            return false;
+        }
+        while (!page.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+            ResultSetWithCursor cursor = awaitNextPage();
+            List<BaseObject> results = cursor.getResults();
+            if (results == null || results.isEmpty()) {
+                nextPage = null;
+                return false;
+            }
+            List<BaseObject> items = new ArrayList<BaseObject>(results.size());
+            String oldestId = null;
+            for (BaseObject item : results) {
+                // skip items of an unknown type
+                if (item != null) {
+                    items.add(item);
+                    oldestId = item.getId();
+                }
+            }
+            if (oldestId == null || oldestId.equals(lastId) || cursor.getUntilThisResultsUrl() == null) {
+                // no further page or the timeline does not advance
+                nextPage = null;
+            } else {
+                lastId = oldestId;
+                // prefetch the next page while the current one is consumed
+                nextPage = TimelineService.getTimelineFromURLAsync(client, cursor.getUntilThisResultsUrl());
+            }
+            page = items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public BaseObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        returned++;
+        return page.next();
+    }
+
+    private ResultSetWithCursor awaitNextPage() {
+        try {
+            return nextPage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RestClientException("Interrupted while loading the timeline", e);
+        } catch (ExecutionException e) {
+            nextPage = null;
+            Throwable cause = FutureHelper.unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RestClientException("Failed to load the timeline", cause);
+        }
+    }
+
+    /**
+     * Stops the iteration and cancels the request for the next page, if any.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+    }
+
+    /**
+     * @return the number of items returned so far
+     */
+    public long getReturnedCount() {
+        return returned;
+    }
+
+}
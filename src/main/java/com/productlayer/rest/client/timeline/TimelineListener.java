@@ -0,0 +1,40 @@
+package com.productlayer.rest.client.timeline;
+
+import java.util.List;
+
+import com.productlayer.core.beans.BaseObject;
+
+/**
+ * Receives the items newly posted to a timeline watched by a
+ * {@link TimelinePoller}.
+ *
+ * Listeners are called from the threads of the poller's scheduler and should
+ * return quickly.
+ */
+public interface TimelineListener {
+
+    /**
+     * Called with the items posted to the timeline since the previous poll.
+     * If more items have been posted than are loaded in one poll, the older
+     * items follow in the next calls.
+     *
+     * @param url
+     *            The URL of the polled timeline
+     * @param items
+     *            The new items, most recent first
+     */
+    void onNewItems(String url, List<BaseObject> items);
+
+    /**
+     * Called if polling the timeline failed. The poller backs off and keeps
+     * polling.
+     *
+     * @param url
+     *            The URL of the polled timeline
+     * @param error
+     *            The error that occurred
+     */
+    default void onError(String url, Throwable error) {
+    }
+
+}
@@ -0,0 +1,481 @@
+package com.productlayer.rest.client.timeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.productlayer.core.beans.BaseObject;
+import com.productlayer.core.beans.ResultSetWithCursor;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.helper.FutureHelper;
+import com.productlayer.rest.client.helper.UrlHelper;
+import com.productlayer.rest.client.services.TimelineService;
+
+/**
+ * Polls any number of timelines for new items and delivers them to the
+ * registered {@link TimelineListener}s.
+ *
+ * All timelines are polled from one shared scheduler using the non-blocking
+ * HTTP client, so no thread is held per timeline or while waiting for a
+ * response. Listeners subscribing to the same URL share a single poll. For
+ * each timeline the poller keeps the ID of the newest item seen and only
+ * requests items posted since then. If more new items than fit on a page
+ * have been posted, older pages are loaded until the gap is closed. At most
+ * 10 pages are loaded per poll; the following polls continue with the older
+ * items before newer items are requested again.
+ *
+ * Polling intervals adapt to the activity of a timeline: after new items
+ * have been received the timeline is polled again after the minimum
+ * interval, while every empty result or error doubles the interval up to the
+ * maximum interval. Intervals are randomized by up to 10% to spread the
+ * polls of many timelines. Polls falling due while the maximum number of
+ * requests is in flight wait in line and are sent in order as soon as a
+ * request has completed.
+ *
+ * The first poll of a timeline subscribed to without a since ID only
+ * determines the newest item; only items posted afterwards are delivered.
+ * Items of an unknown type are skipped.
+ *
+ * Responses are processed and listeners are notified on the threads of the
+ * poller's scheduler, never on the I/O threads of the HTTP client.
+ *
+ * Timelines are polled with an immutable copy of the client taken on
+ * construction, so later changes of the client, e.g. a new login, do not
+ * apply to the poller.
+ */
+public class TimelinePoller implements AutoCloseable {
+
+    /**
+     * The default minimum time in milliseconds between two polls of a timeline.
+     */
+    public static final long DEFAULT_MIN_INTERVAL = 5000;
+
+    /**
+     * The default maximum time in milliseconds between two polls of a timeline.
+     */
+    public static final long DEFAULT_MAX_INTERVAL = 300000;
+
+    /**
+     * The default amount of results requested per poll.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * The default maximum number of concurrent requests.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    private static final int MAX_CATCH_UP_PAGES = 10;
+
+    private final PLYRestClient client;
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownScheduler;
+    private final long minInterval;
+    private final long maxInterval;
+    private final int pageSize;
+    private final Semaphore inFlight;
+
+    private final ConcurrentHashMap<String, Feed> feeds = new ConcurrentHashMap<String, Feed>();
+    // feeds due to be polled while all permits are taken
+    private final ConcurrentLinkedQueue<Feed> waiting = new ConcurrentLinkedQueue<Feed>();
+
+    private volatile boolean closed;
+
+    private static class Feed {
+        private final String url;
+        private final List<TimelineListener> listeners = new CopyOnWriteArrayList<TimelineListener>();
+        private volatile String newestId;
+        // the URL of the older items still to be loaded after a catch-up
+        // has been cut short
+        private volatile String catchUpUrl;
+        private volatile boolean cancelled;
+        private volatile long interval;
+        private ScheduledFuture<?> task;
+        private CompletableFuture<Batch> request;
+        private CompletableFuture<ResultSetWithCursor> page;
+
+        private Feed(String url, String newestId, long interval) {
+            this.url = url;
+            this.newestId = newestId;
+            this.interval = interval;
+        }
+    }
+
+    private static class Batch {
+        private final List<BaseObject> items = new ArrayList<BaseObject>();
+        private String remainingUrl;
+    }
+
+    /**
+     * Constructs a poller using the default intervals and limits and its own
+     * single-threaded scheduler.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     */
+    public TimelinePoller(PLYRestClient client) {
+        this(client, null, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL, DEFAULT_PAGE_SIZE,
+                DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Constructs a poller.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param scheduler
+     *            [Optional] The scheduler to poll from, shared with the caller
+     *            and not shut down on {@link #close()}; a single-threaded
+     *            scheduler is created if null
+     * @param minInterval
+     *            The minimum time in milliseconds between two polls of a
+     *            timeline
+     * @param maxInterval
+     *            The maximum time in milliseconds between two polls of a
+     *            timeline
+     * @param pageSize
+     *            The amount of results requested per poll, maximum: '200'
+     * @param maxInFlight
+     *            The maximum number of concurrent requests over all timelines
+     */
+    public TimelinePoller(PLYRestClient client, ScheduledExecutorService scheduler, long minInterval,
+            long maxInterval, int pageSize, int maxInFlight) {
+        Assert.notNull(client, "client must not be null");
+        Assert.isTrue(minInterval > 0, "minInterval must be positive");
+        Assert.isTrue(maxInterval >= minInterval, "maxInterval must not be less than minInterval");
+        Assert.isTrue(pageSize > 0, "pageSize must be positive");
+        Assert.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+        // polled from the scheduler, the client must not change meanwhile
+        this.client = client.isImmutable() ? client : client.immutableCopy();
+        this.ownScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler : Executors
+                .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ply-timeline-poller");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.pageSize = pageSize;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Starts watching a timeline for new items.
+     *
+     * @param url
+     *            The URL containing the path to the endpoint and any filter
+     *            parameters (e.g. '/timeline/me?reviews=false')
+     * @param listener
+     *            The listener to notify of new items
+     */
+    public void subscribe(String url, TimelineListener listener) {
+        subscribe(url, null, listener);
+    }
+
+    /**
+     * Starts watching a timeline for items newer than {@code sinceID}, e.g. to
+     * resume polling from the ID returned by {@link #getNewestId(String)}. If
+     * the timeline is already being watched {@code sinceID} is ignored.
+     *
+     * @param url
+     *            The URL containing the path to the endpoint and any filter
+     *            parameters (e.g. '/timeline/me?reviews=false')
+     * @param sinceID
+     *            [Optional] Deliver items with an ID greater than (that is,
+     *            more recent than) the specified ID
+     * @param listener
+     *            The listener to notify of new items
+     */
+    public void subscribe(String url, String sinceID, TimelineListener listener) {
+        Assert.notNull(url, "url must not be null");
+        Assert.notNull(listener, "listener must not be null");
+        Assert.isTrue(!closed, "poller has been closed");
+        while (true) {
+            Feed feed = feeds.computeIfAbsent(url, key -> new Feed(key, sinceID, minInterval));
+            feed.listeners.add(listener);
+            synchronized (feed) {
+                if (!feed.cancelled) {
+                    if (feed.task == null && feed.request == null) {
+                        schedule(feed, jitter(minInterval) - minInterval);
+                    }
+                    return;
+                }
+            }
+            // the feed has just been unsubscribed from, start over
+            feeds.remove(url, feed);
+        }
+    }
+
+    /**
+     * Starts watching the timeline of the signed in user for new items.
+     *
+     * @param listener
+     *            The listener to notify of new items
+     */
+    public void subscribeMyTimeline(TimelineListener listener) {
+        subscribe("/timeline/me", listener);
+    }
+
+    /**
+     * Starts watching the timeline of a product for new items.
+     *
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param listener
+     *            The listener to notify of new items
+     */
+    public void subscribeProductTimeline(String gtin, TimelineListener listener) {
+        subscribe("/timeline/product/" + gtin, listener);
+    }
+
+    /**
+     * Stops notifying a listener of new items of a timeline. The timeline is
+     * no longer polled once its last listener has been removed.
+     *
+     * @param url
+     *            The URL of the timeline
+     * @param listener
+     *            The listener to remove
+     */
+    public void unsubscribe(String url, TimelineListener listener) {
+        Feed feed = feeds.get(url);
+        if (feed == null) {
+            return;
+        }
+        feed.listeners.remove(listener);
+        if (feed.listeners.isEmpty() && feeds.remove(url, feed)) {
+            cancel(feed);
+        }
+    }
+
+    /**
+     * @return the URLs of the watched timelines
+     */
+    public Set<String> getSubscribedUrls() {
+        return Collections.unmodifiableSet(feeds.keySet());
+    }
+
+    /**
+     * @param url
+     *            The URL of the timeline
+     * @return the ID of the newest item seen in the timeline, or null if the
+     *         timeline is not watched or has not been polled yet
+     */
+    public String getNewestId(String url) {
+        Feed feed = feeds.get(url);
+        return feed != null ? feed.newestId : null;
+    }
+
+    /**
+     * Stops polling all timelines and shuts down the scheduler if it has been
+     * created by this poller.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Feed feed : feeds.values()) {
+            cancel(feed);
+        }
+        feeds.clear();
+        waiting.clear();
+        if (ownScheduler) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void cancel(Feed feed) {
+        synchronized (feed) {
+            feed.cancelled = true;
+            if (feed.task != null) {
+                feed.task.cancel(false);
+                feed.task = null;
+            }
+            if (feed.page != null) {
+                // aborts the HTTP exchange
+                feed.page.cancel(true);
+                feed.page = null;
+            }
+            if (feed.request != null) {
+                feed.request.cancel(true);
+                feed.request = null;
+            }
+        }
+    }
+
+    private void schedule(Feed feed, long delay) {
+        synchronized (feed) {
+            if (feed.cancelled || closed) {
+                return;
+            }
+            feed.task = scheduler.schedule(() -> poll(feed), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll(Feed feed) {
+        if (!inFlight.tryAcquire()) {
+            // too many requests in flight, wait for a permit to be released
+            waiting.add(feed);
+            // the permit may have been released before the feed was queued
+            pollWaiting();
+            return;
+        }
+        if (!start(feed)) {
+            release();
+        }
+    }
+
+    private void release() {
+        inFlight.release();
+        pollWaiting();
+    }
+
+    private void pollWaiting() {
+        while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+            Feed feed = waiting.poll();
+            if (feed == null || !start(feed)) {
+                inFlight.release();
+            }
+        }
+    }
+
+    // sends the poll holding a permit, returns false if the feed has been
+    // cancelled or the poller closed and the permit is still to be released
+    private boolean start(final Feed feed) {
+        final String sinceID = feed.newestId;
+        final String catchUpUrl = feed.catchUpUrl;
+        CompletableFuture<Batch> request;
+        synchronized (feed) {
+            feed.task = null;
+            if (feed.cancelled || closed) {
+                return false;
+            }
+            String url = catchUpUrl != null ? catchUpUrl : pageUrl(feed.url, sinceID);
+            request = fetch(feed, url, sinceID != null, new Batch(), 0);
+            feed.request = request;
+        }
+        request.whenCompleteAsync((batch, ex) -> {
+            release();
+            synchronized (feed) {
+                feed.request = null;
+                feed.page = null;
+                if (feed.cancelled) {
+                    return;
+                }
+            }
+            try {
+                if (ex != null) {
+                    backOff(feed);
+                    notifyError(feed, FutureHelper.unwrap(ex));
+                    return;
+                }
+                feed.catchUpUrl = batch.remainingUrl;
+                if (batch.items.isEmpty()) {
+                    backOff(feed);
+                    return;
+                }
+                if (catchUpUrl == null) {
+                    feed.newestId = batch.items.get(0).getId();
+                }
+                feed.interval = minInterval;
+                if (sinceID != null) {
+                    notifyNewItems(feed, Collections.unmodifiableList(batch.items));
+                }
+            } finally {
+                schedule(feed, jitter(feed.interval));
+            }
+        }, scheduler);
+        return true;
+    }
+
+    private String pageUrl(String url, String sinceID) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("count", Integer.toString(pageSize));
+        if (sinceID != null) {
+            parameters.put("since_id", sinceID);
+        }
+        return UrlHelper.replaceQueryParameterInUrl(url, parameters);
+    }
+
+    private CompletableFuture<Batch> fetch(final Feed feed, String url, final boolean catchUp,
+            final Batch batch, final int pages) {
+        CompletableFuture<ResultSetWithCursor> page;
+        synchronized (feed) {
+            if (feed.cancelled) {
+                CompletableFuture<Batch> cancelled = new CompletableFuture<Batch>();
+                cancelled.cancel(false);
+                return cancelled;
+            }
+            page = TimelineService.getTimelineFromURLAsync(client, url);
+            feed.page = page;
+        }
+        return page.thenComposeAsync((ResultSetWithCursor cursor) -> {
+            List<BaseObject> results = cursor.getResults();
+            for (BaseObject item : results) {
+                if (item != null) {
+                    batch.items.add(item);
+                }
+            }
+            // the until URL keeps the since ID: load older pages until all
+            // items since the last poll have been received
+            String untilUrl = cursor.getUntilThisResultsUrl();
+            if (catchUp && results.size() >= pageSize && untilUrl != null) {
+                if (pages + 1 < MAX_CATCH_UP_PAGES) {
+                    return fetch(feed, untilUrl, catchUp, batch, pages + 1);
+                }
+                // continue on the next poll
+                batch.remainingUrl = untilUrl;
+            }
+            return CompletableFuture.completedFuture(batch);
+        }, scheduler);
+    }
+
+    private void backOff(Feed feed) {
+        feed.interval = Math.min(maxInterval, feed.interval * 2);
+    }
+
+    private static long jitter(long interval) {
+        return interval + ThreadLocalRandom.current().nextLong(interval / 10 + 1);
+    }
+
+    private void notifyNewItems(Feed feed, List<BaseObject> items) {
+        for (TimelineListener listener : feed.listeners) {
+            try {
+                listener.onNewItems(feed.url, items);
+            } catch (RuntimeException e) {
+                // keep polling and notifying other listeners
+            }
+        }
+    }
+
+    private void notifyError(Feed feed, Throwable error) {
+        for (TimelineListener listener : feed.listeners) {
+            try {
+                listener.onError(feed.url, error);
+            } catch (RuntimeException e) {
+                // keep polling and notifying other listeners
+            }
+        }
+    }
+
+}
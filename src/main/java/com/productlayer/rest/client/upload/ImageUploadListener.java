@@ -0,0 +1,41 @@
+package com.productlayer.rest.client.upload;
+
+import java.nio.file.Path;
+
+import com.productlayer.core.beans.ProductImage;
+
+/**
+ * Receives the outcome of the uploads of an {@link ImageUploadPipeline}.
+ *
+ * Listeners are called from the worker threads of the pipeline and should
+ * return quickly.
+ */
+public interface ImageUploadListener {
+
+    /**
+     * Called once an image has been uploaded and, if requested, rotated.
+     *
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param file
+     *            The uploaded file
+     * @param image
+     *            The metadata of the uploaded image
+     */
+    default void onUploaded(String gtin, Path file, ProductImage image) {
+    }
+
+    /**
+     * Called if an image could not be uploaded or rotated after all attempts.
+     *
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param file
+     *            The file to upload
+     * @param error
+     *            The error of the last attempt
+     */
+    default void onFailed(String gtin, Path file, Throwable error) {
+    }
+
+}
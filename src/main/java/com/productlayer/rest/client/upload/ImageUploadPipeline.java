@@ -0,0 +1,356 @@
+package com.productlayer.rest.client.upload;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import com.productlayer.core.beans.ProductImage;
+import com.productlayer.core.error.PLYHttpException;
+import com.productlayer.core.utils.Assert;
+import com.productlayer.rest.client.PLYRestClient;
+import com.productlayer.rest.client.http.UploadSource;
+import com.productlayer.rest.client.services.ImageService;
+
+/**
+ * Uploads product images concurrently from a fixed number of worker threads.
+ *
+ * Images of the same product are uploaded one after the other in the order
+ * they have been submitted, while images of different products are uploaded
+ * in parallel. At most {@code maxQueued} uploads are accepted but not yet
+ * finished; submitting further uploads blocks until one finishes, so the
+ * producer cannot outrun the server.
+ *
+ * Uploads and rotations are not idempotent, so they are only retried if they
+ * cannot have been processed by the server: if no connection could be
+ * established, if the client's request throttle or endpoint isolation
+ * rejected them, or if the server responded 429 (Too Many Requests) or 503
+ * (Service Unavailable) with a {@code Retry-After} header. Retries follow an
+ * exponentially growing, randomized delay of at least the requested
+ * {@code Retry-After}. Files are streamed while they are uploaded.
+ *
+ * Throughput scales with the number of workers as long as the connection
+ * pool of the client allows as many connections to the API server (see
+ * {@code PLYRestClientConfig#maxConnectionsPerRoute}).
+ *
+ * The workers send with an immutable copy of the client taken on
+ * construction, so later changes of the client, e.g. a new login, do not
+ * apply to the pipeline.
+ */
+public class ImageUploadPipeline implements AutoCloseable {
+
+    /**
+     * The default number of worker threads.
+     */
+    public static final int DEFAULT_WORKERS = 8;
+
+    /**
+     * The default maximum number of accepted but unfinished uploads.
+     */
+    public static final int DEFAULT_MAX_QUEUED = 256;
+
+    /**
+     * The default maximum number of attempts per upload or rotation.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * The default delay in milliseconds before the first retry.
+     */
+    public static final long DEFAULT_RETRY_DELAY = 500;
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final PLYRestClient client;
+    private final ExecutorService workers;
+    private final int maxQueued;
+    private final Semaphore backlog;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final ImageUploadListener listener;
+
+    // the last upload submitted per GTIN, guarded by itself
+    private final Map<String, CompletableFuture<Void>> tails = new HashMap<String, CompletableFuture<Void>>();
+
+    private volatile boolean closed;
+
+    /**
+     * Constructs a pipeline using the default limits.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     */
+    public ImageUploadPipeline(PLYRestClient client) {
+        this(client, DEFAULT_WORKERS, DEFAULT_MAX_QUEUED, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY, null);
+    }
+
+    /**
+     * Constructs a pipeline.
+     *
+     * @param client
+     *            The REST client configured to handle communications with the
+     *            ProductLayer API server
+     * @param workers
+     *            The number of uploads sent concurrently
+     * @param maxQueued
+     *            The maximum number of accepted but unfinished uploads
+     * @param maxAttempts
+     *            The maximum number of attempts per upload or rotation
+     * @param retryDelay
+     *            The delay in milliseconds before the first retry, doubled
+     *            with every further retry
+     * @param listener
+     *            [Optional] The listener to notify of every finished upload
+     */
+    public ImageUploadPipeline(PLYRestClient client, int workers, int maxQueued, int maxAttempts,
+            long retryDelay, ImageUploadListener listener) {
+        Assert.notNull(client, "client must not be null");
+        Assert.isTrue(workers > 0, "workers must be positive");
+        Assert.isTrue(maxQueued >= workers, "maxQueued must not be less than workers");
+        Assert.isTrue(maxAttempts > 0, "maxAttempts must be positive");
+        Assert.isTrue(retryDelay >= 0, "retryDelay must not be negative");
+        // the workers share the client, which must not change meanwhile
+        this.client = client.isImmutable() ? client : client.immutableCopy();
+        final int poolNumber = POOL_NUMBER.incrementAndGet();
+        this.workers = Executors.newFixedThreadPool(workers, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ply-image-upload-" + poolNumber + "-"
+                        + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.maxQueued = maxQueued;
+        this.backlog = new Semaphore(maxQueued);
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.listener = listener;
+    }
+
+    /**
+     * Submits an image to upload, blocking while the backlog is full.
+     *
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param file
+     *            The image file to upload
+     * @return a future completed with the metadata of the uploaded image, or
+     *         completed exceptionally with the error of the last attempt
+     * @throws RestClientException
+     *             If interrupted while waiting for space in the backlog
+     */
+    public CompletableFuture<ProductImage> submit(String gtin, Path file) {
+        return submit(gtin, file, null);
+    }
+
+    /**
+     * Submits an image to upload and rotate, blocking while the backlog is
+     * full. If the rotation fails the future is completed exceptionally,
+     * although the image has been uploaded.
+     *
+     * @param gtin
+     *            The GTIN (barcode) of the product
+     * @param file
+     *            The image file to upload
+     * @param rotateDegrees
+     *            [Optional] The degrees to rotate the uploaded image clockwise
+     * @return a future completed with the metadata of the uploaded (and
+     *         rotated) image, or completed exceptionally with the error of
+     *         the last attempt
+     * @throws RestClientException
+     *             If interrupted while waiting for space in the backlog
+     */
+    public CompletableFuture<ProductImage> submit(String gtin, Path file, Integer rotateDegrees) {
+        Assert.notNull(gtin, "gtin must not be null");
+        Assert.notNull(file, "file must not be null");
+        Assert.isTrue(!closed, "pipeline has been closed");
+        try {
+            backlog.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for space in the upload backlog", e);
+        }
+        if (closed) {
+            backlog.release();
+            Assert.isTrue(false, "pipeline has been closed");
+        }
+
+        final CompletableFuture<ProductImage> result = new CompletableFuture<ProductImage>();
+        // completed once the upload has finished, even if result is cancelled
+        final CompletableFuture<Void> done = new CompletableFuture<Void>();
+        final Runnable upload = () -> {
+            try {
+                upload(gtin, file, rotateDegrees, result);
+            } finally {
+                done.complete(null);
+            }
+        };
+        synchronized (tails) {
+            CompletableFuture<Void> previous = tails.put(gtin, done);
+            if (previous == null) {
+                workers.execute(upload);
+            } else {
+                // keep the order of the uploads per product
+                previous.whenComplete((ignored, error) -> workers.execute(upload));
+            }
+        }
+        done.whenComplete((ignored, error) -> {
+            synchronized (tails) {
+                tails.remove(gtin, done);
+            }
+            backlog.release();
+        });
+        return result;
+    }
+
+    /**
+     * @return the number of accepted but unfinished uploads
+     */
+    public int getPendingCount() {
+        return maxQueued - backlog.availablePermits();
+    }
+
+    /**
+     * Stops accepting uploads, waits for all accepted uploads to finish and
+     * shuts down the worker threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        backlog.acquireUninterruptibly(maxQueued);
+        workers.shutdown();
+        // let submissions racing with close fail instead of blocking
+        backlog.release(maxQueued);
+    }
+
+    private void upload(String gtin, Path file, Integer rotateDegrees,
+            CompletableFuture<ProductImage> result) {
+        if (result.isDone()) {
+            // cancelled while waiting
+            return;
+        }
+        ProductImage image;
+        try {
+            UploadSource source;
+            try {
+                source = UploadSource.of(file);
+            } catch (IOException e) {
+                throw new ResourceAccessException("I/O error reading " + file + ": " + e.getMessage(), e);
+            }
+            image = withRetries(() -> ImageService.uploadProductImage(client, gtin, source));
+            if (rotateDegrees != null && image != null) {
+                String imageID = image.getId();
+                image = withRetries(() -> ImageService.rotateImage(client, imageID, rotateDegrees));
+            }
+        } catch (RuntimeException e) {
+            if (listener != null) {
+                try {
+                    listener.onFailed(gtin, file, e);
+                } catch (RuntimeException le) {
+                    // the upload's outcome stands
+                }
+            }
+            result.completeExceptionally(e);
+            return;
+        }
+        if (listener != null) {
+            try {
+                listener.onUploaded(gtin, file, image);
+            } catch (RuntimeException e) {
+                // the upload's outcome stands
+            }
+        }
+        result.complete(image);
+    }
+
+    private <T> T withRetries(Supplier<T> call) {
+        long delay = retryDelay;
+        for (int attempt = 1;; attempt++) {
+            long retryAfter;
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                retryAfter = getRetryAfter(e);
+            }
+            try {
+                // up to 50% less to spread the retries of concurrent uploads
+                TimeUnit.MILLISECONDS.sleep(Math.max(retryAfter, delay
+                        - (long) (ThreadLocalRandom.current().nextDouble() * delay / 2)));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RestClientException("Interrupted while waiting to retry the upload", ie);
+            }
+            delay *= 2;
+        }
+    }
+
+    // only errors of requests which have not been processed by the server
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!(e instanceof PLYHttpException)) {
+            return false;
+        }
+        int status = ((PLYHttpException) e).getHttpStatus();
+        if (status != 429 && status != 503) {
+            return false;
+        }
+        // rejected by the request throttle or the endpoint isolation
+        // without a cause, or by the server if it asks for a retry
+        return e.getCause() == null || getRetryAfter(e) >= 0;
+    }
+
+    /**
+     * @return the delay in milliseconds requested by the Retry-After header
+     *         of the response, or -1 if none
+     */
+    private static long getRetryAfter(RuntimeException e) {
+        if (!(e.getCause() instanceof HttpStatusCodeException)) {
+            return -1;
+        }
+        HttpHeaders headers = ((HttpStatusCodeException) e.getCause()).getResponseHeaders();
+        String retryAfter = headers != null ? headers.getFirst("Retry-After") : null;
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException nfe) {
+            try {
+                return Math.max(0, headers.getFirstDate("Retry-After") - System.currentTimeMillis());
+            } catch (IllegalArgumentException iae) {
+                return -1;
+            }
+        }
+    }
+
+}